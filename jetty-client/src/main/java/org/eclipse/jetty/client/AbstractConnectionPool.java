@@ -312,7 +312,7 @@ public abstract class AbstractConnectionPool extends ContainerLifeCycle implemen
     {
         while (true)
         {
-            Pool<Connection>.Entry entry = pool.acquire();
+            Pool<Connection>.Entry entry = acquire(pool);
             if (entry != null)
             {
                 Connection connection = entry.getPooled();
@@ -341,6 +341,19 @@ public abstract class AbstractConnectionPool extends ContainerLifeCycle implemen
         }
     }
 
+    /**
+     * <p>Acquires an entry from the given pool.</p>
+     * <p>Subclasses may override this method to select the entry
+     * to acquire with a policy different from the pool strategy.</p>
+     *
+     * @param pool the pool of connections
+     * @return an acquired entry, or null if no entry is available
+     */
+    protected Pool<Connection>.Entry acquire(Pool<Connection> pool)
+    {
+        return pool.acquire();
+    }
+
     @Override
     public boolean isActive(Connection connection)
     {
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
+import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
@@ -39,6 +40,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jetty.client.api.AuthenticationStore;
 import org.eclipse.jetty.client.api.Connection;
@@ -148,6 +150,9 @@ public class HttpClient extends ContainerLifeCycle
     private String defaultRequestContentType = "application/octet-stream";
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
+    private boolean lockFreeExchangeQueue;
+    private boolean happyEyeballs;
+    private long connectionAttemptDelay = 250;
 
     /**
      * Creates a HttpClient instance that can perform HTTP/1.1 requests to non-TLS and TLS destinations.
@@ -576,7 +581,10 @@ public class HttpClient extends ContainerLifeCycle
             @Override
             public void succeeded(List<InetSocketAddress> socketAddresses)
             {
-                connect(socketAddresses, 0, context);
+                if (isHappyEyeballs() && socketAddresses.size() > 1)
+                    new HappyEyeballsConnect(interleave(socketAddresses), context, promise).attempt();
+                else
+                    connect(socketAddresses, 0, context);
             }
 
             @Override
@@ -604,6 +612,41 @@ public class HttpClient extends ContainerLifeCycle
         });
     }
 
+    /**
+     * <p>Orders the given addresses alternating the address families,
+     * starting with the family of the first address, as specified
+     * by <a href="https://datatracker.ietf.org/doc/html/rfc8305#section-4">RFC 8305</a>.</p>
+     *
+     * @param socketAddresses the resolved addresses
+     * @return the addresses with interleaved address families
+     */
+    private static List<InetSocketAddress> interleave(List<InetSocketAddress> socketAddresses)
+    {
+        List<InetSocketAddress> ipv6 = new ArrayList<>();
+        List<InetSocketAddress> ipv4 = new ArrayList<>();
+        for (InetSocketAddress socketAddress : socketAddresses)
+        {
+            if (socketAddress.getAddress() instanceof Inet6Address)
+                ipv6.add(socketAddress);
+            else
+                ipv4.add(socketAddress);
+        }
+        if (ipv6.isEmpty() || ipv4.isEmpty())
+            return socketAddresses;
+        boolean ipv6First = socketAddresses.get(0).getAddress() instanceof Inet6Address;
+        Iterator<InetSocketAddress> first = (ipv6First ? ipv6 : ipv4).iterator();
+        Iterator<InetSocketAddress> second = (ipv6First ? ipv4 : ipv6).iterator();
+        List<InetSocketAddress> result = new ArrayList<>(socketAddresses.size());
+        while (first.hasNext() || second.hasNext())
+        {
+            if (first.hasNext())
+                result.add(first.next());
+            if (second.hasNext())
+                result.add(second.next());
+        }
+        return result;
+    }
+
     private HttpConversation newConversation()
     {
         return new HttpConversation();
@@ -795,6 +838,10 @@ public class HttpClient extends ContainerLifeCycle
     }
 
     /**
+     * <p>Sets the {@link Scheduler} of this HttpClient, by default a {@link ScheduledExecutorScheduler}.</p>
+     * <p>A {@link org.eclipse.jetty.util.thread.TimingWheelScheduler} makes the frequent rescheduling
+     * of the idle timeouts cheaper for clients with many connections, at the cost of a coarser resolution.</p>
+     *
      * @param scheduler the {@link Scheduler} of this HttpClient
      */
     public void setScheduler(Scheduler scheduler)
@@ -873,6 +920,32 @@ public class HttpClient extends ContainerLifeCycle
         this.maxRequestsQueuedPerDestination = maxRequestsQueuedPerDestination;
     }
 
+    /**
+     * @return whether destinations queue requests in a lock-free queue
+     * @see #setLockFreeExchangeQueue(boolean)
+     */
+    @ManagedAttribute("Whether destinations queue requests in a lock-free queue")
+    public boolean isLockFreeExchangeQueue()
+    {
+        return lockFreeExchangeQueue;
+    }
+
+    /**
+     * <p>Sets whether destinations queue requests in a lock-free queue.</p>
+     * <p>The lock-free queue is bounded by {@link #getMaxRequestsQueuedPerDestination()}
+     * like the default queue, but it does not acquire locks when requests are queued
+     * and dequeued, reducing the contention when many threads send requests to the
+     * same destination.</p>
+     * <p>This setting only affects destinations created after it is changed.</p>
+     *
+     * @param lockFreeExchangeQueue whether destinations queue requests in a lock-free queue
+     * @see #setMaxRequestsQueuedPerDestination(int)
+     */
+    public void setLockFreeExchangeQueue(boolean lockFreeExchangeQueue)
+    {
+        this.lockFreeExchangeQueue = lockFreeExchangeQueue;
+    }
+
     /**
      * @return the size of the buffer used to write requests
      */
@@ -1061,6 +1134,56 @@ public class HttpClient extends ContainerLifeCycle
         connector.setConnectBlocking(connectBlocking);
     }
 
+    /**
+     * @return whether connections are opened racing the resolved addresses
+     * @see #setHappyEyeballs(boolean)
+     */
+    @ManagedAttribute("Whether connections are opened racing the resolved addresses")
+    public boolean isHappyEyeballs()
+    {
+        return happyEyeballs;
+    }
+
+    /**
+     * <p>Whether connections are opened racing the resolved addresses of a destination,
+     * as specified by <a href="https://datatracker.ietf.org/doc/html/rfc8305">RFC 8305</a>
+     * (the "Happy Eyeballs" algorithm).</p>
+     * <p>The resolved addresses are ordered alternating the IPv6 and IPv4 address families;
+     * a connection attempt is started for the first address, and if it does not complete
+     * within the {@link #getConnectionAttemptDelay() connection attempt delay}, or if it fails,
+     * a connection attempt is started for the next address, and so on.
+     * The first connection attempt that succeeds is used, while the connections opened by
+     * the other attempts that succeed later are closed.</p>
+     * <p>Otherwise, the resolved addresses are tried sequentially, and a connection
+     * attempt is started only after the previous one failed.</p>
+     *
+     * @param happyEyeballs whether connections are opened racing the resolved addresses
+     */
+    public void setHappyEyeballs(boolean happyEyeballs)
+    {
+        this.happyEyeballs = happyEyeballs;
+    }
+
+    /**
+     * @return the delay, in milliseconds, before starting the next connection attempt
+     * @see #setHappyEyeballs(boolean)
+     */
+    @ManagedAttribute("The delay, in milliseconds, before starting the next connection attempt")
+    public long getConnectionAttemptDelay()
+    {
+        return connectionAttemptDelay;
+    }
+
+    /**
+     * @param connectionAttemptDelay the delay, in milliseconds, before starting the next
+     * connection attempt, when the previous connection attempt is still in progress
+     * @see #setHappyEyeballs(boolean)
+     */
+    public void setConnectionAttemptDelay(long connectionAttemptDelay)
+    {
+        this.connectionAttemptDelay = connectionAttemptDelay;
+    }
+
     /**
      * @return the default content type for request content
      */
@@ -1160,6 +1283,113 @@ public class HttpClient extends ContainerLifeCycle
         return new SslClientConnectionFactory(sslContextFactory, getByteBufferPool(), getExecutor(), connectionFactory);
     }
 
+    /**
+     * <p>Races connection attempts to the resolved addresses of a destination,
+     * starting a new attempt every {@link #getConnectionAttemptDelay() connection attempt delay},
+     * or as soon as the previous attempt fails.</p>
+     */
+    private class HappyEyeballsConnect
+    {
+        private final AtomicBoolean complete = new AtomicBoolean();
+        private final List<InetSocketAddress> socketAddresses;
+        private final Map<String, Object> context;
+        private final Promise<Connection> promise;
+        private int next;
+        private int pending;
+        private Throwable failure;
+        private Scheduler.Task task;
+
+        private HappyEyeballsConnect(List<InetSocketAddress> socketAddresses, Map<String, Object> context, Promise<Connection> promise)
+        {
+            this.socketAddresses = socketAddresses;
+            this.context = context;
+            this.promise = promise;
+        }
+
+        private void attempt()
+        {
+            InetSocketAddress socketAddress;
+            synchronized (this)
+            {
+                if (task != null)
+                    task.cancel();
+                task = null;
+                if (complete.get() || next == socketAddresses.size())
+                    return;
+                socketAddress = socketAddresses.get(next++);
+                ++pending;
+                if (next < socketAddresses.size())
+                    task = getScheduler().schedule(this::attempt, getConnectionAttemptDelay(), TimeUnit.MILLISECONDS);
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Connection attempt to {}", socketAddress);
+
+            // Each attempt has its own context, as the context holds per-connection state.
+            Map<String, Object> attemptContext = new ConcurrentHashMap<>(context);
+            attemptContext.put(HttpClientTransport.HTTP_CONNECTION_PROMISE_CONTEXT_KEY, new Promise<Connection>()
+            {
+                @Override
+                public void succeeded(Connection connection)
+                {
+                    attemptSucceeded(connection);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    attemptFailed(socketAddress, x);
+                }
+            });
+            transport.connect((SocketAddress)socketAddress, attemptContext);
+        }
+
+        private void attemptSucceeded(Connection connection)
+        {
+            if (complete.compareAndSet(false, true))
+            {
+                synchronized (this)
+                {
+                    if (task != null)
+                        task.cancel();
+                    task = null;
+                }
+                promise.succeeded(connection);
+            }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Closing connection attempt that lost the race {}", connection);
+                connection.close();
+            }
+        }
+
+        private void attemptFailed(InetSocketAddress socketAddress, Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Connection attempt to {} failed", socketAddress, x);
+            boolean exhausted;
+            synchronized (this)
+            {
+                --pending;
+                if (failure == null)
+                    failure = x;
+                else if (failure != x)
+                    failure.addSuppressed(x);
+                exhausted = pending == 0 && next == socketAddresses.size();
+            }
+            if (exhausted)
+            {
+                if (complete.compareAndSet(false, true))
+                    promise.failed(failure);
+            }
+            else
+            {
+                attempt();
+            }
+        }
+    }
+
     private class ContentDecoderFactorySet implements Set<ContentDecoder.Factory>
     {
         private final Set<ContentDecoder.Factory> set = new HashSet<>();
@@ -32,6 +32,7 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.io.ClientConnectionFactory;
 import org.eclipse.jetty.io.CyclicTimeouts;
 import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.BoundedConcurrentLinkedQueue;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.HostPort;
 import org.eclipse.jetty.util.Promise;
@@ -133,6 +134,8 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
     protected Queue<HttpExchange> newExchangeQueue(HttpClient client)
     {
         int maxCapacity = client.getMaxRequestsQueuedPerDestination();
+        if (client.isLockFreeExchangeQueue())
+            return new BoundedConcurrentLinkedQueue<>(maxCapacity);
         if (maxCapacity > 32)
             return new BlockingArrayQueue<>(32, 32, maxCapacity);
         return new BlockingArrayQueue<>(maxCapacity);
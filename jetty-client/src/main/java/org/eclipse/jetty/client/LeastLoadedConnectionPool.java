@@ -0,0 +1,174 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A {@link ConnectionPool} that provides the connection with the lowest load,
+ * where the load of a connection is its number of active requests weighted by
+ * an exponentially weighted moving average (EWMA) of its request latency.</p>
+ * <p>A connection that is slow, for example because the server it is connected to
+ * is overloaded, accumulates a higher latency and is therefore chosen less often,
+ * so that it stalls a smaller share of the requests.</p>
+ * <p>The latency of a connection is estimated from the time its requests are active,
+ * that is between {@link #acquire(boolean) acquire} and {@link #release(Connection) release},
+ * without the need to track each request individually; the age of the requests that are
+ * still active is also taken into account, so that a connection whose requests stall is
+ * penalized even before they complete.</p>
+ * <p>All the connections are visited to find the one with the lowest load,
+ * so this class is best suited to a small number of multiplexed connections,
+ * such as HTTP/2 connections to a few upstream servers.</p>
+ */
+@ManagedObject
+public class LeastLoadedConnectionPool extends MultiplexConnectionPool
+{
+    private final Map<Connection, Load> loads = new ConcurrentHashMap<>();
+    private volatile double latencyWeight = 0.2;
+
+    public LeastLoadedConnectionPool(HttpDestination destination, int maxConnections, Callback requester)
+    {
+        this(destination, maxConnections, requester, 1);
+    }
+
+    public LeastLoadedConnectionPool(HttpDestination destination, int maxConnections, Callback requester, int maxMultiplex)
+    {
+        super(destination, Pool.StrategyType.FIRST, maxConnections, false, requester, maxMultiplex);
+    }
+
+    /**
+     * @return the weight of the most recent sample in the latency moving average
+     */
+    @ManagedAttribute("The weight of the most recent sample in the latency moving average")
+    public double getLatencyWeight()
+    {
+        return latencyWeight;
+    }
+
+    /**
+     * <p>Sets the weight, between 0 (excluded) and 1 (included), of the most recent
+     * latency sample in the exponentially weighted moving average of the latency.</p>
+     * <p>Larger values make the pool react faster to latency changes,
+     * smaller values make the pool less sensitive to latency spikes.</p>
+     *
+     * @param latencyWeight the weight of the most recent sample in the latency moving average
+     */
+    public void setLatencyWeight(double latencyWeight)
+    {
+        if (latencyWeight <= 0 || latencyWeight > 1)
+            throw new IllegalArgumentException("Invalid latency weight " + latencyWeight);
+        this.latencyWeight = latencyWeight;
+    }
+
+    @Override
+    protected Pool<Connection>.Entry acquire(Pool<Connection> pool)
+    {
+        long now = System.nanoTime();
+        return pool.acquireLowestCost(connection ->
+        {
+            Load load = loads.get(connection);
+            return load == null ? Double.MAX_VALUE : load.getCost(now);
+        });
+    }
+
+    @Override
+    protected void onCreated(Connection connection)
+    {
+        loads.put(connection, new Load());
+        super.onCreated(connection);
+    }
+
+    @Override
+    protected void acquired(Connection connection)
+    {
+        Load load = loads.get(connection);
+        if (load != null)
+            load.acquired(System.nanoTime());
+        super.acquired(connection);
+    }
+
+    @Override
+    protected void released(Connection connection)
+    {
+        Load load = loads.get(connection);
+        if (load != null)
+            load.released(System.nanoTime(), getLatencyWeight());
+        super.released(connection);
+    }
+
+    @Override
+    protected void removed(Connection connection)
+    {
+        loads.remove(connection);
+        super.removed(connection);
+    }
+
+    /**
+     * <p>The load of a connection.</p>
+     * <p>By Little's law, the sum of the latencies of the requests equals the time
+     * integral of the number of active requests; the integral accumulated between
+     * two releases is therefore a sample of the latency of a request.</p>
+     */
+    private static class Load
+    {
+        private int active;
+        private long timeStamp = System.nanoTime();
+        private double activeTime;
+        private double latency;
+
+        private synchronized void acquired(long now)
+        {
+            update(now);
+            ++active;
+        }
+
+        private synchronized void released(long now, double weight)
+        {
+            // A connection may be removed while it is idle.
+            if (active == 0)
+                return;
+            update(now);
+            --active;
+            double sample = activeTime;
+            activeTime = 0;
+            latency = latency == 0 ? sample : latency + weight * (sample - latency);
+        }
+
+        private synchronized double getCost(long now)
+        {
+            double estimate = latency;
+            if (active > 0)
+            {
+                // Account for requests that are active for longer than the average.
+                double age = (activeTime + active * (double)(now - timeStamp)) / active;
+                estimate = Math.max(estimate, age);
+            }
+            // Add 1 so that active requests count even when the latency is unknown.
+            return (active + 1) * (estimate + 1);
+        }
+
+        private void update(long now)
+        {
+            activeTime += active * (double)(now - timeStamp);
+            timeStamp = now;
+        }
+    }
+}
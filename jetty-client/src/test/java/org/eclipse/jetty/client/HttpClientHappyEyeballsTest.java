@@ -0,0 +1,142 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientHappyEyeballsTest
+{
+    private Server server;
+    private ServerConnector connector;
+    private HttpClient client;
+
+    private void start(List<String> hosts, List<SocketAddress> attempts) throws Exception
+    {
+        start(hosts, attempts, List.of());
+    }
+
+    private void start(List<String> hosts, List<SocketAddress> attempts, List<String> blackHoles) throws Exception
+    {
+        QueuedThreadPool serverThreads = new QueuedThreadPool();
+        serverThreads.setName("server");
+        server = new Server(serverThreads);
+        connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new EmptyServerHandler());
+        server.start();
+
+        client = new HttpClient(new HttpClientTransportOverHTTP(1)
+        {
+            @Override
+            public void connect(SocketAddress address, Map<String, Object> context)
+            {
+                attempts.add(address);
+                // Simulate a connection attempt that never completes.
+                if (!blackHoles.contains(((InetSocketAddress)address).getHostString()))
+                    super.connect(address, context);
+            }
+        });
+        client.setHappyEyeballs(true);
+        client.setSocketAddressResolver((host, port, promise) ->
+            promise.succeeded(hosts.stream().map(h -> new InetSocketAddress(h, port)).collect(Collectors.toList())));
+        client.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testFirstAddressFailsSecondAddressSucceeds() throws Exception
+    {
+        List<SocketAddress> attempts = new CopyOnWriteArrayList<>();
+        // Nothing listens on 127.0.0.2, so the first attempt fails
+        // and the second attempt is started without waiting.
+        start(List.of("127.0.0.2", "127.0.0.1"), attempts);
+        client.setConnectionAttemptDelay(TimeUnit.SECONDS.toMillis(10));
+
+        long begin = System.nanoTime();
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(2, attempts.size());
+        assertTrue(elapsed < client.getConnectionAttemptDelay());
+    }
+
+    @Test
+    public void testAllAddressesFail() throws Exception
+    {
+        List<SocketAddress> attempts = new CopyOnWriteArrayList<>();
+        start(List.of("127.0.0.2", "127.0.0.3"), attempts);
+        int port = connector.getLocalPort();
+        server.stop();
+
+        assertThrows(ExecutionException.class, () -> client.newRequest("localhost", port)
+            .timeout(5, TimeUnit.SECONDS)
+            .send());
+
+        assertEquals(2, attempts.size());
+    }
+
+    @Test
+    public void testConnectionAttemptDelay() throws Exception
+    {
+        List<SocketAddress> attempts = new CopyOnWriteArrayList<>();
+        // The first attempt never completes, so the second
+        // attempt is started after the connection attempt delay.
+        start(List.of("127.0.0.2", "127.0.0.1"), attempts, List.of("127.0.0.2"));
+        long delay = 500;
+        client.setConnectionAttemptDelay(delay);
+
+        long begin = System.nanoTime();
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(2, attempts.size());
+        assertThat(elapsed, greaterThanOrEqualTo(delay));
+    }
+}
@@ -0,0 +1,175 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.util.Attachable;
+import org.eclipse.jetty.util.Promise;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LeastLoadedConnectionPoolTest
+{
+    private static final int MAX_MULTIPLEX = 4;
+
+    private HttpClient client;
+    private HttpDestination destination;
+    private LeastLoadedConnectionPool pool;
+    private final List<Connection> connections = new ArrayList<>();
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        client = new HttpClient();
+        client.start();
+        destination = new MultiplexHttpDestination(client, new Origin("http", "localhost", 8080))
+        {
+            @Override
+            protected ConnectionPool newConnectionPool(HttpClient client)
+            {
+                return new LeastLoadedConnectionPool(this, 3, this, MAX_MULTIPLEX);
+            }
+
+            @Override
+            public void newConnection(Promise<Connection> promise)
+            {
+                TestConnection connection = new TestConnection();
+                connections.add(connection);
+                promise.succeeded(connection);
+            }
+        };
+        destination.start();
+        pool = (LeastLoadedConnectionPool)destination.getConnectionPool();
+        pool.preCreateConnections(3).get(5, TimeUnit.SECONDS);
+        assertEquals(3, connections.size());
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        destination.stop();
+        client.stop();
+    }
+
+    @Test
+    public void testActiveRequestsAreSpread()
+    {
+        // All the connections have the same cost, so the first one is chosen.
+        assertSame(connections.get(0), pool.acquire(false));
+
+        // A connection with an active request costs more than an idle one,
+        // and ties between idle connections are broken in pool order.
+        assertSame(connections.get(1), pool.acquire(false));
+        assertSame(connections.get(2), pool.acquire(false));
+    }
+
+    @Test
+    public void testSlowConnectionIsAvoided() throws Exception
+    {
+        Connection slow = pool.acquire(false);
+        Connection fast1 = pool.acquire(false);
+        Connection fast2 = pool.acquire(false);
+        assertTrue(pool.release(fast1));
+        assertTrue(pool.release(fast2));
+        Thread.sleep(500);
+        assertTrue(pool.release(slow));
+
+        // All connections are idle, but the slow one has a larger latency:
+        // the fast connections are saturated before the slow one is chosen.
+        for (int i = 0; i < 2 * MAX_MULTIPLEX; ++i)
+        {
+            assertThat(pool.acquire(false), not(sameInstance(slow)));
+        }
+        for (int i = 0; i < MAX_MULTIPLEX; ++i)
+        {
+            assertSame(slow, pool.acquire(false));
+        }
+
+        // All the connections are saturated.
+        assertNull(pool.acquire(false));
+
+        // A released fast connection is preferred again.
+        assertTrue(pool.release(fast1));
+        assertSame(fast1, pool.acquire(false));
+    }
+
+    @Test
+    public void testStalledRequestsArePenalized() throws Exception
+    {
+        // The first connection has a request that stalls.
+        Connection stalled = pool.acquire(false);
+        Connection other = pool.acquire(false);
+        assertTrue(pool.release(other));
+        Thread.sleep(500);
+
+        // The stalled connection has no latency samples yet,
+        // but the age of its active request is accounted for.
+        for (int i = 0; i < 2 * MAX_MULTIPLEX; ++i)
+        {
+            assertThat(pool.acquire(false), not(sameInstance(stalled)));
+        }
+        assertSame(stalled, pool.acquire(false));
+    }
+
+    private static class TestConnection implements Connection, Attachable
+    {
+        private Object attachment;
+        private boolean closed;
+
+        @Override
+        public void send(Request request, Response.CompleteListener listener)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed()
+        {
+            return closed;
+        }
+
+        @Override
+        public Object getAttachment()
+        {
+            return attachment;
+        }
+
+        @Override
+        public void setAttachment(Object attachment)
+        {
+            this.attachment = attachment;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <p>A fixed group of fields, such as {@code Server}, {@code Cache-Control} or
+ * security related fields, that is added to many responses.</p>
+ * <p>The fields of a template are validated and pre-encoded once, as
+ * {@link PreEncodedHttpField}s, so that adding them to a response is a single
+ * copy of {@link #getFields() their array} by {@link HttpFields.Mutable#add(HttpFields)},
+ * and generating them is a single copy of the encoding of each field.</p>
+ * <p>Once added, the template fields are ordinary fields of the response, so that
+ * the application may look them up, replace them or remove them.
+ * A template cannot contain fields that are added to every response by the server,
+ * such as {@code Date}, nor fields that describe the message framing or the
+ * connection, such as {@code Content-Length} or {@code Connection}.</p>
+ */
+public class HttpFieldTemplate
+{
+    private static final EnumSet<HttpHeader> FORBIDDEN_HEADERS = EnumSet.of(HttpHeader.CONTENT_LENGTH,
+        HttpHeader.TRANSFER_ENCODING, HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE, HttpHeader.PROXY_CONNECTION,
+        HttpHeader.UPGRADE, HttpHeader.TE, HttpHeader.HOST, HttpHeader.DATE);
+
+    private final HttpFields _fields;
+
+    /**
+     * @param fields the fields of the template
+     */
+    public HttpFieldTemplate(HttpField... fields)
+    {
+        this(List.of(fields));
+    }
+
+    /**
+     * @param fields the fields of the template
+     */
+    public HttpFieldTemplate(Iterable<HttpField> fields)
+    {
+        HttpFields.Mutable preEncoded = HttpFields.build();
+        for (HttpField field : fields)
+        {
+            HttpHeader header = field.getHeader();
+            if (header != null && (header.isPseudo() || FORBIDDEN_HEADERS.contains(header)))
+                throw new IllegalArgumentException("Invalid template field " + field);
+            if (field.getValue() == null)
+                throw new IllegalArgumentException("Invalid template field value " + field);
+            preEncoded.add(field instanceof PreEncodedHttpField
+                ? field
+                : new PreEncodedHttpField(header, field.getName(), field.getValue()));
+        }
+        _fields = preEncoded.asImmutable();
+    }
+
+    /**
+     * @param header the header to look for
+     * @return whether the template contains a field with the given header
+     */
+    public boolean containsHeader(HttpHeader header)
+    {
+        return _fields.contains(header);
+    }
+
+    /**
+     * @return the pre-encoded fields of the template
+     */
+    public HttpFields getFields()
+    {
+        return _fields;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s}", getClass().getSimpleName(), hashCode(), _fields.stream().map(HttpField::toString).collect(Collectors.joining(",")));
+    }
+}
@@ -705,30 +705,28 @@ public class HttpParser
                                 _uri.reset();
                                 setState(State.URI);
                                 // quick scan for space or EoBuffer
+                                int p = buffer.position();
+                                int i = HttpTokens.scanVisible(buffer, p, buffer.limit());
+                                int len = i - p;
+                                _headerBytes += len;
+
+                                if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes)
+                                {
+                                    LOG.warn("URI is too large >{}", _maxHeaderBytes);
+                                    throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
+                                }
                                 if (buffer.hasArray())
                                 {
-                                    byte[] array = buffer.array();
-                                    int p = buffer.arrayOffset() + buffer.position();
-                                    int l = buffer.arrayOffset() + buffer.limit();
-                                    int i = p;
-                                    while (i < l && array[i] > HttpTokens.SPACE)
-                                    {
-                                        i++;
-                                    }
-
-                                    int len = i - p;
-                                    _headerBytes += len;
-
-                                    if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes)
+                                    _uri.append(buffer.array(), buffer.arrayOffset() + p - 1, len + 1);
+                                }
+                                else
+                                {
+                                    for (int j = p - 1; j < i; ++j)
                                     {
-                                        LOG.warn("URI is too large >{}", _maxHeaderBytes);
-                                        throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
+                                        _uri.append(buffer.get(j));
                                     }
-                                    _uri.append(array, p - 1, len + 1);
-                                    buffer.position(i - buffer.arrayOffset());
                                 }
-                                else
-                                    _uri.append(t.getByte());
+                                buffer.position(i);
                             }
                             break;
 
@@ -1102,6 +1100,81 @@ public class HttpParser
         }
     }
 
+    /* Quick scan of a field name that is not in the field caches, for when the
+     * name and its colon are in the buffer, otherwise the name is parsed byte by byte.
+     * The first byte of the name has already been consumed.
+     */
+    private boolean quickName(ByteBuffer buffer)
+    {
+        int start = buffer.position() - 1;
+        int limit = buffer.limit();
+        int i = buffer.position();
+        while (i < limit && HttpTokens.isTChar(buffer.get(i)))
+        {
+            ++i;
+        }
+        if (i == limit || buffer.get(i) != HttpTokens.COLON)
+            return false;
+
+        // Count the name and the colon.
+        int length = i + 1 - buffer.position();
+        if (_maxHeaderBytes > 0 && _headerBytes + length > _maxHeaderBytes)
+            return false;
+        _headerBytes += length;
+
+        _headerString = BufferUtil.toString(buffer, start, i - start, StandardCharsets.US_ASCII);
+        _header = HttpHeader.CACHE.get(_headerString);
+        _string.setLength(0);
+        _length = -1;
+        buffer.position(i + 1);
+        setState(FieldState.VALUE);
+        return true;
+    }
+
+    /* Quick scan of a field value, for when the value is all text and its line
+     * ends in the buffer, otherwise the value is parsed byte by byte, as are
+     * the continuations of multiline values.
+     * The first byte of the value has already been consumed.
+     */
+    private boolean quickValue(ByteBuffer buffer)
+    {
+        if (_string.length() > 0)
+            return false;
+
+        int start = buffer.position() - 1;
+        int limit = buffer.limit();
+        int end = HttpTokens.scanText(buffer, buffer.position(), limit);
+        if (end == limit)
+            return false;
+
+        int eol;
+        byte b = buffer.get(end);
+        if (b == HttpTokens.LINE_FEED)
+            eol = end + 1;
+        else if (b == HttpTokens.CARRIAGE_RETURN && end + 1 < limit && buffer.get(end + 1) == HttpTokens.LINE_FEED)
+            eol = end + 2;
+        else
+            return false;
+
+        // Count the value and the line terminator.
+        int length = eol - buffer.position();
+        if (_maxHeaderBytes > 0 && _headerBytes + length > _maxHeaderBytes)
+            return false;
+        _headerBytes += length;
+
+        // Trim the trailing white space, the first byte is not white space.
+        while (buffer.get(end - 1) == HttpTokens.SPACE)
+        {
+            --end;
+        }
+        _valueString = BufferUtil.toString(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        _string.setLength(0);
+        _length = -1;
+        buffer.position(eol);
+        setState(FieldState.FIELD);
+        return true;
+    }
+
     /*
      * Parse the message headers and return true if the handler has signalled for a return
      */
@@ -1316,6 +1389,8 @@ public class HttpParser
                             }
 
                             // New header
+                            if (quickName(buffer))
+                                break;
                             setState(FieldState.IN_NAME);
                             _string.setLength(0);
                             _string.append(t.getChar());
@@ -1426,6 +1501,8 @@ public class HttpParser
                         case VCHAR:
                         case COLON:
                         case OTEXT: // TODO review? should this be a utf8 string?
+                            if (quickValue(buffer))
+                                break;
                             _string.append(t.getChar());
                             _length = _string.length();
                             setState(FieldState.IN_VALUE);
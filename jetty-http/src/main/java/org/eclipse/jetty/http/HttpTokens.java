@@ -13,6 +13,8 @@
 
 package org.eclipse.jetty.http;
 
+import java.nio.ByteBuffer;
+
 import org.eclipse.jetty.util.TypeUtil;
 
 /**
@@ -26,6 +28,9 @@ public class HttpTokens
     static final byte CARRIAGE_RETURN = 0x0D;
     static final byte SPACE = 0x20;
     static final byte[] CRLF = {CARRIAGE_RETURN, LINE_FEED};
+    private static final byte DEL = 0x7F;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
 
     public enum EndOfContent
     {
@@ -114,6 +119,7 @@ public class HttpTokens
     }
 
     public static final Token[] TOKENS = new Token[256];
+    private static final boolean[] TCHARS = new boolean[256];
 
     static
     {
@@ -181,7 +187,84 @@ public class HttpTokens
                     else
                         TOKENS[b] = new Token((byte)b, Type.CNTL);
             }
+
+            Type type = TOKENS[b].getType();
+            TCHARS[b] = type == Type.ALPHA || type == Type.DIGIT || type == Type.TCHAR;
+        }
+    }
+
+    /**
+     * @param b the byte to test
+     * @return whether the byte is a token character, as defined by RFC 7230
+     */
+    static boolean isTChar(byte b)
+    {
+        return TCHARS[0xff & b];
+    }
+
+    /**
+     * <p>Scans the buffer, 8 bytes at a time, for the first byte that is not
+     * field value text, that is a byte that is a control character (including
+     * HTAB, CR and LF), DEL or obsolete text.</p>
+     *
+     * @param buffer the buffer to scan
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @return the index of the first byte that is not field value text, or {@code to}
+     */
+    static int scanText(ByteBuffer buffer, int from, int to)
+    {
+        int i = from;
+        while (i + Long.BYTES <= to)
+        {
+            long word = buffer.getLong(i);
+            long del = word ^ (LOW_BITS * DEL);
+            // Obsolete text has the high bit set, while the subtractions set
+            // the high bit of bytes that are lower than SPACE or equal to DEL.
+            long stop = ((word - LOW_BITS * SPACE) & ~word) | ((del - LOW_BITS) & ~del) | word;
+            if ((stop & HIGH_BITS) != 0)
+                break;
+            i += Long.BYTES;
+        }
+        while (i < to)
+        {
+            byte b = buffer.get(i);
+            // Obsolete text is negative.
+            if (b < SPACE || b == DEL)
+                return i;
+            ++i;
+        }
+        return to;
+    }
+
+    /**
+     * <p>Scans the buffer, 8 bytes at a time, for the first byte that
+     * is a control character, SPACE or obsolete text.</p>
+     *
+     * @param buffer the buffer to scan
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @return the index of the first byte that is a control character, SPACE or obsolete text, or {@code to}
+     */
+    static int scanVisible(ByteBuffer buffer, int from, int to)
+    {
+        int i = from;
+        while (i + Long.BYTES <= to)
+        {
+            long word = buffer.getLong(i);
+            long stop = ((word - LOW_BITS * (SPACE + 1)) & ~word) | word;
+            if ((stop & HIGH_BITS) != 0)
+                break;
+            i += Long.BYTES;
+        }
+        while (i < to)
+        {
+            // Obsolete text is negative.
+            if (buffer.get(i) <= SPACE)
+                return i;
+            ++i;
         }
+        return to;
     }
 }
 
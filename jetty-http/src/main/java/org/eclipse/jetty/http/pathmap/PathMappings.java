@@ -15,6 +15,7 @@ package org.eclipse.jetty.http.pathmap;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -57,6 +58,12 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         .caseSensitive(true)
         .mutable()
         .build();
+    private int _templates;
+    private final Index.Mutable<Templates<E>> _templateMap = new Index.Builder<Templates<E>>()
+        .caseSensitive(true)
+        .mutable()
+        .build();
+    private final List<MappedResource<E>> _regexTemplates = new ArrayList<>();
 
     @Override
     public String dump()
@@ -84,13 +91,30 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public void reset()
     {
         _mappings.clear();
+        _exactMap.clear();
         _prefixMap.clear();
         _suffixMap.clear();
+        _templates = 0;
+        _templateMap.clear();
+        _regexTemplates.clear();
+        _optimizedExact = true;
+        _optimizedPrefix = true;
+        _optimizedSuffix = true;
     }
 
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
-        _mappings.removeIf(predicate);
+        // Remove one by one, so that the optimization indexes are updated
+        List<MappedResource<E>> removed = new ArrayList<>();
+        for (MappedResource<E> mr : _mappings)
+        {
+            if (predicate.test(mr))
+                removed.add(mr);
+        }
+        for (MappedResource<E> mr : removed)
+        {
+            remove(mr.getPathSpec());
+        }
     }
 
     /**
@@ -150,6 +174,22 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         MatchedPath matchedPath;
         PathSpecGroup lastGroup = null;
 
+        // UriTemplate candidates, computed on the first UriTemplate mapping
+        List<MappedResource<E>> templates = null;
+        if (_templates > 0 && _templates == _mappings.size())
+        {
+            // Only UriTemplate mappings, so the first matching candidate in search order is the match
+            templates = getTemplateCandidates(path);
+            Collections.sort(templates);
+            for (MappedResource<E> candidate : templates)
+            {
+                matchedPath = candidate.getPathSpec().matched(path);
+                if (matchedPath != null)
+                    return new MatchedResource<>(candidate.getResource(), candidate.getPathSpec(), matchedPath);
+            }
+            return null;
+        }
+
         boolean skipRestOfGroup = false;
         // Search all the mappings
         for (MappedResource<E> mr : _mappings)
@@ -173,18 +213,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                     {
                         if (_optimizedExact)
                         {
-                            int i = path.length();
-                            while (i >= 0)
+                            // Exact matches can only match the whole path, so a single lookup is enough
+                            MappedResource<E> candidate = _exactMap.get(path);
+                            if (candidate != null)
                             {
-                                MappedResource<E> candidate = _exactMap.getBest(path, 0, i--);
-                                if (candidate == null)
-                                    continue;
-
                                 matchedPath = candidate.getPathSpec().matched(path);
                                 if (matchedPath != null)
-                                {
                                     return new MatchedResource<>(candidate.getResource(), candidate.getPathSpec(), matchedPath);
-                                }
                             }
                             // If we reached here, there's NO optimized EXACT Match possible, skip simple match below
                             skipRestOfGroup = true;
@@ -199,13 +234,17 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                             int i = path.length();
                             while (i >= 0)
                             {
-                                MappedResource<E> candidate = _prefixMap.getBest(path, 0, i--);
+                                // The best candidate is the longest prefix, if there is none there is no shorter one either
+                                MappedResource<E> candidate = _prefixMap.getBest(path, 0, i);
                                 if (candidate == null)
-                                    continue;
+                                    break;
 
                                 matchedPath = candidate.getPathSpec().matched(path);
                                 if (matchedPath != null)
                                     return new MatchedResource<>(candidate.getResource(), candidate.getPathSpec(), matchedPath);
+
+                                // Skip directly to the prefixes shorter than the candidate one
+                                i = candidate.getPathSpec().getPrefix().length() - 1;
                             }
                             // If we reached here, there's NO optimized PREFIX Match possible, skip simple match below
                             skipRestOfGroup = true;
@@ -243,6 +282,18 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                 }
             }
 
+            if (mr.getPathSpec() instanceof UriTemplatePathSpec)
+            {
+                // Skip the regex match of UriTemplates that cannot match the literal segments of the path
+                if (templates == null)
+                    templates = getTemplateCandidates(path);
+                if (!templates.contains(mr))
+                {
+                    lastGroup = group;
+                    continue;
+                }
+            }
+
             matchedPath = mr.getPathSpec().matched(path);
             if (matchedPath != null)
                 return new MatchedResource<>(mr.getResource(), mr.getPathSpec(), matchedPath);
@@ -253,6 +304,42 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         return null;
     }
 
+    /**
+     * <p>Returns the UriTemplate mappings that may match the path, in no particular order.</p>
+     * <p>A UriTemplate can only match paths that start with its literal prefix, that is the
+     * segments before its first variable, and that have the same number of segments.
+     * The templates are looked up by literal prefix, from the longest to the shortest,
+     * in the same way as the Servlet prefix mappings.</p>
+     */
+    private List<MappedResource<E>> getTemplateCandidates(String path)
+    {
+        int end = path.indexOf('?');
+        if (end < 0)
+            end = path.length();
+        int slashes = 0;
+        for (int i = 0; i < end; i++)
+        {
+            if (path.charAt(i) == '/')
+                slashes++;
+        }
+
+        List<MappedResource<E>> candidates = new ArrayList<>(_regexTemplates);
+        int i = end;
+        while (i >= 0)
+        {
+            Templates<E> templates = _templateMap.getBest(path, 0, i);
+            if (templates == null)
+                break;
+            for (MappedResource<E> mr : templates._mappings)
+            {
+                if (getSlashes((UriTemplatePathSpec)mr.getPathSpec()) == slashes)
+                    candidates.add(mr);
+            }
+            i = templates._prefix.length() - 1;
+        }
+        return candidates;
+    }
+
     /**
      * @deprecated use {@link #getMatched(String)} instead
      */
@@ -300,10 +387,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
         if (added)
         {
+            if (pathSpec instanceof UriTemplatePathSpec)
+                addTemplate(entry);
+
             switch (pathSpec.getGroup())
             {
                 case EXACT:
-                    if (pathSpec instanceof ServletPathSpec)
+                    if (isExactOptimizable(pathSpec))
                     {
                         String exact = pathSpec.getDeclaration();
                         if (exact != null)
@@ -311,10 +401,9 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                     }
                     else
                     {
-                        // This is not a Servlet mapping, turn off optimization on Exact
-                        // TODO: see if we can optimize all Regex / UriTemplate versions here too.
+                        // This mapping cannot be looked up by its declaration, turn off optimization on Exact
+                        // TODO: see if we can optimize all Regex versions here too.
                         // Note: Example exact in Regex that can cause problems `^/a\Q/b\E/` (which is only ever matching `/a/b/`)
-                        // Note: UriTemplate can handle exact easily enough
                         _optimizedExact = false;
                     }
                     break;
@@ -328,9 +417,9 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                     else
                     {
                         // This is not a Servlet mapping, turn off optimization on Prefix
-                        // TODO: see if we can optimize all Regex / UriTemplate versions here too.
+                        // UriTemplates are still pre-filtered by their literal prefix, see getTemplateCandidates()
+                        // TODO: see if we can optimize all Regex versions here too.
                         // Note: Example Prefix in Regex that can cause problems `^/a/b+` or `^/a/bb*` ('b' one or more times)
-                        // Note: Example Prefix in UriTemplate that might cause problems `/a/{b}/{c}`
                         _optimizedPrefix = false;
                     }
                     break;
@@ -344,9 +433,9 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                     else
                     {
                         // This is not a Servlet mapping, turn off optimization on Suffix
-                        // TODO: see if we can optimize all Regex / UriTemplate versions here too.
+                        // UriTemplates are still pre-filtered by their literal prefix, see getTemplateCandidates()
+                        // TODO: see if we can optimize all Regex versions here too.
                         // Note: Example suffix in Regex that can cause problems `^.*/path/name.ext` or `^/a/.*(ending)`
-                        // Note: Example suffix in UriTemplate that can cause problems `/{a}/name.ext`
                         _optimizedSuffix = false;
                     }
                     break;
@@ -377,6 +466,9 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
         if (removed)
         {
+            if (pathSpec instanceof UriTemplatePathSpec)
+                removeTemplate((UriTemplatePathSpec)pathSpec);
+
             switch (pathSpec.getGroup())
             {
                 case EXACT:
@@ -385,7 +477,9 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                     {
                         _exactMap.remove(exact);
                         // Recalculate _optimizeExact
-                        _optimizedExact = canBeOptimized(PathSpecGroup.EXACT);
+                        _optimizedExact = _mappings.stream()
+                            .filter((mapping) -> mapping.getPathSpec().getGroup() == PathSpecGroup.EXACT)
+                            .allMatch((mapping) -> isExactOptimizable(mapping.getPathSpec()));
                     }
                     break;
                 case PREFIX_GLOB:
@@ -412,6 +506,113 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         return removed;
     }
 
+    /**
+     * <p>Whether an {@link PathSpecGroup#EXACT} path spec only matches its own declaration,
+     * so that it can be looked up by the declaration.</p>
+     * <p>UriTemplate path specs without variables are compiled into a regex that only escapes
+     * some characters, so they are only optimizable if they do not contain other regex characters.</p>
+     */
+    private static boolean isExactOptimizable(PathSpec pathSpec)
+    {
+        if (pathSpec instanceof ServletPathSpec)
+            return true;
+        if (pathSpec instanceof UriTemplatePathSpec)
+            return !hasRegexCharacters(pathSpec.getDeclaration());
+        return false;
+    }
+
+    private static boolean hasRegexCharacters(String declaration)
+    {
+        for (int i = 0; i < declaration.length(); i++)
+        {
+            switch (declaration.charAt(i))
+            {
+                case '^':
+                case '$':
+                case '|':
+                case '?':
+                case '+':
+                case '(':
+                case ')':
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private void addTemplate(MappedResource<E> entry)
+    {
+        _templates++;
+        UriTemplatePathSpec pathSpec = (UriTemplatePathSpec)entry.getPathSpec();
+        if (hasRegexCharacters(pathSpec.getDeclaration()))
+        {
+            // The literal segments may be regex fragments, so this template is always a candidate
+            _regexTemplates.add(entry);
+            return;
+        }
+        String prefix = getLiteralPrefix(pathSpec);
+        Templates<E> templates = _templateMap.get(prefix);
+        if (templates == null)
+        {
+            templates = new Templates<>(prefix);
+            _templateMap.put(prefix, templates);
+        }
+        templates._mappings.add(entry);
+    }
+
+    private void removeTemplate(UriTemplatePathSpec pathSpec)
+    {
+        _templates--;
+        if (hasRegexCharacters(pathSpec.getDeclaration()))
+        {
+            _regexTemplates.removeIf(mr -> mr.getPathSpec().equals(pathSpec));
+            return;
+        }
+        String prefix = getLiteralPrefix(pathSpec);
+        Templates<E> templates = _templateMap.get(prefix);
+        if (templates != null)
+        {
+            templates._mappings.removeIf(mr -> mr.getPathSpec().equals(pathSpec));
+            if (templates._mappings.isEmpty())
+                _templateMap.remove(prefix);
+        }
+    }
+
+    /**
+     * <p>Returns the literal segments of the UriTemplate before its first variable,
+     * with the trailing slash if followed by a variable, so that it is a prefix of
+     * every path matched by the UriTemplate.</p>
+     * <p>For example {@code /a/b/} for {@code /a/b/{c}/d}, or {@code /a/b} for {@code /a/b/}.</p>
+     */
+    private static String getLiteralPrefix(UriTemplatePathSpec pathSpec)
+    {
+        String declaration = pathSpec.getDeclaration();
+        if (declaration.length() <= 1)
+            return declaration;
+        StringBuilder prefix = new StringBuilder("/");
+        for (String segment : declaration.substring(1).split("/"))
+        {
+            if (segment.startsWith("{"))
+                return prefix.toString();
+            prefix.append(segment).append('/');
+        }
+        prefix.setLength(prefix.length() - 1);
+        return prefix.toString();
+    }
+
+    /**
+     * @return the number of slashes in the paths matched by the UriTemplate
+     */
+    private static int getSlashes(UriTemplatePathSpec pathSpec)
+    {
+        String declaration = pathSpec.getDeclaration();
+        if (declaration.length() <= 1)
+            return 1;
+        return pathSpec.getPathDepth() + (declaration.endsWith("/") ? 1 : 0);
+    }
+
     private boolean canBeOptimized(PathSpecGroup suffixGlob)
     {
         return _mappings.stream()
@@ -424,4 +625,18 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     {
         return String.format("%s[size=%d]", this.getClass().getSimpleName(), _mappings.size());
     }
+
+    /**
+     * The UriTemplate mappings with the same literal prefix.
+     */
+    private static class Templates<E>
+    {
+        private final String _prefix;
+        private final List<MappedResource<E>> _mappings = new ArrayList<>();
+
+        private Templates(String prefix)
+        {
+            _prefix = prefix;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpGeneratorServerTest
 {
@@ -213,6 +214,45 @@ public class HttpGeneratorServerTest
         assertThat(response, containsString("\r\n0123456789"));
     }
 
+    @Test
+    public void testResponseWithFieldTemplate() throws Exception
+    {
+        HttpFieldTemplate template = new HttpFieldTemplate(
+            new HttpField(HttpHeader.SERVER, "SomeServer"),
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-store"),
+            new HttpField("X-Frame-Options", "DENY"));
+        HttpFields.Mutable fields = HttpFields.build();
+        fields.add(HttpHeader.CONTENT_TYPE, "text/plain");
+        fields.add(template.getFields());
+
+        // The template fields are ordinary fields of the response.
+        assertTrue(fields.contains(HttpHeader.CACHE_CONTROL));
+        fields.put(HttpHeader.CACHE_CONTROL, "max-age=10");
+        fields.remove("X-Frame-Options");
+        assertEquals(3, fields.size());
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 10);
+
+        ByteBuffer header = BufferUtil.allocate(8096);
+        HttpGenerator gen = new HttpGenerator(true, false);
+        gen.generateResponse(info, false, header, null, null, true);
+        String head = BufferUtil.toString(header);
+
+        assertThat(head, startsWith("HTTP/1.1 200 OK\r\n"));
+        assertThat(head, containsString("\r\nContent-Type: text/plain\r\nServer: SomeServer\r\nCache-Control: max-age=10\r\n"));
+        assertThat(head, not(containsString("no-store")));
+        assertThat(head, not(containsString("X-Frame-Options")));
+        assertThat(head, not(containsString("Jetty(10.x.x)")));
+        assertThat(head, containsString("Content-Length: 10\r\n"));
+        assertThat(head, endsWith("\r\n\r\n"));
+
+        // The template is not modified.
+        assertEquals("no-store", template.getFields().get(HttpHeader.CACHE_CONTROL));
+        assertEquals(3, template.getFields().size());
+
+        assertThrows(IllegalArgumentException.class, () -> new HttpFieldTemplate(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+        assertThrows(IllegalArgumentException.class, () -> new HttpFieldTemplate(new HttpField(HttpHeader.DATE, "now")));
+    }
+
     @Test
     public void testSendServerXPoweredBy() throws Exception
     {
@@ -946,6 +946,77 @@ public class HttpParserTest
         }
     }
 
+    @Test
+    public void testSplitDirectHeaderParse()
+    {
+        String request = "GET /some/long/path/to/a/resource?with=query&and=more HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Long-Custom-Header-Name: a value that is longer than a few words\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64)    \r\n" +
+            "X-Obs: caf\u00e9 \u00e0 la carte\r\n" +
+            "X-Tab: one\ttwo\r\n" +
+            "X-Bare-LF: lf\n" +
+            "\r\n";
+        ByteBuffer heap = BufferUtil.toBuffer(request, StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(heap.remaining());
+        buffer.put(heap).flip();
+
+        for (int i = 0; i < buffer.capacity(); i++)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+
+            buffer.position(0);
+            buffer.limit(i);
+
+            if (!parser.parseNext(buffer))
+            {
+                // consumed all
+                assertEquals(0, buffer.remaining());
+
+                // parse the rest
+                buffer.limit(buffer.capacity());
+                parser.parseNext(buffer);
+            }
+
+            assertEquals("GET", _methodOrVersion);
+            assertEquals("/some/long/path/to/a/resource?with=query&and=more", _uriOrStatus);
+            assertEquals("HTTP/1.1", _versionOrReason);
+            assertEquals("Host", _hdr[0]);
+            assertEquals("localhost", _val[0]);
+            assertEquals("X-Long-Custom-Header-Name", _hdr[1]);
+            assertEquals("a value that is longer than a few words", _val[1]);
+            assertEquals("User-Agent", _hdr[2]);
+            assertEquals("Mozilla/5.0 (X11; Linux x86_64)", _val[2]);
+            assertEquals("X-Obs", _hdr[3]);
+            assertEquals("caf\u00e9 \u00e0 la carte", _val[3]);
+            assertEquals("X-Tab", _hdr[4]);
+            assertEquals("one\ttwo", _val[4]);
+            assertEquals("X-Bare-LF", _hdr[5]);
+            assertEquals("lf", _val[5]);
+            assertEquals(5, _headers);
+            assertTrue(_headerCompleted);
+        }
+    }
+
+    @Test
+    public void testDirectHeaderValueWithDelete()
+    {
+        ByteBuffer heap = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Name: a value with a \u007f delete\r\n" +
+                "\r\n", StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(heap.remaining());
+        buffer.put(heap).flip();
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, buffer);
+
+        assertThat(_bad, containsString("Illegal character"));
+    }
+
     @Test
     public void testChunkParse()
     {
@@ -146,6 +146,129 @@ public class PathMappingsTest
         assertMatch(p, "/b/d", "endpointE");
     }
 
+    /**
+     * Test that exact UriTemplate path specs are looked up together with exact Servlet path specs
+     */
+    @Test
+    public void testServletAndUriTemplateExactMatch()
+    {
+        PathMappings<String> p = new PathMappings<>();
+
+        p.put(new ServletPathSpec("/a/b"), "servletExact");
+        p.put(new UriTemplatePathSpec("/a/b/c"), "templateExact");
+        p.put(new UriTemplatePathSpec("/a/b+/c"), "templateRegexChars");
+        p.put(new UriTemplatePathSpec("/a/{var}"), "templateVar");
+        p.put(new ServletPathSpec("/"), "default");
+
+        assertMatch(p, "/a/b", "servletExact");
+        assertMatch(p, "/a/b/c", "templateExact");
+        assertMatch(p, "/a/x", "templateVar");
+        assertMatch(p, "/a/b/c/d", "default");
+
+        p.remove(new UriTemplatePathSpec("/a/b+/c"));
+        assertMatch(p, "/a/b/c", "templateExact");
+        assertMatch(p, "/a/bb/c", "default");
+    }
+
+    /**
+     * Test that the UriTemplates looked up by literal prefix match like a scan of all the mappings
+     */
+    @Test
+    public void testUriTemplateCandidates()
+    {
+        PathMappings<String> p = new PathMappings<>();
+
+        p.put(new UriTemplatePathSpec("/"), "root");
+        p.put(new UriTemplatePathSpec("/a"), "a");
+        p.put(new UriTemplatePathSpec("/a/"), "aSlash");
+        p.put(new UriTemplatePathSpec("/a/{b}"), "aVar");
+        p.put(new UriTemplatePathSpec("/a/{b}/"), "aVarSlash");
+        p.put(new UriTemplatePathSpec("/a/b/{c}/d"), "abVarD");
+        p.put(new UriTemplatePathSpec("/a/{b}/{c}/d"), "aVarVarD");
+        p.put(new UriTemplatePathSpec("/ab/{c}"), "abVar");
+        p.put(new UriTemplatePathSpec("/{a}/x"), "varX");
+        p.put(new UriTemplatePathSpec("/x+/{a}"), "regexChars");
+
+        String[] paths = {
+            "/", "/a", "/a/", "/a/b", "/a/b/", "/a/b/c/d", "/a/x/c/d", "/a/b/c/e", "/a//b", "/a//",
+            "/ab/c", "/ab/c/d", "/abc/x", "/z/x", "/x/x", "/xx/y", "/a/b?c=/d", "/a/b/c/d?e", "a/b", ""
+        };
+        for (String path : paths)
+        {
+            MatchedResource<String> expected = null;
+            for (MappedResource<String> mr : p)
+            {
+                MatchedPath matchedPath = mr.getPathSpec().matched(path);
+                if (matchedPath != null)
+                {
+                    expected = new MatchedResource<>(mr.getResource(), mr.getPathSpec(), matchedPath);
+                    break;
+                }
+            }
+            MatchedResource<String> matched = p.getMatched(path);
+            String msg = String.format(".getMatched(\"%s\")", path);
+            if (expected == null)
+                assertNull(matched, msg);
+            else
+                assertEquals(expected.getResource(), matched == null ? null : matched.getResource(), msg);
+        }
+
+        assertMatch(p, "/a/b/c/d", "abVarD");
+        assertMatch(p, "/a/x/c/d", "aVarVarD");
+        assertMatch(p, "/xx/y", "regexChars");
+        assertMatch(p, "/a/b?c=/d", "aVar");
+
+        p.removeIf(mr -> mr.getResource().startsWith("ab"));
+        assertMatch(p, "/a/b/c/d", "aVarVarD");
+        assertNull(p.getMatched("/ab/c"));
+    }
+
+    /**
+     * Test that UriTemplates mixed with Servlet path specs are only skipped when they cannot match
+     */
+    @Test
+    public void testServletAndUriTemplateCandidates()
+    {
+        PathMappings<String> p = new PathMappings<>();
+
+        p.put(new ServletPathSpec("/a/*"), "servletPrefix");
+        p.put(new ServletPathSpec("*.txt"), "servletSuffix");
+        p.put(new UriTemplatePathSpec("/a/b/{c}"), "templatePrefix");
+        p.put(new UriTemplatePathSpec("/{a}/b.txt"), "templateSuffix");
+        p.put(new UriTemplatePathSpec("/x/{a}/y"), "templateMiddle");
+        p.put(new ServletPathSpec("/"), "default");
+
+        assertMatch(p, "/a/b/c", "templatePrefix");
+        assertMatch(p, "/a/c/d", "servletPrefix");
+        assertMatch(p, "/z/b.txt", "templateSuffix");
+        assertMatch(p, "/z/c.txt", "servletSuffix");
+        assertMatch(p, "/x/z/y", "templateMiddle");
+        assertMatch(p, "/x/z/w", "default");
+
+        p.remove(new UriTemplatePathSpec("/a/b/{c}"));
+        assertMatch(p, "/a/b/c", "servletPrefix");
+    }
+
+    /**
+     * Test that prefix candidates that do not match on a segment boundary fall back to shorter prefixes
+     */
+    @Test
+    public void testPrefixMatchFallback()
+    {
+        PathMappings<String> p = new PathMappings<>();
+
+        p.put(new ServletPathSpec("/a/*"), "a");
+        p.put(new ServletPathSpec("/a/bc/*"), "bc");
+        p.put(new ServletPathSpec("/a/bcd/efg/*"), "efg");
+        p.put(new ServletPathSpec("/"), "default");
+
+        assertMatch(p, "/a/bcd/efgh", "a");
+        assertMatch(p, "/a/bcd/efg/h", "efg");
+        assertMatch(p, "/a/bc", "bc");
+        assertMatch(p, "/a/bcd", "a");
+        assertMatch(p, "/ab", "default");
+    }
+
     /**
      * Test the match order rules for mixed Servlet and Regex path specs
      */
@@ -0,0 +1,368 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AutoTuningFlowControlStrategy;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.GoAwayFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.PrefaceFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutoTuningFlowControlStrategyTest extends AbstractTest
+{
+    @Test
+    public void testWindowsGrowWhenSenderIsWindowLimited() throws Exception
+    {
+        int chunk = 1024 * 1024;
+        int chunks = 16;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), new Callback()
+                {
+                    private int count;
+
+                    @Override
+                    public void succeeded()
+                    {
+                        if (count == chunks)
+                            return;
+                        ++count;
+                        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(chunk), count == chunks), this);
+                    }
+                });
+                return null;
+            }
+        });
+
+        AtomicReference<AutoTuningFlowControlStrategy> strategyRef = new AtomicReference<>();
+        client.setFlowControlStrategyFactory(() ->
+        {
+            AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(8 * chunk, 4 * chunk);
+            strategy.setPingInterval(0);
+            strategyRef.set(strategy);
+            return strategy;
+        });
+
+        CountDownLatch pingLatch = new CountDownLatch(1);
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                pingLatch.countDown();
+            }
+        });
+
+        AtomicLong received = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        HeadersFrame request = new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true);
+        session.newStream(request, new FuturePromise<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                received.addAndGet(frame.remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertEquals((long)chunk * chunks, received.get());
+
+        AutoTuningFlowControlStrategy strategy = strategyRef.get();
+        assertThat(strategy.getBandwidthDelayProduct(), greaterThan((long)FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+
+        // The PING replies of the strategy are not notified to the application.
+        assertFalse(pingLatch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStreamWindowShrinksWhenSenderUsesSmallFractionOfWindow() throws Exception
+    {
+        int minStreamRecvWindow = 1024;
+        AtomicReference<AutoTuningFlowControlStrategy> strategyRef = new AtomicReference<>();
+        AtomicLong received = new AtomicLong();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        received.addAndGet(frame.remaining());
+                        callback.succeeded();
+                    }
+                };
+            }
+        }, factory -> factory.setFlowControlStrategyFactory(() ->
+        {
+            AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(4 * FlowControlStrategy.DEFAULT_WINDOW_SIZE, 2 * FlowControlStrategy.DEFAULT_WINDOW_SIZE);
+            strategy.setPingInterval(0);
+            strategy.setMinStreamRecvWindow(minStreamRecvWindow);
+            strategyRef.set(strategy);
+            return strategy;
+        }));
+
+        ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+        Generator generator = new Generator(byteBufferPool);
+        Queue<PingFrame> pings = new ArrayDeque<>();
+        Queue<SettingsFrame> settings = new ArrayDeque<>();
+        AtomicReference<PingFrame> pingReplyRef = new AtomicReference<>();
+        AtomicReference<GoAwayFrame> goAwayRef = new AtomicReference<>();
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onPing(PingFrame frame)
+            {
+                if (frame.isReply())
+                    pingReplyRef.set(frame);
+                else
+                    pings.offer(frame);
+            }
+
+            @Override
+            public void onSettings(SettingsFrame frame)
+            {
+                if (!frame.isReply())
+                    settings.offer(frame);
+            }
+
+            @Override
+            public void onGoAway(GoAwayFrame frame)
+            {
+                goAwayRef.set(frame);
+            }
+        }, 4096, 8192);
+        parser.init(UnaryOperator.identity());
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(5000);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = socket.getInputStream();
+
+            write(output, generator, new PrefaceFrame(), new SettingsFrame(Collections.emptyMap(), false));
+            parse(input, parser, () -> !settings.isEmpty());
+            settings.poll();
+            write(output, generator, new SettingsFrame(Collections.emptyMap(), true));
+            write(output, generator, new HeadersFrame(1, newRequest("POST", HttpFields.EMPTY), null, false));
+
+            // Send little data for every BDP PING, so that the stream window shrinks.
+            for (int i = 0; i < 16; ++i)
+            {
+                write(output, generator, new DataFrame(1, ByteBuffer.allocate(10), false));
+                parse(input, parser, () -> !pings.isEmpty());
+                PingFrame ping = pings.poll();
+                write(output, generator, new PingFrame(ping.getPayload(), true));
+            }
+            parse(input, parser, () -> !settings.isEmpty());
+            SettingsFrame shrink = settings.poll();
+            assertEquals(minStreamRecvWindow, (int)shrink.getSettings().get(SettingsFrame.INITIAL_WINDOW_SIZE));
+
+            // Data sent before the SETTINGS frame is acknowledged may exceed the new window.
+            int length = 8 * minStreamRecvWindow;
+            write(output, generator, new DataFrame(1, ByteBuffer.allocate(length), false));
+            write(output, generator, new SettingsFrame(Collections.emptyMap(), true));
+            write(output, generator, new PingFrame(0, false));
+            parse(input, parser, () -> goAwayRef.get() != null || pingReplyRef.get() != null);
+
+            assertNull(goAwayRef.get());
+            assertEquals(16 * 10 + length, received.get());
+            assertEquals(minStreamRecvWindow, strategyRef.get().getInitialStreamRecvWindow());
+        }
+    }
+
+    @Test
+    public void testGrantedSessionWindowNeverExceedsMax() throws Exception
+    {
+        int maxSessionRecvWindow = 8 * FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+        int initialSessionRecvWindow = 2 * FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+        AtomicReference<AutoTuningFlowControlStrategy> strategyRef = new AtomicReference<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        // The data is never consumed, so the session recv
+                        // window is only enlarged by the strategy.
+                    }
+                };
+            }
+        }, factory ->
+        {
+            factory.setInitialSessionRecvWindow(initialSessionRecvWindow);
+            factory.setFlowControlStrategyFactory(() ->
+            {
+                AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(maxSessionRecvWindow, 4 * FlowControlStrategy.DEFAULT_WINDOW_SIZE);
+                strategy.setPingInterval(0);
+                strategyRef.set(strategy);
+                return strategy;
+            });
+        });
+
+        ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+        Generator generator = new Generator(byteBufferPool);
+        Queue<PingFrame> pings = new ArrayDeque<>();
+        Queue<SettingsFrame> settings = new ArrayDeque<>();
+        AtomicLong sessionCredit = new AtomicLong(FlowControlStrategy.DEFAULT_WINDOW_SIZE);
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onPing(PingFrame frame)
+            {
+                if (!frame.isReply())
+                    pings.offer(frame);
+            }
+
+            @Override
+            public void onSettings(SettingsFrame frame)
+            {
+                if (!frame.isReply())
+                    settings.offer(frame);
+            }
+
+            @Override
+            public void onWindowUpdate(WindowUpdateFrame frame)
+            {
+                if (frame.getStreamId() == 0)
+                    sessionCredit.addAndGet(frame.getWindowDelta());
+            }
+        }, 4096, 8192);
+        parser.init(UnaryOperator.identity());
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(5000);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = socket.getInputStream();
+
+            write(output, generator, new PrefaceFrame(), new SettingsFrame(Collections.emptyMap(), false));
+            parse(input, parser, () -> !settings.isEmpty());
+            settings.poll();
+            write(output, generator, new SettingsFrame(Collections.emptyMap(), true));
+
+            // Every step sends, on a new stream, most of the stream window
+            // before replying to the BDP PING, so that the windows grow.
+            int chunk = 10_000;
+            int streamId = 1;
+            for (int chunks : new int[]{5, 8, 13})
+            {
+                write(output, generator, new HeadersFrame(streamId, newRequest("POST", HttpFields.EMPTY), null, false));
+                write(output, generator, new DataFrame(streamId, ByteBuffer.allocate(chunk), false));
+                parse(input, parser, () -> !pings.isEmpty());
+                for (int i = 1; i < chunks; ++i)
+                {
+                    write(output, generator, new DataFrame(streamId, ByteBuffer.allocate(chunk), false));
+                }
+                Thread.sleep(50);
+                write(output, generator, new PingFrame(pings.poll().getPayload(), true));
+
+                // The windows grow, but the credit granted never exceeds the max.
+                parse(input, parser, () -> !settings.isEmpty());
+                settings.poll();
+                write(output, generator, new SettingsFrame(Collections.emptyMap(), true));
+                assertThat(sessionCredit.get(), lessThanOrEqualTo((long)maxSessionRecvWindow));
+                assertEquals(sessionCredit.get(), strategyRef.get().getSessionRecvWindow());
+                streamId += 2;
+            }
+            assertThat(sessionCredit.get(), greaterThan((long)initialSessionRecvWindow));
+        }
+    }
+
+    private static void write(OutputStream output, Generator generator, Frame... frames) throws Exception
+    {
+        ByteBufferPool.Lease lease = new ByteBufferPool.Lease(generator.getByteBufferPool());
+        for (Frame frame : frames)
+        {
+            if (frame instanceof DataFrame)
+                generator.data(lease, (DataFrame)frame, ((DataFrame)frame).remaining());
+            else
+                generator.control(lease, frame);
+        }
+        for (ByteBuffer buffer : lease.getByteBuffers())
+        {
+            BufferUtil.writeTo(buffer, output);
+        }
+        output.flush();
+        lease.recycle();
+    }
+
+    private static void parse(InputStream input, Parser parser, BooleanSupplier until) throws Exception
+    {
+        byte[] bytes = new byte[4096];
+        while (!until.getAsBoolean())
+        {
+            int read = input.read(bytes);
+            assertThat(read, greaterThan(0));
+            parser.parse(ByteBuffer.wrap(bytes, 0, read));
+        }
+    }
+}
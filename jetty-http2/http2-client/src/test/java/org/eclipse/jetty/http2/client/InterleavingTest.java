@@ -26,6 +26,7 @@ import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
@@ -47,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -196,6 +198,91 @@ public class InterleavingTest extends AbstractTest
         });
     }
 
+    @Test
+    public void testPriorityScheduling() throws Exception
+    {
+        CountDownLatch serverStreamsLatch = new CountDownLatch(2);
+        List<Stream> serverStreams = new ArrayList<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreams.add(stream);
+                serverStreamsLatch.countDown();
+                return null;
+            }
+        }, connectionFactory -> connectionFactory.setPriorityScheduling(true));
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        BlockingQueue<DataFrameCallback> dataFrames = new LinkedBlockingDeque<>();
+        Stream.Listener streamListener = new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                dataFrames.offer(new DataFrameCallback(frame, callback));
+            }
+        };
+
+        // A large download with a low urgency.
+        HttpFields fields1 = HttpFields.build().put(HttpHeader.PRIORITY, "u=6");
+        HeadersFrame headersFrame1 = new HeadersFrame(newRequest("GET", fields1), null, true);
+        FuturePromise<Stream> streamPromise1 = new FuturePromise<>();
+        session.newStream(headersFrame1, streamPromise1, streamListener);
+        streamPromise1.get(5, TimeUnit.SECONDS);
+
+        // A small response with a high urgency.
+        HttpFields fields2 = HttpFields.build().put(HttpHeader.PRIORITY, "u=1");
+        HeadersFrame headersFrame2 = new HeadersFrame(newRequest("GET", fields2), null, true);
+        FuturePromise<Stream> streamPromise2 = new FuturePromise<>();
+        session.newStream(headersFrame2, streamPromise2, streamListener);
+        streamPromise2.get(5, TimeUnit.SECONDS);
+
+        assertTrue(serverStreamsLatch.await(5, TimeUnit.SECONDS));
+
+        Stream serverStream1 = serverStreams.get(0);
+        Stream serverStream2 = serverStreams.get(1);
+        MetaData.Response response1 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+        serverStream1.headers(new HeadersFrame(serverStream1.getId(), response1, null, false), Callback.NOOP);
+
+        byte[] content1 = new byte[2 * ((ISession)serverStream1.getSession()).updateSendWindow(0)];
+        byte[] content2 = new byte[4096];
+
+        MetaData.Response response2 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+        serverStream2.headers(new HeadersFrame(serverStream2.getId(), response2, null, false), new Callback()
+        {
+            @Override
+            public void succeeded()
+            {
+                // Write data for both streams from within the callback so that they get queued together,
+                // the low urgency stream first, so that in queue order it would be sent first.
+                serverStream1.data(new DataFrame(serverStream1.getId(), ByteBuffer.wrap(content1), true), NOOP);
+                serverStream2.data(new DataFrame(serverStream2.getId(), ByteBuffer.wrap(content2), true), NOOP);
+            }
+        });
+
+        List<Integer> endStreams = new ArrayList<>();
+        int firstStream = 0;
+        while (endStreams.size() < 2)
+        {
+            DataFrameCallback dataFrameCallback = dataFrames.poll(5, TimeUnit.SECONDS);
+            if (dataFrameCallback == null)
+                fail();
+            DataFrame dataFrame = dataFrameCallback.frame;
+            if (firstStream == 0)
+                firstStream = dataFrame.getStreamId();
+            if (dataFrame.isEndStream())
+                endStreams.add(dataFrame.getStreamId());
+            dataFrameCallback.callback.succeeded();
+        }
+
+        // The high urgency stream is sent first and completes first.
+        assertEquals(serverStream2.getId(), firstStream);
+        assertEquals(List.of(serverStream2.getId(), serverStream1.getId()), endStreams);
+    }
+
     private static class DataFrameCallback
     {
         private final DataFrame frame;
@@ -0,0 +1,360 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A flow control strategy that sizes the receive windows after the
+ * bandwidth-delay product (BDP) of the connection, so that a fast sender
+ * on a high latency link is not stalled by windows that are too small.</p>
+ * <p>When data is received, a PING frame is sent and the data bytes received
+ * until the PING reply arrives are counted: they are a sample of the BDP.
+ * When a sample is close to the current window, the sender was likely limited
+ * by the window rather than by the link, so the windows are enlarged to twice
+ * the sample, up to {@link #getMaxSessionRecvWindow() the max session window}
+ * and {@link #getMaxStreamRecvWindow() the max stream window} respectively.</p>
+ * <p>When the samples stay much smaller than the stream window, the stream window
+ * is reduced, down to {@link #getMinStreamRecvWindow() the min stream window};
+ * the session window is never reduced, since that would require to withhold
+ * the window updates of consumed data.</p>
+ * <p>The session window is enlarged by sending a WINDOW_UPDATE frame, so that the
+ * credit granted to the peer, that is the initial session window plus the enlargements,
+ * never exceeds the max session window, while
+ * the stream windows are changed by sending a SETTINGS frame with a new
+ * {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+ * Larger stream windows are applied when the SETTINGS frame is sent, while
+ * smaller stream windows are applied only when the SETTINGS frame is acknowledged,
+ * since until then the peer may send data against the larger windows.</p>
+ * <p>PING frames are sent at most every {@link #getPingInterval() ping interval},
+ * so that the peer does not consider them excessive.</p>
+ * <p>Window updates of consumed data are emitted as in {@link BufferingFlowControlStrategy}.</p>
+ */
+@ManagedObject
+public class AutoTuningFlowControlStrategy extends BufferingFlowControlStrategy
+{
+    // A sample larger than this fraction of the BDP means the sender was limited by the window.
+    private static final double WINDOW_LIMITED_RATIO = 2D / 3;
+    private static final int SHRINK_SAMPLES = 16;
+
+    private final AutoLock lock = new AutoLock();
+    private final Deque<Integer> unacknowledgedStreamRecvWindows = new ArrayDeque<>();
+    private final int maxSessionRecvWindow;
+    private final int maxStreamRecvWindow;
+    private int minStreamRecvWindow = DEFAULT_WINDOW_SIZE;
+    private long pingInterval = 100;
+    private long pingPayload = ThreadLocalRandom.current().nextLong();
+    private boolean pingPending;
+    private long pingNanoTime;
+    private long lastPingNanoTime;
+    private long sample;
+    private long maxSample;
+    private int samples;
+    private long bdp;
+    private double maxBandwidth;
+    private long rtt;
+    private int sessionRecvWindow;
+
+    /**
+     * @param maxSessionRecvWindow the max size of the session receive window
+     * @param maxStreamRecvWindow the max size of the stream receive windows
+     */
+    public AutoTuningFlowControlStrategy(int maxSessionRecvWindow, int maxStreamRecvWindow)
+    {
+        this(DEFAULT_WINDOW_SIZE, 0.5F, maxSessionRecvWindow, maxStreamRecvWindow);
+    }
+
+    /**
+     * @param initialStreamSendWindow the initial size of the stream send windows
+     * @param bufferRatio the ratio between the receive buffer and the consume buffer
+     * @param maxSessionRecvWindow the max size of the session receive window
+     * @param maxStreamRecvWindow the max size of the stream receive windows
+     */
+    public AutoTuningFlowControlStrategy(int initialStreamSendWindow, float bufferRatio, int maxSessionRecvWindow, int maxStreamRecvWindow)
+    {
+        super(initialStreamSendWindow, bufferRatio);
+        if (maxSessionRecvWindow < DEFAULT_WINDOW_SIZE)
+            throw new IllegalArgumentException("Invalid max session recv window " + maxSessionRecvWindow);
+        if (maxStreamRecvWindow < DEFAULT_WINDOW_SIZE || maxStreamRecvWindow > maxSessionRecvWindow)
+            throw new IllegalArgumentException("Invalid max stream recv window " + maxStreamRecvWindow);
+        this.maxSessionRecvWindow = maxSessionRecvWindow;
+        this.maxStreamRecvWindow = maxStreamRecvWindow;
+    }
+
+    @ManagedAttribute(value = "The max size of session's flow control receive window", readonly = true)
+    public int getMaxSessionRecvWindow()
+    {
+        return maxSessionRecvWindow;
+    }
+
+    @ManagedAttribute(value = "The max size of stream's flow control receive window", readonly = true)
+    public int getMaxStreamRecvWindow()
+    {
+        return maxStreamRecvWindow;
+    }
+
+    @ManagedAttribute("The min size of stream's flow control receive window")
+    public int getMinStreamRecvWindow()
+    {
+        return minStreamRecvWindow;
+    }
+
+    /**
+     * @param minStreamRecvWindow the size below which the stream receive windows are not reduced
+     */
+    public void setMinStreamRecvWindow(int minStreamRecvWindow)
+    {
+        if (minStreamRecvWindow <= 0 || minStreamRecvWindow > maxStreamRecvWindow)
+            throw new IllegalArgumentException("Invalid min stream recv window " + minStreamRecvWindow);
+        this.minStreamRecvWindow = minStreamRecvWindow;
+    }
+
+    @ManagedAttribute("The min interval in milliseconds between PING frames that measure the BDP")
+    public long getPingInterval()
+    {
+        return pingInterval;
+    }
+
+    /**
+     * @param pingInterval the min interval in milliseconds between PING frames that measure the BDP
+     */
+    public void setPingInterval(long pingInterval)
+    {
+        this.pingInterval = pingInterval;
+    }
+
+    @ManagedAttribute(value = "The size of session's flow control receive window granted to the peer", readonly = true)
+    public int getSessionRecvWindow()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return sessionRecvWindow;
+        }
+    }
+
+    @ManagedAttribute(value = "The estimated bandwidth-delay product in bytes", readonly = true)
+    public long getBandwidthDelayProduct()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return bdp;
+        }
+    }
+
+    @ManagedAttribute(value = "The estimated round-trip time in microseconds", readonly = true)
+    public long getRoundTripTime()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return TimeUnit.NANOSECONDS.toMicros(rtt);
+        }
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+
+        long payload;
+        try (AutoLock l = lock.lock())
+        {
+            if (sessionRecvWindow == 0)
+                sessionRecvWindow = getInitialSessionRecvWindow(session);
+            if (pingPending)
+            {
+                sample += length;
+                return;
+            }
+            long now = System.nanoTime();
+            if (lastPingNanoTime != 0 && now - lastPingNanoTime < TimeUnit.MILLISECONDS.toNanos(getPingInterval()))
+                return;
+            pingPending = true;
+            pingNanoTime = now;
+            lastPingNanoTime = now;
+            // The data that triggers the PING was sent before the PING, so it is part of the sample.
+            sample = length;
+            payload = ++pingPayload;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Sending BDP ping {} for {}", payload, session);
+        session.ping(new PingFrame(payload, false), Callback.NOOP);
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        int streamWindow = -1;
+        int sessionDelta = 0;
+        try (AutoLock l = lock.lock())
+        {
+            if (!pingPending || frame.getPayloadAsLong() != pingPayload)
+                return false;
+            pingPending = false;
+
+            long rttSample = System.nanoTime() - pingNanoTime;
+            rtt = rtt == 0 ? rttSample : (7 * rtt + rttSample) / 8;
+            double bandwidth = (double)sample / Math.max(1, rtt);
+
+            int streamRecvWindow = getRequestedStreamRecvWindow();
+            if (bdp == 0)
+                bdp = streamRecvWindow;
+
+            if (sample >= bdp * WINDOW_LIMITED_RATIO && bandwidth > maxBandwidth)
+            {
+                // The sender was likely limited by the window, grow it.
+                maxBandwidth = bandwidth;
+                bdp = Math.min(2 * sample, maxStreamRecvWindow);
+                samples = 0;
+                maxSample = 0;
+
+                if (bdp > streamRecvWindow)
+                    streamWindow = (int)bdp;
+
+                // The session window is the credit granted so far, regardless of
+                // the data received and not yet consumed, that the peer cannot send.
+                int newSessionWindow = (int)Math.min(2 * bdp, maxSessionRecvWindow);
+                if (newSessionWindow > sessionRecvWindow)
+                {
+                    sessionDelta = newSessionWindow - sessionRecvWindow;
+                    sessionRecvWindow = newSessionWindow;
+                }
+            }
+            else
+            {
+                maxSample = Math.max(maxSample, sample);
+                if (++samples >= SHRINK_SAMPLES)
+                {
+                    // The sender has been using a small fraction of the window, shrink it.
+                    long newBdp = Math.max(2 * maxSample, minStreamRecvWindow);
+                    if (4 * maxSample < streamRecvWindow && newBdp < streamRecvWindow)
+                    {
+                        bdp = newBdp;
+                        maxBandwidth = 0;
+                        streamWindow = (int)newBdp;
+                    }
+                    samples = 0;
+                    maxSample = 0;
+                }
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("BDP sample {} bytes, rtt {} us, bdp {} bytes for {}", sample, TimeUnit.NANOSECONDS.toMicros(rttSample), bdp, session);
+            sample = 0;
+        }
+
+        if (sessionDelta > 0)
+        {
+            session.updateRecvWindow(sessionDelta);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Enlarging session recv window by {} for {}", sessionDelta, session);
+            sendWindowUpdate(null, session, new WindowUpdateFrame(0, sessionDelta));
+        }
+        if (streamWindow > 0)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Changing initial stream recv window to {} for {}", streamWindow, session);
+            session.settings(new SettingsFrame(Map.of(SettingsFrame.INITIAL_WINDOW_SIZE, streamWindow), false), Callback.NOOP);
+        }
+        return true;
+    }
+
+    @Override
+    public void updateInitialStreamWindow(ISession session, int initialStreamWindow, boolean local)
+    {
+        if (!local)
+        {
+            super.updateInitialStreamWindow(session, initialStreamWindow, false);
+            return;
+        }
+
+        try (AutoLock l = lock.lock())
+        {
+            unacknowledgedStreamRecvWindows.offer(initialStreamWindow);
+            // SPEC: until the SETTINGS frame is acknowledged, the
+            // peer may send data against the previous window.
+            int window = Math.max(getInitialStreamRecvWindow(), initialStreamWindow);
+            super.updateInitialStreamWindow(session, window, true);
+        }
+    }
+
+    @Override
+    public void onSettingsReply(ISession session, SettingsFrame frame)
+    {
+        Integer initialStreamWindow = frame.getSettings().get(SettingsFrame.INITIAL_WINDOW_SIZE);
+        if (initialStreamWindow == null)
+            return;
+
+        try (AutoLock l = lock.lock())
+        {
+            unacknowledgedStreamRecvWindows.poll();
+            // The peer applied the acknowledged window, and may
+            // have applied the windows sent afterwards as well.
+            int window = initialStreamWindow;
+            for (int unacknowledged : unacknowledgedStreamRecvWindows)
+            {
+                window = Math.max(window, unacknowledged);
+            }
+            if (LOG.isDebugEnabled() && window < getInitialStreamRecvWindow())
+                LOG.debug("Reducing initial stream recv window to {} for {}", window, session);
+            super.updateInitialStreamWindow(session, window, true);
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     *
+     * @return the initial stream receive window most recently sent to the peer
+     */
+    private int getRequestedStreamRecvWindow()
+    {
+        Integer window = unacknowledgedStreamRecvWindows.peekLast();
+        return window == null ? getInitialStreamRecvWindow() : window;
+    }
+
+    private static int getInitialSessionRecvWindow(ISession session)
+    {
+        if (session instanceof HTTP2Session)
+        {
+            int window = ((HTTP2Session)session).getInitialSessionRecvWindow();
+            if (window > 0)
+                return window;
+        }
+        return DEFAULT_WINDOW_SIZE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[bdp=%d,rtt=%dus,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getBandwidthDelayProduct(),
+            getRoundTripTime(),
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+}
@@ -13,6 +13,8 @@
 
 package org.eclipse.jetty.http2;
 
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 
 public interface FlowControlStrategy
@@ -37,6 +39,34 @@ public interface FlowControlStrategy
 
     public void onDataSent(IStream stream, int length);
 
+    /**
+     * <p>Invoked when a PING reply is received.</p>
+     * <p>Strategies that send PING frames, for example to measure the round-trip
+     * time, return {@code true} for the replies to their own PING frames, so that
+     * they are not notified to the application.</p>
+     *
+     * @param session the session that received the PING reply
+     * @param frame the PING reply
+     * @return whether the PING frame was sent by this strategy
+     */
+    public default boolean onPingReply(ISession session, PingFrame frame)
+    {
+        return false;
+    }
+
+    /**
+     * <p>Invoked when a SETTINGS reply is received.</p>
+     * <p>Strategies that send SETTINGS frames, for example to change the
+     * initial stream receive window, know from the reply that the peer
+     * applied the settings.</p>
+     *
+     * @param session the session that received the SETTINGS reply
+     * @param frame the SETTINGS frame sent by the session that the reply acknowledges
+     */
+    public default void onSettingsReply(ISession session, SettingsFrame frame)
+    {
+    }
+
     public interface Factory
     {
         public FlowControlStrategy newFlowControlStrategy();
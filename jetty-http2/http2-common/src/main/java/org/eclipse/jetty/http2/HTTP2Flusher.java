@@ -18,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -34,6 +35,7 @@ import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.slf4j.Logger;
@@ -43,17 +45,24 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Flusher.class);
     private static final ByteBuffer[] EMPTY_BYTE_BUFFERS = new ByteBuffer[0];
+    private static final Comparator<Entry> PRIORITY_ORDER = Comparator.comparingInt(Entry::getUrgency)
+        .thenComparing(Entry::isIncremental);
 
     private final AutoLock lock = new AutoLock();
     private final Queue<WindowEntry> windows = new ArrayDeque<>();
     private final Deque<Entry> entries = new ArrayDeque<>();
     private final Queue<Entry> pendingEntries = new ArrayDeque<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
+    private final List<Entry> dataEntries = new ArrayList<>();
+    private final HistogramStatistic queueDepthHistogram = new HistogramStatistic();
+    private final HistogramStatistic queueWaitHistogram = new HistogramStatistic();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private InvocationType invocationType = InvocationType.NON_BLOCKING;
     private Throwable terminated;
     private Entry stalledEntry;
+    private boolean priorityScheduling;
+    private int incrementalQuantum = Frame.DEFAULT_MAX_LENGTH;
 
     public HTTP2Flusher(HTTP2Session session)
     {
@@ -67,6 +76,55 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return invocationType;
     }
 
+    /**
+     * @return whether DATA frames are scheduled by stream priority rather than in queue order
+     * @see #setPriorityScheduling(boolean)
+     */
+    public boolean isPriorityScheduling()
+    {
+        return priorityScheduling;
+    }
+
+    /**
+     * <p>Sets whether DATA frames are scheduled by stream priority, as specified by
+     * RFC 9218, so that a large download with a low urgency does not delay small
+     * responses with a higher urgency multiplexed on the same connection.</p>
+     * <p>When {@code false}, the default, frames from all streams are interleaved
+     * in queue order.</p>
+     *
+     * @param priorityScheduling whether DATA frames are scheduled by stream priority
+     * @see IStream#getUrgency()
+     * @see IStream#isIncremental()
+     */
+    public void setPriorityScheduling(boolean priorityScheduling)
+    {
+        this.priorityScheduling = priorityScheduling;
+    }
+
+    /**
+     * @return the number of bytes an incremental stream may send before the next incremental stream
+     * with the same urgency, when {@link #isPriorityScheduling() scheduling by priority}
+     */
+    public int getIncrementalQuantum()
+    {
+        return incrementalQuantum;
+    }
+
+    /**
+     * <p>Sets the number of bytes an incremental stream may send before the next incremental
+     * stream with the same urgency, when {@link #isPriorityScheduling() scheduling by priority}.</p>
+     * <p>At least one DATA frame is generated for each incremental stream, so values smaller
+     * than the max frame size result in a frame by frame round-robin.</p>
+     *
+     * @param incrementalQuantum the number of bytes an incremental stream may send at each round
+     */
+    public void setIncrementalQuantum(int incrementalQuantum)
+    {
+        if (incrementalQuantum <= 0)
+            throw new IllegalArgumentException("Invalid incremental quantum " + incrementalQuantum);
+        this.incrementalQuantum = incrementalQuantum;
+    }
+
     public void window(IStream stream, WindowUpdateFrame frame)
     {
         Throwable closed;
@@ -89,6 +147,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             closed = terminated;
             if (closed == null)
             {
+                entry.queueNanoTime = priorityScheduling ? System.nanoTime() : 0;
                 entries.offerFirst(entry);
                 if (LOG.isDebugEnabled())
                     LOG.debug("Prepended {}, entries={}", entry, entries.size());
@@ -108,6 +167,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             closed = terminated;
             if (closed == null)
             {
+                entry.queueNanoTime = priorityScheduling ? System.nanoTime() : 0;
                 entries.offer(entry);
                 if (LOG.isDebugEnabled())
                     LOG.debug("Appended {}, entries={}", entry, entries.size());
@@ -127,7 +187,12 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             closed = terminated;
             if (closed == null)
             {
-                list.forEach(entries::offer);
+                long now = priorityScheduling ? System.nanoTime() : 0;
+                list.forEach(entry ->
+                {
+                    entry.queueNanoTime = now;
+                    entries.offer(entry);
+                });
                 if (LOG.isDebugEnabled())
                     LOG.debug("Appended {}, entries={}", list, entries.size());
             }
@@ -154,6 +219,24 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         }
     }
 
+    /**
+     * @return the histogram of the number of entries pending when the flusher processes them,
+     * recorded when {@link #isPriorityScheduling() scheduling by priority}
+     */
+    public HistogramStatistic getFrameQueueDepthHistogram()
+    {
+        return queueDepthHistogram;
+    }
+
+    /**
+     * @return the histogram of the nanoseconds an entry is queued before its first frame is generated,
+     * recorded when {@link #isPriorityScheduling() scheduling by priority}
+     */
+    public HistogramStatistic getFrameQueueWaitHistogram()
+    {
+        return queueWaitHistogram;
+    }
+
     @Override
     protected Action process() throws Throwable
     {
@@ -185,92 +268,37 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return Action.IDLE;
         }
 
-        while (true)
-        {
-            boolean progress = false;
-
-            if (pendingEntries.isEmpty())
-                break;
+        if (priorityScheduling)
+            queueDepthHistogram.record(pendingEntries.size());
 
-            Iterator<Entry> pending = pendingEntries.iterator();
-            while (pending.hasNext())
+        try
+        {
+            while (true)
             {
-                Entry entry = pending.next();
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Processing {}", entry);
+                if (pendingEntries.isEmpty())
+                    break;
 
-                // If the stream has been reset or removed,
-                // don't send the frame and fail it here.
-                if (entry.shouldBeDropped())
-                {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Dropped {}", entry);
-                    entry.failed(new EofException("dropped"));
-                    pending.remove();
-                    continue;
-                }
+                boolean progress = isPriorityScheduling() ? processByPriority() : processInOrder();
+                if (!progress)
+                    break;
 
-                try
-                {
-                    if (entry.generate(lease))
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
-
-                        progress = true;
-
-                        // We use ArrayList contains() + add() instead of HashSet add()
-                        // because that is faster for collections of size up to 250 entries.
-                        if (!processedEntries.contains(entry))
-                        {
-                            processedEntries.add(entry);
-                            invocationType = Invocable.combine(invocationType, Invocable.getInvocationType(entry.getCallback()));
-                        }
-
-                        if (entry.getDataBytesRemaining() == 0)
-                            pending.remove();
-                    }
-                    else
-                    {
-                        if (session.getSendWindow() <= 0 && stalledEntry == null)
-                        {
-                            stalledEntry = entry;
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("Flow control stalled at {}", entry);
-                            // Continue to process control frames.
-                        }
-                    }
-                }
-                catch (HpackException.StreamException failure)
-                {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating {}", entry, failure);
-                    entry.failed(failure);
-                    pending.remove();
-                }
-                catch (Throwable failure)
+                if (stalledEntry != null)
+                    break;
+
+                int writeThreshold = session.getWriteThreshold();
+                if (lease.getTotalLength() >= writeThreshold)
                 {
-                    // Failure to generate the entry is catastrophic.
                     if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating {}", entry, failure);
-                    failed(failure);
-                    return Action.SUCCEEDED;
+                        LOG.debug("Write threshold {} exceeded", writeThreshold);
+                    break;
                 }
             }
-
-            if (!progress)
-                break;
-
-            if (stalledEntry != null)
-                break;
-
-            int writeThreshold = session.getWriteThreshold();
-            if (lease.getTotalLength() >= writeThreshold)
-            {
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Write threshold {} exceeded", writeThreshold);
-                break;
-            }
+        }
+        catch (Throwable failure)
+        {
+            // Failure to generate the entry is catastrophic.
+            failed(failure);
+            return Action.SUCCEEDED;
         }
 
         List<ByteBuffer> byteBuffers = lease.getByteBuffers();
@@ -293,6 +321,182 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    /**
+     * <p>Generates one frame for each pending entry, in queue order.</p>
+     *
+     * @return whether any frame bytes were generated
+     * @throws Throwable if the generation of a frame failed catastrophically
+     */
+    private boolean processInOrder() throws Throwable
+    {
+        boolean progress = false;
+        Iterator<Entry> pending = pendingEntries.iterator();
+        while (pending.hasNext())
+        {
+            Entry entry = pending.next();
+            Result result = generate(entry);
+            if (result.progress)
+                progress = true;
+            if (result.done)
+                pending.remove();
+        }
+        return progress;
+    }
+
+    /**
+     * <p>Generates one frame for each pending non-DATA entry, in queue order,
+     * then generates DATA frames for the entries with the highest urgency that
+     * can make progress, as specified by RFC 9218, section 10.</p>
+     * <p>Among the entries with the same urgency, non-incremental entries are
+     * processed one at a time, in queue order, while incremental entries are
+     * processed in round-robin, each generating up to {@link #getIncrementalQuantum()}
+     * bytes before the next one.</p>
+     *
+     * @return whether any frame bytes were generated
+     * @throws Throwable if the generation of a frame failed catastrophically
+     */
+    private boolean processByPriority() throws Throwable
+    {
+        boolean progress = false;
+        Iterator<Entry> pending = pendingEntries.iterator();
+        while (pending.hasNext())
+        {
+            Entry entry = pending.next();
+            if (entry.frame.getType() == FrameType.DATA)
+            {
+                dataEntries.add(entry);
+                continue;
+            }
+            Result result = generate(entry);
+            if (result.progress)
+                progress = true;
+            if (result.done)
+                pending.remove();
+        }
+
+        if (dataEntries.isEmpty())
+            return progress;
+
+        // The sort is stable, so entries with the same priority retain their queue order.
+        dataEntries.sort(PRIORITY_ORDER);
+        int writeThreshold = session.getWriteThreshold();
+        long totalLength = lease.getTotalLength();
+        int urgency = -1;
+        boolean urgencyProgress = false;
+        for (Entry entry : dataEntries)
+        {
+            int entryUrgency = entry.getUrgency();
+            if (entryUrgency != urgency)
+            {
+                // Less urgent entries only progress if more urgent entries cannot.
+                if (urgencyProgress)
+                    break;
+                urgency = entryUrgency;
+            }
+
+            boolean incremental = entry.isIncremental();
+            int generated = 0;
+            while (true)
+            {
+                int before = entry.getFrameBytesGenerated();
+                Result result = generate(entry);
+                generated += entry.getFrameBytesGenerated() - before;
+                if (result.done)
+                    pendingEntries.remove(entry);
+                if (!result.progress || result.done)
+                    break;
+                if (incremental && generated >= getIncrementalQuantum())
+                    break;
+                if (totalLength + generated >= writeThreshold)
+                    break;
+            }
+
+            if (generated > 0)
+            {
+                progress = true;
+                urgencyProgress = true;
+                totalLength += generated;
+                // Non-incremental entries are sent one at a time.
+                if (!incremental)
+                    break;
+                // Move the incremental entry to the tail of the queue, for round-robin.
+                if (entry.getDataBytesRemaining() > 0 && pendingEntries.remove(entry))
+                    pendingEntries.offer(entry);
+            }
+
+            if (totalLength >= writeThreshold)
+                break;
+        }
+        dataEntries.clear();
+        return progress;
+    }
+
+    private Result generate(Entry entry) throws Throwable
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Processing {}", entry);
+
+        // If the stream has been reset or removed,
+        // don't send the frame and fail it here.
+        if (entry.shouldBeDropped())
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Dropped {}", entry);
+            entry.failed(new EofException("dropped"));
+            return Result.DONE;
+        }
+
+        try
+        {
+            if (entry.generate(lease))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
+
+                long queueTime = entry.queueNanoTime;
+                if (queueTime != 0)
+                {
+                    entry.queueNanoTime = 0;
+                    queueWaitHistogram.record(System.nanoTime() - queueTime);
+                }
+
+                // We use ArrayList contains() + add() instead of HashSet add()
+                // because that is faster for collections of size up to 250 entries.
+                if (!processedEntries.contains(entry))
+                {
+                    processedEntries.add(entry);
+                    invocationType = Invocable.combine(invocationType, Invocable.getInvocationType(entry.getCallback()));
+                }
+
+                return entry.getDataBytesRemaining() == 0 ? Result.GENERATED_DONE : Result.GENERATED;
+            }
+            else
+            {
+                if (session.getSendWindow() <= 0 && stalledEntry == null)
+                {
+                    stalledEntry = entry;
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Flow control stalled at {}", entry);
+                    // Continue to process control frames.
+                }
+                return Result.STALLED;
+            }
+        }
+        catch (HpackException.StreamException failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating {}", entry, failure);
+            entry.failed(failure);
+            return Result.DONE;
+        }
+        catch (Throwable failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating {}", entry, failure);
+            throw failure;
+        }
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -319,6 +523,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     private void finish()
     {
         lease.recycle();
+        session.getGenerator().recycle();
 
         processedEntries.forEach(Entry::succeeded);
         processedEntries.clear();
@@ -349,6 +554,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     protected void onCompleteFailure(Throwable x)
     {
         lease.recycle();
+        session.getGenerator().recycle();
 
         Throwable closed;
         Set<Entry> allEntries;
@@ -424,6 +630,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         protected final Frame frame;
         protected final IStream stream;
+        private long queueNanoTime;
 
         protected Entry(Frame frame, IStream stream, Callback callback)
         {
@@ -448,6 +655,16 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return false;
         }
 
+        int getUrgency()
+        {
+            return stream == null ? 0 : stream.getUrgency();
+        }
+
+        boolean isIncremental()
+        {
+            return stream != null && stream.isIncremental();
+        }
+
         @Override
         public void failed(Throwable x)
         {
@@ -510,6 +727,23 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         }
     }
 
+    private enum Result
+    {
+        GENERATED(true, false),
+        GENERATED_DONE(true, true),
+        STALLED(false, false),
+        DONE(false, true);
+
+        private final boolean progress;
+        private final boolean done;
+
+        Result(boolean progress, boolean done)
+        {
+            this.progress = progress;
+            this.done = done;
+        }
+    }
+
     private class WindowEntry
     {
         private final IStream stream;
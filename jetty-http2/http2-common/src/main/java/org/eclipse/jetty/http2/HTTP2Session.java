@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -93,6 +94,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     private final AtomicInteger sendWindow = new AtomicInteger();
     private final AtomicInteger recvWindow = new AtomicInteger();
     private final AtomicLong bytesWritten = new AtomicLong();
+    private final Queue<SettingsFrame> pendingSettings = new ConcurrentLinkedQueue<>();
     private final EndPoint endPoint;
     private final Generator generator;
     private final Session.Listener listener;
@@ -207,6 +209,52 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         this.writeThreshold = writeThreshold;
     }
 
+    @ManagedAttribute("Whether DATA frames are scheduled by stream priority")
+    public boolean isPriorityScheduling()
+    {
+        return flusher.isPriorityScheduling();
+    }
+
+    public void setPriorityScheduling(boolean priorityScheduling)
+    {
+        flusher.setPriorityScheduling(priorityScheduling);
+    }
+
+    @ManagedAttribute("The number of bytes an incremental stream sends before the next one")
+    public int getIncrementalQuantum()
+    {
+        return flusher.getIncrementalQuantum();
+    }
+
+    public void setIncrementalQuantum(int incrementalQuantum)
+    {
+        flusher.setIncrementalQuantum(incrementalQuantum);
+    }
+
+    @ManagedAttribute(value = "The median number of frames pending to be written, when scheduling by priority", readonly = true)
+    public long getFrameQueueDepthP50()
+    {
+        return flusher.getFrameQueueDepthHistogram().getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute(value = "The 99th percentile of the number of frames pending to be written, when scheduling by priority", readonly = true)
+    public long getFrameQueueDepthP99()
+    {
+        return flusher.getFrameQueueDepthHistogram().getValueAtPercentile(99);
+    }
+
+    @ManagedAttribute(value = "The median time frames are queued before being written (in us), when scheduling by priority", readonly = true)
+    public long getFrameQueueWaitP50()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(flusher.getFrameQueueWaitHistogram().getValueAtPercentile(50));
+    }
+
+    @ManagedAttribute(value = "The 99th percentile of the time frames are queued before being written (in us), when scheduling by priority", readonly = true)
+    public long getFrameQueueWaitP99()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(flusher.getFrameQueueWaitHistogram().getValueAtPercentile(99));
+    }
+
     public EndPoint getEndPoint()
     {
         return endPoint;
@@ -346,7 +394,13 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             LOG.debug("Received {} on {}", frame, this);
 
         if (frame.isReply())
+        {
+            // SPEC: SETTINGS frames are acknowledged in the order they are sent.
+            SettingsFrame settings = pendingSettings.poll();
+            if (settings != null)
+                flowControl.onSettingsReply(this, settings);
             return;
+        }
 
         // Iterate over all settings
         for (Map.Entry<Integer, Integer> entry : frame.getSettings().entrySet())
@@ -431,7 +485,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -1283,6 +1338,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
                 case SETTINGS:
                 {
                     SettingsFrame settingsFrame = (SettingsFrame)frame;
+                    if (!settingsFrame.isReply())
+                        pendingSettings.offer(settingsFrame);
                     Integer initialWindow = settingsFrame.getSettings().get(SettingsFrame.INITIAL_WINDOW_SIZE);
                     if (initialWindow != null)
                         flowControl.updateInitialStreamWindow(HTTP2Session.this, initialWindow, true);
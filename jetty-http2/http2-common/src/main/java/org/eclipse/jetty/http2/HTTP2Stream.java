@@ -51,6 +51,7 @@ import org.slf4j.LoggerFactory;
 public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.Expirable
 {
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Stream.class);
+    private static final int DEFAULT_URGENCY = 3;
 
     private final AutoLock lock = new AutoLock();
     private Deque<DataEntry> dataQueue;
@@ -76,6 +77,8 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     private boolean committed;
     private long idleTimeout;
     private long expireNanoTime = Long.MAX_VALUE;
+    private int urgency = DEFAULT_URGENCY;
+    private boolean incremental;
 
     public HTTP2Stream(ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -85,6 +88,8 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         this.local = local;
         this.dataLength = Long.MIN_VALUE;
         this.dataInitial = true;
+        if (request != null)
+            parsePriority(request.getFields().get(HttpHeader.PRIORITY));
     }
 
     @Deprecated
@@ -284,6 +289,54 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         return committed;
     }
 
+    @Override
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    @Override
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    private void parsePriority(String priority)
+    {
+        // SPEC: RFC 9218, section 4, the Priority header is a
+        // structured field dictionary where unknown keys are ignored.
+        if (priority == null)
+            return;
+        for (String member : priority.split(","))
+        {
+            member = member.trim();
+            int equals = member.indexOf('=');
+            String key = equals < 0 ? member : member.substring(0, equals).trim();
+            String value = equals < 0 ? "?1" : member.substring(equals + 1).trim();
+            switch (key)
+            {
+                case "u":
+                {
+                    if (value.length() == 1 && value.charAt(0) >= '0' && value.charAt(0) <= '7')
+                        urgency = value.charAt(0) - '0';
+                    break;
+                }
+                case "i":
+                {
+                    if ("?1".equals(value))
+                        incremental = true;
+                    else if ("?0".equals(value))
+                        incremental = false;
+                    break;
+                }
+                default:
+                {
+                    break;
+                }
+            }
+        }
+    }
+
     public boolean isOpen()
     {
         return !isClosed();
@@ -142,6 +142,18 @@ public interface IStream extends Stream, Attachable, Closeable
      */
     boolean isCommitted();
 
+    /**
+     * @return the urgency of this stream, from 0 (highest) to 7 (lowest), as specified by RFC 9218
+     * @see #isIncremental()
+     */
+    int getUrgency();
+
+    /**
+     * @return whether the content of this stream can be processed incrementally, as specified by RFC 9218
+     * @see #getUrgency()
+     */
+    boolean isIncremental();
+
     /**
      * <p>An ordered list of frames belonging to the same stream.</p>
      */
@@ -22,13 +22,36 @@ import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 
+/**
+ * <p>Generates DATA frames, passing the frame payload untouched
+ * to the {@link ByteBufferPool.Lease} next to the frame header.</p>
+ * <p>The frame headers may be written into a reusable arena buffer,
+ * that can hold up to {@code arenaHeaders} frame headers, rather
+ * than into a buffer acquired from the pool for each frame.
+ * When the arena is exhausted, frame headers are generated into pooled buffers.
+ * The arena is reused only after {@link #recycle()} is called, when the
+ * buffers previously generated have been written.</p>
+ */
 public class DataGenerator
 {
     private final HeaderGenerator headerGenerator;
+    private final int arenaHeaders;
+    private ByteBuffer[] headers;
+    private int headerIndex;
 
     public DataGenerator(HeaderGenerator headerGenerator)
+    {
+        this(headerGenerator, 0);
+    }
+
+    /**
+     * @param headerGenerator the frame header generator
+     * @param arenaHeaders the max number of frame headers in the arena, or 0 to not use an arena
+     */
+    public DataGenerator(HeaderGenerator headerGenerator, int arenaHeaders)
     {
         this.headerGenerator = headerGenerator;
+        this.arenaHeaders = arenaHeaders;
     }
 
     public int generate(ByteBufferPool.Lease lease, DataFrame frame, int maxLength)
@@ -69,11 +92,55 @@ public class DataGenerator
         if (last)
             flags |= Flags.END_STREAM;
 
-        ByteBuffer header = headerGenerator.generate(lease, FrameType.DATA, Frame.HEADER_LENGTH + length, length, flags, streamId);
-        BufferUtil.flipToFlush(header, 0);
-        lease.append(header, true);
+        ByteBuffer header = nextArenaHeader();
+        if (header == null)
+        {
+            header = headerGenerator.generate(lease, FrameType.DATA, Frame.HEADER_LENGTH, length, flags, streamId);
+            BufferUtil.flipToFlush(header, 0);
+            lease.append(header, true);
+        }
+        else
+        {
+            headerGenerator.generate(header, FrameType.DATA, length, flags, streamId);
+            header.flip();
+            lease.append(header, false);
+        }
         // Skip empty data buffers.
         if (data.remaining() > 0)
             lease.append(data, false);
     }
+
+    private ByteBuffer nextArenaHeader()
+    {
+        if (headerIndex == arenaHeaders)
+            return null;
+        if (headers == null)
+        {
+            // Each frame header is a view of the arena, so that
+            // the views are allocated only once and then reused.
+            ByteBuffer arena = headerGenerator.isUseDirectByteBuffers()
+                ? ByteBuffer.allocateDirect(arenaHeaders * Frame.HEADER_LENGTH)
+                : ByteBuffer.allocate(arenaHeaders * Frame.HEADER_LENGTH);
+            headers = new ByteBuffer[arenaHeaders];
+            for (int i = 0; i < arenaHeaders; ++i)
+            {
+                arena.limit((i + 1) * Frame.HEADER_LENGTH);
+                arena.position(i * Frame.HEADER_LENGTH);
+                headers[i] = arena.slice();
+            }
+        }
+        ByteBuffer header = headers[headerIndex++];
+        header.clear();
+        return header;
+    }
+
+    /**
+     * <p>Makes the arena frame headers available again for generation.</p>
+     * <p>Must be called only when the buffers generated since the
+     * previous call have been written, or will not be written.</p>
+     */
+    public void recycle()
+    {
+        headerIndex = 0;
+    }
 }
@@ -18,6 +18,7 @@ import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.hpack.HpackEncoder;
 import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
 import org.eclipse.jetty.io.ByteBufferPool;
 
 public class Generator
@@ -58,7 +59,7 @@ public class Generator
         this.generators[FrameType.PREFACE.getType()] = new PrefaceGenerator();
         this.generators[FrameType.DISCONNECT.getType()] = new NoOpGenerator();
 
-        this.dataGenerator = new DataGenerator(headerGenerator);
+        this.dataGenerator = new DataGenerator(headerGenerator, 128);
     }
 
     public ByteBufferPool getByteBufferPool()
@@ -71,6 +72,16 @@ public class Generator
         hpackEncoder.setValidateEncoding(validateEncoding);
     }
 
+    public void setHpackIndexingPolicy(HpackIndexingPolicy indexingPolicy)
+    {
+        hpackEncoder.setIndexingPolicy(indexingPolicy);
+    }
+
+    public void setMaxHpackEncodedValueCacheSize(int maxEncodedValues)
+    {
+        hpackEncoder.setMaxEncodedValueCacheSize(maxEncodedValues);
+    }
+
     public void setHeaderTableSize(int headerTableSize)
     {
         hpackEncoder.setRemoteMaxDynamicTableSize(headerTableSize);
@@ -95,4 +106,15 @@ public class Generator
     {
         hpackEncoder.setMaxHeaderListSize(value);
     }
+
+    /**
+     * <p>Invoked when the buffers generated by this generator have been written,
+     * so that the buffers owned by this generator can be reused.</p>
+     *
+     * @see DataGenerator#recycle()
+     */
+    public void recycle()
+    {
+        dataGenerator.recycle();
+    }
 }
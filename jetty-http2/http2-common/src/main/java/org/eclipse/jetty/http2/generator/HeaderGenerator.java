@@ -42,13 +42,18 @@ public class HeaderGenerator
     public ByteBuffer generate(ByteBufferPool.Lease lease, FrameType frameType, int capacity, int length, int flags, int streamId)
     {
         ByteBuffer header = lease.acquire(capacity, isUseDirectByteBuffers());
+        generate(header, frameType, length, flags, streamId);
+        return header;
+    }
+
+    public void generate(ByteBuffer header, FrameType frameType, int length, int flags, int streamId)
+    {
         header.put((byte)((length & 0x00_FF_00_00) >>> 16));
         header.put((byte)((length & 0x00_00_FF_00) >>> 8));
         header.put((byte)((length & 0x00_00_00_FF)));
         header.put((byte)frameType.getType());
         header.put((byte)flags);
         header.putInt(streamId);
-        return header;
     }
 
     public int getMaxFrameSize()
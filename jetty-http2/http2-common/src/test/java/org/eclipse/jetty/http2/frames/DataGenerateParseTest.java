@@ -165,4 +165,53 @@ public class DataGenerateParseTest
             assertEquals(largeContent.length, frames.size());
         }
     }
+
+    @Test
+    public void testGenerateParseWithHeaderArena()
+    {
+        // The arena is smaller than the number of frames, so some headers are pooled.
+        DataGenerator generator = new DataGenerator(new HeaderGenerator(), 5);
+
+        List<DataFrame> frames = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                frames.add(frame);
+            }
+        }, 4096, 8192);
+        parser.init(UnaryOperator.identity());
+
+        // Iterate a few times to be sure the arena is properly recycled.
+        for (int i = 0; i < 3; ++i)
+        {
+            ByteBufferPool.Lease lease = new ByteBufferPool.Lease(byteBufferPool);
+            ByteBuffer data = ByteBuffer.wrap(largeContent);
+            int generated = 0;
+            while (generated < largeContent.length)
+            {
+                generated += generator.generateData(lease, 13, data, true, data.remaining()) - Frame.HEADER_LENGTH;
+            }
+
+            frames.clear();
+            for (ByteBuffer buffer : lease.getByteBuffers())
+            {
+                parser.parse(buffer);
+            }
+            lease.recycle();
+            generator.recycle();
+
+            assertEquals(8, frames.size());
+            ByteBuffer aggregate = ByteBuffer.allocate(largeContent.length);
+            for (DataFrame frame : frames)
+            {
+                assertEquals(13, frame.getStreamId());
+                aggregate.put(frame.getData());
+            }
+            assertTrue(frames.get(frames.size() - 1).isEndStream());
+            aggregate.flip();
+            assertEquals(ByteBuffer.wrap(largeContent), aggregate);
+        }
+    }
 }
@@ -18,6 +18,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
@@ -97,6 +100,11 @@ public class HpackEncoder
     private int _maxHeaderListSize;
     private int _headerListSize;
     private boolean _validateEncoding = true;
+    private HpackIndexingPolicy _indexingPolicy = HpackIndexingPolicy.DEFAULT;
+    private int _maxEncodedValueCacheSize;
+    private Map<HttpField, byte[]> _encodedValues;
+    private long _encodedValueHits;
+    private long _encodedValueMisses;
 
     public HpackEncoder()
     {
@@ -157,6 +165,74 @@ public class HpackEncoder
         _validateEncoding = validateEncoding;
     }
 
+    public HpackIndexingPolicy getIndexingPolicy()
+    {
+        return _indexingPolicy;
+    }
+
+    /**
+     * <p>Sets the policy that decides whether the fields that are encoded as literals
+     * are added to the dynamic table.</p>
+     *
+     * @param indexingPolicy the indexing policy
+     */
+    public void setIndexingPolicy(HpackIndexingPolicy indexingPolicy)
+    {
+        _indexingPolicy = Objects.requireNonNull(indexingPolicy);
+    }
+
+    public int getMaxEncodedValueCacheSize()
+    {
+        return _maxEncodedValueCacheSize;
+    }
+
+    /**
+     * <p>Sets the max number of encoded literal values that are cached.</p>
+     * <p>The values of the fields that are not added to the dynamic table, such as
+     * {@code Set-Cookie}, are encoded as literals, possibly with Huffman encoding,
+     * every time they are encoded.
+     * With a cache, the bytes of the encoded value of a field are stored the first
+     * time, and copied the following times the same field is encoded.</p>
+     * <p>The cache is not shared, as an encoder is used by only one connection.</p>
+     *
+     * @param maxEncodedValues the max number of cached encoded values, or 0 to disable the cache
+     */
+    public void setMaxEncodedValueCacheSize(int maxEncodedValues)
+    {
+        _maxEncodedValueCacheSize = Math.max(0, maxEncodedValues);
+        if (maxEncodedValues <= 0)
+        {
+            _encodedValues = null;
+        }
+        else
+        {
+            _encodedValues = new LinkedHashMap<>(16, 0.75F, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<HttpField, byte[]> eldest)
+                {
+                    return size() > maxEncodedValues;
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the number of encoded values copied from the cache
+     */
+    public long getEncodedValueCacheHits()
+    {
+        return _encodedValueHits;
+    }
+
+    /**
+     * @return the number of encoded values not found in the cache
+     */
+    public long getEncodedValueCacheMisses()
+    {
+        return _encodedValueMisses;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata) throws HpackException
     {
         try
@@ -325,98 +401,65 @@ public class HpackEncoder
             // Unknown field entry, so we will have to send literally, but perhaps add an index.
             final boolean indexed;
 
-            // Do we know its name?
-            HttpHeader header = field.getHeader();
-
-            // Select encoding strategy
-            if (header == null)
+            if (field instanceof PreEncodedHttpField)
             {
-                // Select encoding strategy for unknown header names
-                Entry name = _context.get(field.getName());
-
-                if (field instanceof PreEncodedHttpField)
-                {
-                    int i = buffer.position();
-                    ((PreEncodedHttpField)field).putTo(buffer, HttpVersion.HTTP_2);
-                    byte b = buffer.get(i);
-                    indexed = b < 0 || b >= 0x40;
-                    if (_debug)
-                        encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
-                }
-                else if (name == null && fieldSize < _context.getMaxDynamicTableSize())
-                {
-                    // unknown name and value that will fit in dynamic table, so let's index
-                    // this just in case it is the first time we have seen a custom name or a
-                    // custom field.  Unless the name is once only, this is worthwhile
-                    indexed = true;
-                    encodeName(buffer, (byte)0x40, 6, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
-                    if (_debug)
-                        encoding = "LitHuffNHuffVIdx";
-                }
-                else
-                {
-                    // Known name, but different value.
-                    // This is probably a custom field with changing value, so don't index.
-                    indexed = false;
-                    encodeName(buffer, (byte)0x00, 4, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
-                    if (_debug)
-                        encoding = "LitHuffNHuffV!Idx";
-                }
+                int i = buffer.position();
+                ((PreEncodedHttpField)field).putTo(buffer, HttpVersion.HTTP_2);
+                byte b = buffer.get(i);
+                indexed = b < 0 || b >= 0x40;
+                if (_debug)
+                    encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
             }
             else
             {
-                // Select encoding strategy for known header names
-                Entry name = _context.get(header);
-
-                if (field instanceof PreEncodedHttpField)
+                HpackIndexingPolicy.Indexing indexing = _indexingPolicy.getIndexing(_context, field);
+                indexed = indexing == HpackIndexingPolicy.Indexing.INCREMENTAL;
+                byte mask;
+                int bits;
+                switch (indexing)
                 {
-                    // Preencoded field
-                    int i = buffer.position();
-                    ((PreEncodedHttpField)field).putTo(buffer, HttpVersion.HTTP_2);
-                    byte b = buffer.get(i);
-                    indexed = b < 0 || b >= 0x40;
-                    if (_debug)
-                        encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
+                    case INCREMENTAL:
+                        mask = (byte)0x40;
+                        bits = 6;
+                        break;
+                    case NEVER:
+                        mask = (byte)0x10;
+                        bits = 4;
+                        break;
+                    default:
+                        mask = (byte)0x00;
+                        bits = 4;
+                        break;
                 }
-                else if (DO_NOT_INDEX.contains(header))
-                {
-                    // Non indexed field
-                    indexed = false;
-                    boolean neverIndex = NEVER_INDEX.contains(header);
-                    boolean huffman = !DO_NOT_HUFFMAN.contains(header);
-                    encodeName(buffer, neverIndex ? (byte)0x10 : (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
 
-                    if (_debug)
-                        encoding = "Lit" +
-                            ((name == null) ? "HuffN" : ("IdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(4, _context.index(name))))) +
-                            (huffman ? "HuffV" : "LitV") +
-                            (neverIndex ? "!!Idx" : "!Idx");
-                }
-                else if (fieldSize >= _context.getMaxDynamicTableSize() || header == HttpHeader.CONTENT_LENGTH && !"0".equals(field.getValue()))
+                // Do we know its name?
+                HttpHeader header = field.getHeader();
+                Entry name = null;
+                boolean huffman = true;
+                if (header == null)
                 {
-                    // The field is too large or a non zero content length, so do not index.
-                    indexed = false;
-                    encodeName(buffer, (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, true, field.getValue());
-                    if (_debug)
-                        encoding = "Lit" +
-                            ((name == null) ? "HuffN" : "IdxNS" + (1 + NBitInteger.octectsNeeded(4, _context.index(name)))) +
-                            "HuffV!Idx";
+                    // Unknown header names are always sent literally.
+                    encodeName(buffer, mask, bits, field.getName(), null);
                 }
                 else
                 {
-                    // indexed
-                    indexed = true;
-                    boolean huffman = !DO_NOT_HUFFMAN.contains(header);
-                    encodeName(buffer, (byte)0x40, 6, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
-                    if (_debug)
-                        encoding = ((name == null) ? "LitHuffN" : ("LitIdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(6, _context.index(name))))) +
-                            (huffman ? "HuffVIdx" : "LitVIdx");
+                    name = _context.get(header);
+                    huffman = !DO_NOT_HUFFMAN.contains(header);
+                    encodeName(buffer, mask, bits, header.asString(), name);
                 }
+
+                // Indexed fields are found in the dynamic table the next
+                // time they are encoded, so only cache the other ones.
+                if (indexed || _encodedValues == null)
+                    encodeValue(buffer, huffman, field.getValue());
+                else
+                    encodeCachedValue(buffer, huffman, field);
+
+                if (_debug)
+                    encoding = "Lit" +
+                        ((name == null) ? "HuffN" : ("IdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(bits, _context.index(name))))) +
+                        (huffman ? "HuffV" : "LitV") +
+                        (indexing == HpackIndexingPolicy.Indexing.NEVER ? "!!Idx" : indexed ? "Idx" : "!Idx");
             }
 
             // If we want the field referenced, then we add it to our table and reference set.
@@ -448,6 +491,25 @@ public class HpackEncoder
         }
     }
 
+    private void encodeCachedValue(ByteBuffer buffer, boolean huffman, HttpField field)
+    {
+        byte[] encoded = _encodedValues.get(field);
+        if (encoded != null)
+        {
+            ++_encodedValueHits;
+            buffer.put(encoded);
+        }
+        else
+        {
+            ++_encodedValueMisses;
+            int position = buffer.position();
+            encodeValue(buffer, huffman, field.getValue());
+            encoded = new byte[buffer.position() - position];
+            buffer.duplicate().position(position).get(encoded);
+            _encodedValues.put(field, encoded);
+        }
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value)
     {
         if (huffman)
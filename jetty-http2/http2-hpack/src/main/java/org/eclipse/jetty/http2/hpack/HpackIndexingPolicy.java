@@ -0,0 +1,183 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.StringUtil;
+
+/**
+ * <p>Decides whether a field that is encoded as a literal by {@link HpackEncoder}
+ * is added to the dynamic table, and whether intermediaries must never index it.</p>
+ * <p>Implementations may hold state, such as the frequency of the fields, so an
+ * instance must be used by only one {@link HpackEncoder}, that is by one connection;
+ * use a {@link Factory} to create an instance per connection.</p>
+ */
+public interface HpackIndexingPolicy
+{
+    /**
+     * The default policy, that adds to the dynamic table the fields that are likely to repeat.
+     */
+    HpackIndexingPolicy DEFAULT = new Default();
+
+    /**
+     * <p>Returns how the given field, not present in the HPACK tables, must be encoded.</p>
+     *
+     * @param context the HPACK context of the encoder
+     * @param field the field to encode, with a non-null value
+     * @return how the field must be encoded
+     */
+    Indexing getIndexing(HpackContext context, HttpField field);
+
+    /**
+     * <p>How a literal field is encoded, as specified by RFC 7541, section 6.2.</p>
+     */
+    enum Indexing
+    {
+        /**
+         * The field is added to the dynamic table.
+         */
+        INCREMENTAL,
+        /**
+         * The field is not added to the dynamic table.
+         */
+        NONE,
+        /**
+         * The field is not added to the dynamic table, and intermediaries
+         * must not add it to their dynamic tables either.
+         */
+        NEVER
+    }
+
+    /**
+     * <p>A factory for {@link HpackIndexingPolicy} instances.</p>
+     */
+    interface Factory
+    {
+        /**
+         * @return a new policy for an {@link HpackEncoder}
+         */
+        HpackIndexingPolicy newHpackIndexingPolicy();
+    }
+
+    /**
+     * <p>The default policy, that does not index fields whose values typically change
+     * at each request or response (such as {@code ETag} or {@code Last-Modified}),
+     * never indexes sensitive fields (such as {@code Authorization} or {@code Set-Cookie}),
+     * does not index fields that are too large for the dynamic table, and indexes
+     * the other fields.</p>
+     */
+    class Default implements HpackIndexingPolicy
+    {
+        @Override
+        public Indexing getIndexing(HpackContext context, HttpField field)
+        {
+            int fieldSize = field.getName().length() + field.getValue().length();
+            HttpHeader header = field.getHeader();
+            if (header == null)
+            {
+                // Index a custom name just in case it is the first time
+                // we see it; a custom name with changing values is not indexed.
+                if (context.get(field.getName()) == null && fieldSize < context.getMaxDynamicTableSize())
+                    return Indexing.INCREMENTAL;
+                return Indexing.NONE;
+            }
+            if (HpackEncoder.DO_NOT_INDEX.contains(header))
+                return HpackEncoder.NEVER_INDEX.contains(header) ? Indexing.NEVER : Indexing.NONE;
+            if (fieldSize >= context.getMaxDynamicTableSize())
+                return Indexing.NONE;
+            if (header == HttpHeader.CONTENT_LENGTH && !"0".equals(field.getValue()))
+                return Indexing.NONE;
+            return Indexing.INCREMENTAL;
+        }
+    }
+
+    /**
+     * <p>A policy that adds a field to the dynamic table only after it has been
+     * encoded at least {@link #getThreshold() a number of times}, so that fields
+     * that are seen only once do not evict more useful entries from the dynamic table.</p>
+     * <p>Fields whose name is one of the {@link #getSensitiveNames() sensitive names}
+     * are never indexed.</p>
+     * <p>The other fields are first subject to the {@link Default default policy}.</p>
+     */
+    class Frequency implements HpackIndexingPolicy
+    {
+        private final Map<HttpField, Integer> counts = new HashMap<>();
+        private final int threshold;
+        private final int maxFields;
+        private final Set<String> sensitiveNames;
+
+        /**
+         * @param threshold the number of times a field is encoded before it is indexed
+         */
+        public Frequency(int threshold)
+        {
+            this(threshold, 256, Set.of("authorization", "cookie", "proxy-authorization", "set-cookie"));
+        }
+
+        /**
+         * @param threshold the number of times a field is encoded before it is indexed
+         * @param maxFields the max number of fields whose frequency is tracked
+         * @param sensitiveNames the lower case names of the fields that are never indexed
+         */
+        public Frequency(int threshold, int maxFields, Set<String> sensitiveNames)
+        {
+            this.threshold = threshold;
+            this.maxFields = maxFields;
+            this.sensitiveNames = sensitiveNames;
+        }
+
+        public int getThreshold()
+        {
+            return threshold;
+        }
+
+        public int getMaxFields()
+        {
+            return maxFields;
+        }
+
+        public Set<String> getSensitiveNames()
+        {
+            return sensitiveNames;
+        }
+
+        @Override
+        public Indexing getIndexing(HpackContext context, HttpField field)
+        {
+            if (sensitiveNames.contains(StringUtil.asciiToLowerCase(field.getName())))
+                return Indexing.NEVER;
+
+            Indexing indexing = DEFAULT.getIndexing(context, field);
+            if (indexing != Indexing.INCREMENTAL)
+                return indexing;
+
+            int count = counts.merge(field, 1, Integer::sum);
+            if (count >= threshold)
+            {
+                counts.remove(field);
+                return Indexing.INCREMENTAL;
+            }
+            // Forget all fields rather than tracking the least recent ones,
+            // since the fields that repeat are counted again quickly.
+            if (counts.size() > maxFields)
+                counts.clear();
+            return Indexing.NONE;
+        }
+    }
+}
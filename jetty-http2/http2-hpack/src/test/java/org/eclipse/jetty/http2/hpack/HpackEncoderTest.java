@@ -16,6 +16,7 @@ package org.eclipse.jetty.http2.hpack;
 import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFieldTemplate;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpVersion;
@@ -306,4 +307,100 @@ public class HpackEncoderTest
         assertThat(context.getMaxDynamicTableSize(), Matchers.is(50));
         assertThat(context.size(), Matchers.is(1));
     }
+
+    @Test
+    public void testFrequencyIndexingPolicy() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        encoder.setIndexingPolicy(new HpackIndexingPolicy.Frequency(2));
+        HpackContext context = encoder.getHpackContext();
+
+        HttpFields fields = HttpFields.build()
+            .add("x-custom", "value")
+            .add(HttpHeader.SET_COOKIE, "name=value");
+
+        // Seen once, not indexed.
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        int pos = BufferUtil.flipToFill(buffer);
+        encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+        BufferUtil.flipToFlush(buffer, pos);
+        assertThat(context.size(), equalTo(0));
+
+        // Seen twice, indexed.
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+        assertThat(context.size(), equalTo(1));
+        assertThat(context.get(HpackContext.STATIC_SIZE + 1).getHttpField().getName(), equalTo("x-custom"));
+
+        // The sensitive field is never indexed.
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new HttpField(HttpHeader.SET_COOKIE, "name=value"));
+        assertThat(buffer.get(0) & 0xF0, equalTo(0x10));
+        assertThat(context.size(), equalTo(1));
+    }
+
+    @Test
+    public void testEncodedValueCache() throws Exception
+    {
+        HttpFields fields = HttpFields.build()
+            .add(HttpHeader.SET_COOKIE, "name=value; Path=/; HttpOnly")
+            .add(HttpHeader.ETAG, "W/\"1234567890\"");
+
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ByteBuffer expected = BufferUtil.allocate(4096);
+        int pos = BufferUtil.flipToFill(expected);
+        encoder.encode(expected, new MetaData(HttpVersion.HTTP_2, fields));
+        BufferUtil.flipToFlush(expected, pos);
+
+        HpackEncoder cachingEncoder = new HpackEncoder(4096);
+        cachingEncoder.setMaxEncodedValueCacheSize(16);
+        for (int i = 0; i < 2; ++i)
+        {
+            ByteBuffer buffer = BufferUtil.allocate(4096);
+            pos = BufferUtil.flipToFill(buffer);
+            cachingEncoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+            BufferUtil.flipToFlush(buffer, pos);
+            assertEquals(expected, buffer);
+        }
+
+        assertEquals(2, cachingEncoder.getEncodedValueCacheMisses());
+        assertEquals(2, cachingEncoder.getEncodedValueCacheHits());
+    }
+
+    @Test
+    public void testFieldTemplate() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        HttpFieldTemplate template = new HttpFieldTemplate(
+            new HttpField(HttpHeader.SERVER, "SomeServer"),
+            new HttpField("X-Frame-Options", "DENY"));
+        HttpFields.Mutable fields = HttpFields.build()
+            .add(HttpHeader.CONTENT_TYPE, "text/plain")
+            .add(template.getFields());
+
+        // encode
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData.Response(HttpVersion.HTTP_2, 200, fields));
+        BufferUtil.flipToFlush(buffer, 0);
+        int firstLength = buffer.remaining();
+
+        MetaData.Response response = (MetaData.Response)decoder.decode(buffer);
+        assertEquals("SomeServer", response.getFields().get(HttpHeader.SERVER));
+        assertEquals("DENY", response.getFields().get("X-Frame-Options"));
+        assertEquals(3, response.getFields().size());
+
+        // encode again
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData.Response(HttpVersion.HTTP_2, 200, fields));
+        BufferUtil.flipToFlush(buffer, 0);
+
+        // The template fields are indexed.
+        assertThat(buffer.remaining(), Matchers.lessThan(firstLength));
+        response = (MetaData.Response)decoder.decode(buffer);
+        assertEquals("SomeServer", response.getFields().get(HttpHeader.SERVER));
+        assertEquals("DENY", response.getFields().get("X-Frame-Options"));
+    }
 }
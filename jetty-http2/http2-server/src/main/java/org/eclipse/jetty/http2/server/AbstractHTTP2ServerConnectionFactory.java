@@ -32,6 +32,7 @@ import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.http2.parser.WindowRateControl;
@@ -63,6 +64,10 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(50);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private HpackIndexingPolicy.Factory hpackIndexingPolicyFactory = () -> HpackIndexingPolicy.DEFAULT;
+    private int maxHpackEncodedValueCacheSize;
+    private boolean priorityScheduling;
+    private int incrementalQuantum = Frame.DEFAULT_MAX_LENGTH;
     private long streamIdleTimeout;
     private boolean useInputDirectByteBuffers;
     private boolean useOutputDirectByteBuffers;
@@ -197,6 +202,78 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.connectProtocolEnabled = connectProtocolEnabled;
     }
 
+    /**
+     * @return the factory of the policies that decide which response
+     * header fields are added to the HPACK dynamic table
+     */
+    public HpackIndexingPolicy.Factory getHpackIndexingPolicyFactory()
+    {
+        return hpackIndexingPolicyFactory;
+    }
+
+    /**
+     * <p>Sets the factory of the policies that decide which response header fields are
+     * added to the HPACK dynamic table; a new policy is created for each connection.</p>
+     *
+     * @param hpackIndexingPolicyFactory the factory of HPACK indexing policies
+     */
+    public void setHpackIndexingPolicyFactory(HpackIndexingPolicy.Factory hpackIndexingPolicyFactory)
+    {
+        this.hpackIndexingPolicyFactory = Objects.requireNonNull(hpackIndexingPolicyFactory);
+    }
+
+    @ManagedAttribute("The max number of HPACK encoded header values cached per connection")
+    public int getMaxHpackEncodedValueCacheSize()
+    {
+        return maxHpackEncodedValueCacheSize;
+    }
+
+    /**
+     * <p>Sets the max number of HPACK encoded values of response header fields that are
+     * not added to the dynamic table, for example {@code Set-Cookie}, that each connection
+     * caches to avoid encoding them again.</p>
+     *
+     * @param maxHpackEncodedValueCacheSize the max number of encoded values cached per connection, or 0 to disable the cache
+     */
+    public void setMaxHpackEncodedValueCacheSize(int maxHpackEncodedValueCacheSize)
+    {
+        this.maxHpackEncodedValueCacheSize = maxHpackEncodedValueCacheSize;
+    }
+
+    @ManagedAttribute("Whether DATA frames are scheduled by stream priority")
+    public boolean isPriorityScheduling()
+    {
+        return priorityScheduling;
+    }
+
+    /**
+     * <p>Sets whether response DATA frames are scheduled by the urgency and incremental
+     * parameters of the request {@code Priority} header, as specified by RFC 9218,
+     * rather than interleaved in queue order.</p>
+     *
+     * @param priorityScheduling whether DATA frames are scheduled by stream priority
+     */
+    public void setPriorityScheduling(boolean priorityScheduling)
+    {
+        this.priorityScheduling = priorityScheduling;
+    }
+
+    @ManagedAttribute("The number of bytes an incremental stream sends before the next one")
+    public int getIncrementalQuantum()
+    {
+        return incrementalQuantum;
+    }
+
+    /**
+     * @param incrementalQuantum the number of bytes an incremental stream sends before the
+     * next incremental stream with the same urgency, when scheduling by priority
+     * @see #setPriorityScheduling(boolean)
+     */
+    public void setIncrementalQuantum(int incrementalQuantum)
+    {
+        this.incrementalQuantum = incrementalQuantum;
+    }
+
     /**
      * @return the factory that creates RateControl objects
      */
@@ -261,6 +338,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), getMaxDynamicTableSize(), getMaxHeaderBlockFragment());
+        generator.setHpackIndexingPolicy(getHpackIndexingPolicyFactory().newHpackIndexingPolicy());
+        generator.setMaxHpackEncodedValueCacheSize(getMaxHpackEncodedValueCacheSize());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
         HTTP2ServerSession session = new HTTP2ServerSession(connector.getScheduler(), endPoint, generator, listener, flowControl);
         session.setMaxLocalStreams(getMaxConcurrentStreams());
@@ -275,6 +354,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
+        session.setPriorityScheduling(isPriorityScheduling());
+        session.setIncrementalQuantum(getIncrementalQuantum());
 
         ServerParser parser = newServerParser(connector, session, getRateControlFactory().newRateControl(endPoint));
         parser.setMaxFrameLength(getMaxFrameLength());
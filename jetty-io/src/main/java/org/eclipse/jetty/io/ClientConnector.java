@@ -31,14 +31,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.JavaVersion;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
@@ -78,6 +82,7 @@ public class ClientConnector extends ContainerLifeCycle
     public static final String CLIENT_CONNECTION_FACTORY_CONTEXT_KEY = CLIENT_CONNECTOR_CONTEXT_KEY + ".clientConnectionFactory";
     public static final String CONNECTION_PROMISE_CONTEXT_KEY = CLIENT_CONNECTOR_CONTEXT_KEY + ".connectionPromise";
     public static final String APPLICATION_PROTOCOLS_CONTEXT_KEY = CLIENT_CONNECTOR_CONTEXT_KEY + ".applicationProtocols";
+    private static final String CONNECT_BEGIN_CONTEXT_KEY = CLIENT_CONNECTOR_CONTEXT_KEY + ".connectBegin";
     private static final Logger LOG = LoggerFactory.getLogger(ClientConnector.class);
 
     /**
@@ -91,6 +96,8 @@ public class ClientConnector extends ContainerLifeCycle
         return new ClientConnector(Configurator.forUnixDomain(path));
     }
 
+    private final SampleStatistic connectTimeStats = new SampleStatistic();
+    private final LongAdder connectFailures = new LongAdder();
     private final Configurator configurator;
     private Executor executor;
     private Scheduler scheduler;
@@ -355,6 +362,37 @@ public class ClientConnector extends ContainerLifeCycle
         this.sendBufferSize = sendBufferSize;
     }
 
+    @ManagedAttribute("The number of successful connect operations")
+    public long getConnects()
+    {
+        return connectTimeStats.getCount();
+    }
+
+    @ManagedAttribute("The number of failed connect operations")
+    public long getConnectFailures()
+    {
+        return connectFailures.sum();
+    }
+
+    @ManagedAttribute("The mean time of successful connect operations (in ms)")
+    public double getConnectTimeMean()
+    {
+        return connectTimeStats.getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute("The max time of successful connect operations (in ms)")
+    public long getConnectTimeMax()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(connectTimeStats.getMax());
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        connectTimeStats.reset();
+        connectFailures.reset();
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -404,6 +442,7 @@ public class ClientConnector extends ContainerLifeCycle
                 context = new ConcurrentHashMap<>();
             context.put(ClientConnector.CLIENT_CONNECTOR_CONTEXT_KEY, this);
             context.putIfAbsent(REMOTE_SOCKET_ADDRESS_CONTEXT_KEY, address);
+            context.put(CONNECT_BEGIN_CONTEXT_KEY, System.nanoTime());
 
             Configurator.ChannelWithAddress channelWithAddress = configurator.newChannelWithAddress(this, address, context);
             channel = channelWithAddress.getSelectableChannel();
@@ -534,6 +573,8 @@ public class ClientConnector extends ContainerLifeCycle
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Could not connect to {}", context.get(REMOTE_SOCKET_ADDRESS_CONTEXT_KEY));
+        if (context.remove(CONNECT_BEGIN_CONTEXT_KEY) != null)
+            connectFailures.increment();
         Promise<?> promise = (Promise<?>)context.get(CONNECTION_PROMISE_CONTEXT_KEY);
         if (promise != null)
             promise.failed(failure);
@@ -570,6 +611,9 @@ public class ClientConnector extends ContainerLifeCycle
             //  so that each implementation can decide when to notify the promise, possibly not in onOpen().
             @SuppressWarnings("unchecked")
             Map<String, Object> contextMap = (Map<String, Object>)context;
+            Long begin = (Long)contextMap.remove(CONNECT_BEGIN_CONTEXT_KEY);
+            if (begin != null)
+                connectTimeStats.record(System.nanoTime() - begin);
             @SuppressWarnings("unchecked")
             Promise<Connection> promise = (Promise<Connection>)contextMap.get(CONNECTION_PROMISE_CONTEXT_KEY);
             if (promise != null)
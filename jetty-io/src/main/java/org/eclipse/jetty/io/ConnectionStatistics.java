@@ -26,6 +26,7 @@ import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.RateCounter;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 
@@ -40,12 +41,36 @@ import org.eclipse.jetty.util.statistic.SampleStatistic;
  * <p>ConnectionStatistics instances must be {@link #start() started}
  * to collect statistics, either as part of starting the whole component
  * tree, or explicitly if the component tree has already been started.</p>
+ * <p>The distribution of connection durations is recorded in a
+ * {@link HistogramStatistic} whose {@link #setHistogramPrecision(int) precision}
+ * is configurable.</p>
  */
 @ManagedObject("Tracks statistics on connections")
 public class ConnectionStatistics extends AbstractLifeCycle implements Connection.Listener, Dumpable
 {
-    private final Stats _stats = new Stats("total");
     private final Map<String, Stats> _statsMap = new ConcurrentHashMap<>();
+    private int _histogramPrecision = HistogramStatistic.DEFAULT_PRECISION;
+    private Stats _stats = new Stats("total", _histogramPrecision);
+
+    /**
+     * @return the number of significant bits of the connection durations recorded in histograms
+     */
+    @ManagedAttribute("The number of significant bits of the connection durations recorded in histograms")
+    public int getHistogramPrecision()
+    {
+        return _histogramPrecision;
+    }
+
+    /**
+     * @param histogramPrecision the number of significant bits of the connection durations recorded in histograms
+     */
+    public void setHistogramPrecision(int histogramPrecision)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _stats = new Stats(_stats.getName(), histogramPrecision);
+        _histogramPrecision = histogramPrecision;
+    }
 
     @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
     public void reset()
@@ -76,7 +101,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
 
     protected void onConnectionOpened(Connection connection)
     {
-        _statsMap.computeIfAbsent(connection.getClass().getName(), Stats::new).incrementCount();
+        _statsMap.computeIfAbsent(connection.getClass().getName(), name -> new Stats(name, _histogramPrecision)).incrementCount();
     }
 
     @Override
@@ -160,6 +185,24 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         return _stats.getConnectionDurationStdDev();
     }
 
+    @ManagedAttribute("The 50th percentile of the duration of a connection in ms")
+    public long getConnectionDurationP50()
+    {
+        return _stats.getConnectionDurationHistogram().getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute("The 99th percentile of the duration of a connection in ms")
+    public long getConnectionDurationP99()
+    {
+        return _stats.getConnectionDurationHistogram().getValueAtPercentile(99);
+    }
+
+    @ManagedAttribute("The 99.9th percentile of the duration of a connection in ms")
+    public long getConnectionDurationP999()
+    {
+        return _stats.getConnectionDurationHistogram().getValueAtPercentile(99.9);
+    }
+
     @ManagedAttribute("The total number of connections opened")
     public long getConnectionsTotal()
     {
@@ -226,6 +269,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
     {
         private final CounterStatistic _connections = new CounterStatistic();
         private final SampleStatistic _connectionsDuration = new SampleStatistic();
+        private final HistogramStatistic _connectionsDurationHistogram;
         private final LongAdder _bytesIn = new LongAdder();
         private final RateCounter _bytesInRate = new RateCounter();
         private final LongAdder _bytesOut = new LongAdder();
@@ -237,14 +281,21 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         private final String _name;
 
         public Stats(String name)
+        {
+            this(name, HistogramStatistic.DEFAULT_PRECISION);
+        }
+
+        public Stats(String name, int histogramPrecision)
         {
             _name = name;
+            _connectionsDurationHistogram = new HistogramStatistic(histogramPrecision);
         }
 
         public void reset()
         {
             _connections.reset();
             _connectionsDuration.reset();
+            _connectionsDurationHistogram.reset();
             _bytesIn.reset();
             _bytesInRate.reset();
             _bytesOut.reset();
@@ -299,6 +350,11 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
             return _connectionsDuration.getStdDev();
         }
 
+        public HistogramStatistic getConnectionDurationHistogram()
+        {
+            return _connectionsDurationHistogram;
+        }
+
         public long getConnectionsTotal()
         {
             return _connections.getTotal();
@@ -351,6 +407,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         public void recordDuration(long duration)
         {
             _connectionsDuration.record(duration);
+            _connectionsDurationHistogram.record(duration);
         }
 
         public void recordBytesIn(long bytesIn)
@@ -383,6 +440,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
             Dumpable.dumpObjects(out, indent, this,
                 String.format("connections=%s", _connections),
                 String.format("durations=%s", _connectionsDuration),
+                String.format("duration percentiles=%s", _connectionsDurationHistogram.snapshot()),
                 String.format("bytes in/out=%s/%s", getReceivedBytes(), getSentBytes()),
                 String.format("messages in/out=%s/%s", getReceivedMessages(), getSentMessages()));
         }
@@ -26,6 +26,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
@@ -38,13 +39,16 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
@@ -58,6 +62,12 @@ import org.slf4j.LoggerFactory;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>When {@link SelectorManager#isOptimizeSelectedKeys()} is enabled, the selected keys are
+ * collected by {@link Selector#select(Consumer)} into a reusable array and processed by index,
+ * so that no iterator is allocated per select cycle; otherwise the keys are processed from
+ * {@link Selector#selectedKeys()}.</p>
+ * <p>When {@link SelectorManager#isSelectStatistics()} is enabled, the select latency and
+ * the number of selected keys of every select operation are recorded in histograms.</p>
  */
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
@@ -88,11 +98,17 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     private Deque<SelectorUpdate> _updates = new ArrayDeque<>();
     private Deque<SelectorUpdate> _updateable = new ArrayDeque<>();
     private final SampleStatistic _keyStats = new SampleStatistic();
+    private final HistogramStatistic _selectedKeysHistogram = new HistogramStatistic();
+    private final HistogramStatistic _selectLatencyHistogram = new HistogramStatistic();
+    private final SelectedKeys _selectedKeys;
+    private final boolean _selectStatistics;
 
     public ManagedSelector(SelectorManager selectorManager, int id)
     {
         _selectorManager = selectorManager;
         _id = id;
+        _selectedKeys = selectorManager.isOptimizeSelectedKeys() ? new SelectedKeys() : null;
+        _selectStatistics = selectorManager.isSelectStatistics();
         SelectorProducer producer = new SelectorProducer();
         Executor executor = selectorManager.getExecutor();
         _strategy = new AdaptiveExecutionStrategy(producer, executor);
@@ -169,14 +185,67 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         return _keyStats.getCount();
     }
 
+    @ManagedAttribute(value = "Whether selected keys are processed without allocations", readonly = true)
+    public boolean isOptimizeSelectedKeys()
+    {
+        return _selectedKeys != null;
+    }
+
+    @ManagedAttribute(value = "Whether the select latency and selected keys histograms are recorded", readonly = true)
+    public boolean isSelectStatistics()
+    {
+        return _selectStatistics;
+    }
+
+    @ManagedAttribute(value = "Histogram of the number of selected keys per select() call", readonly = true)
+    public String getSelectedKeysHistogram()
+    {
+        return _selectedKeysHistogram.snapshot().toString();
+    }
+
+    @ManagedOperation(value = "The given percentile of the number of selected keys per select() call", impact = "INFO")
+    public long getSelectedKeysPercentile(@Name("percentile") double percentile)
+    {
+        return _selectedKeysHistogram.getValueAtPercentile(percentile);
+    }
+
+    @ManagedAttribute(value = "Histogram of the select() latency in microseconds", readonly = true)
+    public String getSelectLatencyHistogram()
+    {
+        return _selectLatencyHistogram.snapshot().toString();
+    }
+
+    @ManagedOperation(value = "The given percentile of the select() latency in microseconds", impact = "INFO")
+    public long getSelectLatencyPercentile(@Name("percentile") double percentile)
+    {
+        return _selectLatencyHistogram.getValueAtPercentile(percentile);
+    }
+
     @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
     public void resetStats()
     {
         _keyStats.reset();
+        _selectedKeysHistogram.reset();
+        _selectLatencyHistogram.reset();
     }
 
+    /**
+     * <p>Performs the NIO select operation.</p>
+     * <p>When selected keys are optimized, the keys are collected via
+     * {@link Selector#select(Consumer)}, and {@link Selector#selectedKeys()}
+     * is left empty; overrides that call the classic {@link Selector#select()}
+     * are still supported, as the keys in the selected keys set are processed too.</p>
+     *
+     * @param selector the selector
+     * @param now whether to select without blocking
+     * @return the number of selected keys
+     * @throws IOException if the select operation fails
+     */
     protected int nioSelect(Selector selector, boolean now) throws IOException
     {
+        SelectedKeys selectedKeys = _selectedKeys;
+        if (selectedKeys != null)
+            return now ? selector.selectNow(selectedKeys) : selector.select(selectedKeys);
         return now ? selector.selectNow() : selector.select();
     }
 
@@ -215,6 +284,10 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("", failure);
 
+        // Discard the keys of the failed selector, they will be cancelled.
+        if (_selectedKeys != null)
+            _selectedKeys.clear();
+
         Selector newSelector = _selectorManager.newSelector();
         for (SelectionKey oldKey : selector.keys())
         {
@@ -524,6 +597,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     {
         private Set<SelectionKey> _keys = Collections.emptySet();
         private Iterator<SelectionKey> _cursor = Collections.emptyIterator();
+        private int _index;
 
         @Override
         public Runnable produce()
@@ -601,7 +675,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} waiting with {} keys", selector, selector.keys().size());
+                    long begin = _selectStatistics ? System.nanoTime() : 0;
                     int selected = ManagedSelector.this.select(selector);
+                    long latency = _selectStatistics ? System.nanoTime() - begin : 0;
                     // The selector may have been recreated.
                     selector = _selector;
                     if (selector != null)
@@ -618,10 +694,18 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                         }
 
                         _keys = selector.selectedKeys();
+                        _index = 0;
                         int selectedKeys = _keys.size();
+                        _cursor = selectedKeys > 0 ? _keys.iterator() : Collections.emptyIterator();
+                        if (_selectedKeys != null)
+                            selectedKeys += _selectedKeys.size();
                         if (selectedKeys > 0)
                             _keyStats.record(selectedKeys);
-                        _cursor = selectedKeys > 0 ? _keys.iterator() : Collections.emptyIterator();
+                        if (_selectStatistics)
+                        {
+                            _selectedKeysHistogram.record(selectedKeys);
+                            _selectLatencyHistogram.record(TimeUnit.NANOSECONDS.toMicros(latency));
+                        }
                         if (LOG.isDebugEnabled())
                             LOG.debug("Selector {} processing {} keys, {} updates", selector, selectedKeys, updates);
 
@@ -652,52 +736,67 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 
         private Runnable processSelected()
         {
+            SelectedKeys selectedKeys = _selectedKeys;
+            if (selectedKeys != null)
+            {
+                while (_index < selectedKeys.size())
+                {
+                    Runnable task = processKey(selectedKeys.get(_index++));
+                    if (task != null)
+                        return task;
+                }
+            }
             while (_cursor.hasNext())
             {
-                SelectionKey key = _cursor.next();
-                Object attachment = key.attachment();
-                SelectableChannel channel = key.channel();
-                if (key.isValid())
+                Runnable task = processKey(_cursor.next());
+                if (task != null)
+                    return task;
+            }
+            return null;
+        }
+
+        private Runnable processKey(SelectionKey key)
+        {
+            Object attachment = key.attachment();
+            SelectableChannel channel = key.channel();
+            if (key.isValid())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("selected {} {} {} ", safeReadyOps(key), key, attachment);
+                try
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("selected {} {} {} ", safeReadyOps(key), key, attachment);
-                    try
+                    if (attachment instanceof Selectable)
                     {
-                        if (attachment instanceof Selectable)
-                        {
-                            // Try to produce a task
-                            Runnable task = ((Selectable)attachment).onSelected();
-                            if (task != null)
-                                return task;
-                        }
-                        else if (key.isConnectable())
-                        {
-                            processConnect(key, (Connect)attachment);
-                        }
-                        else
-                        {
-                            throw new IllegalStateException("key=" + key + ", att=" + attachment + ", iOps=" + safeInterestOps(key) + ", rOps=" + safeReadyOps(key));
-                        }
+                        // Try to produce a task
+                        return ((Selectable)attachment).onSelected();
                     }
-                    catch (CancelledKeyException x)
+                    else if (key.isConnectable())
                     {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Ignoring cancelled key for channel {}", channel);
-                        IO.close(attachment instanceof EndPoint ? (EndPoint)attachment : channel);
+                        processConnect(key, (Connect)attachment);
                     }
-                    catch (Throwable x)
+                    else
                     {
-                        LOG.warn("Could not process key for channel {}", channel, x);
-                        IO.close(attachment instanceof EndPoint ? (EndPoint)attachment : channel);
+                        throw new IllegalStateException("key=" + key + ", att=" + attachment + ", iOps=" + safeInterestOps(key) + ", rOps=" + safeReadyOps(key));
                     }
                 }
-                else
+                catch (CancelledKeyException x)
                 {
                     if (LOG.isDebugEnabled())
-                        LOG.debug("Selector loop ignoring invalid key for channel {}", channel);
+                        LOG.debug("Ignoring cancelled key for channel {}", channel);
+                    IO.close(attachment instanceof EndPoint ? (EndPoint)attachment : channel);
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Could not process key for channel {}", channel, x);
                     IO.close(attachment instanceof EndPoint ? (EndPoint)attachment : channel);
                 }
             }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Selector loop ignoring invalid key for channel {}", channel);
+                IO.close(attachment instanceof EndPoint ? (EndPoint)attachment : channel);
+            }
             return null;
         }
 
@@ -706,13 +805,31 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             // Do update keys for only previously selected keys.
             // This will update only those keys whose selection did not cause an
             // updateKeys update to be submitted.
-            for (SelectionKey key : _keys)
+            SelectedKeys selectedKeys = _selectedKeys;
+            if (selectedKeys != null)
             {
-                Object attachment = key.attachment();
-                if (attachment instanceof Selectable)
-                    ((Selectable)attachment).updateKey();
+                for (int i = 0; i < selectedKeys.size(); ++i)
+                {
+                    updateKey(selectedKeys.get(i));
+                }
+                selectedKeys.clear();
+                _index = 0;
+            }
+            if (!_keys.isEmpty())
+            {
+                for (SelectionKey key : _keys)
+                {
+                    updateKey(key);
+                }
+                _keys.clear();
             }
-            _keys.clear();
+        }
+
+        private void updateKey(SelectionKey key)
+        {
+            Object attachment = key.attachment();
+            if (attachment instanceof Selectable)
+                ((Selectable)attachment).updateKey();
         }
 
         @Override
@@ -1120,4 +1237,39 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             run();
         }
     }
+
+    /**
+     * <p>Collects the keys selected by {@link Selector#select(Consumer)}
+     * into an array that is reused across select cycles.</p>
+     * <p>Only accessed by the thread running the select loop.</p>
+     */
+    private static class SelectedKeys implements Consumer<SelectionKey>
+    {
+        private SelectionKey[] _keys = new SelectionKey[64];
+        private int _size;
+
+        @Override
+        public void accept(SelectionKey key)
+        {
+            if (_size == _keys.length)
+                _keys = Arrays.copyOf(_keys, _size * 2);
+            _keys[_size++] = key;
+        }
+
+        private SelectionKey get(int index)
+        {
+            return _keys[index];
+        }
+
+        private int size()
+        {
+            return _size;
+        }
+
+        private void clear()
+        {
+            Arrays.fill(_keys, 0, _size, null);
+            _size = 0;
+        }
+    }
 }
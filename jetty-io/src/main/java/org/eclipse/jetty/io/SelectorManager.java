@@ -62,6 +62,8 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final IntUnaryOperator _selectorIndexUpdate;
     private final List<AcceptListener> _acceptListeners = new CopyOnWriteArrayList<>();
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private boolean _optimizeSelectedKeys = Boolean.getBoolean("org.eclipse.jetty.io.optimizeSelectedKeys");
+    private boolean _selectStatistics = Boolean.getBoolean("org.eclipse.jetty.io.selectStatistics");
     private ThreadPoolBudget.Lease _lease;
 
     private static int defaultSelectors(Executor executor)
@@ -129,6 +131,58 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         _connectTimeout = milliseconds;
     }
 
+    /**
+     * @return whether the {@link ManagedSelector}s process selected keys without allocations
+     * @see #setOptimizeSelectedKeys(boolean)
+     */
+    @ManagedAttribute("Whether selected keys are processed without allocations")
+    public boolean isOptimizeSelectedKeys()
+    {
+        return _optimizeSelectedKeys;
+    }
+
+    /**
+     * <p>Sets whether the {@link ManagedSelector}s collect the selected keys into a reusable
+     * array via {@link java.nio.channels.Selector#select(java.util.function.Consumer)},
+     * rather than iterating over {@link java.nio.channels.Selector#selectedKeys()},
+     * avoiding the allocation of an iterator per select cycle.</p>
+     * <p>Defaults to the value of the {@code org.eclipse.jetty.io.optimizeSelectedKeys}
+     * system property, or {@code false}; must be set before this SelectorManager is started.</p>
+     *
+     * @param optimizeSelectedKeys whether to process selected keys without allocations
+     */
+    public void setOptimizeSelectedKeys(boolean optimizeSelectedKeys)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _optimizeSelectedKeys = optimizeSelectedKeys;
+    }
+
+    /**
+     * @return whether the {@link ManagedSelector}s record histograms of the select latency and of the selected keys
+     * @see #setSelectStatistics(boolean)
+     */
+    @ManagedAttribute("Whether the select latency and selected keys histograms are recorded")
+    public boolean isSelectStatistics()
+    {
+        return _selectStatistics;
+    }
+
+    /**
+     * <p>Sets whether the {@link ManagedSelector}s time every select operation and record
+     * histograms of the select latency and of the number of selected keys.</p>
+     * <p>Defaults to the value of the {@code org.eclipse.jetty.io.selectStatistics}
+     * system property, or {@code false}; must be set before this SelectorManager is started.</p>
+     *
+     * @param selectStatistics whether to record the select histograms
+     */
+    public void setSelectStatistics(boolean selectStatistics)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _selectStatistics = selectStatistics;
+    }
+
     /**
      * Executes the given task in a different thread.
      *
@@ -124,6 +124,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
     private FlushState _flushState = FlushState.IDLE;
     private FillState _fillState = FillState.IDLE;
     private boolean _underflown;
+    private boolean _tls13;
     private final Runnable _runFillable = new RunnableTask("runFillable")
     {
         @Override
@@ -937,6 +938,9 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
 
         private void handshakeSucceeded() throws SSLException
         {
+            // The protocol cannot change after the handshake, so remember it to avoid
+            // contending on the SSLEngine lock to check it for every record.
+            _tls13 = TLS_1_3.equals(_sslEngine.getSession().getProtocol());
             if (_handshake.compareAndSet(HandshakeState.HANDSHAKE, HandshakeState.SUCCEEDED))
             {
                 if (LOG.isDebugEnabled())
@@ -1532,6 +1536,8 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
 
         private boolean isTLS13()
         {
+            if (isHandshakeSucceeded())
+                return _tls13;
             String protocol = _sslEngine.getSession().getProtocol();
             return TLS_1_3.equals(protocol);
         }
@@ -16,20 +16,33 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.TimerScheduler;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -152,4 +165,116 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testSelectedKeysProcessing(boolean optimizeSelectedKeys) throws Exception
+    {
+        int connections = 16;
+        int bytesPerConnection = 64;
+        AtomicInteger bytesRead = new AtomicInteger();
+        CountDownLatch readLatch = new CountDownLatch(connections * bytesPerConnection);
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                return new SocketChannelEndPoint((SocketChannel)channel, selector, key, getScheduler());
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                return new AbstractConnection(endpoint, executor)
+                {
+                    private final ByteBuffer buffer = BufferUtil.allocate(16);
+
+                    @Override
+                    public void onOpen()
+                    {
+                        super.onOpen();
+                        fillInterested();
+                    }
+
+                    @Override
+                    public void onFillable()
+                    {
+                        try
+                        {
+                            while (true)
+                            {
+                                BufferUtil.clear(buffer);
+                                int filled = getEndPoint().fill(buffer);
+                                if (filled > 0)
+                                {
+                                    bytesRead.addAndGet(filled);
+                                    for (int i = 0; i < filled; ++i)
+                                    {
+                                        readLatch.countDown();
+                                    }
+                                }
+                                else
+                                {
+                                    if (filled == 0)
+                                        fillInterested();
+                                    else
+                                        getEndPoint().close();
+                                    return;
+                                }
+                            }
+                        }
+                        catch (IOException x)
+                        {
+                            getEndPoint().close(x);
+                        }
+                    }
+                };
+            }
+        };
+        selectorManager.setOptimizeSelectedKeys(optimizeSelectedKeys);
+        selectorManager.setSelectStatistics(true);
+        selectorManager.start();
+
+        List<SocketChannel> clients = new ArrayList<>();
+        try (ServerSocketChannel server = ServerSocketChannel.open())
+        {
+            server.bind(new InetSocketAddress("localhost", 0));
+            for (int i = 0; i < connections; ++i)
+            {
+                SocketChannel client = SocketChannel.open(server.getLocalAddress());
+                clients.add(client);
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                selectorManager.accept(channel);
+            }
+
+            // Write in rounds, so that multiple keys are selected at once.
+            for (int i = 0; i < bytesPerConnection / 8; ++i)
+            {
+                for (SocketChannel client : clients)
+                {
+                    client.write(ByteBuffer.wrap(new byte[8]));
+                }
+            }
+
+            assertTrue(readLatch.await(5, TimeUnit.SECONDS));
+            assertEquals(connections * bytesPerConnection, bytesRead.get());
+
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            assertEquals(optimizeSelectedKeys, selector.isOptimizeSelectedKeys());
+            assertThat(selector.getSelectCount(), greaterThan(0L));
+            assertThat(selector.getMaxSelectedKeys(), greaterThan(0L));
+            assertThat(selector.getSelectedKeysPercentile(100), greaterThanOrEqualTo(selector.getMaxSelectedKeys()));
+            assertThat(selector.getSelectedKeysHistogram(), containsString("="));
+            assertThat(selector.getSelectLatencyHistogram(), containsString("="));
+
+            selector.resetStats();
+            assertEquals(0, selector.getSelectedKeysPercentile(50));
+        }
+        finally
+        {
+            clients.forEach(IO::close);
+            selectorManager.stop();
+        }
+    }
 }
@@ -0,0 +1,30 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enables the DoSHandler for the entire server.
+Limits the request rate per remote IP address for DOS protection.
+
+[tags]
+server
+
+[depend]
+server
+
+[xml]
+etc/jetty-dos.xml
+
+[ini-template]
+## Enabled by default?
+#jetty.dos.enabled=true
+
+## The maximum number of requests per second per remote IP address
+#jetty.dos.maxRequestsPerSec=25
+
+## The maximum number of remote IP addresses tracked at once
+#jetty.dos.maxTrackers=65536
+
+## Whether the rate is tracked per remote IP address and port
+#jetty.dos.remotePort=false
+
+## The status code of the responses to requests over the rate
+#jetty.dos.tooManyCode=429
@@ -42,6 +42,9 @@ etc/jetty-gzip.xml
 ## Set the {@link Deflater} flush mode to use.
 # jetty.gzip.syncFlush=false
 
+## Minimum number of compressed bytes written at once (0 to write them as soon as produced)
+# jetty.gzip.minFrameSize=0
+
 ## The set of DispatcherType that this filter will operate on
 # jetty.gzip.dispatcherTypes=REQUEST
 
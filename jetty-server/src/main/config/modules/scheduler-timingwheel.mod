@@ -0,0 +1,25 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Configures the Scheduler used by the Server and by its connectors to be based on timing wheels.
+Scheduling and cancelling tasks are constant time operations, at the cost of a coarser resolution,
+which suits servers with many idle connections whose idle timeouts are frequently rescheduled.
+
+[tags]
+scheduler
+
+[provides]
+scheduler
+
+[xml]
+etc/jetty-scheduler-timingwheel.xml
+
+[ini-template]
+## The duration in ms of a tick, that is the resolution of the scheduler.
+#jetty.scheduler.tickMillis=100
+
+## The number of wheels, each with its own lock (-1 for heuristic).
+#jetty.scheduler.wheels=-1
+
+## The number of slots of each wheel.
+#jetty.scheduler.wheelSize=512
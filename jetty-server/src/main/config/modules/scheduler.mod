@@ -0,0 +1,9 @@
+[description]
+Configures the Scheduler used by the Server and by its connectors.
+Use module "scheduler-timingwheel" for a scheduler that is cheaper for many idle timeouts.
+
+[tags]
+scheduler
+
+[xml]
+etc/jetty-scheduler.xml
@@ -11,6 +11,7 @@ resources
 [depend]
 threadpool
 bytebufferpool
+scheduler
 logging
 
 [lib]
@@ -66,6 +67,9 @@ etc/jetty.xml
 ## Whether to use direct ByteBuffers for reading or writing
 # jetty.httpConfig.useInputDirectByteBuffers=true
 # jetty.httpConfig.useOutputDirectByteBuffers=true
+
+## Whether to write file content from memory mapped buffers
+# jetty.httpConfig.useOutputFileMappedBuffers=false
 # end::documentation-http-config[]
 
 # tag::documentation-server-compliance[]
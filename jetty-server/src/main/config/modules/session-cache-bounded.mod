@@ -0,0 +1,32 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enable a bounded first level session cache.
+When the max number of resident sessions, or their max estimated size
+in bytes, is exceeded, idle sessions are passivated to the session store.
+A persistent session store module should be enabled too, otherwise the
+passivated sessions are lost.
+
+[tags]
+session
+
+[provides]
+session-cache
+
+[depends]
+sessions
+
+[xml]
+etc/sessions/session-cache-bounded.xml
+
+[ini-template]
+#jetty.session.maxSessions=0
+#jetty.session.maxSessionBytes=0
+#jetty.session.shards=-1
+#jetty.session.passivationPolicy=LRU
+#jetty.session.evictionPolicy=-1
+#jetty.session.saveOnInactiveEvict=false
+#jetty.session.saveOnCreate=false
+#jetty.session.removeUnloadableSessions=false
+#jetty.session.flushOnResponseCommit=false
+#jetty.session.invalidateOnShutdown=false
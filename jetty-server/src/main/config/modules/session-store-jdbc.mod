@@ -27,6 +27,8 @@ db-connection-type?=datasource
 
 #jetty.session.gracePeriod.seconds=3600
 #jetty.session.savePeriod.seconds=0
+#jetty.session.jdbc.scavengePageSize=1000
+#jetty.session.jdbc.scavengeLease.seconds=0
 
 #jetty.session.jdbc.blobType=
 #jetty.session.jdbc.longType=
@@ -55,6 +57,7 @@ db-connection-type=datasource
 #jetty.session.jdbc.schema.maxIntervalColumn=maxInterval
 #jetty.session.jdbc.schema.mapColumn=map
 #jetty.session.jdbc.schema.table=JettySessions
+#jetty.session.jdbc.schema.leaseTable=JettySessionLeases
 # Optional name of the schema used to identify where the session table is defined in the database: 
 #  "" - empty string, no schema name 
 #  "INFERRED" - special string meaning infer from the current db connection
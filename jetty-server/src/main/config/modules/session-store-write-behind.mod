@@ -0,0 +1,20 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enables write-behind of SessionData to a SessionDataStore.
+Updates of the same session are coalesced and written in batches,
+at most after a max delay, and when the server stops.
+
+[tags]
+session
+
+[depend]
+session-store
+
+[xml]
+etc/sessions/session-write-behind-store.xml
+
+[ini-template]
+#jetty.session.writeBehind.windowMs=1000
+#jetty.session.writeBehind.maxDelayMs=5000
+#jetty.session.writeBehind.maxBatchSize=128
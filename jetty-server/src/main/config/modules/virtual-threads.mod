@@ -0,0 +1,27 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enables the virtual threads execution mode, if the runtime supports virtual threads.
+Requests are handled in virtual threads, while selecting and non blocking tasks
+are run by platform threads, and the pinning of virtual threads to their carrier
+threads and the blocking reads and writes of requests are monitored.
+
+[tags]
+threadpool
+
+[depend]
+threadpool
+server
+
+[xml]
+etc/jetty-virtual-threads.xml
+
+[ini]
+jetty.threadPool.useVirtualThreads=true
+
+[ini-template]
+## The minimum duration in ms of a pinning of a virtual thread for it to be reported.
+#jetty.virtualThreads.pinnedThreshold=20
+
+## Whether to log at WARN level the stack traces of pinned virtual threads.
+#jetty.virtualThreads.logPinned=false
@@ -311,6 +311,12 @@ class AsyncContentProducer implements ContentProducer
         return _httpChannel.getState().isInputUnready();
     }
 
+    void onBlockingRead()
+    {
+        if (_httpChannel != null)
+            _httpChannel.onBlockingRead();
+    }
+
     private HttpInput.Content nextTransformedContent()
     {
         if (LOG.isDebugEnabled())
@@ -117,6 +117,7 @@ class BlockingContentProducer implements ContentProducer
             if (LOG.isDebugEnabled())
                 LOG.debug("nextContent async producer is not ready, waiting on semaphore {}", _semaphore);
 
+            _asyncContentProducer.onBlockingRead();
             try
             {
                 _semaphore.acquire();
@@ -20,13 +20,18 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -39,11 +44,17 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(CachedContentFactory.class);
@@ -58,7 +69,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean _useFileMappedBuffer;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
 
+    private volatile EvictionPolicy _evictionPolicy = new LRUEvictionPolicy();
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
     private int _maxCacheSize = 256 * 1024 * 1024;
@@ -86,16 +101,19 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _precompressedFormats = precompressedFormats;
     }
 
+    @ManagedAttribute("The size in bytes of the cached buffers")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute("The number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    @ManagedAttribute("The maximum size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -107,6 +125,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The maximum size in bytes of the cache")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -121,6 +140,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The maximum number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -140,6 +160,53 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return _useFileMappedBuffer;
     }
 
+    /**
+     * @return the policy that selects the entries to evict when the cache limits are exceeded
+     */
+    @ManagedAttribute("The eviction policy")
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return _evictionPolicy;
+    }
+
+    /**
+     * <p>Sets the policy that selects the entries to evict when the cache limits are exceeded.</p>
+     * <p>Changing the policy flushes the cache.</p>
+     *
+     * @param evictionPolicy the eviction policy
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        _evictionPolicy = Objects.requireNonNull(evictionPolicy);
+        flushCache();
+    }
+
+    @ManagedAttribute("The number of requests served from the cache")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of requests not found in the cache")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of entries evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+    }
+
     public void flushCache()
     {
         while (_cache.size() > 0)
@@ -171,7 +238,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
             return content;
+        }
+        _misses.increment();
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
@@ -240,6 +311,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                                 compressedContent.invalidate();
                                 compressedContent = added;
                             }
+                            else
+                            {
+                                _evictionPolicy.onAdded(compressedContent);
+                            }
                         }
                     }
                     if (compressedContent != null)
@@ -257,6 +332,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content.invalidate();
                 content = added;
             }
+            else
+            {
+                _evictionPolicy.onAdded(content);
+            }
 
             return content;
         }
@@ -293,29 +372,22 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // While we need to shrink
         while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted = new TreeSet<>((c1, c2) ->
+            CachedHttpContent content = _evictionPolicy.evict();
+            if (content == null)
             {
-                if (c1._lastAccessed < c2._lastAccessed)
-                    return -1;
-
-                if (c1._lastAccessed > c2._lastAccessed)
-                    return 1;
-
-                if (c1._contentLengthValue < c2._contentLengthValue)
-                    return -1;
-
-                return c1._key.compareTo(c2._key);
-            });
-            sorted.addAll(_cache.values());
-
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
-            {
-                if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
+                // The policy does not track any entry, evict any of them.
+                Iterator<CachedHttpContent> iterator = _cache.values().iterator();
+                if (!iterator.hasNext())
                     break;
-                if (content == _cache.remove(content.getKey()))
-                    content.invalidate();
+                content = iterator.next();
+            }
+            // Only remove the evicted content if its key has not been cached again since.
+            if (_cache.remove(content.getKey(), content))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Evicting {}", content);
+                _evictions.increment();
+                content.invalidate();
             }
         }
     }
@@ -390,7 +462,6 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         private final AtomicReference<ByteBuffer> _indirectBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _directBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _mappedBuffer = new AtomicReference<>();
-        private volatile long _lastAccessed;
 
         CachedHttpContent(String pathInContext, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
         {
@@ -413,8 +484,6 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             if (_cachedFiles.incrementAndGet() > _maxCachedFiles)
                 shrinkCache();
 
-            _lastAccessed = System.currentTimeMillis();
-
             _etag = CachedContentFactory.this._etags ? new PreEncodedHttpField(HttpHeader.ETAG, resource.getWeakETag()) : null;
 
             if (precompressedResources != null)
@@ -463,11 +532,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         {
             if (_lastModifiedValue == _resource.lastModified() && _contentLengthValue == _resource.length())
             {
-                _lastAccessed = System.currentTimeMillis();
+                _evictionPolicy.onAccessed(this);
                 return true;
             }
 
-            if (this == _cache.remove(_key))
+            if (_cache.remove(_key, this))
                 invalidate();
             return false;
         }
@@ -484,6 +553,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _mappedBuffer.getAndSet(null);
 
+            _evictionPolicy.onRemoved(this);
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
@@ -712,4 +782,254 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return "Cached" + super.toString();
         }
     }
+
+    /**
+     * <p>A policy that tracks the entries of a {@link CachedContentFactory}
+     * and selects the entry to evict when the cache limits are exceeded.</p>
+     * <p>Implementations must be thread-safe and should run in amortized
+     * constant time, as they are invoked by request threads; in particular
+     * {@link #onAccessed(CachedHttpContent)} is invoked on every cache hit
+     * and should not block, see {@link AbstractEvictionPolicy}.</p>
+     *
+     * @see LRUEvictionPolicy
+     * @see TinyLFUEvictionPolicy
+     */
+    public interface EvictionPolicy
+    {
+        /**
+         * @param content the content that has been added to the cache
+         */
+        void onAdded(CachedHttpContent content);
+
+        /**
+         * @param content the cached content that has been accessed
+         */
+        void onAccessed(CachedHttpContent content);
+
+        /**
+         * <p>Invoked when a content is removed from the cache, either because it
+         * has been evicted, it is no longer valid or the cache has been flushed.</p>
+         * <p>This method may be invoked for contents that are not, or no longer, tracked.</p>
+         *
+         * @param content the content that has been removed from the cache
+         */
+        void onRemoved(CachedHttpContent content);
+
+        /**
+         * <p>Selects the next content to evict and stops tracking it.</p>
+         *
+         * @return the content to evict, or null if no content is tracked
+         */
+        CachedHttpContent evict();
+    }
+
+    /**
+     * <p>A base {@link EvictionPolicy} that guards its state with a lock,
+     * but records accesses without taking it.</p>
+     * <p>Accesses are recorded in small lossy buffers, striped by thread, that are
+     * replayed under the lock before any other operation, or when a buffer is full.
+     * A hit therefore never waits for the lock: when a buffer is full and the lock
+     * is held, or another thread is already replaying the buffers, or when the slot
+     * of a buffer is contended, the access is dropped, which only makes the policy
+     * slightly less accurate.</p>
+     * <p>Subclasses implement the {@code do*()} methods, which are invoked with the lock held.</p>
+     */
+    public abstract static class AbstractEvictionPolicy implements EvictionPolicy
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final AtomicBoolean _draining = new AtomicBoolean();
+        private final AccessBuffer[] _buffers;
+
+        protected AbstractEvictionPolicy()
+        {
+            int stripes = 1 << (32 - Integer.numberOfLeadingZeros(ProcessorUtils.availableProcessors() - 1));
+            _buffers = new AccessBuffer[stripes];
+            for (int i = 0; i < stripes; ++i)
+            {
+                _buffers[i] = new AccessBuffer();
+            }
+        }
+
+        @Override
+        public void onAdded(CachedHttpContent content)
+        {
+            try (AutoLock l = lock())
+            {
+                doAdded(content);
+            }
+        }
+
+        @Override
+        public void onAccessed(CachedHttpContent content)
+        {
+            AccessBuffer buffer = _buffers[(int)Thread.currentThread().getId() & (_buffers.length - 1)];
+            if (buffer.offer(content))
+                return;
+
+            // The buffer is full, replay it unless another thread is already
+            // doing so or holds the lock, in which case the access is dropped.
+            if (_draining.compareAndSet(false, true))
+            {
+                try (AutoLock l = _lock.tryLock())
+                {
+                    if (l != null)
+                    {
+                        drain();
+                        buffer.offer(content);
+                    }
+                }
+                finally
+                {
+                    _draining.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void onRemoved(CachedHttpContent content)
+        {
+            try (AutoLock l = lock())
+            {
+                doRemoved(content);
+            }
+        }
+
+        @Override
+        public CachedHttpContent evict()
+        {
+            try (AutoLock l = lock())
+            {
+                return doEvict();
+            }
+        }
+
+        /**
+         * <p>Acquires the lock of this policy and replays the recorded accesses.</p>
+         *
+         * @return the lock to release
+         */
+        protected AutoLock lock()
+        {
+            AutoLock lock = _lock.lock();
+            try
+            {
+                drain();
+                return lock;
+            }
+            catch (Throwable x)
+            {
+                lock.close();
+                throw x;
+            }
+        }
+
+        private void drain()
+        {
+            for (AccessBuffer buffer : _buffers)
+            {
+                buffer.drain(this);
+            }
+        }
+
+        protected abstract void doAdded(CachedHttpContent content);
+
+        protected abstract void doAccessed(CachedHttpContent content);
+
+        protected abstract void doRemoved(CachedHttpContent content);
+
+        protected abstract CachedHttpContent doEvict();
+    }
+
+    /**
+     * <p>A bounded ring of accessed contents, written by many threads
+     * and read by the thread that holds the policy lock.</p>
+     */
+    private static class AccessBuffer
+    {
+        private static final int SIZE = 16;
+        private static final int MASK = SIZE - 1;
+
+        private final AtomicReferenceArray<CachedHttpContent> _slots = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong _tail = new AtomicLong();
+        private volatile long _head;
+
+        /**
+         * @param content the accessed content
+         * @return false if the buffer is full, true if the access has been recorded or dropped
+         */
+        private boolean offer(CachedHttpContent content)
+        {
+            long tail = _tail.get();
+            if (tail - _head >= SIZE)
+                return false;
+            // If another thread claimed the slot, the access is dropped.
+            if (_tail.compareAndSet(tail, tail + 1))
+                _slots.lazySet((int)(tail & MASK), content);
+            return true;
+        }
+
+        private void drain(AbstractEvictionPolicy policy)
+        {
+            long head = _head;
+            long tail = _tail.get();
+            while (head < tail)
+            {
+                int index = (int)(head & MASK);
+                CachedHttpContent content = _slots.get(index);
+                // The slot is claimed, but not yet written, replay it at the next drain.
+                if (content == null)
+                    break;
+                _slots.lazySet(index, null);
+                policy.doAccessed(content);
+                ++head;
+            }
+            _head = head;
+        }
+    }
+
+    /**
+     * <p>An {@link EvictionPolicy} that evicts the least recently accessed content.</p>
+     */
+    public static class LRUEvictionPolicy extends AbstractEvictionPolicy
+    {
+        private final LinkedHashMap<String, CachedHttpContent> _contents = new LinkedHashMap<>(16, 0.75F, true);
+
+        @Override
+        protected void doAdded(CachedHttpContent content)
+        {
+            _contents.put(content.getKey(), content);
+        }
+
+        @Override
+        protected void doAccessed(CachedHttpContent content)
+        {
+            _contents.get(content.getKey());
+        }
+
+        @Override
+        protected void doRemoved(CachedHttpContent content)
+        {
+            _contents.remove(content.getKey(), content);
+        }
+
+        @Override
+        protected CachedHttpContent doEvict()
+        {
+            Iterator<CachedHttpContent> iterator = _contents.values().iterator();
+            if (!iterator.hasNext())
+                return null;
+            CachedHttpContent content = iterator.next();
+            iterator.remove();
+            return content;
+        }
+
+        @Override
+        public String toString()
+        {
+            try (AutoLock l = lock())
+            {
+                return String.format("%s@%x{size=%d}", getClass().getSimpleName(), hashCode(), _contents.size());
+            }
+        }
+    }
 }
@@ -35,6 +35,7 @@ import javax.servlet.ServletException;
 
 import org.eclipse.jetty.http.BadMessageException;
 import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFieldTemplate;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpGenerator;
 import org.eclipse.jetty.http.HttpHeader;
@@ -54,7 +55,9 @@ import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.HostPort;
 import org.eclipse.jetty.util.SharedBlockingCallback.Blocker;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.VirtualThreadMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,6 +87,7 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
     private final Request _request;
     private final Response _response;
     private final HttpChannel.Listener _combinedListener;
+    private final VirtualThreadMonitor _virtualThreadMonitor;
     @Deprecated
     private final List<Listener> _transientListeners = new ArrayList<>();
     private MetaData.Response _committedMetaData;
@@ -107,6 +111,7 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
         _response = new Response(this, newHttpOutput());
         _executor = connector.getServer().getThreadPool();
         _requestLog = connector.getServer().getRequestLog();
+        _virtualThreadMonitor = connector.getServer().getBean(VirtualThreadMonitor.class);
         _combinedListener = (connector instanceof AbstractConnector)
             ? ((AbstractConnector)connector).getHttpChannelListeners()
             : NOOP_LISTENER;
@@ -889,6 +894,14 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
         _requests.incrementAndGet();
         _request.setTimeStamp(System.currentTimeMillis());
         HttpFields.Mutable fields = _response.getHttpFields();
+        HttpFieldTemplate template = _configuration.getResponseFieldTemplate();
+        if (template != null)
+        {
+            // The template Server field replaces the one added by HTTP/2.
+            if (template.containsHeader(HttpHeader.SERVER))
+                fields.remove(HttpHeader.SERVER);
+            fields.add(template.getFields());
+        }
         if (_configuration.getSendDateHeader() && !fields.contains(HttpHeader.DATE))
             fields.put(_connector.getServer().getDateField());
 
@@ -1147,7 +1160,28 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
 
     protected void execute(Runnable task)
     {
-        _executor.execute(task);
+        if (VirtualThreads.isUseVirtualThreads(_executor))
+            VirtualThreads.executeOnVirtualThread(task);
+        else
+            _executor.execute(task);
+    }
+
+    /**
+     * <p>Invoked when the request thread waits for the network in a blocking read.</p>
+     */
+    void onBlockingRead()
+    {
+        if (_virtualThreadMonitor != null)
+            _virtualThreadMonitor.onBlockingRead();
+    }
+
+    /**
+     * <p>Invoked when the request thread waits for the network in a blocking write.</p>
+     */
+    void onBlockingWrite()
+    {
+        if (_virtualThreadMonitor != null)
+            _virtualThreadMonitor.onBlockingWrite();
     }
 
     public Scheduler getScheduler()
@@ -21,6 +21,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.CookieCompliance;
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpFieldTemplate;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.http.UriCompliance;
@@ -64,11 +65,13 @@ public class HttpConfiguration implements Dumpable
     private boolean _sendServerVersion = true;
     private boolean _sendXPoweredBy = false;
     private boolean _sendDateHeader = true;
+    private HttpFieldTemplate _responseFieldTemplate;
     private boolean _delayDispatchUntilContent = true;
     private boolean _persistentConnectionsEnabled = true;
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useOutputFileMappedBuffers = false;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -135,6 +138,7 @@ public class HttpConfiguration implements Dumpable
         _securePort = config._securePort;
         _idleTimeout = config._idleTimeout;
         _sendDateHeader = config._sendDateHeader;
+        _responseFieldTemplate = config._responseFieldTemplate;
         _sendServerVersion = config._sendServerVersion;
         _sendXPoweredBy = config._sendXPoweredBy;
         _delayDispatchUntilContent = config._delayDispatchUntilContent;
@@ -142,6 +146,7 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useOutputFileMappedBuffers = config._useOutputFileMappedBuffers;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -323,6 +328,29 @@ public class HttpConfiguration implements Dumpable
         return _sendDateHeader;
     }
 
+    /**
+     * <p>Sets the template of the fields added to every response.</p>
+     * <p>The {@code Date} field is added as configured by {@link #setSendDateHeader(boolean)};
+     * if the template contains the {@code Server} field, then it replaces the one
+     * added by {@link #setSendServerVersion(boolean)}.</p>
+     *
+     * @param responseFieldTemplate the template of the fields added to every response, or null for no template
+     * @see #getResponseFieldTemplate()
+     */
+    public void setResponseFieldTemplate(HttpFieldTemplate responseFieldTemplate)
+    {
+        _responseFieldTemplate = responseFieldTemplate;
+    }
+
+    /**
+     * @return the template of the fields added to every response, or null for no template
+     */
+    @ManagedAttribute("The template of the fields added to every response")
+    public HttpFieldTemplate getResponseFieldTemplate()
+    {
+        return _responseFieldTemplate;
+    }
+
     /**
      * @param delay if true, delays the application dispatch until content is available (defaults to true)
      */
@@ -365,6 +393,27 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether file content is written from memory mapped regions of the file,
+     * rather than being copied into pooled buffers.</p>
+     * <p>Mapped regions are written directly by the network layer, avoiding a copy of
+     * the file bytes through user space for clear-text connections, while TLS, HTTP/2
+     * and response interceptors consume them like any other direct buffer.
+     * Files must not be truncated while they are being written.</p>
+     *
+     * @param useOutputFileMappedBuffers whether to write file content from memory mapped buffers
+     */
+    public void setUseOutputFileMappedBuffers(boolean useOutputFileMappedBuffers)
+    {
+        _useOutputFileMappedBuffers = useOutputFileMappedBuffers;
+    }
+
+    @ManagedAttribute("Whether to write file content from memory mapped buffers")
+    public boolean isUseOutputFileMappedBuffers()
+    {
+        return _useOutputFileMappedBuffers;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -759,6 +808,7 @@ public class HttpConfiguration implements Dumpable
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
             "sendDateHeader=" + _sendDateHeader,
+            "responseFieldTemplate=" + _responseFieldTemplate,
             "sendServerVersion=" + _sendServerVersion,
             "sendXPoweredBy=" + _sendXPoweredBy,
             "delayDispatchUntilContent=" + _delayDispatchUntilContent,
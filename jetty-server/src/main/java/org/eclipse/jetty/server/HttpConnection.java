@@ -40,6 +40,7 @@ import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -499,7 +500,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                     // Dispatched to handle a pipelined request
                     try
                     {
-                        getExecutor().execute(this);
+                        execute(this);
                     }
                     catch (RejectedExecutionException e)
                     {
@@ -541,7 +542,16 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         if (isRequestBufferEmpty())
             fillInterested();
         else
-            getExecutor().execute(this);
+            execute(this);
+    }
+
+    private void execute(Runnable task)
+    {
+        // Handle requests in virtual threads, if so configured.
+        if (VirtualThreads.isUseVirtualThreads(getExecutor()))
+            VirtualThreads.executeOnVirtualThread(task);
+        else
+            getExecutor().execute(task);
     }
 
     @Override
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
@@ -174,6 +175,7 @@ public class HttpOutput extends ServletOutputStream implements Runnable
 
     private static final Logger LOG = LoggerFactory.getLogger(HttpOutput.class);
     private static final ThreadLocal<CharsetEncoder> _encoder = new ThreadLocal<>();
+    private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
 
     private final HttpChannel _channel;
     private final HttpChannelState _channelState;
@@ -181,6 +183,7 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     private ApiState _apiState = ApiState.BLOCKING;
     private State _state = State.OPEN;
     private boolean _softClose = false;
+    private boolean _flushing;
     private Interceptor _interceptor;
     private long _written;
     private long _flushed;
@@ -668,6 +671,20 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * <p>Returns whether the content currently passed to the {@link Interceptor}s
+     * is written by an explicit {@link #flush()}.</p>
+     * <p>Interceptors that accumulate content across writes must not retain it
+     * when it is flushed. This method is only meaningful when called from
+     * {@link Interceptor#write(ByteBuffer, boolean, Callback)}.</p>
+     *
+     * @return whether the content is written by an explicit flush
+     */
+    public boolean isFlushing()
+    {
+        return _flushing;
+    }
+
     public boolean isAsync()
     {
         try (AutoLock l = _channelState.lock())
@@ -724,23 +741,31 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             }
         }
 
-        if (content == null)
-        {
-            new AsyncFlush(false).iterate();
-        }
-        else
+        _flushing = true;
+        try
         {
-            try
+            if (content == null)
             {
-                channelWrite(content, false);
-                onWriteComplete(false, null);
+                new AsyncFlush(false).iterate();
             }
-            catch (Throwable t)
+            else
             {
-                onWriteComplete(false, t);
-                throw t;
+                try
+                {
+                    channelWrite(content, false);
+                    onWriteComplete(false, null);
+                }
+                catch (Throwable t)
+                {
+                    onWriteComplete(false, t);
+                    throw t;
+                }
             }
         }
+        finally
+        {
+            _flushing = false;
+        }
     }
 
     private void checkWritable() throws EofException
@@ -1126,6 +1151,53 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         getHttpChannel().getByteBufferPool().release(out);
     }
 
+    /**
+     * <p>Blocking write of a region of a file.</p>
+     * <p>The region is written from memory mapped buffers if
+     * {@link HttpConfiguration#isUseOutputFileMappedBuffers()} is true,
+     * otherwise it is copied through a buffer of size {@link #getBufferSize()}.
+     * The position of the channel is not modified and the channel is not closed.</p>
+     *
+     * @param in The file channel to read the region from
+     * @param position The position of the region within the file
+     * @param length The length of the region
+     * @throws IOException if the write fails
+     */
+    public void write(FileChannel in, long position, long length) throws IOException
+    {
+        long end = position + length;
+        if (_channel.getHttpConfiguration().isUseOutputFileMappedBuffers())
+        {
+            while (position < end)
+            {
+                int size = (int)Math.min(MAPPED_REGION_SIZE, end - position);
+                write(in.map(FileChannel.MapMode.READ_ONLY, position, size));
+                position += size;
+            }
+            return;
+        }
+
+        ByteBuffer buffer = _channel.getByteBufferPool().acquire(getBufferSize(), _channel.isUseOutputDirectByteBuffers());
+        try
+        {
+            while (position < end)
+            {
+                BufferUtil.clearToFill(buffer);
+                buffer.limit((int)Math.min(buffer.capacity(), end - position));
+                int read = in.read(buffer, position);
+                if (read < 0)
+                    throw new IOException("EOF reached before end of file region");
+                BufferUtil.flipToFlush(buffer, 0);
+                write(buffer);
+                position += read;
+            }
+        }
+        finally
+        {
+            _channel.getByteBufferPool().release(buffer);
+        }
+    }
+
     /**
      * Blocking send of whole content.
      *
@@ -1166,7 +1238,7 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     {
         try (Blocker blocker = _writeBlocker.acquire())
         {
-            new ReadableByteChannelWritingCB(in, blocker).iterate();
+            newReadableByteChannelWritingCB(in, blocker).iterate();
             blocker.block();
         }
     }
@@ -1246,7 +1318,14 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             LOG.debug("sendContent(channel={},{})", in, callback);
 
         if (prepareSendContent(0, callback))
-            new ReadableByteChannelWritingCB(in, callback).iterate();
+            newReadableByteChannelWritingCB(in, callback).iterate();
+    }
+
+    private IteratingCallback newReadableByteChannelWritingCB(ReadableByteChannel in, Callback callback)
+    {
+        if (in instanceof FileChannel && _channel.getHttpConfiguration().isUseOutputFileMappedBuffers())
+            return new FileChannelMappingCB((FileChannel)in, callback);
+        return new ReadableByteChannelWritingCB(in, callback);
     }
 
     private boolean prepareSendContent(int len, Callback callback)
@@ -1867,6 +1946,77 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that will write the content of a
+     * FileChannel to the {@link HttpChannel} from read only memory
+     * mapped regions of the file, so that the file bytes are not
+     * copied into pooled buffers.
+     * Regions of at most {@link #MAPPED_REGION_SIZE} bytes are mapped
+     * so that large files do not require large mappings.
+     * Only once all the regions are written will the
+     * wrapped {@link Callback#succeeded()} method be called.
+     */
+    private class FileChannelMappingCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _in;
+        private long _position = -1;
+        private long _end;
+        private boolean _eof;
+        private boolean _closed;
+
+        private FileChannelMappingCB(FileChannel in, Callback callback)
+        {
+            super(callback, true);
+            _in = in;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            // Only return if the last region has previously been
+            // written and thus a write done with EOF=true
+            if (_eof)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                if (!_closed)
+                {
+                    _closed = true;
+                    IO.close(_in);
+                }
+                return Action.SUCCEEDED;
+            }
+
+            if (_position < 0)
+            {
+                _position = _in.position();
+                _end = _in.size();
+            }
+
+            // Map the next region, if any
+            ByteBuffer region = BufferUtil.EMPTY_BUFFER;
+            if (_position < _end)
+            {
+                int size = (int)Math.min(MAPPED_REGION_SIZE, _end - _position);
+                region = _in.map(FileChannel.MapMode.READ_ONLY, _position, size);
+                _position += size;
+            }
+            _eof = _position >= _end;
+
+            // write the region
+            _written += region.remaining();
+            channelWrite(region, _eof, this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_in);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
@@ -1875,6 +2025,12 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         {
             _channel = channel;
         }
+
+        @Override
+        protected void onBlock(Blocker blocker)
+        {
+            _channel.onBlockingWrite();
+        }
     }
 
     private class WriteCompleteCB implements Callback
@@ -42,6 +42,19 @@ public interface RequestLog
     interface Writer
     {
         void write(String requestEntry) throws IOException;
+
+        /**
+         * <p>Writes a log entry held in a buffer that is reused once this method returns.</p>
+         * <p>Writers that copy the characters of the entry can override this method
+         * to avoid converting it to a String.</p>
+         *
+         * @param requestEntry the log entry to write
+         * @throws IOException if the entry cannot be written
+         */
+        default void writeEntry(CharSequence requestEntry) throws IOException
+        {
+            write(requestEntry.toString());
+        }
     }
 
     class Collection implements RequestLog
@@ -182,6 +182,26 @@ public class RequestLogWriter extends AbstractLifeCycle implements RequestLog.Wr
         }
     }
 
+    /**
+     * <p>Writes already encoded log entries, including their line separators,
+     * bypassing the character encoding of {@link #write(String)}.</p>
+     *
+     * @param bytes the encoded log entries
+     * @param offset the offset of the log entries in the array
+     * @param length the number of bytes to write
+     * @throws IOException if the log entries cannot be written
+     */
+    protected void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_out == null)
+                return;
+            _out.write(bytes, offset, length);
+            _out.flush();
+        }
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -44,7 +44,6 @@ import org.eclipse.jetty.http.QuotedCSV;
 import org.eclipse.jetty.http.QuotedQualityCSV;
 import org.eclipse.jetty.io.WriterOutputStream;
 import org.eclipse.jetty.server.resource.HttpContentRangeWriter;
-import org.eclipse.jetty.server.resource.InputStreamRangeWriter;
 import org.eclipse.jetty.server.resource.RangeWriter;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -828,7 +827,9 @@ public class ResourceService
                 for (InclusiveByteRange ibr : ranges)
                 {
                     multi.startPart(mimetype, new String[]{HttpHeader.CONTENT_RANGE + ": " + header[i]});
-                    rangeWriter.writeTo(multi, ibr.getFirst(), ibr.getSize());
+                    // MultiPartOutputStream does not buffer, so the part content can be
+                    // written directly to the response output, which range writers may optimize.
+                    rangeWriter.writeTo(out, ibr.getFirst(), ibr.getSize());
                     i++;
                 }
             }
@@ -859,7 +860,7 @@ public class ResourceService
         }
 
         // Use a ranged writer
-        try (InputStreamRangeWriter rangeWriter = new InputStreamRangeWriter(() -> content.getInputStream()))
+        try (RangeWriter rangeWriter = HttpContentRangeWriter.newRangeWriter(content))
         {
             rangeWriter.writeTo(out, start, contentLength);
         }
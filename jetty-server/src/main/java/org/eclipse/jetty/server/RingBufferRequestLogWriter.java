@@ -0,0 +1,443 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>An asynchronously writing {@link RequestLogWriter} that buffers the log entries
+ * in a lock-free ring buffer.</p>
+ * <p>Request threads encode the log entries as UTF-8 directly into pre-allocated
+ * slots of the ring, so that entries passed via {@link #writeEntry(CharSequence)}
+ * are logged without allocating; a single writer thread copies the available
+ * entries into a batch buffer and writes them with a single write to the log file,
+ * which is rolled over as configured on {@link RequestLogWriter}.</p>
+ * <p>When the ring is full, entries are either dropped or, if
+ * {@link #setBlockWhenFull(boolean) configured}, the request threads wait for the
+ * writer thread to free slots; both cases are counted.</p>
+ * <p>When stopped, the writer thread writes all the entries already claimed by request
+ * threads before exiting, waiting a bounded time for entries still being encoded;
+ * entries offered after the stop, or not encoded in time, are counted as dropped.</p>
+ */
+@ManagedObject("Request Log writer which writes to file asynchronously via a ring buffer")
+public class RingBufferRequestLogWriter extends RequestLogWriter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferRequestLogWriter.class);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.ISO_8859_1);
+    private static final int SLOT_SIZE = 256;
+    private static final long CLOSED = -1;
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongAdder _written = new LongAdder();
+    private final LongAdder _dropped = new LongAdder();
+    private final LongAdder _blocked = new LongAdder();
+    private int _capacity = 1024;
+    private int _batchSize = 64 * 1024;
+    private boolean _blockWhenFull;
+    private volatile Ring _ring;
+    private boolean _warnedFull;
+
+    public RingBufferRequestLogWriter()
+    {
+        this(null);
+    }
+
+    public RingBufferRequestLogWriter(String filename)
+    {
+        super(filename);
+    }
+
+    /**
+     * @return the number of log entries the ring buffer can hold
+     */
+    @ManagedAttribute("number of log entries the ring buffer can hold")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * @param capacity the number of log entries the ring buffer can hold, rounded up to a power of 2
+     */
+    public void setCapacity(int capacity)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        _capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    }
+
+    /**
+     * @return the size in bytes of the buffer used to write batches of log entries
+     */
+    @ManagedAttribute("size in bytes of the buffer used to write batches of log entries")
+    public int getBatchSize()
+    {
+        return _batchSize;
+    }
+
+    /**
+     * @param batchSize the size in bytes of the buffer used to write batches of log entries
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _batchSize = batchSize;
+    }
+
+    /**
+     * @return whether request threads wait for a free slot when the ring buffer
+     * is full, rather than dropping the log entry
+     */
+    @ManagedAttribute("whether request threads wait when the ring buffer is full, rather than dropping the log entry")
+    public boolean isBlockWhenFull()
+    {
+        return _blockWhenFull;
+    }
+
+    /**
+     * @param blockWhenFull whether request threads wait for a free slot when the
+     * ring buffer is full, rather than dropping the log entry
+     */
+    public void setBlockWhenFull(boolean blockWhenFull)
+    {
+        _blockWhenFull = blockWhenFull;
+    }
+
+    @ManagedAttribute("number of log entries written")
+    public long getWrittenEntries()
+    {
+        return _written.sum();
+    }
+
+    @ManagedAttribute("number of log entries dropped because the ring buffer was full or the writer was stopped")
+    public long getDroppedEntries()
+    {
+        return _dropped.sum();
+    }
+
+    @ManagedAttribute("number of log entries that waited because the ring buffer was full")
+    public long getBlockedEntries()
+    {
+        return _blocked.sum();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _written.reset();
+        _dropped.reset();
+        _blocked.reset();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        Ring ring = new Ring();
+        ring.start();
+        _ring = ring;
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        // The stopped ring is kept so that late entries are counted as dropped.
+        Ring ring = _ring;
+        if (ring != null)
+            ring.stop();
+        super.doStop();
+    }
+
+    @Override
+    public void write(String requestEntry) throws IOException
+    {
+        writeEntry(requestEntry);
+    }
+
+    @Override
+    public void writeEntry(CharSequence requestEntry) throws IOException
+    {
+        Ring ring = _ring;
+        if (ring != null)
+            ring.offer(requestEntry);
+    }
+
+    private void onFull()
+    {
+        _dropped.increment();
+        if (!_warnedFull)
+        {
+            _warnedFull = true;
+            LOG.warn("Log ring buffer overflow, dropping log entries");
+        }
+    }
+
+    /**
+     * Encodes the characters as UTF-8 followed by the line separator.
+     *
+     * @return the number of bytes encoded, or -1 if the bytes do not fit in the array
+     */
+    private static int encode(CharSequence chars, byte[] bytes)
+    {
+        int length = chars.length();
+        int limit = bytes.length - LINE_SEPARATOR.length;
+        int position = 0;
+        for (int i = 0; i < length; ++i)
+        {
+            int c = chars.charAt(i);
+            if (c < 0x80)
+            {
+                if (position >= limit)
+                    return -1;
+                bytes[position++] = (byte)c;
+            }
+            else if (c < 0x800)
+            {
+                if (position + 2 > limit)
+                    return -1;
+                bytes[position++] = (byte)(0xC0 | (c >> 6));
+                bytes[position++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate((char)c))
+            {
+                if (Character.isHighSurrogate((char)c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1)))
+                {
+                    if (position + 4 > limit)
+                        return -1;
+                    int codePoint = Character.toCodePoint((char)c, chars.charAt(++i));
+                    bytes[position++] = (byte)(0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte)(0x80 | (codePoint & 0x3F));
+                }
+                else
+                {
+                    // Malformed surrogate pair, replace it like the JDK encoders do.
+                    if (position >= limit)
+                        return -1;
+                    bytes[position++] = '?';
+                }
+            }
+            else
+            {
+                if (position + 3 > limit)
+                    return -1;
+                bytes[position++] = (byte)(0xE0 | (c >> 12));
+                bytes[position++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, bytes, position, LINE_SEPARATOR.length);
+        return position + LINE_SEPARATOR.length;
+    }
+
+    /**
+     * <p>A multi-producer, single-consumer ring of byte slots.</p>
+     * <p>Producers claim a sequence number by incrementing the tail, encode the entry
+     * in the slot of that sequence, then publish the slot by storing its sequence number.
+     * The writer thread consumes the published slots in sequence order and frees them
+     * by moving the head forward.</p>
+     * <p>When stopped, the writer thread closes the tail once it has consumed all the
+     * claimed slots, so that no slot can be claimed after it exits.</p>
+     */
+    private class Ring implements Runnable
+    {
+        private final byte[][] _slots = new byte[_capacity][];
+        private final int[] _lengths = new int[_capacity];
+        private final AtomicLongArray _sequences = new AtomicLongArray(_capacity);
+        private final AtomicLong _tail = new AtomicLong();
+        private final int _mask = _capacity - 1;
+        private final boolean _blocking = _blockWhenFull;
+        private final byte[] _batch = new byte[_batchSize];
+        private final Thread _thread;
+        private volatile long _head;
+        private volatile boolean _idle;
+        private volatile boolean _stopped;
+
+        private Ring()
+        {
+            for (int i = 0; i < _capacity; ++i)
+            {
+                _slots[i] = new byte[SLOT_SIZE];
+                _sequences.set(i, -1);
+            }
+            _thread = new Thread(this, "RingBufferRequestLogWriter@" + Integer.toString(RingBufferRequestLogWriter.this.hashCode(), 16));
+        }
+
+        private void start()
+        {
+            _thread.start();
+        }
+
+        private void stop() throws InterruptedException
+        {
+            _stopped = true;
+            LockSupport.unpark(_thread);
+            _thread.join();
+        }
+
+        private void offer(CharSequence entry)
+        {
+            long sequence = claim();
+            if (sequence < 0)
+                return;
+
+            int index = (int)(sequence & _mask);
+            byte[] slot = _slots[index];
+            int length = encode(entry, slot);
+            if (length < 0)
+            {
+                // The slot is owned by this thread until published, so it can grow.
+                slot = new byte[entry.length() * 3 + LINE_SEPARATOR.length];
+                _slots[index] = slot;
+                length = encode(entry, slot);
+            }
+            _lengths[index] = length;
+            _sequences.set(index, sequence);
+
+            if (_idle)
+                LockSupport.unpark(_thread);
+        }
+
+        private long claim()
+        {
+            boolean blocked = false;
+            while (true)
+            {
+                long tail = _tail.get();
+                if (tail == CLOSED || _stopped)
+                {
+                    _dropped.increment();
+                    return -1;
+                }
+                if (tail - _head >= _slots.length)
+                {
+                    if (!_blocking)
+                    {
+                        onFull();
+                        return -1;
+                    }
+                    if (!blocked)
+                    {
+                        blocked = true;
+                        _blocked.increment();
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                    continue;
+                }
+                if (_tail.compareAndSet(tail, tail + 1))
+                    return tail;
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            long deadline = 0;
+            while (true)
+            {
+                long head = _head;
+                int length = 0;
+                int entries = 0;
+                byte[] batch = _batch;
+                while (true)
+                {
+                    int index = (int)(head & _mask);
+                    if (_sequences.get(index) != head)
+                        break;
+                    int entryLength = _lengths[index];
+                    if (length + entryLength > batch.length)
+                    {
+                        if (entries > 0)
+                            break;
+                        // An entry larger than the batch buffer is written on its own.
+                        batch = _slots[index];
+                    }
+                    else
+                    {
+                        System.arraycopy(_slots[index], 0, batch, length, entryLength);
+                    }
+                    length += entryLength;
+                    ++entries;
+                    ++head;
+                    if (batch != _batch)
+                        break;
+                }
+
+                if (entries > 0)
+                {
+                    // Free the copied slots before the write, unless the batch is a slot.
+                    if (batch == _batch)
+                        _head = head;
+                    try
+                    {
+                        write(batch, 0, length);
+                        _written.add(entries);
+                    }
+                    catch (Throwable x)
+                    {
+                        LOG.warn("Failed to write log", x);
+                    }
+                    _head = head;
+                    continue;
+                }
+
+                if (_stopped)
+                {
+                    long tail = _tail.get();
+                    if (tail == head)
+                    {
+                        if (_tail.compareAndSet(tail, CLOSED))
+                            break;
+                        continue;
+                    }
+                    // Wait for the claimed slots to be published.
+                    if (deadline == 0)
+                    {
+                        deadline = System.nanoTime() + STOP_TIMEOUT;
+                    }
+                    else if (System.nanoTime() - deadline >= 0)
+                    {
+                        long unpublished = _tail.getAndSet(CLOSED) - head;
+                        _dropped.add(unpublished);
+                        LOG.warn("Dropped {} unpublished log entries on stop", unpublished);
+                        break;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                    continue;
+                }
+
+                _idle = true;
+                if (_sequences.get((int)(head & _mask)) != head && !_stopped)
+                    LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                _idle = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.server.CachedContentFactory.CachedHttpContent;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A {@link CachedContentFactory.EvictionPolicy} based on the W-TinyLFU algorithm.</p>
+ * <p>Newly added contents enter a small LRU <em>window</em>; when the window overflows
+ * and the cache must evict, the eldest content of the window (the candidate) competes
+ * with the least recently used contents of the <em>main</em> area (the victims).
+ * Access frequencies are estimated by a compact count-min sketch, and the admission
+ * is size-aware: the candidate is admitted only if it is accessed more frequently than
+ * all the victims that must be evicted to free as many bytes as the candidate occupies,
+ * otherwise the candidate is evicted. A large content must therefore be more popular
+ * than the many small contents it would displace.</p>
+ * <p>This prevents scans over rarely accessed contents (for example, by crawlers)
+ * from evicting frequently accessed contents, while all operations run in amortized
+ * constant time.</p>
+ */
+@ManagedObject("W-TinyLFU eviction policy")
+public class TinyLFUEvictionPolicy extends CachedContentFactory.AbstractEvictionPolicy
+{
+    private static final int MAX_VICTIMS = 16;
+
+    private final LinkedHashMap<String, CachedHttpContent> _window = new LinkedHashMap<>(16, 0.75F, true);
+    private final LinkedHashMap<String, CachedHttpContent> _main = new LinkedHashMap<>(16, 0.75F, true);
+    private final FrequencySketch _sketch = new FrequencySketch();
+    private final LongAdder _admitted = new LongAdder();
+    private final LongAdder _rejected = new LongAdder();
+    private final int _windowPercent;
+
+    public TinyLFUEvictionPolicy()
+    {
+        this(2048, 1);
+    }
+
+    /**
+     * @param expectedSize the expected number of cached contents, used to size the frequency sketch
+     * @param windowPercent the percentage of cached contents held in the admission window
+     */
+    public TinyLFUEvictionPolicy(int expectedSize, int windowPercent)
+    {
+        if (windowPercent < 0 || windowPercent > 100)
+            throw new IllegalArgumentException("Invalid window percent " + windowPercent);
+        _windowPercent = windowPercent;
+        _sketch.ensureCapacity(expectedSize);
+    }
+
+    @ManagedAttribute("The percentage of cached contents held in the admission window")
+    public int getWindowPercent()
+    {
+        return _windowPercent;
+    }
+
+    @ManagedAttribute("The number of window contents admitted into the main area")
+    public long getAdmitted()
+    {
+        return _admitted.sum();
+    }
+
+    @ManagedAttribute("The number of window contents rejected from the main area")
+    public long getRejected()
+    {
+        return _rejected.sum();
+    }
+
+    @Override
+    protected void doAdded(CachedHttpContent content)
+    {
+        int size = _window.size() + _main.size() + 1;
+        if (size > _sketch.getCapacity())
+            _sketch.ensureCapacity(2 * size);
+        _sketch.increment(content.getKey().hashCode());
+        _window.put(content.getKey(), content);
+    }
+
+    @Override
+    protected void doAccessed(CachedHttpContent content)
+    {
+        _sketch.increment(content.getKey().hashCode());
+        if (_window.get(content.getKey()) == null)
+            _main.get(content.getKey());
+    }
+
+    @Override
+    protected void doRemoved(CachedHttpContent content)
+    {
+        if (!_window.remove(content.getKey(), content))
+            _main.remove(content.getKey(), content);
+    }
+
+    @Override
+    protected CachedHttpContent doEvict()
+    {
+        // The cache is full, so the window and the main area share its current size.
+        int size = _window.size() + _main.size();
+        int windowCapacity = Math.max(1, size * _windowPercent / 100);
+        int mainCapacity = size - windowCapacity;
+
+        // While the main area has room, promote without competition.
+        while (_window.size() > windowCapacity && _main.size() < mainCapacity)
+        {
+            CachedHttpContent content = removeEldest(_window);
+            _main.put(content.getKey(), content);
+        }
+
+        // The window is not full, so the main area exceeds its capacity;
+        // this is also how the other victims of an admitted candidate are evicted.
+        if (_window.size() < windowCapacity && !_main.isEmpty())
+            return removeEldest(_main);
+
+        CachedHttpContent candidate = removeEldest(_window);
+        if (candidate == null)
+            return removeEldest(_main);
+        if (_main.isEmpty())
+            return candidate;
+
+        if (admit(candidate))
+        {
+            _admitted.increment();
+            CachedHttpContent victim = removeEldest(_main);
+            _main.put(candidate.getKey(), candidate);
+            return victim;
+        }
+
+        _rejected.increment();
+        return candidate;
+    }
+
+    /**
+     * <p>Compares the frequency of the candidate with the aggregated frequency of the
+     * least recently used contents of the main area that must be evicted to make room
+     * for the candidate bytes.</p>
+     * <p>At most {@value #MAX_VICTIMS} victims are considered, so that the admission runs
+     * in constant time; a candidate that would need to evict more victims is rejected.</p>
+     *
+     * @param candidate the eldest content of the window
+     * @return whether the candidate should be admitted into the main area
+     */
+    private boolean admit(CachedHttpContent candidate)
+    {
+        int candidateFrequency = _sketch.frequency(candidate.getKey().hashCode());
+        long candidateSize = candidate.getContentLengthValue();
+        int victimsFrequency = 0;
+        long victimsSize = 0;
+        int victims = 0;
+        for (CachedHttpContent victim : _main.values())
+        {
+            if (victims++ == MAX_VICTIMS)
+                return false;
+            victimsFrequency += _sketch.frequency(victim.getKey().hashCode());
+            if (candidateFrequency <= victimsFrequency)
+                return false;
+            victimsSize += victim.getContentLengthValue();
+            if (victimsSize >= candidateSize)
+                return true;
+        }
+        // The whole main area is less popular than the candidate.
+        return true;
+    }
+
+    private static CachedHttpContent removeEldest(LinkedHashMap<String, CachedHttpContent> contents)
+    {
+        Iterator<CachedHttpContent> iterator = contents.values().iterator();
+        if (!iterator.hasNext())
+            return null;
+        CachedHttpContent content = iterator.next();
+        iterator.remove();
+        return content;
+    }
+
+    @Override
+    public String toString()
+    {
+        try (AutoLock l = lock())
+        {
+            return String.format("%s@%x{window=%d,main=%d,admitted=%d,rejected=%d}",
+                getClass().getSimpleName(), hashCode(), _window.size(), _main.size(), getAdmitted(), getRejected());
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4-bit counters that estimates access frequencies.</p>
+     * <p>Each {@code long} of the table holds sixteen counters, each key maps to
+     * four counters; counters are halved periodically so that the sketch ages and
+     * forgets contents that are no longer popular.</p>
+     * <p>This class is not thread-safe, it is guarded by the policy lock.</p>
+     */
+    static class FrequencySketch
+    {
+        private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private long[] _table;
+        private int _sampleSize;
+        private int _additions;
+
+        int getCapacity()
+        {
+            return _table == null ? 0 : _table.length;
+        }
+
+        void ensureCapacity(int capacity)
+        {
+            int length = Integer.highestOneBit(Math.max(64, Math.min(capacity, 1 << 30) - 1) << 1);
+            if (_table != null && _table.length >= length)
+                return;
+            _table = new long[length];
+            _sampleSize = 10 * Math.max(1, capacity);
+            _additions = 0;
+        }
+
+        int frequency(int hashCode)
+        {
+            int hash = spread(hashCode);
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; ++i)
+            {
+                int index = indexOf(hash, i);
+                int count = (int)((_table[index] >>> ((start + i) << 2)) & 0xF);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(int hashCode)
+        {
+            int hash = spread(hashCode);
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i)
+            {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++_additions >= _sampleSize)
+                reset();
+        }
+
+        private boolean incrementAt(int index, int counter)
+        {
+            int offset = counter << 2;
+            long mask = 0xFL << offset;
+            if ((_table[index] & mask) == mask)
+                return false;
+            _table[index] += 1L << offset;
+            return true;
+        }
+
+        private void reset()
+        {
+            int odd = 0;
+            for (int i = 0; i < _table.length; ++i)
+            {
+                odd += Long.bitCount(_table[i] & ONE_MASK);
+                _table[i] = (_table[i] >>> 1) & RESET_MASK;
+            }
+            _additions = (_additions - (odd >>> 2)) >>> 1;
+        }
+
+        private int indexOf(int hash, int i)
+        {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return ((int)h) & (_table.length - 1);
+        }
+
+        private static int spread(int x)
+        {
+            x = ((x >>> 16) ^ x) * 0x45D9F3B;
+            x = ((x >>> 16) ^ x) * 0x45D9F3B;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.IncludeExcludeSet;
+import org.eclipse.jetty.util.InetAddressSet;
+import org.eclipse.jetty.util.TokenBucketRateLimiter;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Handler to limit the request rate per remote IP address for DOS protection.</p>
+ * <p>The DoSHandler keeps a token bucket per remote IP address (or per IP address
+ * and port, see {@link #setRemotePort(boolean)}) in a {@link TokenBucketRateLimiter},
+ * allowing bursts of up to {@link #getMaxRequestsPerSec()} requests that are
+ * replenished at the same rate per second.
+ * Requests in excess of the rate are rejected with {@link #getTooManyCode()} and a
+ * {@code Retry-After} header, unless their remote address is excluded.</p>
+ * <p>The memory used is bounded by {@link #getMaxTrackers()} and no tasks are
+ * scheduled per remote address, so this handler is suitable to track very large
+ * numbers of distinct clients.</p>
+ * <p>This is a simpler alternative to DosFilter, that neither delays nor throttles
+ * requests and does not require servlets.</p>
+ */
+@ManagedObject("Limits the request rate per remote IP address")
+public class DoSHandler extends HandlerWrapper
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DoSHandler.class);
+
+    private final IncludeExcludeSet<String, InetAddress> _includeExcludeSet = new IncludeExcludeSet<>(InetAddressSet.class);
+    private volatile TokenBucketRateLimiter _rateLimiter;
+    private volatile boolean _enabled = true;
+    private volatile int _maxRequestsPerSec = 25;
+    private int _maxTrackers = 1 << 16;
+    private boolean _remotePort;
+    private int _tooManyCode = HttpStatus.TOO_MANY_REQUESTS_429;
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(getMaxTrackers());
+        rateLimiter.setRate(getMaxRequestsPerSec());
+        rateLimiter.setBurst(getMaxRequestsPerSec());
+        addBean(rateLimiter);
+        _rateLimiter = rateLimiter;
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        removeBean(_rateLimiter);
+        _rateLimiter = null;
+    }
+
+    @ManagedAttribute("true if this handler is enabled")
+    public boolean isEnabled()
+    {
+        return _enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        _enabled = enabled;
+    }
+
+    /**
+     * @return the maximum number of requests per second allowed from a remote address
+     */
+    @ManagedAttribute("The maximum number of requests per second allowed from a remote address")
+    public int getMaxRequestsPerSec()
+    {
+        return _maxRequestsPerSec;
+    }
+
+    /**
+     * @param maxRequestsPerSec the maximum number of requests per second allowed from a
+     * remote address, which is also the maximum number of requests allowed at once
+     */
+    public void setMaxRequestsPerSec(int maxRequestsPerSec)
+    {
+        if (maxRequestsPerSec <= 0)
+            throw new IllegalArgumentException("Invalid maxRequestsPerSec " + maxRequestsPerSec);
+        _maxRequestsPerSec = maxRequestsPerSec;
+        TokenBucketRateLimiter rateLimiter = _rateLimiter;
+        if (rateLimiter != null)
+        {
+            rateLimiter.setRate(maxRequestsPerSec);
+            rateLimiter.setBurst(maxRequestsPerSec);
+        }
+    }
+
+    /**
+     * @return the maximum number of remote addresses tracked at once
+     */
+    @ManagedAttribute("The maximum number of remote addresses tracked at once")
+    public int getMaxTrackers()
+    {
+        return _maxTrackers;
+    }
+
+    /**
+     * @param maxTrackers the maximum number of remote addresses tracked at once
+     */
+    public void setMaxTrackers(int maxTrackers)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxTrackers = maxTrackers;
+    }
+
+    /**
+     * @return whether the rate is tracked per remote IP address and port, rather than per remote IP address
+     */
+    @ManagedAttribute("Whether the rate is tracked per remote IP address and port")
+    public boolean isRemotePort()
+    {
+        return _remotePort;
+    }
+
+    /**
+     * @param remotePort whether the rate is tracked per remote IP address and port
+     * (effectively per connection), rather than per remote IP address
+     */
+    public void setRemotePort(boolean remotePort)
+    {
+        _remotePort = remotePort;
+    }
+
+    /**
+     * @return the status code of the responses to requests in excess of the rate
+     */
+    @ManagedAttribute("The status code of the responses to requests in excess of the rate")
+    public int getTooManyCode()
+    {
+        return _tooManyCode;
+    }
+
+    /**
+     * @param tooManyCode the status code of the responses to requests in excess of the rate
+     */
+    public void setTooManyCode(int tooManyCode)
+    {
+        _tooManyCode = tooManyCode;
+    }
+
+    @ManagedOperation("Include IP in rate limits")
+    public void include(String inetAddressPattern)
+    {
+        _includeExcludeSet.include(inetAddressPattern);
+    }
+
+    @ManagedOperation("Exclude IP from rate limits")
+    public void exclude(String inetAddressPattern)
+    {
+        _includeExcludeSet.exclude(inetAddressPattern);
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+    {
+        TokenBucketRateLimiter rateLimiter = _rateLimiter;
+        // Only check the rate of requests when they are first dispatched.
+        if (_enabled && rateLimiter != null && baseRequest.getHttpChannelState().isInitial())
+        {
+            InetSocketAddress remote = baseRequest.getHttpChannel().getRemoteAddress();
+            if (remote != null && remote.getAddress() != null)
+            {
+                String id = getRemoteId(remote);
+                long wait = rateLimiter.acquire(id);
+                // Only test the excluded addresses when over the rate,
+                // as the test is more expensive than the rate limiter.
+                if (wait > 0 && isLimited(remote.getAddress()))
+                {
+                    onRequestOverLimit(id, wait, baseRequest, response);
+                    return;
+                }
+            }
+        }
+        super.handle(target, baseRequest, request, response);
+    }
+
+    private String getRemoteId(InetSocketAddress remote)
+    {
+        String host = remote.getAddress().getHostAddress();
+        return _remotePort ? host + ":" + remote.getPort() : host;
+    }
+
+    private boolean isLimited(InetAddress address)
+    {
+        return _includeExcludeSet.isEmpty() || _includeExcludeSet.test(address);
+    }
+
+    /**
+     * <p>Invoked when a request is in excess of the rate.</p>
+     * <p>By default, the request is rejected with {@link #getTooManyCode()}.</p>
+     *
+     * @param id the id of the remote that sent the request
+     * @param waitNanos the nanoseconds after which requests will be allowed again
+     * @param baseRequest the request
+     * @param response the response
+     * @throws IOException if the response cannot be sent
+     */
+    protected void onRequestOverLimit(String id, long waitNanos, Request baseRequest, HttpServletResponse response) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Rejecting over-limit request from {} {}", id, baseRequest);
+        baseRequest.setHandled(true);
+        long retryAfter = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+        response.setHeader(HttpHeader.RETRY_AFTER.asString(), String.valueOf(retryAfter));
+        response.sendError(getTooManyCode());
+    }
+}
@@ -34,6 +34,7 @@ import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.Graceful;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +51,8 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
     private final CounterStatistic _dispatchedStats = new CounterStatistic();
     private final SampleStatistic _dispatchedTimeStats = new SampleStatistic();
     private final CounterStatistic _asyncWaitStats = new CounterStatistic();
+    private HistogramStatistic _requestTimeHistogram = new HistogramStatistic();
+    private HistogramStatistic _dispatchedTimeHistogram = new HistogramStatistic();
 
     private final LongAdder _asyncDispatches = new LongAdder();
     private final LongAdder _expires = new LongAdder();
@@ -92,6 +95,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
             long elapsed = System.currentTimeMillis() - request.getTimeStamp();
             _requestStats.decrement();
             _requestTimeStats.record(elapsed);
+            _requestTimeHistogram.record(elapsed);
             updateResponse(request, false);
             _asyncWaitStats.decrement();
 
@@ -127,6 +131,8 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         _requestTimeStats.reset();
         _dispatchedStats.reset();
         _dispatchedTimeStats.reset();
+        _requestTimeHistogram.reset();
+        _dispatchedTimeHistogram.reset();
         _asyncWaitStats.reset();
 
         _asyncDispatches.reset();
@@ -184,6 +190,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
             _dispatchedStats.decrement();
             _dispatchedTimeStats.record(dispatched);
+            _dispatchedTimeHistogram.record(dispatched);
 
             if (state.isInitial())
             {
@@ -196,6 +203,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
                 {
                     _requestStats.decrement();
                     _requestTimeStats.record(dispatched);
+                    _requestTimeHistogram.record(dispatched);
                     updateResponse(baseRequest, thrownError);
                 }
             }
@@ -284,6 +292,30 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _gracefulShutdownWaitsForRequests;
     }
 
+    /**
+     * @return the number of significant bits of the times recorded in the
+     * request and dispatch time histograms
+     */
+    @ManagedAttribute("number of significant bits of the times recorded in histograms")
+    public int getHistogramPrecision()
+    {
+        return _requestTimeHistogram.getPrecision();
+    }
+
+    /**
+     * Set the number of significant bits of the times recorded in the request and
+     * dispatch time histograms; the relative error of the time percentiles is
+     * less than {@code 2^(1-histogramPrecision)}.
+     * @param histogramPrecision the number of significant bits of the recorded times
+     */
+    public void setHistogramPrecision(int histogramPrecision)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _requestTimeHistogram = new HistogramStatistic(histogramPrecision);
+        _dispatchedTimeHistogram = new HistogramStatistic(histogramPrecision);
+    }
+
     /**
      * @return the number of requests handled by this handler
      * since {@link #statsReset()} was last called, excluding
@@ -360,6 +392,45 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _requestTimeStats.getStdDev();
     }
 
+    /**
+     * @return the distribution of the times (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    public HistogramStatistic getRequestTimeHistogram()
+    {
+        return _requestTimeHistogram;
+    }
+
+    /**
+     * @return the 50th percentile of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("50th percentile of the time spent handling requests (in ms)")
+    public long getRequestTimeP50()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of the time spent handling requests (in ms)")
+    public long getRequestTimeP99()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of the time spent handling requests (in ms)")
+    public long getRequestTimeP999()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(99.9);
+    }
+
     /**
      * @return the number of dispatches seen by this handler
      * since {@link #statsReset()} was last called, excluding
@@ -437,6 +508,45 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _dispatchedTimeStats.getStdDev();
     }
 
+    /**
+     * @return the distribution of the times (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    public HistogramStatistic getDispatchedTimeHistogram()
+    {
+        return _dispatchedTimeHistogram;
+    }
+
+    /**
+     * @return the 50th percentile of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("50th percentile of the time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP50()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of the time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP99()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of the time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP999()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(99.9);
+    }
+
     /**
      * @return the number of requests handled by this handler
      * since {@link #statsReset()} was last called, including
@@ -593,6 +703,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean request time: ").append(getRequestTimeMean()).append("<br />\n");
         sb.append("Max request time: ").append(getRequestTimeMax()).append("<br />\n");
         sb.append("Request time standard deviation: ").append(getRequestTimeStdDev()).append("<br />\n");
+        sb.append("Request time percentiles: ").append(getRequestTimeHistogram().snapshot()).append("<br />\n");
 
         sb.append("<h2>Dispatches:</h2>\n");
         sb.append("Total dispatched: ").append(getDispatched()).append("<br />\n");
@@ -602,6 +713,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean dispatched time: ").append(getDispatchedTimeMean()).append("<br />\n");
         sb.append("Max dispatched time: ").append(getDispatchedTimeMax()).append("<br />\n");
         sb.append("Dispatched time standard deviation: ").append(getDispatchedTimeStdDev()).append("<br />\n");
+        sb.append("Dispatched time percentiles: ").append(getDispatchedTimeHistogram().snapshot()).append("<br />\n");
 
         sb.append("Total requests suspended: ").append(getAsyncRequests()).append("<br />\n");
         sb.append("Total requests expired: ").append(getExpires()).append("<br />\n");
@@ -21,4 +21,26 @@ public interface GzipFactory
     DeflaterPool.Entry getDeflaterEntry(Request request, long contentLength);
 
     boolean isMimeTypeGzipable(String mimetype);
+
+    /**
+     * @param mimetype the mime-type of the response, without parameters
+     * @return the compression level to use for the given mime-type,
+     * or a negative value to use the level of the pooled deflater
+     */
+    default int getCompressionLevel(String mimetype)
+    {
+        return -1;
+    }
+
+    /**
+     * <p>Invoked when the compression of a response is complete.</p>
+     *
+     * @param request the request of the compressed response
+     * @param bytesIn the number of bytes of content before compression
+     * @param bytesOut the number of compressed bytes, including the gzip header and trailer
+     * @param deflateNanos the time spent deflating the content, in nanoseconds
+     */
+    default void onDeflated(Request request, long bytesIn, long bytesOut, long deflateNanos)
+    {
+    }
 }
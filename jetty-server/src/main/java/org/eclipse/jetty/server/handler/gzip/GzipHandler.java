@@ -15,8 +15,13 @@ package org.eclipse.jetty.server.handler.gzip;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -35,6 +40,7 @@ import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
+import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
@@ -42,9 +48,13 @@ import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.AsciiLowerCaseSet;
 import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -146,7 +156,14 @@ import org.slf4j.LoggerFactory;
  * Since the introduction of Async I/O in Servlet 3.1, this older form of Gzip support
  * in web applications has been problematic and bug ridden.
  * </p>
+ * <p>
+ * For throughput, rather than latency, a {@link #setMinFrameSize(int) minimum frame size}
+ * may be configured so that compressed bytes are accumulated and written in fewer, larger
+ * frames, and a {@link #setCompressionLevel(String, int) compression level} may be configured
+ * per MIME type.  The compression ratio and the time spent deflating are available as statistics.
+ * </p>
  */
+@ManagedObject("Gzip compression handler")
 public class GzipHandler extends HandlerWrapper implements GzipFactory
 {
     public static final EnumSet<HttpHeader> ETAG_HEADERS = EnumSet.of(HttpHeader.IF_MATCH, HttpHeader.IF_NONE_MATCH);
@@ -163,6 +180,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private DeflaterPool _deflaterPool;
     private int _minGzipSize = DEFAULT_MIN_GZIP_SIZE;
     private boolean _syncFlush = false;
+    private int _minFrameSize;
     private int _inflateBufferSize = -1;
     private EnumSet<DispatcherType> _dispatchers = EnumSet.of(DispatcherType.REQUEST);
     // non-static, as other GzipHandler instances may have different configurations
@@ -170,7 +188,11 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private final IncludeExclude<String> _paths = new IncludeExclude<>(PathSpecSet.class);
     private final IncludeExclude<String> _inflatePaths = new IncludeExclude<>(PathSpecSet.class);
     private final IncludeExclude<String> _mimeTypes = new IncludeExclude<>(AsciiLowerCaseSet.class);
+    private final Map<String, Integer> _compressionLevels = new ConcurrentHashMap<>();
     private HttpField _vary = GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
+    private final SampleStatistic _deflateTimeStats = new SampleStatistic();
+    private final LongAdder _deflatedBytesIn = new LongAdder();
+    private final LongAdder _deflatedBytesOut = new LongAdder();
 
     /**
      * Instantiates a new GzipHandler.
@@ -428,6 +450,155 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         _syncFlush = syncFlush;
     }
 
+    /**
+     * @return the minimum number of compressed bytes written at once
+     * @see #setMinFrameSize(int)
+     */
+    @ManagedAttribute("The minimum number of compressed bytes written at once")
+    public int getMinFrameSize()
+    {
+        return _minFrameSize;
+    }
+
+    /**
+     * <p>Sets the minimum number of compressed bytes written at once.</p>
+     * <p>By default, the bytes produced by the {@link Deflater} are written as soon as
+     * they are available, which for responses written in many small chunks results in
+     * many small frames.  A positive value makes the compressed bytes accumulate until
+     * at least this many are available (or the buffer is full, or the response is
+     * complete), trading latency for throughput. The minimum frame size only applies to
+     * the writes of the response buffer: the accumulated bytes are always written
+     * when the application explicitly flushes the response.</p>
+     *
+     * @param minFrameSize the minimum number of compressed bytes written at once,
+     * or 0 to write them as soon as they are produced
+     */
+    public void setMinFrameSize(int minFrameSize)
+    {
+        _minFrameSize = Math.max(0, minFrameSize);
+    }
+
+    /**
+     * @return the compression levels configured per MIME type
+     * @see #setCompressionLevel(String, int)
+     */
+    public Map<String, Integer> getCompressionLevels()
+    {
+        return Collections.unmodifiableMap(_compressionLevels);
+    }
+
+    /**
+     * <p>Sets the compression level to use for responses of the given MIME type, rather
+     * than the compression level of the {@link #getDeflaterPool() DeflaterPool}.</p>
+     * <p>For example, a fast level for large dynamic responses and the best level for
+     * static resources that are compressed once and cached by intermediaries.</p>
+     *
+     * @param mimeType the MIME type (without charset or other parameters)
+     * @param level the compression level, from {@link Deflater#NO_COMPRESSION}
+     * to {@link Deflater#BEST_COMPRESSION}, or a negative value to remove the
+     * compression level for the MIME type
+     */
+    public void setCompressionLevel(String mimeType, int level)
+    {
+        if (level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        String key = StringUtil.asciiToLowerCase(mimeType);
+        if (level < 0)
+            _compressionLevels.remove(key);
+        else
+            _compressionLevels.put(key, level);
+    }
+
+    @Override
+    public int getCompressionLevel(String mimetype)
+    {
+        if (mimetype == null || _compressionLevels.isEmpty())
+            return -1;
+        Integer level = _compressionLevels.get(StringUtil.asciiToLowerCase(mimetype));
+        return level == null ? -1 : level;
+    }
+
+    @Override
+    public void onDeflated(Request request, long bytesIn, long bytesOut, long deflateNanos)
+    {
+        _deflatedBytesIn.add(bytesIn);
+        _deflatedBytesOut.add(bytesOut);
+        _deflateTimeStats.record(deflateNanos);
+    }
+
+    /**
+     * @return the number of responses compressed
+     */
+    @ManagedAttribute("The number of responses compressed")
+    public long getDeflatedResponses()
+    {
+        return _deflateTimeStats.getCount();
+    }
+
+    /**
+     * @return the number of bytes of content of the compressed responses, before compression
+     */
+    @ManagedAttribute("The number of bytes of the compressed responses before compression")
+    public long getDeflatedBytesIn()
+    {
+        return _deflatedBytesIn.sum();
+    }
+
+    /**
+     * @return the number of bytes of the compressed responses, after compression
+     */
+    @ManagedAttribute("The number of bytes of the compressed responses after compression")
+    public long getDeflatedBytesOut()
+    {
+        return _deflatedBytesOut.sum();
+    }
+
+    /**
+     * @return the ratio of compressed bytes over uncompressed bytes of the
+     * compressed responses, or 0 if no response has been compressed
+     */
+    @ManagedAttribute("The ratio of compressed bytes over uncompressed bytes")
+    public double getCompressionRatio()
+    {
+        long bytesIn = getDeflatedBytesIn();
+        return bytesIn == 0 ? 0 : (double)getDeflatedBytesOut() / bytesIn;
+    }
+
+    /**
+     * @return the mean time spent deflating a response, in microseconds
+     */
+    @ManagedAttribute("The mean time spent deflating a response (in us)")
+    public double getDeflateTimeMean()
+    {
+        return _deflateTimeStats.getMean() / TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the max time spent deflating a response, in microseconds
+     */
+    @ManagedAttribute("The max time spent deflating a response (in us)")
+    public long getDeflateTimeMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_deflateTimeStats.getMax());
+    }
+
+    /**
+     * @return the total time spent deflating responses, in milliseconds
+     */
+    @ManagedAttribute("The total time spent deflating responses (in ms)")
+    public long getDeflateTimeTotal()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_deflateTimeStats.getTotal());
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _deflateTimeStats.reset();
+        _deflatedBytesIn.reset();
+        _deflatedBytesOut.reset();
+    }
+
     /**
      * Add included MIME types for response filtering
      *
@@ -818,7 +989,9 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         try
         {
             // install interceptor and handle
-            out.setInterceptor(new GzipHttpOutputInterceptor(this, getVaryField(), baseRequest.getHttpChannel(), origInterceptor, isSyncFlush()));
+            HttpChannel channel = baseRequest.getHttpChannel();
+            int bufferSize = channel.getHttpConfiguration().getOutputBufferSize();
+            out.setInterceptor(new GzipHttpOutputInterceptor(this, getVaryField(), bufferSize, channel, origInterceptor, isSyncFlush(), getMinFrameSize()));
             super.handle(target, baseRequest, request, response);
         }
         finally
@@ -57,9 +57,11 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final HttpField _vary;
     private final int _bufferSize;
     private final boolean _syncFlush;
+    private final int _minFrameSize;
 
     private DeflaterPool.Entry _deflaterEntry;
     private ByteBuffer _buffer;
+    private long _deflateNanos;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
     {
@@ -72,6 +74,22 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     }
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpField vary, int bufferSize, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
+    {
+        this(factory, vary, bufferSize, channel, next, syncFlush, 0);
+    }
+
+    /**
+     * @param factory the factory of deflaters
+     * @param vary the Vary field to add to compressed responses, or null
+     * @param bufferSize the size of the buffer of compressed content
+     * @param channel the channel of the response to compress
+     * @param next the next interceptor
+     * @param syncFlush whether the deflater is flushed with {@link Deflater#SYNC_FLUSH} for every write
+     * @param minFrameSize the minimum number of compressed bytes accumulated before they are
+     * written to the next interceptor, or 0 to write compressed bytes as soon as they are produced;
+     * the accumulated bytes are always written by an explicit {@link HttpOutput#flush()}
+     */
+    public GzipHttpOutputInterceptor(GzipFactory factory, HttpField vary, int bufferSize, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush, int minFrameSize)
     {
         _factory = factory;
         _channel = channel;
@@ -79,6 +97,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         _vary = vary;
         _bufferSize = bufferSize;
         _syncFlush = syncFlush;
+        _minFrameSize = minFrameSize;
     }
 
     @Override
@@ -120,10 +139,20 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         BufferUtil.putIntLittleEndian(_buffer, _deflaterEntry.get().getTotalIn());
     }
 
+    private void onDeflated(Deflater deflater)
+    {
+        long bytesIn = deflater.getBytesRead();
+        long bytesOut = GZIP_HEADER.length + deflater.getBytesWritten() + 8;
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} compressed {} to {} bytes in {} ns", this, bytesIn, bytesOut, _deflateNanos);
+        _factory.onDeflated(_channel.getRequest(), bytesIn, bytesOut, _deflateNanos);
+    }
+
     private void gzip(ByteBuffer content, boolean complete, final Callback callback)
     {
-        if (content.hasRemaining() || complete)
-            new GzipBufferCB(content, complete, callback).iterate();
+        boolean flush = !complete && _channel.getResponse().getHttpOutput().isFlushing();
+        if (content.hasRemaining() || complete || flush && BufferUtil.hasContent(_buffer))
+            new GzipBufferCB(content, complete, flush, callback).iterate();
         else
             callback.succeeded();
     }
@@ -199,8 +228,18 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 return;
             }
 
+            // Use the compression level configured for the mime-type, if any;
+            // the deflater pool restores its own level when the deflater is released.
+            if (ct != null)
+            {
+                int level = _factory.getCompressionLevel(HttpField.valueParameters(ct, null));
+                if (level >= 0)
+                    _deflaterEntry.get().setLevel(level);
+            }
+
             fields.put(GZIP.getContentEncoding());
             _crc.reset();
+            _deflateNanos = 0;
 
             // Adjust headers
             response.setContentLength(-1);
@@ -259,13 +298,15 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     {
         private final ByteBuffer _content;
         private final boolean _last;
+        private final boolean _flush;
 
-        public GzipBufferCB(ByteBuffer content, boolean complete, Callback callback)
+        public GzipBufferCB(ByteBuffer content, boolean complete, boolean flush, Callback callback)
         {
             super(callback);
             
             _content = content;
             _last = complete;
+            _flush = flush;
 
             _crc.update(_content.slice());
 
@@ -283,6 +324,11 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 _deflaterEntry.release();
                 _deflaterEntry = null;
             }
+            if (_buffer != null)
+            {
+                _channel.getByteBufferPool().release(_buffer);
+                _buffer = null;
+            }
             super.onCompleteFailure(x);
         }
 
@@ -310,9 +356,10 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 _buffer = _channel.getByteBufferPool().acquire(_bufferSize, _channel.isUseOutputDirectByteBuffers());
                 BufferUtil.fill(_buffer, GZIP_HEADER, 0, GZIP_HEADER.length);
             }
-            else
+            else if (!_buffer.hasRemaining())
             {
-                // otherwise clear the buffer as previous writes will always fully consume.
+                // otherwise clear the buffer if previous writes fully consumed it,
+                // as it may also hold the bytes accumulated below the minimum frame size.
                 BufferUtil.clear(_buffer);
             }
 
@@ -321,11 +368,20 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (!deflater.finished())
             {
                 if (deflater.needsInput() && !_last)
-                    return Action.SUCCEEDED;
-
-                int pos = BufferUtil.flipToFill(_buffer);
-                deflater.deflate(_buffer, _syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
-                BufferUtil.flipToFlush(_buffer, pos);
+                {
+                    // All the content has been deflated, but an explicit flush
+                    // writes the accumulated compressed bytes, if any.
+                    if (!_flush || !_buffer.hasRemaining())
+                        return Action.SUCCEEDED;
+                }
+                else
+                {
+                    long begin = System.nanoTime();
+                    int pos = BufferUtil.flipToFill(_buffer);
+                    deflater.deflate(_buffer, _syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+                    BufferUtil.flipToFlush(_buffer, pos);
+                    _deflateNanos += System.nanoTime() - begin;
+                }
             }
 
             // If we have finished deflation and there is room for the trailer.
@@ -334,9 +390,16 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 // add the trailer and recycle the deflator to flag that we will have had completeSuccess when
                 // the write below completes.
                 addTrailer();
+                onDeflated(deflater);
                 _deflaterEntry.release();
                 _deflaterEntry = null;
             }
+            else if (!_last && !_flush && deflater.needsInput() && _buffer.remaining() < _minFrameSize)
+            {
+                // All the content has been deflated, but the compressed bytes are
+                // less than the minimum frame size: keep them for the next write.
+                return Action.SUCCEEDED;
+            }
 
             // write the compressed buffer.
             _interceptor.write(_buffer, _deflaterEntry == null, this);
@@ -346,10 +409,11 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         @Override
         public String toString()
         {
-            return String.format("%s[content=%s last=%b buffer=%s deflate=%s %s]",
+            return String.format("%s[content=%s last=%b flush=%b buffer=%s deflate=%s %s]",
                 super.toString(),
                 BufferUtil.toDetailString(_content),
                 _last,
+                _flush,
                 BufferUtil.toDetailString(_buffer),
                 _deflaterEntry,
                 _deflaterEntry != null && _deflaterEntry.get().finished() ? "(finished)" : "");
@@ -16,8 +16,10 @@ package org.eclipse.jetty.server.resource;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 
+import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IO;
 
@@ -62,6 +64,22 @@ public class SeekableByteChannelRangeWriter implements RangeWriter
     @Override
     public void writeTo(OutputStream outputStream, long skipTo, long length) throws IOException
     {
+        if (outputStream instanceof HttpOutput)
+        {
+            if (channel == null)
+            {
+                channel = channelSupplier.newSeekableByteChannel();
+                pos = 0;
+            }
+
+            // let HttpOutput write the file region, possibly from a memory mapped buffer
+            if (channel instanceof FileChannel)
+            {
+                ((HttpOutput)outputStream).write((FileChannel)channel, skipTo, length);
+                return;
+            }
+        }
+
         skipTo(skipTo);
 
         // copy from channel to output stream
@@ -13,7 +13,10 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -60,6 +63,26 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
      */
     public abstract void doStore(String id, SessionData data, long lastSaveTime) throws Exception;
 
+    /**
+     * Store the data of several sessions persistently.
+     * <p>
+     * Implementations that override this method should store either all
+     * or none of the sessions, as a failure causes all of them to be
+     * considered unsaved. The default implementation calls
+     * {@link #doStore(String, SessionData, long)} for each session.
+     *
+     * @param sessions the sessions to store, keyed by session id
+     * @param lastSaveTimes the time of previous save, or 0 if never saved, keyed by session id
+     * @throws Exception if unable to store data
+     */
+    public void doStoreAll(Map<String, SessionData> sessions, Map<String, Long> lastSaveTimes) throws Exception
+    {
+        for (Map.Entry<String, SessionData> entry : sessions.entrySet())
+        {
+            doStore(entry.getKey(), entry.getValue(), lastSaveTimes.get(entry.getKey()));
+        }
+    }
+
     /**
      * Load the session from persistent store.
      *
@@ -167,17 +190,7 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
             return;
 
         long lastSave = data.getLastSaved();
-        long savePeriodMs = (_savePeriodSec <= 0 ? 0 : TimeUnit.SECONDS.toMillis(_savePeriodSec));
-
-        if (LOG.isDebugEnabled())
-        {
-            LOG.debug("Store: id={}, mdirty={}, dirty={}, lsave={}, period={}, elapsed={}", id, data.isMetaDataDirty(),
-                data.isDirty(), data.getLastSaved(), savePeriodMs, (System.currentTimeMillis() - lastSave));
-        }
-
-        //save session if attribute changed, never been saved or metadata changed (eg expiry time) and save interval exceeded
-        if (data.isDirty() || (lastSave <= 0) ||
-            (data.isMetaDataDirty() && ((System.currentTimeMillis() - lastSave) >= savePeriodMs)))
+        if (isStoreNeeded(id, data))
         {
             //set the last saved time to now
             data.setLastSaved(System.currentTimeMillis());
@@ -204,6 +217,65 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         }
     }
 
+    @Override
+    public void storeAll(Map<String, SessionData> sessions) throws Exception
+    {
+        if (!isStarted())
+            throw new IllegalStateException("Not started");
+
+        Map<String, SessionData> toStore = new LinkedHashMap<>();
+        Map<String, Long> lastSaveTimes = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, SessionData> entry : sessions.entrySet())
+        {
+            SessionData data = entry.getValue();
+            if (data != null && isStoreNeeded(entry.getKey(), data))
+            {
+                toStore.put(entry.getKey(), data);
+                lastSaveTimes.put(entry.getKey(), data.getLastSaved());
+                data.setLastSaved(now);
+            }
+        }
+
+        if (toStore.isEmpty())
+            return;
+
+        final FuturePromise<Void> result = new FuturePromise<>();
+        Runnable r = () ->
+        {
+            try
+            {
+                doStoreAll(toStore, lastSaveTimes);
+                toStore.values().forEach(SessionData::clean);
+                result.succeeded(null);
+            }
+            catch (Exception e)
+            {
+                //reset last save times if save failed
+                toStore.forEach((id, data) -> data.setLastSaved(lastSaveTimes.get(id)));
+                result.failed(e);
+            }
+        };
+        _context.run(r);
+        result.getOrThrow();
+    }
+
+    private boolean isStoreNeeded(String id, SessionData data)
+    {
+        long lastSave = data.getLastSaved();
+        long savePeriodMs = (_savePeriodSec <= 0 ? 0 : TimeUnit.SECONDS.toMillis(_savePeriodSec));
+
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Store: id={}, mdirty={}, dirty={}, lsave={}, period={}, elapsed={}", id, data.isMetaDataDirty(),
+                data.isDirty(), data.getLastSaved(), savePeriodMs, (System.currentTimeMillis() - lastSave));
+        }
+
+        //save session if attribute changed, never been saved or metadata changed (eg expiry time) and save interval exceeded
+        return data.isDirty() || (lastSave <= 0) ||
+            (data.isMetaDataDirty() && ((System.currentTimeMillis() - lastSave) >= savePeriodMs));
+    }
+
     @Override
     public boolean exists(String id) throws Exception
     {
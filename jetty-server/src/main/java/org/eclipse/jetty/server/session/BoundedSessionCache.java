@@ -0,0 +1,577 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BoundedSessionCache
+ *
+ * <p>A {@link DefaultSessionCache} that bounds the number of resident sessions,
+ * and optionally their estimated size in bytes.</p>
+ * <p>When a bound is exceeded, idle sessions are passivated to the
+ * {@link SessionDataStore} and removed from the cache, so they will be
+ * reloaded from the store by the next request that uses them.
+ * The session to passivate is chosen by the {@link PassivationPolicy}.
+ * Passivation runs in a task of the {@link SessionHandler#getScheduler() scheduler},
+ * so that requests never wait for the store, nor for the locks of other sessions;
+ * a bounded cache therefore fails to start if the SessionHandler has no scheduler.</p>
+ * <p>The bookkeeping for the policy is split over a number of shards, each
+ * guarded by its own lock, so that concurrent requests for different sessions
+ * rarely contend. As a consequence the policy is applied per shard, and the
+ * least recently (or frequently) used session is only approximated globally.</p>
+ * <p>Sessions are only passivated if they are not in use by a request, nor
+ * locked by another thread, so the bounds may be temporarily exceeded.
+ * A SessionDataStore that does not persist sessions, such as the
+ * {@link NullSessionDataStore}, loses passivated sessions.</p>
+ */
+@ManagedObject
+public class BoundedSessionCache extends DefaultSessionCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(BoundedSessionCache.class);
+    private static final int SAMPLE_SIZE = 8;
+
+    /**
+     * The policy used to select the session to passivate.
+     */
+    public enum PassivationPolicy
+    {
+        /**
+         * Passivate the least recently used idle session.
+         */
+        LRU,
+        /**
+         * Passivate the least frequently used idle session amongst
+         * a sample of the least recently used ones.
+         */
+        LFU
+    }
+
+    private final Shard[] _shards;
+    private final AtomicInteger _nextShard = new AtomicInteger();
+    private final AtomicBoolean _passivating = new AtomicBoolean();
+    private final LongAdder _sessionBytes = new LongAdder();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _passivations = new LongAdder();
+    private int _maxSessions;
+    private long _maxSessionBytes;
+    private PassivationPolicy _passivationPolicy = PassivationPolicy.LRU;
+
+    /**
+     * @param handler The SessionHandler related to this SessionCache
+     */
+    public BoundedSessionCache(SessionHandler handler)
+    {
+        this(handler, -1);
+    }
+
+    /**
+     * @param handler The SessionHandler related to this SessionCache
+     * @param shards The number of shards, or -1 for a default based on the number of processors
+     */
+    public BoundedSessionCache(SessionHandler handler, int shards)
+    {
+        super(handler, new ConcurrentHashMap<>());
+        if (shards <= 0)
+            shards = 4 * Runtime.getRuntime().availableProcessors();
+        // Round up to a power of 2 to compute the shard index with a mask.
+        int length = 1;
+        while (length < shards)
+        {
+            length <<= 1;
+        }
+        _shards = new Shard[length];
+        for (int i = 0; i < length; ++i)
+        {
+            _shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * @return the max number of resident sessions, or 0 if unbounded
+     */
+    @ManagedAttribute(value = "max number of resident sessions, or 0 if unbounded")
+    public int getMaxSessions()
+    {
+        return _maxSessions;
+    }
+
+    /**
+     * @param maxSessions the max number of resident sessions, or 0 if unbounded
+     */
+    public void setMaxSessions(int maxSessions)
+    {
+        _maxSessions = maxSessions;
+    }
+
+    /**
+     * @return the max estimated size in bytes of the resident sessions, or 0 if unbounded
+     */
+    @ManagedAttribute(value = "max estimated bytes of resident sessions, or 0 if unbounded")
+    public long getMaxSessionBytes()
+    {
+        return _maxSessionBytes;
+    }
+
+    /**
+     * @param maxSessionBytes the max estimated size in bytes of the resident sessions, or 0 if unbounded
+     * @see #estimateSize(Session)
+     */
+    public void setMaxSessionBytes(long maxSessionBytes)
+    {
+        _maxSessionBytes = maxSessionBytes;
+    }
+
+    /**
+     * @return the policy used to select the session to passivate
+     */
+    @ManagedAttribute(value = "policy to select the session to passivate")
+    public PassivationPolicy getPassivationPolicy()
+    {
+        return _passivationPolicy;
+    }
+
+    /**
+     * @param passivationPolicy the policy used to select the session to passivate
+     */
+    public void setPassivationPolicy(PassivationPolicy passivationPolicy)
+    {
+        _passivationPolicy = passivationPolicy == null ? PassivationPolicy.LRU : passivationPolicy;
+    }
+
+    /**
+     * @return the number of shards
+     */
+    @ManagedAttribute(value = "number of shards", readonly = true)
+    public int getShards()
+    {
+        return _shards.length;
+    }
+
+    /**
+     * @return the estimated size in bytes of the resident sessions, if bounded
+     */
+    @ManagedAttribute(value = "estimated bytes of resident sessions", readonly = true)
+    public long getSessionBytes()
+    {
+        return _sessionBytes.sum();
+    }
+
+    /**
+     * @return the number of session lookups that found the session in the cache
+     */
+    @ManagedAttribute(value = "session lookups found in cache", readonly = true)
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of session lookups that did not find the session in the cache
+     */
+    @ManagedAttribute(value = "session lookups not found in cache", readonly = true)
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the number of sessions passivated to the store to respect the bounds
+     */
+    @ManagedAttribute(value = "sessions passivated to respect the bounds", readonly = true)
+    public long getPassivations()
+    {
+        return _passivations.sum();
+    }
+
+    @Override
+    @ManagedOperation(value = "reset statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        super.resetStats();
+        _hits.reset();
+        _misses.reset();
+        _passivations.reset();
+    }
+
+    @Override
+    public void add(String id, Session session) throws Exception
+    {
+        super.add(id, session);
+        schedulePassivation();
+    }
+
+    @Override
+    protected Session getAndEnter(String id, boolean enter) throws Exception
+    {
+        Session session = super.getAndEnter(id, enter);
+        schedulePassivation();
+        return session;
+    }
+
+    @Override
+    public void release(String id, Session session) throws Exception
+    {
+        super.release(id, session);
+        // The attributes may have changed during the request.
+        if (_maxSessionBytes > 0)
+            shardOf(id).resized(id, session);
+        schedulePassivation();
+    }
+
+    @Override
+    public Session doPutIfAbsent(String id, Session session)
+    {
+        Session s = super.doPutIfAbsent(id, session);
+        if (s == null)
+            shardOf(id).accessed(id, session);
+        return s;
+    }
+
+    @Override
+    protected Session doComputeIfAbsent(String id, Function<String, Session> mappingFunction)
+    {
+        Session session = super.doGet(id);
+        if (session != null)
+        {
+            _hits.increment();
+        }
+        else
+        {
+            _misses.increment();
+            session = super.doComputeIfAbsent(id, mappingFunction);
+            if (session == null)
+                return null;
+        }
+        shardOf(id).accessed(id, session);
+        return session;
+    }
+
+    @Override
+    public Session doDelete(String id)
+    {
+        Session s = super.doDelete(id);
+        if (s != null)
+            shardOf(id).removed(id, s);
+        return s;
+    }
+
+    @Override
+    public boolean doReplace(String id, Session oldValue, Session newValue)
+    {
+        boolean replaced = super.doReplace(id, oldValue, newValue);
+        if (replaced)
+        {
+            Shard shard = shardOf(id);
+            shard.removed(id, oldValue);
+            shard.accessed(id, newValue);
+        }
+        return replaced;
+    }
+
+    /**
+     * <p>Estimates the size in bytes of a session, to enforce {@link #getMaxSessionBytes()}.</p>
+     * <p>The default implementation accounts for the session attributes, using
+     * the length of strings and byte arrays and a fixed size for other values.</p>
+     *
+     * @param session the session to estimate
+     * @return the estimated size in bytes of the session
+     */
+    protected long estimateSize(Session session)
+    {
+        long size = 256;
+        for (Map.Entry<String, Object> entry : session.getSessionData().getAllAttributes().entrySet())
+        {
+            size += 32 + 2L * entry.getKey().length();
+            Object value = entry.getValue();
+            if (value instanceof CharSequence)
+                size += 2L * ((CharSequence)value).length();
+            else if (value instanceof byte[])
+                size += ((byte[])value).length;
+            else
+                size += 64;
+        }
+        return size;
+    }
+
+    private boolean isOverCapacity()
+    {
+        return (_maxSessions > 0 && getSessionsCurrent() > _maxSessions) ||
+            (_maxSessionBytes > 0 && _sessionBytes.sum() > _maxSessionBytes);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if ((_maxSessions > 0 || _maxSessionBytes > 0) && _handler != null && _handler.getScheduler() == null)
+            throw new IllegalStateException("No scheduler to passivate sessions");
+        super.doStart();
+    }
+
+    private void schedulePassivation()
+    {
+        if (!isOverCapacity() || !_passivating.compareAndSet(false, true))
+            return;
+        try
+        {
+            Scheduler scheduler = _handler.getScheduler();
+            if (scheduler == null)
+                throw new IllegalStateException("No scheduler");
+            scheduler.schedule(this::passivateExcess, 0, TimeUnit.MILLISECONDS);
+        }
+        catch (Throwable x)
+        {
+            // The scheduler is stopped or gone, most likely because the SessionHandler is stopping.
+            _passivating.set(false);
+            LOG.warn("Unable to passivate sessions in excess for {}", this, x);
+        }
+    }
+
+    private void passivateExcess()
+    {
+        boolean progress = true;
+        try
+        {
+            // Give up after a full round of shards without progress,
+            // as all the sessions may be in use by requests; the next
+            // request to release its session will schedule a new task.
+            int failures = 0;
+            while (isRunning() && isOverCapacity())
+            {
+                Shard shard = _shards[_nextShard.getAndIncrement() & (_shards.length - 1)];
+                if (shard.passivateOne())
+                {
+                    failures = 0;
+                }
+                else if (++failures == _shards.length)
+                {
+                    progress = false;
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            _passivating.set(false);
+        }
+
+        // Requests may have exceeded the bounds again before the flag was reset.
+        if (progress && isRunning())
+            schedulePassivation();
+    }
+
+    private boolean passivate(String id, Session session)
+    {
+        // Skip sessions whose lock is held, most likely by a request.
+        try (AutoLock lock = session.tryLock())
+        {
+            if (lock == null)
+                return false;
+            if (!session.isValid() || !session.isResident() || session.getRequests() > 0)
+                return false;
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Passivating session {} from {}", id, this);
+
+            try
+            {
+                if (_sessionDataStore.isPassivating())
+                    session.willPassivate();
+                //Fake being dirty to force the write
+                session.getSessionData().setDirty(true);
+                _sessionDataStore.store(id, session.getSessionData());
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Passivation of session {} failed", id, e);
+                if (_sessionDataStore.isPassivating())
+                    session.didActivate();
+                return false;
+            }
+
+            doDelete(id);
+            session.setResident(false);
+            _passivations.increment();
+            return true;
+        }
+    }
+
+    private Shard shardOf(String id)
+    {
+        int hash = id.hashCode();
+        hash ^= hash >>> 16;
+        return _shards[hash & (_shards.length - 1)];
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[maxSessions=%d,maxSessionBytes=%d,policy=%s,shards=%d]",
+            super.toString(), _maxSessions, _maxSessionBytes, _passivationPolicy, _shards.length);
+    }
+
+    /**
+     * <p>The policy bookkeeping for a subset of the sessions.</p>
+     * <p>The shard lock is never held while acquiring a session lock,
+     * as session locks are held while calling into the cache.</p>
+     */
+    private class Shard
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<>(16, 0.75F, true);
+        private int _accesses;
+
+        private void accessed(String id, Session session)
+        {
+            long size = _maxSessionBytes > 0 ? estimateSize(session) : 0;
+            try (AutoLock l = _lock.lock())
+            {
+                Entry entry = _entries.get(id);
+                if (entry == null || entry._session != session)
+                {
+                    if (entry != null)
+                        _sessionBytes.add(-entry._size);
+                    entry = new Entry(session, size);
+                    _entries.put(id, entry);
+                    _sessionBytes.add(size);
+                }
+                else if (entry._frequency < Integer.MAX_VALUE)
+                {
+                    ++entry._frequency;
+                }
+
+                // Age the frequencies, so that sessions
+                // that are no longer used can be passivated.
+                if (++_accesses >= 16 * Math.max(SAMPLE_SIZE, _entries.size()))
+                {
+                    _accesses = 0;
+                    for (Entry e : _entries.values())
+                    {
+                        e._frequency >>>= 1;
+                    }
+                }
+            }
+        }
+
+        private void resized(String id, Session session)
+        {
+            long size = estimateSize(session);
+            try (AutoLock l = _lock.lock())
+            {
+                Entry entry = _entries.get(id);
+                if (entry != null && entry._session == session)
+                {
+                    _sessionBytes.add(size - entry._size);
+                    entry._size = size;
+                }
+            }
+        }
+
+        private void removed(String id, Session session)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                Entry entry = _entries.get(id);
+                if (entry != null && entry._session == session)
+                {
+                    _entries.remove(id);
+                    _sessionBytes.add(-entry._size);
+                }
+            }
+        }
+
+        private boolean passivateOne()
+        {
+            // Sample the least recently used sessions; they cannot be
+            // checked for being idle here, as that requires the session lock.
+            String[] ids = new String[SAMPLE_SIZE];
+            Session[] sessions = new Session[SAMPLE_SIZE];
+            int[] frequencies = new int[SAMPLE_SIZE];
+            int samples = 0;
+            try (AutoLock l = _lock.lock())
+            {
+                Iterator<Map.Entry<String, Entry>> iterator = _entries.entrySet().iterator();
+                while (iterator.hasNext() && samples < SAMPLE_SIZE)
+                {
+                    Map.Entry<String, Entry> next = iterator.next();
+                    ids[samples] = next.getKey();
+                    sessions[samples] = next.getValue()._session;
+                    frequencies[samples] = next.getValue()._frequency;
+                    ++samples;
+                }
+            }
+
+            if (_passivationPolicy == PassivationPolicy.LFU)
+            {
+                // Order by frequency, keeping the least recently used first on ties.
+                for (int i = 1; i < samples; ++i)
+                {
+                    for (int j = i; j > 0 && frequencies[j - 1] > frequencies[j]; --j)
+                    {
+                        swap(ids, j);
+                        swap(sessions, j);
+                        int frequency = frequencies[j];
+                        frequencies[j] = frequencies[j - 1];
+                        frequencies[j - 1] = frequency;
+                    }
+                }
+            }
+
+            for (int i = 0; i < samples; ++i)
+            {
+                if (passivate(ids[i], sessions[i]))
+                    return true;
+            }
+            return false;
+        }
+
+        private <T> void swap(T[] array, int index)
+        {
+            T element = array[index];
+            array[index] = array[index - 1];
+            array[index - 1] = element;
+        }
+    }
+
+    private static class Entry
+    {
+        private final Session _session;
+        private long _size;
+        private int _frequency;
+
+        private Entry(Session session, long size)
+        {
+            _session = session;
+            _size = size;
+            _frequency = 1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+/**
+ * BoundedSessionCacheFactory
+ *
+ * Factory for creating new BoundedSessionCaches.
+ */
+public class BoundedSessionCacheFactory extends AbstractSessionCacheFactory
+{
+    int _maxSessions;
+    long _maxSessionBytes;
+    int _shards = -1;
+    BoundedSessionCache.PassivationPolicy _passivationPolicy = BoundedSessionCache.PassivationPolicy.LRU;
+
+    /**
+     * @return the max number of resident sessions, or 0 if unbounded
+     */
+    public int getMaxSessions()
+    {
+        return _maxSessions;
+    }
+
+    /**
+     * @param maxSessions the max number of resident sessions, or 0 if unbounded
+     */
+    public void setMaxSessions(int maxSessions)
+    {
+        _maxSessions = maxSessions;
+    }
+
+    /**
+     * @return the max estimated size in bytes of the resident sessions, or 0 if unbounded
+     */
+    public long getMaxSessionBytes()
+    {
+        return _maxSessionBytes;
+    }
+
+    /**
+     * @param maxSessionBytes the max estimated size in bytes of the resident sessions, or 0 if unbounded
+     */
+    public void setMaxSessionBytes(long maxSessionBytes)
+    {
+        _maxSessionBytes = maxSessionBytes;
+    }
+
+    /**
+     * @return the number of shards, or -1 for a default based on the number of processors
+     */
+    public int getShards()
+    {
+        return _shards;
+    }
+
+    /**
+     * @param shards the number of shards, or -1 for a default based on the number of processors
+     */
+    public void setShards(int shards)
+    {
+        _shards = shards;
+    }
+
+    /**
+     * @return the policy used to select the session to passivate
+     */
+    public BoundedSessionCache.PassivationPolicy getPassivationPolicy()
+    {
+        return _passivationPolicy;
+    }
+
+    /**
+     * @param passivationPolicy the policy used to select the session to passivate
+     */
+    public void setPassivationPolicy(BoundedSessionCache.PassivationPolicy passivationPolicy)
+    {
+        _passivationPolicy = passivationPolicy;
+    }
+
+    @Override
+    public SessionCache newSessionCache(SessionHandler handler)
+    {
+        BoundedSessionCache cache = new BoundedSessionCache(handler, getShards());
+        cache.setMaxSessions(getMaxSessions());
+        cache.setMaxSessionBytes(getMaxSessionBytes());
+        cache.setPassivationPolicy(getPassivationPolicy());
+        return cache;
+    }
+}
@@ -13,6 +13,8 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
@@ -133,6 +135,28 @@ public class CachingSessionDataStore extends ContainerLifeCycle implements Sessi
             _cache.store(id, data);
     }
 
+    @Override
+    public void storeAll(Map<String, SessionData> sessions) throws Exception
+    {
+        Map<String, Long> lastSaved = new HashMap<>();
+        sessions.forEach((id, data) -> lastSaved.put(id, data.getLastSaved()));
+
+        try
+        {
+            //write to the SessionDataStore first
+            _store.storeAll(sessions);
+        }
+        finally
+        {
+            //update the cache for those the store saved
+            for (Map.Entry<String, SessionData> entry : sessions.entrySet())
+            {
+                if (entry.getValue().getLastSaved() != lastSaved.get(entry.getKey()))
+                    _cache.store(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     @Override
     protected void doStart() throws Exception
     {
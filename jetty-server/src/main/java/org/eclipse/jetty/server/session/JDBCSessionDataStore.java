@@ -23,13 +23,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,10 +56,21 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
      */
     public static final String NULL_CONTEXT_PATH = "/";
 
+    /**
+     * Max number of session ids checked by a single query
+     */
+    private static final int MAX_IDS_PER_QUERY = 100;
+
     protected boolean _initialized = false;
     protected DatabaseAdaptor _dbAdaptor;
     protected SessionTableSchema _sessionTableSchema;
     protected boolean _schemaProvided;
+    protected int _scavengePageSize = 1000;
+    protected int _scavengeLeaseSec = 0;
+    private volatile boolean _scavengeLeader;
+    private final SampleStatistic _scavengeTimeStats = new SampleStatistic();
+    private final LongAdder _scavengeRowsFound = new LongAdder();
+    private final LongAdder _scavengeRowsDeleted = new LongAdder();
 
     private static final ByteArrayInputStream EMPTY = new ByteArrayInputStream(new byte[0]);
 
@@ -67,6 +86,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
         protected String _schemaName = null;
         protected String _catalogName = null;
         protected String _tableName = "JettySessions";
+        protected String _leaseTableName = "JettySessionLeases";
         protected String _idColumn = "sessionId";
         protected String _contextPathColumn = "contextPath";
         protected String _virtualHostColumn = "virtualHost";
@@ -127,6 +147,28 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             return (getSchemaName() != null ? getSchemaName() + "." : "") + getTableName();
         }
 
+        /**
+         * @return the name of the table holding the scavenge leases
+         */
+        public String getLeaseTableName()
+        {
+            return _leaseTableName;
+        }
+
+        /**
+         * @param leaseTableName the name of the table holding the scavenge leases
+         */
+        public void setLeaseTableName(String leaseTableName)
+        {
+            checkNotNull(leaseTableName);
+            _leaseTableName = leaseTableName;
+        }
+
+        private String getSchemaLeaseTableName()
+        {
+            return (getSchemaName() != null ? getSchemaName() + "." : "") + getLeaseTableName();
+        }
+
         public String getIdColumn()
         {
             return _idColumn;
@@ -285,6 +327,34 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             return "create index " + indexName + " on " + getSchemaTableName() + " (" + getIdColumn() + ", " + getContextPathColumn() + ")";
         }
 
+        /**
+         * @param indexName the name of the index
+         * @return the statement that creates the index used by
+         * {@link #getExpiredSessionsPageStatement(Connection, String, String, long, long, String, int)}
+         * to read the expired sessions of a context in pages
+         */
+        public String getCreateIndexOverContextExpiryStatementAsString(String indexName)
+        {
+            return "create index " + indexName + " on " + getSchemaTableName() + " (" + getContextPathColumn() + ", " +
+                getVirtualHostColumn() + ", " + getExpiryTimeColumn() + ", " + getIdColumn() + ")";
+        }
+
+        /**
+         * @return the statement that creates the table holding the scavenge leases
+         */
+        public String getCreateLeaseTableStatementAsString()
+        {
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DBAdaptor");
+
+            String longType = _dbAdaptor.getLongType();
+            String stringType = _dbAdaptor.getStringType();
+
+            return "create table " + _leaseTableName + " (" + _contextPathColumn + " " + stringType + "(60), " +
+                _virtualHostColumn + " " + stringType + "(60), " + _lastNodeColumn + " " + stringType + "(60), " +
+                _expiryTimeColumn + " " + longType + ", primary key(" + _contextPathColumn + ", " + _virtualHostColumn + "))";
+        }
+
         public String getAlterTableForMaxIntervalAsString()
         {
             if (_dbAdaptor == null)
@@ -321,17 +391,44 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                 getMaxIntervalColumn() + " = ?, " + getMapColumn() + " = ? where " + getIdColumn() + " = ? and " + getContextPathColumn() +
                 " = ? and " + getVirtualHostColumn() + " = ?";
 
+            PreparedStatement statement = connection.prepareStatement(s);
+            setUpdateSessionId(statement, id, context);
+            return statement;
+        }
+
+        /**
+         * Set the session key parameters of a statement obtained from
+         * {@link #getUpdateSessionStatement(Connection, String, SessionContext)},
+         * so that the statement can be reused to update several sessions in a batch.
+         *
+         * @param statement the update statement
+         * @param id the session id
+         * @param context the session context
+         * @throws SQLException if the parameters cannot be set
+         */
+        public void setUpdateSessionId(PreparedStatement statement, String id, SessionContext context)
+            throws SQLException
+        {
             String cp = context.getCanonicalContextPath();
             if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
                 cp = NULL_CONTEXT_PATH;
 
-            PreparedStatement statement = connection.prepareStatement(s);
             statement.setString(8, id);
             statement.setString(9, cp);
             statement.setString(10, context.getVhost());
-            return statement;
         }
 
+        /**
+         * @param connection the connection
+         * @param canonicalContextPath the canonical context path
+         * @param vhost the virtual host
+         * @param expiry the time at or before which the sessions expired
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         * @deprecated no longer used, as {@link JDBCSessionDataStore#doGetExpired(long)} reads the expired
+         * sessions in pages: override {@link #getExpiredSessionsPageStatement(Connection, String, String, long, long, String, int)} instead
+         */
+        @Deprecated
         public PreparedStatement getExpiredSessionsStatement(Connection connection, String canonicalContextPath, String vhost, long expiry)
             throws SQLException
         {
@@ -466,6 +563,16 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             return statement;
         }
 
+        /**
+         * @param connection the connection
+         * @param timeLimit the time at or before which the sessions expired
+         * @return the statement
+         * @throws Exception if unable to create the statement
+         * @deprecated no longer used, as {@link JDBCSessionDataStore#doCleanOrphans(long)} deletes the orphans
+         * in pages: override {@link #getExpiredOrphansPageStatement(Connection, long, int)} and
+         * {@link #getDeleteExpiredSessionStatement(Connection, long)} instead
+         */
+        @Deprecated
         public PreparedStatement getCleanOrphansStatement(Connection connection, long timeLimit)
             throws Exception
         { 
@@ -480,6 +587,272 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
 
         }
 
+        /**
+         * Get a statement that selects a page of the sessions of a context that expired
+         * at or before the given time, in expiry and id order, starting after the given
+         * expiry and id. Paging on the index created by
+         * {@link #getCreateIndexOverContextExpiryStatementAsString(String)}
+         * keeps each query cheap even with very large tables.
+         *
+         * @param connection the connection
+         * @param canonicalContextPath the canonical context path
+         * @param vhost the virtual host
+         * @param expiry the time at or before which the sessions expired
+         * @param afterExpiry the expiry of the last session of the previous page, or 0
+         * @param afterId the id of the last session of the previous page, or the empty string
+         * @param pageSize the max number of sessions returned
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getExpiredSessionsPageStatement(Connection connection, String canonicalContextPath, String vhost,
+                                                                 long expiry, long afterExpiry, String afterId, int pageSize)
+            throws SQLException
+        {
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DB adaptor");
+
+            String cp = canonicalContextPath;
+            if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
+                cp = NULL_CONTEXT_PATH;
+
+            PreparedStatement statement = connection.prepareStatement("select " + getIdColumn() + ", " + getExpiryTimeColumn() +
+                " from " + getSchemaTableName() + " where " + getContextPathColumn() + " = ? and " +
+                getVirtualHostColumn() + " = ? and " +
+                getExpiryTimeColumn() + " >0 and " + getExpiryTimeColumn() + " <= ? and (" +
+                getExpiryTimeColumn() + " > ? or (" + getExpiryTimeColumn() + " = ? and " + getIdColumn() + " > ?))" +
+                " order by " + getExpiryTimeColumn() + ", " + getIdColumn());
+
+            statement.setString(1, cp);
+            statement.setString(2, vhost);
+            statement.setLong(3, expiry);
+            statement.setLong(4, afterExpiry);
+            statement.setLong(5, afterExpiry);
+            statement.setString(6, afterId);
+            statement.setMaxRows(pageSize);
+            statement.setFetchSize(pageSize);
+            return statement;
+        }
+
+        /**
+         * Get a statement that selects which of the given session ids exist for a context.
+         *
+         * @param connection the connection
+         * @param context the session context
+         * @param ids the session ids
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getCheckSessionsExistStatement(Connection connection, SessionContext context, Collection<String> ids)
+            throws SQLException
+        {
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DB adaptor");
+
+            String cp = context.getCanonicalContextPath();
+            if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
+                cp = NULL_CONTEXT_PATH;
+
+            StringBuilder in = new StringBuilder();
+            for (int i = 0; i < ids.size(); ++i)
+            {
+                in.append(i == 0 ? "?" : ", ?");
+            }
+
+            PreparedStatement statement = connection.prepareStatement("select " + getIdColumn() +
+                " from " + getSchemaTableName() +
+                " where " + getContextPathColumn() + " = ? and " +
+                getVirtualHostColumn() + " = ? and " +
+                getIdColumn() + " in (" + in + ")");
+            statement.setString(1, cp);
+            statement.setString(2, context.getVhost());
+            int index = 3;
+            for (String id : ids)
+            {
+                statement.setString(index++, id);
+            }
+            return statement;
+        }
+
+        /**
+         * Get a statement that selects a page of the sessions of any context
+         * that expired at or before the given time.
+         *
+         * @param connection the connection
+         * @param timeLimit the time at or before which the sessions expired
+         * @param pageSize the max number of sessions returned
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getExpiredOrphansPageStatement(Connection connection, long timeLimit, int pageSize)
+            throws SQLException
+        {
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DB adaptor");
+
+            PreparedStatement statement = connection.prepareStatement("select " + getIdColumn() + ", " +
+                getContextPathColumn() + ", " + getVirtualHostColumn() +
+                " from " + getSchemaTableName() + " where " +
+                getExpiryTimeColumn() + " > 0 and " + getExpiryTimeColumn() + " <= ?");
+            statement.setLong(1, timeLimit);
+            statement.setMaxRows(pageSize);
+            statement.setFetchSize(pageSize);
+            return statement;
+        }
+
+        /**
+         * Get a statement that deletes a session of any context, if it is still expired
+         * at or before the given time. Parameters 1 to 3 must be set to the session id,
+         * context path and virtual host of each session to delete.
+         *
+         * @param connection the connection
+         * @param timeLimit the time at or before which the session expired
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getDeleteExpiredSessionStatement(Connection connection, long timeLimit)
+            throws SQLException
+        {
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DB adaptor");
+
+            PreparedStatement statement = connection.prepareStatement("delete from " + getSchemaTableName() +
+                " where " + getIdColumn() + " = ? and " + getContextPathColumn() + " = ? and " +
+                getVirtualHostColumn() + " = ? and " +
+                getExpiryTimeColumn() + " > 0 and " + getExpiryTimeColumn() + " <= ?");
+            statement.setLong(4, timeLimit);
+            return statement;
+        }
+
+        /**
+         * Get a statement that selects the holder of the scavenge lease of a context.
+         * The leases are rows of the {@link #getLeaseTableName() lease table}, whose last
+         * node column holds the node holding the lease, and whose expiry time column holds
+         * the time the lease ends.
+         *
+         * @param connection the connection
+         * @param context the session context
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getLeaseStatement(Connection connection, SessionContext context)
+            throws SQLException
+        {
+            PreparedStatement statement = connection.prepareStatement("select " + getLastNodeColumn() + ", " + getExpiryTimeColumn() +
+                " from " + getSchemaLeaseTableName() +
+                " where " + getContextPathColumn() + " = ? and " + getVirtualHostColumn() + " = ?");
+            statement.setString(1, getLeaseContextPath(context));
+            statement.setString(2, context.getVhost());
+            return statement;
+        }
+
+        /**
+         * Get a statement that acquires or renews the scavenge lease of a context,
+         * if it is held by this node or has ended.
+         *
+         * @param connection the connection
+         * @param context the session context
+         * @param now the current time
+         * @param leaseEnd the time the lease ends, if acquired
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getAcquireLeaseStatement(Connection connection, SessionContext context, long now, long leaseEnd)
+            throws SQLException
+        {
+            PreparedStatement statement = connection.prepareStatement("update " + getSchemaLeaseTableName() +
+                " set " + getLastNodeColumn() + " = ?, " + getExpiryTimeColumn() + " = ?" +
+                " where " + getContextPathColumn() + " = ? and " + getVirtualHostColumn() + " = ? and (" +
+                getLastNodeColumn() + " = ? or " + getExpiryTimeColumn() + " <= ?)");
+            statement.setString(1, context.getWorkerName());
+            statement.setLong(2, leaseEnd);
+            statement.setString(3, getLeaseContextPath(context));
+            statement.setString(4, context.getVhost());
+            statement.setString(5, context.getWorkerName());
+            statement.setLong(6, now);
+            return statement;
+        }
+
+        /**
+         * Get a statement that creates the scavenge lease of a context, held by this node.
+         *
+         * @param connection the connection
+         * @param context the session context
+         * @param leaseEnd the time the lease ends
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getInsertLeaseStatement(Connection connection, SessionContext context, long leaseEnd)
+            throws SQLException
+        {
+            PreparedStatement statement = connection.prepareStatement("insert into " + getSchemaLeaseTableName() +
+                " (" + getContextPathColumn() + ", " + getVirtualHostColumn() + ", " + getLastNodeColumn() + ", " + getExpiryTimeColumn() + ")" +
+                " values (?, ?, ?, ?)");
+            statement.setString(1, getLeaseContextPath(context));
+            statement.setString(2, context.getVhost());
+            statement.setString(3, context.getWorkerName());
+            statement.setLong(4, leaseEnd);
+            return statement;
+        }
+
+        /**
+         * Get a statement that ends the scavenge lease of a context, if it is held by this node.
+         *
+         * @param connection the connection
+         * @param context the session context
+         * @return the statement
+         * @throws SQLException if unable to create the statement
+         */
+        public PreparedStatement getReleaseLeaseStatement(Connection connection, SessionContext context)
+            throws SQLException
+        {
+            PreparedStatement statement = connection.prepareStatement("update " + getSchemaLeaseTableName() +
+                " set " + getExpiryTimeColumn() + " = 0" +
+                " where " + getContextPathColumn() + " = ? and " + getVirtualHostColumn() + " = ? and " +
+                getLastNodeColumn() + " = ?");
+            statement.setString(1, getLeaseContextPath(context));
+            statement.setString(2, context.getVhost());
+            statement.setString(3, context.getWorkerName());
+            return statement;
+        }
+
+        private String getLeaseContextPath(SessionContext context)
+        {
+            String cp = context.getCanonicalContextPath();
+            if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
+                cp = NULL_CONTEXT_PATH;
+            return cp;
+        }
+
+        /**
+         * Set up the table holding the scavenge leases in the database
+         *
+         * @throws SQLException if unable to prepare the table
+         */
+        public void prepareLeaseTable()
+            throws SQLException
+        {
+            try (Connection connection = _dbAdaptor.getConnection();
+                 Statement statement = connection.createStatement())
+            {
+                connection.setAutoCommit(true);
+                DatabaseMetaData metaData = connection.getMetaData();
+                _dbAdaptor.adaptTo(metaData);
+
+                String tableName = _dbAdaptor.convertIdentifier(getLeaseTableName());
+                String schemaName = _dbAdaptor.convertIdentifier(getSchemaName());
+                String catalogName = _dbAdaptor.convertIdentifier(getCatalogName());
+                try (ResultSet result = metaData.getTables(catalogName, schemaName, tableName, null))
+                {
+                    if (!result.next())
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Creating table {} schema={} catalog={}", tableName, schemaName, catalogName);
+                        statement.executeUpdate(getCreateLeaseTableStatementAsString());
+                    }
+                }
+            }
+        }
+
         /**
          * Set up the tables in the database
          *
@@ -567,9 +940,11 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                 //make some indexes on the JettySessions table
                 String index1 = "idx_" + getTableName() + "_expiry";
                 String index2 = "idx_" + getTableName() + "_session";
+                String index3 = "idx_" + getTableName() + "_ctx_expiry";
 
                 boolean index1Exists = false;
                 boolean index2Exists = false;
+                boolean index3Exists = false;
                 try (ResultSet result = metaData.getIndexInfo(catalogName, schemaName, tableName, false, true))
                 {
                     while (result.next())
@@ -579,20 +954,24 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                             index1Exists = true;
                         else if (index2.equalsIgnoreCase(idxName))
                             index2Exists = true;
+                        else if (index3.equalsIgnoreCase(idxName))
+                            index3Exists = true;
                     }
                 }
                 if (!index1Exists)
                     statement.executeUpdate(getCreateIndexOverExpiryStatementAsString(index1));
                 if (!index2Exists)
                     statement.executeUpdate(getCreateIndexOverSessionStatementAsString(index2));
+                if (!index3Exists)
+                    statement.executeUpdate(getCreateIndexOverContextExpiryStatementAsString(index3));
             }
         }
 
         @Override
         public String toString()
         {
-            return String.format("%s[%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s]", super.toString(),
-                _catalogName, _schemaName, _tableName, _idColumn, _contextPathColumn, _virtualHostColumn, _cookieTimeColumn, _createTimeColumn,
+            return String.format("%s[%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s]", super.toString(),
+                _catalogName, _schemaName, _tableName, _leaseTableName, _idColumn, _contextPathColumn, _virtualHostColumn, _cookieTimeColumn, _createTimeColumn,
                 _expiryTimeColumn, _accessTimeColumn, _lastAccessTimeColumn, _lastNodeColumn, _lastSavedTimeColumn, _maxIntervalColumn);
         }
     }
@@ -615,6 +994,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
     @Override
     protected void doStop() throws Exception
     {
+        releaseScavengeLease();
         super.doStop();
         _initialized = false;
         if (!_schemaProvided)
@@ -637,6 +1017,8 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             _dbAdaptor.initialize();
             _sessionTableSchema.setDatabaseAdaptor(_dbAdaptor);
             _sessionTableSchema.prepareTables();
+            if (_scavengeLeaseSec > 0)
+                _sessionTableSchema.prepareLeaseTable();
         }
     }
 
@@ -713,6 +1095,53 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
         }
     }
 
+    @Override
+    public void doStoreAll(Map<String, SessionData> sessions, Map<String, Long> lastSaveTimes) throws Exception
+    {
+        try (Connection connection = _dbAdaptor.getConnection())
+        {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(_sessionTableSchema.getInsertSessionStatementAsString());
+                 PreparedStatement update = _sessionTableSchema.getUpdateSessionStatement(connection, null, _context))
+            {
+                int inserts = 0;
+                int updates = 0;
+                for (Map.Entry<String, SessionData> entry : sessions.entrySet())
+                {
+                    String id = entry.getKey();
+                    SessionData data = entry.getValue();
+                    if (lastSaveTimes.get(id) <= 0)
+                    {
+                        bindInsert(insert, id, data);
+                        insert.addBatch();
+                        ++inserts;
+                    }
+                    else
+                    {
+                        _sessionTableSchema.setUpdateSessionId(update, id, _context);
+                        bindUpdate(update, data);
+                        update.addBatch();
+                        ++updates;
+                    }
+                }
+
+                if (inserts > 0)
+                    insert.executeBatch();
+                if (updates > 0)
+                    update.executeBatch();
+                connection.commit();
+
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Stored {} sessions in batch, inserted={}, updated={}", sessions.size(), inserts, updates);
+            }
+            catch (Exception e)
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
     protected void doInsert(String id, SessionData data)
         throws Exception
     {
@@ -723,33 +1152,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             connection.setAutoCommit(true);
             try (PreparedStatement statement = connection.prepareStatement(s))
             {
-                statement.setString(1, id); //session id
-
-                String cp = _context.getCanonicalContextPath();
-                if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
-                    cp = NULL_CONTEXT_PATH;
-
-                statement.setString(2, cp); //context path
-
-                statement.setString(3, _context.getVhost()); //first vhost
-                statement.setString(4, data.getLastNode()); //my node id
-                statement.setLong(5, data.getAccessed()); //accessTime
-                statement.setLong(6, data.getLastAccessed()); //lastAccessTime
-                statement.setLong(7, data.getCreated()); //time created
-                statement.setLong(8, data.getCookieSet()); //time cookie was set
-                statement.setLong(9, data.getLastSaved()); //last saved time
-                statement.setLong(10, data.getExpiry());
-                statement.setLong(11, data.getMaxInactiveMs());
-
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                     ObjectOutputStream oos = new ObjectOutputStream(baos))
-                {
-                    SessionData.serializeAttributes(data, oos);
-                    byte[] bytes = baos.toByteArray();
-                    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-                    statement.setBinaryStream(12, bais, bytes.length); //attribute map as blob
-                }
-
+                bindInsert(statement, id, data);
                 statement.executeUpdate();
                 if (LOG.isDebugEnabled())
                     LOG.debug("Inserted session {}", data);
@@ -765,24 +1168,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             connection.setAutoCommit(true);
             try (PreparedStatement statement = _sessionTableSchema.getUpdateSessionStatement(connection, data.getId(), _context))
             {
-                statement.setString(1, data.getLastNode()); //should be my node id
-                statement.setLong(2, data.getAccessed()); //accessTime
-                statement.setLong(3, data.getLastAccessed()); //lastAccessTime
-                statement.setLong(4, data.getLastSaved()); //last saved time
-                statement.setLong(5, data.getExpiry());
-                statement.setLong(6, data.getMaxInactiveMs());
-
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                     ObjectOutputStream oos = new ObjectOutputStream(baos))
-                {
-                    SessionData.serializeAttributes(data, oos);
-                    byte[] bytes = baos.toByteArray();
-                    try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes))
-                    {
-                        statement.setBinaryStream(7, bais, bytes.length); //attribute map as blob
-                    }
-                }
-
+                bindUpdate(statement, data);
                 statement.executeUpdate();
 
                 if (LOG.isDebugEnabled())
@@ -791,6 +1177,59 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
         }
     }
 
+    private void bindInsert(PreparedStatement statement, String id, SessionData data)
+        throws Exception
+    {
+        statement.setString(1, id); //session id
+
+        String cp = _context.getCanonicalContextPath();
+        if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
+            cp = NULL_CONTEXT_PATH;
+
+        statement.setString(2, cp); //context path
+
+        statement.setString(3, _context.getVhost()); //first vhost
+        statement.setString(4, data.getLastNode()); //my node id
+        statement.setLong(5, data.getAccessed()); //accessTime
+        statement.setLong(6, data.getLastAccessed()); //lastAccessTime
+        statement.setLong(7, data.getCreated()); //time created
+        statement.setLong(8, data.getCookieSet()); //time cookie was set
+        statement.setLong(9, data.getLastSaved()); //last saved time
+        statement.setLong(10, data.getExpiry());
+        statement.setLong(11, data.getMaxInactiveMs());
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(baos))
+        {
+            SessionData.serializeAttributes(data, oos);
+            byte[] bytes = baos.toByteArray();
+            ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+            statement.setBinaryStream(12, bais, bytes.length); //attribute map as blob
+        }
+    }
+
+    private void bindUpdate(PreparedStatement statement, SessionData data)
+        throws Exception
+    {
+        statement.setString(1, data.getLastNode()); //should be my node id
+        statement.setLong(2, data.getAccessed()); //accessTime
+        statement.setLong(3, data.getLastAccessed()); //lastAccessTime
+        statement.setLong(4, data.getLastSaved()); //last saved time
+        statement.setLong(5, data.getExpiry());
+        statement.setLong(6, data.getMaxInactiveMs());
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(baos))
+        {
+            SessionData.serializeAttributes(data, oos);
+            byte[] bytes = baos.toByteArray();
+            try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes))
+            {
+                statement.setBinaryStream(7, bais, bytes.length); //attribute map as blob
+            }
+        }
+    }
+
     @Override
     public Set<String> doCheckExpired(Set<String> candidates, long time)
     {
@@ -817,6 +1256,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                         String sessionId = result.getString(_sessionTableSchema.getIdColumn());
                         long exp = result.getLong(_sessionTableSchema.getExpiryTimeColumn());
                         expiredSessionKeys.add(sessionId);
+                        _scavengeRowsFound.increment();
                         if (LOG.isDebugEnabled())
                             LOG.debug("{} - Found expired sessionId={}, in context={}, expiry={}",
                                 _context.getWorkerName(), sessionId, _context.getCanonicalContextPath(), exp);
@@ -837,30 +1277,36 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             //Check the candidates that were not reported as expired in the db: they
             //either do not exist, or they weren't expired (which means some other node
             //must be managing it)
-            if (!notExpiredInDB.isEmpty())
+            List<String> ids = new ArrayList<>(notExpiredInDB);
+            for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY)
             {
-                try (PreparedStatement checkSessionExists = _sessionTableSchema.getCheckSessionExistsStatement(connection, _context))
+                List<String> chunk = ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_QUERY));
+                Set<String> existing = new HashSet<>();
+                try (PreparedStatement checkSessionsExist = _sessionTableSchema.getCheckSessionsExistStatement(connection, _context, chunk);
+                     ResultSet result = checkSessionsExist.executeQuery())
                 {
-                    for (String k : notExpiredInDB)
+                    while (result.next())
                     {
-                        checkSessionExists.setString(1, k);
-                        try (ResultSet result = checkSessionExists.executeQuery())
-                        {
-                            if (!result.next())
-                            {
-                                //session doesn't exist any more, can be expired
-                                expiredSessionKeys.add(k);
-                            }
-                            else
-                            {
-                                if (LOG.isDebugEnabled())
-                                    LOG.debug("{} Session {} expiry fresher in db than cache, another node must be managing it", _context.getWorkerName(), k);
-                            }
-                        }
-                        catch (Exception e)
-                        {
-                            LOG.warn("{} Problem checking if potentially expired session {} exists in db", _context.getWorkerName(), k, e);
-                        }
+                        existing.add(result.getString(_sessionTableSchema.getIdColumn()));
+                    }
+                }
+                catch (Exception e)
+                {
+                    LOG.warn("{} Problem checking if potentially expired sessions {} exist in db", _context.getWorkerName(), chunk, e);
+                    continue;
+                }
+
+                for (String k : chunk)
+                {
+                    if (!existing.contains(k))
+                    {
+                        //session doesn't exist any more, can be expired
+                        expiredSessionKeys.add(k);
+                    }
+                    else
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("{} Session {} expiry fresher in db than cache, another node must be managing it", _context.getWorkerName(), k);
                     }
                 }
             }
@@ -874,33 +1320,67 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
         }
     }
 
+    @Override
+    public Set<String> getExpired(Set<String> candidates)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            _scavengeLeader = acquireScavengeLease();
+            return super.getExpired(candidates);
+        }
+        finally
+        {
+            _scavengeTimeStats.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
     @Override
     public Set<String> doGetExpired(long timeLimit)
     {
         Set<String> expired = new HashSet<>();
-        
-        //Get sessions for my context but managed by any node that expired at or before the timeLimit   
+
+        //Only the holder of the scavenge lease looks for sessions managed by any node
+        if (!isScavengeLeader())
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{}- Not scavenge leader for context {}", _context.getWorkerName(), _context.getCanonicalContextPath());
+            return expired;
+        }
+
+        //Get sessions for my context but managed by any node that expired at or before the timeLimit,
+        //one page at a time in expiry order, so that each query only scans a range of the context expiry index
         try (Connection connection = _dbAdaptor.getConnection())
         {
             connection.setAutoCommit(true);
-            try (PreparedStatement selectExpiredSessions = _sessionTableSchema.getExpiredSessionsStatement(connection, _context.getCanonicalContextPath(),
-                                                                                                           _context.getVhost(), timeLimit))
-            {
-                if (LOG.isDebugEnabled()) 
-                    LOG.debug("{}- Searching for sessions for context {} expired before {}", _context.getWorkerName(), _context.getCanonicalContextPath(), timeLimit);
+            if (LOG.isDebugEnabled())
+                LOG.debug("{}- Searching for sessions for context {} expired before {}", _context.getWorkerName(), _context.getCanonicalContextPath(), timeLimit);
 
-                try (ResultSet result = selectExpiredSessions.executeQuery())
+            long afterExpiry = 0;
+            String afterId = "";
+            while (true)
+            {
+                int rows = 0;
+                try (PreparedStatement selectExpiredSessions = _sessionTableSchema.getExpiredSessionsPageStatement(connection, _context.getCanonicalContextPath(),
+                    _context.getVhost(), timeLimit, afterExpiry, afterId, _scavengePageSize);
+                     ResultSet result = selectExpiredSessions.executeQuery())
                 {
                     while (result.next())
                     {
+                        ++rows;
                         String sessionId = result.getString(_sessionTableSchema.getIdColumn());
                         long exp = result.getLong(_sessionTableSchema.getExpiryTimeColumn());
                         expired.add(sessionId);
+                        afterId = sessionId;
+                        afterExpiry = exp;
                         if (LOG.isDebugEnabled())
                             LOG.debug("{}- Found expired sessionId={} for context={} expiry={}",
                                 _context.getWorkerName(), sessionId, _context.getCanonicalContextPath(), exp);
                     }
                 }
+                _scavengeRowsFound.add(rows);
+                if (rows < _scavengePageSize)
+                    break;
             }
             return expired;
         }
@@ -908,25 +1388,228 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
         {
             LOG.warn("Error finding sessions expired before {}", timeLimit, e);
             return expired; //return whatever we got
-        } 
+        }
     }
 
     @Override
     public void doCleanOrphans(long time)
     {
-        //Harshly delete sessions for any node and context that expired at or before the timeLimit
+        //Only the holder of the scavenge lease deletes orphans
+        if (!isScavengeLeader())
+            return;
+
+        //Harshly delete sessions for any node and context that expired at or before the timeLimit,
+        //one page at a time with batched deletes, so that each transaction remains short
+        try (Connection connection = _dbAdaptor.getConnection())
+        {
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = _sessionTableSchema.getExpiredOrphansPageStatement(connection, time, _scavengePageSize);
+                 PreparedStatement delete = _sessionTableSchema.getDeleteExpiredSessionStatement(connection, time))
+            {
+                while (true)
+                {
+                    int rows = 0;
+                    try (ResultSet result = select.executeQuery())
+                    {
+                        while (result.next())
+                        {
+                            ++rows;
+                            delete.setString(1, result.getString(_sessionTableSchema.getIdColumn()));
+                            delete.setString(2, result.getString(_sessionTableSchema.getContextPathColumn()));
+                            delete.setString(3, result.getString(_sessionTableSchema.getVirtualHostColumn()));
+                            delete.addBatch();
+                        }
+                    }
+                    if (rows == 0)
+                        break;
+
+                    int deleted = 0;
+                    for (int count : delete.executeBatch())
+                    {
+                        if (count > 0)
+                            deleted += count;
+                        else if (count == Statement.SUCCESS_NO_INFO)
+                            deleted += 1;
+                    }
+                    connection.commit();
+                    _scavengeRowsDeleted.add(deleted);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Deleted {}/{} orphaned sessions", deleted, rows);
+
+                    //rows not deleted were updated meanwhile, and are not selected again
+                    if (rows < _scavengePageSize || deleted == 0)
+                        break;
+                }
+            }
+            catch (Exception e)
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Error cleaning orphan sessions", e);
+        }
+    }
+
+    /**
+     * Acquire or renew the scavenge lease for this context, so that only one
+     * node looks for sessions that expired long ago and deletes orphans.
+     *
+     * @return true if this node holds the scavenge lease, or if no lease is configured
+     */
+    protected boolean acquireScavengeLease()
+    {
+        if (_scavengeLeaseSec <= 0)
+            return true;
+
+        long now = System.currentTimeMillis();
+        long leaseEnd = now + TimeUnit.SECONDS.toMillis(_scavengeLeaseSec);
+        try (Connection connection = _dbAdaptor.getConnection())
+        {
+            connection.setAutoCommit(true);
+            try (PreparedStatement acquire = _sessionTableSchema.getAcquireLeaseStatement(connection, _context, now, leaseEnd))
+            {
+                if (acquire.executeUpdate() > 0)
+                    return true;
+            }
+
+            //the lease is held by another node, or does not exist yet
+            try (PreparedStatement lease = _sessionTableSchema.getLeaseStatement(connection, _context);
+                 ResultSet result = lease.executeQuery())
+            {
+                if (result.next())
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{}- Scavenge lease for context {} held by {}", _context.getWorkerName(), _context.getCanonicalContextPath(),
+                            result.getString(1));
+                    return false;
+                }
+            }
+
+            try (PreparedStatement insert = _sessionTableSchema.getInsertLeaseStatement(connection, _context, leaseEnd))
+            {
+                return insert.executeUpdate() > 0;
+            }
+            catch (SQLException e)
+            {
+                //another node created the lease concurrently
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unable to create scavenge lease", e);
+                return false;
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to acquire scavenge lease", e);
+            return false;
+        }
+    }
+
+    /**
+     * End the scavenge lease for this context if it is held by this node,
+     * so that another node can take it over without waiting for it to end.
+     */
+    protected void releaseScavengeLease()
+    {
+        if (!_scavengeLeader || _scavengeLeaseSec <= 0)
+            return;
+        _scavengeLeader = false;
+
         try (Connection connection = _dbAdaptor.getConnection();
-             PreparedStatement statement = _sessionTableSchema.getCleanOrphansStatement(connection, time))
+             PreparedStatement release = _sessionTableSchema.getReleaseLeaseStatement(connection, _context))
         {
             connection.setAutoCommit(true);
-            int rows = statement.executeUpdate();
-            if (LOG.isDebugEnabled())
-                LOG.debug("Deleted {} orphaned sessions", rows);
+            release.executeUpdate();
         }
         catch (Exception e)
         {
-            LOG.warn("Error cleaning orphan sessions", e);
-        } 
+            LOG.warn("Unable to release scavenge lease", e);
+        }
+    }
+
+    @ManagedAttribute(value = "does this node scavenge sessions expired long ago and orphans", readonly = true)
+    public boolean isScavengeLeader()
+    {
+        return _scavengeLeaseSec <= 0 || _scavengeLeader;
+    }
+
+    @ManagedAttribute(value = "max number of rows read by a single scavenge query", readonly = true)
+    public int getScavengePageSize()
+    {
+        return _scavengePageSize;
+    }
+
+    /**
+     * @param scavengePageSize the max number of rows read by a single scavenge query,
+     * and deleted by a single orphan sweep transaction
+     */
+    public void setScavengePageSize(int scavengePageSize)
+    {
+        if (scavengePageSize <= 0)
+            throw new IllegalArgumentException("Invalid scavenge page size " + scavengePageSize);
+        _scavengePageSize = scavengePageSize;
+    }
+
+    @ManagedAttribute(value = "secs a node holds the scavenge lease, or 0 if every node scavenges", readonly = true)
+    public int getScavengeLeaseSec()
+    {
+        return _scavengeLeaseSec;
+    }
+
+    /**
+     * @param scavengeLeaseSec the secs a node holds the lease that elects it to look for
+     * sessions that expired long ago and to delete orphans on behalf of all nodes,
+     * or 0 for every node to do so
+     */
+    public void setScavengeLeaseSec(int scavengeLeaseSec)
+    {
+        _scavengeLeaseSec = scavengeLeaseSec;
+    }
+
+    @ManagedAttribute("number of scavenges")
+    public long getScavengeCount()
+    {
+        return _scavengeTimeStats.getCount();
+    }
+
+    @ManagedAttribute("max time in ms of a scavenge")
+    public long getScavengeTimeMax()
+    {
+        return _scavengeTimeStats.getMax();
+    }
+
+    @ManagedAttribute("mean time in ms of a scavenge")
+    public double getScavengeTimeMean()
+    {
+        return _scavengeTimeStats.getMean();
+    }
+
+    @ManagedAttribute("total time in ms spent scavenging")
+    public long getScavengeTimeTotal()
+    {
+        return _scavengeTimeStats.getTotal();
+    }
+
+    @ManagedAttribute("number of expired session rows found by scavenges")
+    public long getScavengeRowsFound()
+    {
+        return _scavengeRowsFound.sum();
+    }
+
+    @ManagedAttribute("number of orphaned session rows deleted by scavenges")
+    public long getScavengeRowsDeleted()
+    {
+        return _scavengeRowsDeleted.sum();
+    }
+
+    @ManagedOperation(value = "resets the scavenge statistics", impact = "ACTION")
+    public void resetScavengeStats()
+    {
+        _scavengeTimeStats.reset();
+        _scavengeRowsFound.reset();
+        _scavengeRowsDeleted.reset();
     }
 
     public void setDatabaseAdaptor(DatabaseAdaptor dbAdaptor)
@@ -29,6 +29,10 @@ public class JDBCSessionDataStoreFactory extends AbstractSessionDataStoreFactory
      */
     JDBCSessionDataStore.SessionTableSchema _schema;
 
+    int _scavengePageSize = 1000;
+
+    int _scavengeLeaseSec = 0;
+
     @Override
     public SessionDataStore getSessionDataStore(SessionHandler handler)
     {
@@ -37,6 +41,8 @@ public class JDBCSessionDataStoreFactory extends AbstractSessionDataStoreFactory
         ds.setSessionTableSchema(_schema);
         ds.setGracePeriodSec(getGracePeriodSec());
         ds.setSavePeriodSec(getSavePeriodSec());
+        ds.setScavengePageSize(getScavengePageSize());
+        ds.setScavengeLeaseSec(getScavengeLeaseSec());
         return ds;
     }
 
@@ -55,4 +61,36 @@ public class JDBCSessionDataStoreFactory extends AbstractSessionDataStoreFactory
     {
         _schema = schema;
     }
+
+    /**
+     * @return the max number of rows read by a single scavenge query
+     */
+    public int getScavengePageSize()
+    {
+        return _scavengePageSize;
+    }
+
+    /**
+     * @param scavengePageSize the max number of rows read by a single scavenge query
+     */
+    public void setScavengePageSize(int scavengePageSize)
+    {
+        _scavengePageSize = scavengePageSize;
+    }
+
+    /**
+     * @return the secs a node holds the scavenge lease, or 0 if every node scavenges
+     */
+    public int getScavengeLeaseSec()
+    {
+        return _scavengeLeaseSec;
+    }
+
+    /**
+     * @param scavengeLeaseSec the secs a node holds the scavenge lease, or 0 if every node scavenges
+     */
+    public void setScavengeLeaseSec(int scavengeLeaseSec)
+    {
+        _scavengeLeaseSec = scavengeLeaseSec;
+    }
 }
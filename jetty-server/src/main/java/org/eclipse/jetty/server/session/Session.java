@@ -894,6 +894,16 @@ public class Session implements SessionHandler.SessionIf
         return _lock.lock();
     }
 
+    /**
+     * Grab the lock on the session, if it is not held by another thread
+     *
+     * @return the lock, or null if the lock is held by another thread
+     */
+    public AutoLock tryLock()
+    {
+        return _lock.tryLock();
+    }
+
     /**
      * @return true if the session is not already invalid or being invalidated.
      */
@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -63,4 +64,37 @@ public interface SessionDataStore extends SessionDataMap
      * @throws Exception if problem checking existence with persistence layer
      */
     public boolean exists(String id) throws Exception;
+
+    /**
+     * Store the data of several sessions at once.
+     * <p>
+     * Implementations that can write to their persistence layer in bulk
+     * (for example with batched statements) should override this method.
+     * The default implementation stores each session in turn, and
+     * continues after a failure, rethrowing the first failure at the end:
+     * sessions whose data could not be stored are left dirty.
+     *
+     * @param sessions the session data to store, keyed by session id
+     * @throws Exception if the data of one or more sessions could not be stored
+     */
+    public default void storeAll(Map<String, SessionData> sessions) throws Exception
+    {
+        Exception failure = null;
+        for (Map.Entry<String, SessionData> entry : sessions.entrySet())
+        {
+            try
+            {
+                store(entry.getKey(), entry.getValue());
+            }
+            catch (Exception e)
+            {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
 }
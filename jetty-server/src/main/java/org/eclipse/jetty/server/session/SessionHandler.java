@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -931,13 +932,18 @@ public class SessionHandler extends ScopedHandler
     }
 
     /**
-     * Prepare sessions for session manager shutdown
+     * Prepare sessions for session manager shutdown.
+     * Sessions are written by the SessionCache, then flushed
+     * if the SessionDataStore buffers writes.
      *
      * @throws Exception if unable to shutdown sesssions
      */
     protected void shutdownSessions() throws Exception
     {
         _sessionCache.shutdown();
+        SessionDataStore store = _sessionCache.getSessionDataStore();
+        if (store instanceof Flushable)
+            ((Flushable)store).flush();
     }
 
     /**
@@ -0,0 +1,614 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * WriteBehindSessionDataStore
+ *
+ * A SessionDataStore that delegates to another SessionDataStore, but does not
+ * write session data to it synchronously when a request exits. Instead, the
+ * session data is queued, and multiple updates of the same session within the
+ * configured window are coalesced into a single write. Queued sessions are
+ * written in batches via {@link SessionDataStore#storeAll(Map)}, so that
+ * delegates able to write in bulk (eg the JDBCSessionDataStore with batched
+ * statements) perform a single round-trip per batch.
+ *
+ * The session data is copied when it is queued, with the session locked by the
+ * SessionCache, so that the copy is written while requests keep modifying the
+ * session. The queued copy takes over the dirty flags of the session data,
+ * which are cleaned as the delegate would have done after writing it.
+ *
+ * A session is written once no update for it has been queued for the window
+ * duration, or once it has been queued for the max delay, whichever is first:
+ * the max delay bounds the data that can be lost if the server crashes.
+ * All queued sessions are written when the store is flushed or stopped,
+ * which the SessionHandler does when it shuts down.
+ *
+ * Loads, existence checks and expiry checks consult the queued data before
+ * the delegate, so that queued updates are never lost or shadowed by stale
+ * data in the delegate.
+ */
+@ManagedObject
+public class WriteBehindSessionDataStore extends ContainerLifeCycle implements SessionDataStore, Flushable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindSessionDataStore.class);
+
+    /**
+     * The actual store for the session data
+     */
+    protected SessionDataStore _store;
+
+    private final AutoLock _lock = new AutoLock();
+    // Serializes writes to the delegate with deletions from the delegate.
+    private final AutoLock _flushLock = new AutoLock();
+    private final Map<String, Entry> _pending = new LinkedHashMap<>();
+    private Map<String, Entry> _flushing = Collections.emptyMap();
+    private final LongAdder _queued = new LongAdder();
+    private final LongAdder _coalesced = new LongAdder();
+    private final LongAdder _batches = new LongAdder();
+    private final LongAdder _flushed = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private long _windowMs = 1000;
+    private long _maxDelayMs = 5000;
+    private int _maxBatchSize = 128;
+    private SessionContext _context;
+    private Scheduler _scheduler;
+    private boolean _ownScheduler;
+    private Scheduler.Task _task;
+    private long _taskDeadline;
+
+    /**
+     * @param store the actual store for the the session data
+     */
+    public WriteBehindSessionDataStore(SessionDataStore store)
+    {
+        _store = store;
+        addBean(_store, true);
+    }
+
+    /**
+     * @return the delegate session store
+     */
+    public SessionDataStore getSessionStore()
+    {
+        return _store;
+    }
+
+    @ManagedAttribute(value = "ms without update after which a queued session is written", readonly = true)
+    public long getWindowMs()
+    {
+        return _windowMs;
+    }
+
+    /**
+     * @param windowMs the time in ms without update after which a queued session is written
+     */
+    public void setWindowMs(long windowMs)
+    {
+        if (windowMs <= 0)
+            throw new IllegalArgumentException("Invalid window " + windowMs);
+        _windowMs = windowMs;
+    }
+
+    @ManagedAttribute(value = "max ms a session can stay queued before being written", readonly = true)
+    public long getMaxDelayMs()
+    {
+        return _maxDelayMs;
+    }
+
+    /**
+     * @param maxDelayMs the max time in ms a session can stay queued before being written
+     */
+    public void setMaxDelayMs(long maxDelayMs)
+    {
+        if (maxDelayMs <= 0)
+            throw new IllegalArgumentException("Invalid max delay " + maxDelayMs);
+        _maxDelayMs = maxDelayMs;
+    }
+
+    @ManagedAttribute(value = "max number of sessions written in a batch", readonly = true)
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the max number of sessions written in a batch;
+     * when this many sessions are queued, they are written without waiting
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+        _maxBatchSize = maxBatchSize;
+    }
+
+    @ManagedAttribute("number of sessions queued to be written")
+    public int getPendingCount()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _pending.size();
+        }
+    }
+
+    @ManagedAttribute("number of session updates queued")
+    public long getQueuedCount()
+    {
+        return _queued.sum();
+    }
+
+    @ManagedAttribute("number of session updates coalesced with an already queued update")
+    public long getCoalescedCount()
+    {
+        return _coalesced.sum();
+    }
+
+    @ManagedAttribute("number of batches written to the delegate store")
+    public long getBatchCount()
+    {
+        return _batches.sum();
+    }
+
+    @ManagedAttribute("number of sessions written to the delegate store")
+    public long getFlushedCount()
+    {
+        return _flushed.sum();
+    }
+
+    @ManagedAttribute("number of batches that failed to be written")
+    public long getFailureCount()
+    {
+        return _failures.sum();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _queued.reset();
+        _coalesced.reset();
+        _batches.reset();
+        _flushed.reset();
+        _failures.reset();
+    }
+
+    @Override
+    public void initialize(SessionContext context) throws Exception
+    {
+        _context = context;
+        _store.initialize(context);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_scheduler == null)
+        {
+            //try and use the scheduler of the SessionHandler, fallback to own
+            if (_context != null && _context.getSessionHandler() != null)
+                _scheduler = _context.getSessionHandler().getScheduler();
+            if (_scheduler == null)
+            {
+                _scheduler = new ScheduledExecutorScheduler(String.format("Session-WriteBehind-%x", hashCode()), false);
+                _ownScheduler = true;
+                _scheduler.start();
+            }
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_task != null)
+                _task.cancel();
+            _task = null;
+        }
+
+        try
+        {
+            flush(true);
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to write queued sessions", e);
+        }
+        finally
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                if (!_pending.isEmpty())
+                    LOG.warn("Discarding {} unwritten sessions {}", _pending.size(), _pending.keySet());
+                _pending.clear();
+            }
+        }
+
+        super.doStop();
+
+        if (_ownScheduler && _scheduler != null)
+            _scheduler.stop();
+        _ownScheduler = false;
+        _scheduler = null;
+    }
+
+    @Override
+    public SessionData newSessionData(String id, long created, long accessed, long lastAccessed, long maxInactiveMs)
+    {
+        return _store.newSessionData(id, created, accessed, lastAccessed, maxInactiveMs);
+    }
+
+    @Override
+    public SessionData load(String id) throws Exception
+    {
+        Entry entry = getQueued(id);
+        if (entry == null)
+            return _store.load(id);
+
+        // The queued copy may be being written, so return another copy.
+        SessionData data = copy(entry.data);
+        data.clean();
+        if (data.getLastSaved() <= 0)
+            data.setLastSaved(System.currentTimeMillis());
+        return data;
+    }
+
+    @Override
+    public boolean exists(String id) throws Exception
+    {
+        Entry entry = getQueued(id);
+        if (entry != null)
+            return entry.data.getExpiry() <= 0 || entry.data.getExpiry() > System.currentTimeMillis();
+        return _store.exists(id);
+    }
+
+    @Override
+    public void store(String id, SessionData data) throws Exception
+    {
+        if (!isStarted())
+            throw new IllegalStateException("Not started");
+
+        if (data == null)
+            return;
+
+        // The caller holds the session lock, so the data is copied
+        // and cleaned without racing with requests modifying it.
+        SessionData copy = copy(data);
+        data.clean();
+        // Once queued, the data is considered saved, so that later copies
+        // update rather than insert it, unless this copy fails to be written.
+        if (copy.isDirty() || data.getLastSaved() <= 0)
+            data.setLastSaved(System.currentTimeMillis());
+
+        _queued.increment();
+        try (AutoLock l = _lock.lock())
+        {
+            long now = System.nanoTime();
+            Entry entry = _pending.get(id);
+            if (entry == null)
+            {
+                entry = new Entry(copy, now);
+                _pending.put(id, entry);
+            }
+            else
+            {
+                _coalesced.increment();
+                merge(entry.data, copy);
+                entry.data = copy;
+            }
+            entry.updated = now;
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Queued session {}, pending={}", id, _pending.size());
+
+            schedule(_pending.size() >= _maxBatchSize ? 0 : _windowMs);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws Exception
+    {
+        // Wait for any in-progress write of the session,
+        // so that it cannot be written again after deletion.
+        try (AutoLock f = _flushLock.lock())
+        {
+            boolean queued;
+            try (AutoLock l = _lock.lock())
+            {
+                queued = _pending.remove(id) != null;
+            }
+            return _store.delete(id) || queued;
+        }
+    }
+
+    @Override
+    public Set<String> getExpired(Set<String> candidates)
+    {
+        Set<String> expired = _store.getExpired(candidates);
+        if (expired == null || expired.isEmpty())
+            return expired;
+
+        // The delegate may have stale expiry times for queued sessions.
+        long now = System.currentTimeMillis();
+        try (AutoLock l = _lock.lock())
+        {
+            expired.removeIf(id ->
+            {
+                Entry entry = _pending.get(id);
+                if (entry == null)
+                    entry = _flushing.get(id);
+                return entry != null && (entry.data.getExpiry() <= 0 || entry.data.getExpiry() > now);
+            });
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean isPassivating()
+    {
+        return _store.isPassivating();
+    }
+
+    /**
+     * Write all the queued sessions to the delegate store.
+     *
+     * @throws IOException if the sessions could not be written
+     */
+    @Override
+    @ManagedOperation(value = "writes all queued sessions", impact = "ACTION")
+    public void flush() throws IOException
+    {
+        try
+        {
+            flush(true);
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    private SessionData copy(SessionData data)
+    {
+        SessionData copy = _store.newSessionData(data.getId(), data.getCreated(), data.getAccessed(), data.getLastAccessed(), data.getMaxInactiveMs());
+        copy.copy(data);
+        copy.setDirty(data.isDirty());
+        copy.setMetaDataDirty(data.isMetaDataDirty());
+        return copy;
+    }
+
+    /**
+     * Carries over to a queued copy the dirty flags and the last save
+     * time of an older copy of the same session that was not written.
+     *
+     * @param older the older copy of the session data
+     * @param newer the newer copy of the session data
+     */
+    private static void merge(SessionData older, SessionData newer)
+    {
+        newer.setDirty(newer.isDirty() || older.isDirty());
+        newer.setMetaDataDirty(newer.isMetaDataDirty() || older.isMetaDataDirty());
+        if (older.getLastSaved() <= 0)
+            newer.setLastSaved(older.getLastSaved());
+    }
+
+    private Entry getQueued(String id)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Entry entry = _pending.get(id);
+            return entry != null ? entry : _flushing.get(id);
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     *
+     * @param delayMs the delay after which the queued sessions must be checked
+     */
+    private void schedule(long delayMs)
+    {
+        if (_scheduler == null)
+            return;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        if (_task != null)
+        {
+            if (_taskDeadline - deadline <= 0)
+                return;
+            _task.cancel();
+        }
+        _taskDeadline = deadline;
+        _task = _scheduler.schedule(this::onTimeout, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void onTimeout()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _task = null;
+        }
+
+        try
+        {
+            flush(false);
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to write queued sessions", e);
+        }
+
+        try (AutoLock l = _lock.lock())
+        {
+            if (_pending.isEmpty() || !isRunning())
+                return;
+            long now = System.nanoTime();
+            long delayMs = _windowMs;
+            for (Entry entry : _pending.values())
+            {
+                delayMs = Math.min(delayMs, entry.remainingMs(now));
+            }
+            schedule(Math.max(0, delayMs));
+        }
+    }
+
+    /**
+     * Write queued sessions to the delegate store, in batches.
+     *
+     * @param all whether to write all queued sessions, or only full batches and
+     * the sessions whose window or max delay elapsed
+     * @throws Exception if a batch could not be written
+     */
+    private void flush(boolean all) throws Exception
+    {
+        try (AutoLock f = _flushLock.lock())
+        {
+            while (true)
+            {
+                Map<String, Entry> batch = new LinkedHashMap<>();
+                try (AutoLock l = _lock.lock())
+                {
+                    long now = System.nanoTime();
+                    // A full batch is written without waiting.
+                    boolean full = _pending.size() >= _maxBatchSize;
+                    Iterator<Map.Entry<String, Entry>> iterator = _pending.entrySet().iterator();
+                    while (iterator.hasNext() && batch.size() < _maxBatchSize)
+                    {
+                        Map.Entry<String, Entry> next = iterator.next();
+                        if (all || full || next.getValue().remainingMs(now) <= 0)
+                        {
+                            iterator.remove();
+                            batch.put(next.getKey(), next.getValue());
+                        }
+                    }
+                    _flushing = batch;
+                }
+
+                if (batch.isEmpty())
+                    return;
+
+                try
+                {
+                    writeBatch(batch);
+                }
+                finally
+                {
+                    try (AutoLock l = _lock.lock())
+                    {
+                        _flushing = Collections.emptyMap();
+                    }
+                }
+
+                if (batch.size() < _maxBatchSize)
+                    return;
+            }
+        }
+    }
+
+    private void writeBatch(Map<String, Entry> batch) throws Exception
+    {
+        Map<String, SessionData> sessions = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> entry : batch.entrySet())
+        {
+            sessions.put(entry.getKey(), entry.getValue().data);
+        }
+
+        try
+        {
+            _store.storeAll(sessions);
+            _batches.increment();
+            _flushed.add(sessions.size());
+            if (LOG.isDebugEnabled())
+                LOG.debug("Wrote batch of {} sessions", sessions.size());
+        }
+        catch (Exception e)
+        {
+            _failures.increment();
+            // Queue again the sessions that were not written,
+            // unless they have been queued again meanwhile.
+            long now = System.nanoTime();
+            try (AutoLock l = _lock.lock())
+            {
+                for (Map.Entry<String, Entry> entry : batch.entrySet())
+                {
+                    Entry failed = entry.getValue();
+                    if (!failed.data.isDirty() && !failed.data.isMetaDataDirty() && failed.data.getLastSaved() > 0)
+                        continue;
+                    Entry queued = _pending.get(entry.getKey());
+                    if (queued == null)
+                    {
+                        failed.updated = now;
+                        _pending.put(entry.getKey(), failed);
+                    }
+                    else
+                    {
+                        merge(failed.data, queued.data);
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[window=%d,maxDelay=%d,maxBatch=%d,pending=%d]",
+            getClass().getSimpleName(), hashCode(), _windowMs, _maxDelayMs, _maxBatchSize, getPendingCount());
+    }
+
+    private class Entry
+    {
+        private final long queued;
+        private SessionData data;
+        private long updated;
+
+        private Entry(SessionData data, long now)
+        {
+            this.data = data;
+            this.queued = now;
+        }
+
+        private long remainingMs(long now)
+        {
+            long window = _windowMs - TimeUnit.NANOSECONDS.toMillis(now - updated);
+            long maxDelay = _maxDelayMs - TimeUnit.NANOSECONDS.toMillis(now - queued);
+            return Math.min(window, maxDelay);
+        }
+    }
+}
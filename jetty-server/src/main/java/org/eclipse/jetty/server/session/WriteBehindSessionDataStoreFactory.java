@@ -0,0 +1,96 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+/**
+ * WriteBehindSessionDataStoreFactory
+ */
+public class WriteBehindSessionDataStoreFactory extends AbstractSessionDataStoreFactory
+{
+    /**
+     * The factory for the SessionDataStore that will store session data.
+     */
+    protected SessionDataStoreFactory _sessionStoreFactory;
+
+    protected long _windowMs = 1000;
+    protected long _maxDelayMs = 5000;
+    protected int _maxBatchSize = 128;
+
+    /**
+     * @param factory The factory for the actual SessionDataStore that the
+     * WriteBehindSessionDataStore will delegate to
+     */
+    public void setSessionStoreFactory(SessionDataStoreFactory factory)
+    {
+        _sessionStoreFactory = factory;
+    }
+
+    /**
+     * @return the time in ms without update after which a queued session is written
+     */
+    public long getWindowMs()
+    {
+        return _windowMs;
+    }
+
+    /**
+     * @param windowMs the time in ms without update after which a queued session is written
+     */
+    public void setWindowMs(long windowMs)
+    {
+        _windowMs = windowMs;
+    }
+
+    /**
+     * @return the max time in ms a session can stay queued before being written
+     */
+    public long getMaxDelayMs()
+    {
+        return _maxDelayMs;
+    }
+
+    /**
+     * @param maxDelayMs the max time in ms a session can stay queued before being written
+     */
+    public void setMaxDelayMs(long maxDelayMs)
+    {
+        _maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @return the max number of sessions written in a batch
+     */
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the max number of sessions written in a batch
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public SessionDataStore getSessionDataStore(SessionHandler handler) throws Exception
+    {
+        WriteBehindSessionDataStore store = new WriteBehindSessionDataStore(_sessionStoreFactory.getSessionDataStore(handler));
+        store.setWindowMs(getWindowMs());
+        store.setMaxDelayMs(getMaxDelayMs());
+        store.setMaxBatchSize(getMaxBatchSize());
+        return store;
+    }
+}
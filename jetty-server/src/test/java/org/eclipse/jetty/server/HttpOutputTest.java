@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -44,10 +45,13 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -279,6 +283,52 @@ public class HttpOutputTest
         assertThat(response, containsString("Connection: close"));
     }
 
+    @Test
+    public void testSendFileChannelBigMapped() throws Exception
+    {
+        _connector.getConnectionFactory(HttpConnectionFactory.class).getHttpConfiguration().setUseOutputFileMappedBuffers(true);
+        Resource big = Resource.newClassPathResource("simple/big.txt");
+        _handler._contentChannel = big.getReadableByteChannel();
+        assertThat(_handler._contentChannel, instanceOf(FileChannel.class));
+        String response = _connector.getResponse("GET / HTTP/1.0\nHost: localhost:80\n\n");
+        assertThat(response, containsString("HTTP/1.1 200 OK"));
+        // The whole file fits in a single mapped region written as the last content.
+        assertThat(response, containsString("Content-Length: " + big.length()));
+        assertThat(response, endsWith(toUTF8String(big)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testWriteFileChannelRegion(boolean mapped) throws Exception
+    {
+        _connector.getConnectionFactory(HttpConnectionFactory.class).getHttpConfiguration().setUseOutputFileMappedBuffers(mapped);
+        Resource big = Resource.newClassPathResource("simple/big.txt");
+        String content = toUTF8String(big);
+        int offset = 1000;
+        int length = content.length() - 2 * offset;
+        AbstractHandler handler = new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                response.setContentLength(length);
+                try (FileChannel channel = (FileChannel)big.getReadableByteChannel())
+                {
+                    ((HttpOutput)response.getOutputStream()).write(channel, offset, length);
+                    assertEquals(0, channel.position());
+                }
+            }
+        };
+
+        _swap.setHandler(handler);
+        handler.start();
+        String response = _connector.getResponse("GET / HTTP/1.0\nHost: localhost:80\n\n");
+        assertThat(response, containsString("HTTP/1.1 200 OK"));
+        assertThat(response, containsString("Content-Length: " + length));
+        assertThat(response, endsWith(content.substring(offset, offset + length)));
+    }
+
     @Test
     public void testWriteByte() throws Exception
     {
@@ -21,7 +21,10 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
@@ -38,6 +41,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -342,6 +346,196 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testTinyLFUEvictionPolicy() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 100; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "content " + i);
+        }
+        Resource directory = new PathResource(basePath);
+
+        CachedContentFactory cache = new CachedContentFactory(null, directory, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setEvictionPolicy(new TinyLFUEvictionPolicy(16, 10));
+        cache.setMaxCachedFiles(10);
+
+        // Access a few resources frequently.
+        for (int j = 0; j < 5; j++)
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                assertThat(cache.getContent("R-" + i + ".txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+            }
+        }
+        assertEquals(5, cache.getCachedFiles());
+        assertEquals(5, cache.getMisses());
+        assertEquals(20, cache.getHits());
+
+        // Scan all the other resources once.
+        for (int i = 5; i < 100; i++)
+        {
+            cache.getContent("R-" + i + ".txt", 4096);
+        }
+        assertEquals(10, cache.getCachedFiles());
+        assertEquals(90, cache.getEvictions());
+
+        // The frequently accessed resources are still cached.
+        cache.resetStats();
+        for (int i = 0; i < 5; i++)
+        {
+            cache.getContent("R-" + i + ".txt", 4096);
+        }
+        assertEquals(5, cache.getHits());
+        assertEquals(0, cache.getMisses());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testTinyLFUEvictionPolicyIsSizeAware() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 11; i++)
+        {
+            makeFile(basePath.resolve("S-" + i + ".txt"), "0123456789");
+        }
+        makeFile(basePath.resolve("L.txt"), "0123456789".repeat(8));
+        Resource directory = new PathResource(basePath);
+
+        CachedContentFactory cache = new CachedContentFactory(null, directory, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        TinyLFUEvictionPolicy policy = new TinyLFUEvictionPolicy(16, 10);
+        cache.setEvictionPolicy(policy);
+        cache.setMaxCacheSize(100);
+
+        // Fill the cache with small resources, accessed twice.
+        for (int j = 0; j < 2; j++)
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                cache.getContent("S-" + i + ".txt", 4096).getIndirectBuffer();
+            }
+        }
+        assertEquals(100, cache.getCachedSize());
+
+        // The large resource becomes more popular than any small resource,
+        // but not more popular than all the small resources it would evict.
+        for (int j = 0; j < 4; j++)
+        {
+            cache.getContent("L.txt", 4096).getIndirectBuffer();
+        }
+        assertEquals(4, policy.getRejected());
+        assertEquals(0, policy.getAdmitted());
+
+        // A small resource more popular than the one it would evict is admitted.
+        for (int j = 0; j < 3; j++)
+        {
+            cache.getContent("S-10.txt", 4096).getIndirectBuffer();
+        }
+        assertEquals(1, policy.getAdmitted());
+        assertEquals(10, cache.getCachedFiles());
+        assertEquals(100, cache.getCachedSize());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testEvictStaleContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        Path file = basePath.resolve("R-0.txt");
+        makeFile(file, "content 0");
+        makeFile(basePath.resolve("R-1.txt"), "content 1");
+        Resource directory = new PathResource(basePath);
+
+        // A policy that keeps tracking the contents that have been removed.
+        Queue<CachedContentFactory.CachedHttpContent> tracked = new ArrayDeque<>();
+        CachedContentFactory cache = new CachedContentFactory(null, directory, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setEvictionPolicy(new CachedContentFactory.EvictionPolicy()
+        {
+            @Override
+            public void onAdded(CachedContentFactory.CachedHttpContent content)
+            {
+                tracked.add(content);
+            }
+
+            @Override
+            public void onAccessed(CachedContentFactory.CachedHttpContent content)
+            {
+            }
+
+            @Override
+            public void onRemoved(CachedContentFactory.CachedHttpContent content)
+            {
+            }
+
+            @Override
+            public CachedContentFactory.CachedHttpContent evict()
+            {
+                return tracked.poll();
+            }
+        });
+        cache.setMaxCachedFiles(1);
+
+        // The content is modified, so its key is cached again.
+        cache.getContent("R-0.txt", 4096);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000));
+        cache.getContent("R-0.txt", 4096);
+        assertEquals(1, cache.getCachedFiles());
+        assertEquals(2, tracked.size());
+
+        // Evicting the stale content does not remove the live content of the same key.
+        cache.getContent("R-1.txt", 4096);
+        assertEquals(1, cache.getCachedFiles());
+        assertEquals(1, cache.getEvictions());
+        cache.resetStats();
+        cache.getContent("R-1.txt", 4096);
+        assertEquals(1, cache.getHits());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testLRUEvictionPolicy() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 100; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "content " + i);
+        }
+        Resource directory = new PathResource(basePath);
+
+        CachedContentFactory cache = new CachedContentFactory(null, directory, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(10);
+
+        for (int j = 0; j < 5; j++)
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                cache.getContent("R-" + i + ".txt", 4096);
+            }
+        }
+        for (int i = 5; i < 100; i++)
+        {
+            cache.getContent("R-" + i + ".txt", 4096);
+        }
+        assertEquals(10, cache.getCachedFiles());
+        assertEquals(90, cache.getEvictions());
+
+        // The scan evicted the least recently used resources.
+        cache.resetStats();
+        for (int i = 90; i < 100; i++)
+        {
+            cache.getContent("R-" + i + ".txt", 4096);
+        }
+        assertEquals(10, cache.getHits());
+        cache.getContent("R-0.txt", 4096);
+        assertEquals(1, cache.getMisses());
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
@@ -0,0 +1,261 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class RingBufferRequestLogWriterTest
+{
+    public WorkDir workDir;
+
+    @Test
+    public void testConcurrentEntries() throws Exception
+    {
+        Path logFile = workDir.getEmptyPathDir().resolve("request.log");
+        RingBufferRequestLogWriter writer = new RingBufferRequestLogWriter(logFile.toString());
+        writer.setCapacity(16);
+        writer.setBatchSize(128);
+        writer.setBlockWhenFull(true);
+        writer.start();
+
+        int threads = 4;
+        int entries = 1000;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            int thread = t;
+            new Thread(() ->
+            {
+                try
+                {
+                    StringBuilder builder = new StringBuilder();
+                    for (int i = 0; i < entries; ++i)
+                    {
+                        builder.setLength(0);
+                        builder.append("thread ").append(thread).append(" entry ").append(i);
+                        writer.writeEntry(builder);
+                    }
+                }
+                catch (IOException x)
+                {
+                    x.printStackTrace();
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        Set<String> unique = new HashSet<>(lines);
+        assertEquals(threads * entries, lines.size());
+        assertEquals(threads * entries, unique.size());
+        assertTrue(unique.contains("thread 3 entry 999"));
+        assertEquals(threads * entries, writer.getWrittenEntries());
+        assertEquals(0, writer.getDroppedEntries());
+    }
+
+    @Test
+    public void testLargeAndNonAsciiEntries() throws Exception
+    {
+        Path logFile = workDir.getEmptyPathDir().resolve("request.log");
+        RingBufferRequestLogWriter writer = new RingBufferRequestLogWriter(logFile.toString());
+        writer.setBatchSize(1024);
+        writer.start();
+
+        String large = "x".repeat(4096);
+        String unicode = "caf\u00e9 \u20ac \uD83D\uDE00 \uD800";
+        writer.write("first");
+        writer.write(large);
+        writer.writeEntry(new StringBuilder(unicode));
+        writer.write("last");
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        assertEquals(List.of("first", large, "caf\u00e9 \u20ac \uD83D\uDE00 ?", "last"), lines);
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception
+    {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RingBufferRequestLogWriter writer = new BlockingRingBufferRequestLogWriter(workDir.getEmptyPathDir().resolve("request.log"), writing, release);
+        writer.setCapacity(4);
+        writer.start();
+
+        writer.write("first");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; ++i)
+        {
+            writer.write("entry " + i);
+        }
+        assertEquals(6, writer.getDroppedEntries());
+
+        release.countDown();
+        writer.stop();
+        assertEquals(5, writer.getWrittenEntries());
+        assertEquals(0, writer.getBlockedEntries());
+    }
+
+    @Test
+    public void testBlockWhenFull() throws Exception
+    {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RingBufferRequestLogWriter writer = new BlockingRingBufferRequestLogWriter(workDir.getEmptyPathDir().resolve("request.log"), writing, release);
+        writer.setCapacity(4);
+        writer.setBlockWhenFull(true);
+        writer.start();
+
+        writer.write("first");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() ->
+        {
+            try
+            {
+                for (int i = 0; i < 10; ++i)
+                {
+                    writer.write("entry " + i);
+                }
+            }
+            catch (IOException x)
+            {
+                x.printStackTrace();
+            }
+            done.countDown();
+        }).start();
+
+        assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+        assertThat(writer.getBlockedEntries(), greaterThan(0L));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        writer.stop();
+        assertEquals(11, writer.getWrittenEntries());
+        assertEquals(0, writer.getDroppedEntries());
+    }
+
+    @Test
+    public void testStopWhileWriting() throws Exception
+    {
+        Path logFile = workDir.getEmptyPathDir().resolve("request.log");
+        RingBufferRequestLogWriter writer = new RingBufferRequestLogWriter(logFile.toString());
+        writer.setCapacity(16);
+        writer.setBlockWhenFull(true);
+        writer.start();
+
+        int threads = 4;
+        int entries = 10000;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            int thread = t;
+            new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < entries; ++i)
+                    {
+                        writer.write("thread " + thread + " entry " + i);
+                    }
+                }
+                catch (IOException x)
+                {
+                    x.printStackTrace();
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        Thread.sleep(10);
+        writer.stop();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // Every entry is either written or counted as dropped.
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        assertEquals(lines.size(), writer.getWrittenEntries());
+        assertEquals(threads * entries, writer.getWrittenEntries() + writer.getDroppedEntries());
+    }
+
+    @Test
+    public void testEntriesAfterStopAreDropped() throws Exception
+    {
+        Path logFile = workDir.getEmptyPathDir().resolve("request.log");
+        RingBufferRequestLogWriter writer = new RingBufferRequestLogWriter(logFile.toString());
+        writer.start();
+
+        writer.write("first");
+        writer.stop();
+        writer.write("late");
+
+        assertEquals(List.of("first"), Files.readAllLines(logFile, StandardCharsets.UTF_8));
+        assertEquals(1, writer.getWrittenEntries());
+        assertEquals(1, writer.getDroppedEntries());
+    }
+
+    private static class BlockingRingBufferRequestLogWriter extends RingBufferRequestLogWriter
+    {
+        private final CountDownLatch _writing;
+        private final CountDownLatch _release;
+
+        private BlockingRingBufferRequestLogWriter(Path logFile, CountDownLatch writing, CountDownLatch release)
+        {
+            super(logFile.toString());
+            _writing = writing;
+            _release = release;
+        }
+
+        @Override
+        protected void write(byte[] bytes, int offset, int length) throws IOException
+        {
+            _writing.countDown();
+            try
+            {
+                _release.await();
+            }
+            catch (InterruptedException x)
+            {
+                throw new IOException(x);
+            }
+            super.write(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class DoSHandlerTest
+{
+    private Server _server;
+    private LocalConnector _local;
+    private DoSHandler _handler;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _server = new Server();
+        _local = new LocalConnector(_server);
+        _server.addConnector(_local);
+        _handler = new DoSHandler();
+        _handler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                response.setStatus(HttpStatus.OK_200);
+            }
+        });
+        _server.setHandler(_handler);
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _server.stop();
+    }
+
+    private int status() throws Exception
+    {
+        return HttpTester.parseResponse(_local.getResponse("GET / HTTP/1.0\r\n\r\n")).getStatus();
+    }
+
+    @Test
+    public void testRequestsOverRateAreRejected() throws Exception
+    {
+        // A low rate, so that tokens are not replenished during the test.
+        _handler.setMaxRequestsPerSec(1);
+        _server.start();
+
+        assertThat(status(), is(HttpStatus.OK_200));
+        HttpTester.Response response = HttpTester.parseResponse(_local.getResponse("GET / HTTP/1.0\r\n\r\n"));
+        assertThat(response.getStatus(), is(HttpStatus.TOO_MANY_REQUESTS_429));
+        assertThat(response.get(HttpHeader.RETRY_AFTER), notNullValue());
+    }
+
+    @Test
+    public void testBurst() throws Exception
+    {
+        _handler.setMaxRequestsPerSec(3);
+        _handler.setTooManyCode(HttpStatus.SERVICE_UNAVAILABLE_503);
+        _server.start();
+
+        assertThat(status(), is(HttpStatus.OK_200));
+        assertThat(status(), is(HttpStatus.OK_200));
+        assertThat(status(), is(HttpStatus.OK_200));
+        assertThat(status(), is(HttpStatus.SERVICE_UNAVAILABLE_503));
+    }
+
+    @Test
+    public void testExcludedAddressIsNotLimited() throws Exception
+    {
+        _handler.setMaxRequestsPerSec(1);
+        _handler.exclude("0.0.0.0");
+        _server.start();
+
+        for (int i = 0; i < 5; ++i)
+        {
+            assertThat(status(), is(HttpStatus.OK_200));
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception
+    {
+        _handler.setMaxRequestsPerSec(1);
+        _handler.setEnabled(false);
+        _server.start();
+
+        for (int i = 0; i < 5; ++i)
+        {
+            assertThat(status(), is(HttpStatus.OK_200));
+        }
+
+        _handler.setEnabled(true);
+        assertThat(status(), is(HttpStatus.OK_200));
+        assertThat(status(), is(HttpStatus.TOO_MANY_REQUESTS_429));
+    }
+}
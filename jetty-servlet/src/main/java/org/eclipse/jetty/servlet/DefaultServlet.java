@@ -34,8 +34,10 @@ import org.eclipse.jetty.server.CachedContentFactory;
 import org.eclipse.jetty.server.ResourceContentFactory;
 import org.eclipse.jetty.server.ResourceService;
 import org.eclipse.jetty.server.ResourceService.WelcomeFactory;
+import org.eclipse.jetty.server.TinyLFUEvictionPolicy;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
@@ -102,6 +104,11 @@ import org.slf4j.LoggerFactory;
  *  maxCacheSize      The maximum total size of the cache or 0 for no cache.
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
+ *  cacheEvictionPolicy
+ *                    The policy used to evict files from the cache: "lru" (the default)
+ *                    to evict the least recently used files, or "tinylfu" to evict the
+ *                    least frequently used files, so that hot files are not evicted by
+ *                    scans of rarely accessed files.
  *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
@@ -260,6 +267,10 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                String evictionPolicy = getInitParameter("cacheEvictionPolicy");
+                if (evictionPolicy != null)
+                    _cache.setEvictionPolicy(newEvictionPolicy(evictionPolicy, _cache.getMaxCachedFiles()));
+                _contextHandler.addBean(_cache);
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
@@ -482,11 +493,27 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
         response.setHeader("Allow", "GET,HEAD,POST,OPTIONS");
     }
 
+    private static CachedContentFactory.EvictionPolicy newEvictionPolicy(String evictionPolicy, int maxCachedFiles) throws UnavailableException
+    {
+        switch (StringUtil.asciiToLowerCase(evictionPolicy.trim()))
+        {
+            case "lru":
+                return new CachedContentFactory.LRUEvictionPolicy();
+            case "tinylfu":
+                return new TinyLFUEvictionPolicy(Math.max(maxCachedFiles, 16), 1);
+            default:
+                throw new UnavailableException("Unknown cacheEvictionPolicy " + evictionPolicy);
+        }
+    }
+
     @Override
     public void destroy()
     {
         if (_cache != null)
+        {
+            _contextHandler.removeBean(_cache);
             _cache.flushCache();
+        }
         super.destroy();
     }
 
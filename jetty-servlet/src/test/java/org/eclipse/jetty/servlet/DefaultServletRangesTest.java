@@ -170,6 +170,49 @@ public class DefaultServletRangesTest
         assertTrue(body.endsWith(boundary + "--\r\n"));
     }
 
+    @Test
+    public void testRangeRequestsFromMappedBuffers() throws Exception
+    {
+        connector.getConnectionFactory(HttpConfiguration.ConnectionFactory.class).getHttpConfiguration().setUseOutputFileMappedBuffers(true);
+
+        String response = connector.getResponse(
+            "GET /context/data.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "Range: bytes=3-9\r\n" +
+                "\r\n");
+        assertResponseContains("206 Partial", response);
+        assertResponseContains("Content-Range: bytes 3-9/80", response);
+        assertTrue(response.endsWith("\r\n\r\n" + DATA.substring(3, 10)));
+
+        response = connector.getResponse(
+            "GET /context/data.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "Range: bytes=0-9,40-49\r\n" +
+                "\r\n");
+        int start = response.indexOf("--jetty");
+        String body = response.substring(start);
+        String boundary = body.substring(0, body.indexOf("\r\n"));
+        assertResponseContains("206 Partial", response);
+
+        String section1 = boundary + "\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "Content-Range: bytes 0-9/80\r\n" +
+            "\r\n" +
+            DATA.substring(0, 10) + "\r\n";
+        assertResponseContains(section1, response);
+
+        String section2 = boundary + "\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "Content-Range: bytes 40-49/80\r\n" +
+            "\r\n" +
+            DATA.substring(40, 50) + "\r\n";
+        assertResponseContains(section2, response);
+
+        assertTrue(body.endsWith(boundary + "--\r\n"));
+    }
+
     @Test
     public void testMultipleSameRangeRequests() throws Exception
     {
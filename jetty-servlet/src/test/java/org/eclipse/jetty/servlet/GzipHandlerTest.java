@@ -23,6 +23,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.servlet.AsyncContext;
@@ -117,6 +118,7 @@ public class GzipHandlerTest
         context.addServlet(DumpServlet.class, "/dump/*");
         context.addServlet(AsyncServlet.class, "/async/*");
         context.addServlet(BufferServlet.class, "/buffer/*");
+        context.addServlet(FlushServlet.class, "/flush/*");
         context.addFilter(CheckFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
 
         _server.start();
@@ -261,6 +263,26 @@ public class GzipHandlerTest
         }
     }
 
+    public static class FlushServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse response) throws ServletException, IOException
+        {
+            response.setContentType("text/plain");
+            // Without explicit flushes, a small buffer makes the words written in many small writes.
+            boolean flush = !"false".equals(req.getParameter("flush"));
+            if (!flush)
+                response.setBufferSize(16);
+            ServletOutputStream out = response.getOutputStream();
+            for (String word : __content.split("(?<= )"))
+            {
+                out.write(word.getBytes(StandardCharsets.UTF_8));
+                if (flush)
+                    out.flush();
+            }
+        }
+    }
+
     public static class EchoServlet extends HttpServlet
     {
         @Override
@@ -423,6 +445,111 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString("UTF8"));
     }
 
+    @Test
+    public void testMinFrameSize() throws Exception
+    {
+        gzipHandler.setSyncFlush(true);
+        String rawRequest = "GET /ctx/flush/info?flush=false HTTP/1.1\r\n" +
+            "Host: tester\r\n" +
+            "Accept-Encoding: gzip\r\n" +
+            "\r\n";
+
+        String rawResponse = _connector.getResponse(rawRequest);
+        int chunks = countChunks(rawResponse);
+        assertContent(HttpTester.parseResponse(rawResponse));
+
+        gzipHandler.setMinFrameSize(256);
+        rawResponse = _connector.getResponse(rawRequest);
+        int frameChunks = countChunks(rawResponse);
+        HttpTester.Response response = HttpTester.parseResponse(rawResponse);
+        assertContent(response);
+
+        // Every chunk but the last has at least the minimum frame size,
+        // rather than the few bytes of every small write of the servlet.
+        assertThat(frameChunks, Matchers.lessThanOrEqualTo(response.getContentBytes().length / 256 + 1));
+        assertThat(frameChunks, Matchers.lessThan(chunks));
+    }
+
+    @Test
+    public void testMinFrameSizeExplicitFlush() throws Exception
+    {
+        gzipHandler.setSyncFlush(true);
+        String rawRequest = "GET /ctx/flush/info HTTP/1.1\r\n" +
+            "Host: tester\r\n" +
+            "Accept-Encoding: gzip\r\n" +
+            "\r\n";
+
+        String rawResponse = _connector.getResponse(rawRequest);
+        int chunks = countChunks(rawResponse);
+        assertContent(HttpTester.parseResponse(rawResponse));
+
+        // The few bytes of every word flushed by the servlet are
+        // written, even if less than the minimum frame size.
+        gzipHandler.setMinFrameSize(256);
+        rawResponse = _connector.getResponse(rawRequest);
+        assertContent(HttpTester.parseResponse(rawResponse));
+        assertEquals(chunks, countChunks(rawResponse));
+    }
+
+    @Test
+    public void testCompressionLevelPerMimeType() throws Exception
+    {
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/buffer/info");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        gzipHandler.resetStats();
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertContent(response);
+        assertThat(gzipHandler.getDeflatedResponses(), is(1L));
+        assertThat(gzipHandler.getDeflatedBytesIn(), is((long)__bytes.length));
+        assertThat(gzipHandler.getDeflatedBytesOut(), is((long)response.getContentBytes().length));
+        assertThat(gzipHandler.getCompressionRatio(), Matchers.lessThan(1.0));
+
+        // No compression for text/plain, the deflated content is larger than the content.
+        gzipHandler.setCompressionLevel("text/plain", Deflater.NO_COMPRESSION);
+        gzipHandler.resetStats();
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertContent(response);
+        assertThat(gzipHandler.getDeflatedResponses(), is(1L));
+        assertThat(gzipHandler.getCompressionRatio(), Matchers.greaterThan(1.0));
+
+        // The pooled Deflater is restored to its default compression level.
+        gzipHandler.setCompressionLevel("text/plain", -1);
+        gzipHandler.resetStats();
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertContent(response);
+        assertThat(gzipHandler.getCompressionRatio(), Matchers.lessThan(1.0));
+    }
+
+    private static void assertContent(HttpTester.Response response) throws IOException
+    {
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+        InputStream testIn = new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        IO.copy(testIn, testOut);
+        assertEquals(__content, testOut.toString("UTF8"));
+    }
+
+    private static int countChunks(String rawResponse)
+    {
+        int chunks = 0;
+        int index = rawResponse.indexOf("\r\n\r\n") + 4;
+        while (true)
+        {
+            int eol = rawResponse.indexOf("\r\n", index);
+            int size = Integer.parseInt(rawResponse.substring(index, eol), 16);
+            if (size == 0)
+                return chunks;
+            ++chunks;
+            index = eol + 2 + size + 2;
+        }
+    }
+
     @Test
     public void testAsyncLargeResponse() throws Exception
     {
@@ -52,6 +52,7 @@ import javax.servlet.http.HttpSessionEvent;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.TokenBucketRateLimiter;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
@@ -118,6 +119,15 @@ import org.slf4j.LoggerFactory;
  * <dt>tooManyCode</dt>
  * <dd>The status code to send if there are too many requests.  By default is 429 (too many requests), but 503 (Unavailable) is
  * another option</dd>
+ * <dt>tokenBucket</dt>
+ * <dd>if true, the request rates are tracked by a {@link TokenBucketRateLimiter}, that allows bursts of up to
+ * maxRequestsPerSec requests replenished at maxRequestsPerSec per second, rather than by a rate tracker per
+ * connection that records the times of the last maxRequestsPerSec requests.
+ * The token buckets are kept in a table bounded by maxTrackers and lazily expired when they are full again,
+ * so that no task is scheduled per connection and maxIdleTrackerMs is not used.
+ * This is suitable when requests come from very large numbers of distinct clients. Defaults to false.</dd>
+ * <dt>maxTrackers</dt>
+ * <dd>the maximum number of connections tracked at once when tokenBucket is true. Defaults to 65536.</dd>
  * </dl>
  * <p>
  * This filter should be configured for {@link DispatcherType#REQUEST} and {@link DispatcherType#ASYNC} and with
@@ -136,6 +146,7 @@ public class DoSFilter implements Filter
     private static final Pattern CIDR_PATTERN = Pattern.compile("([^/]+)/(\\d+)");
 
     private static final String __TRACKER = "DoSFilter.Tracker";
+    private static final String __PRIORITY = "DoSFilter.Priority";
     private static final String __THROTTLED = "DoSFilter.Throttled";
 
     private static final int __DEFAULT_MAX_REQUESTS_PER_SEC = 25;
@@ -145,6 +156,7 @@ public class DoSFilter implements Filter
     private static final long __DEFAULT_THROTTLE_MS = 30000L;
     private static final long __DEFAULT_MAX_REQUEST_MS_INIT_PARAM = 30000L;
     private static final long __DEFAULT_MAX_IDLE_TRACKER_MS_INIT_PARAM = 30000L;
+    private static final int __DEFAULT_MAX_TRACKERS = 1 << 16;
 
     static final String MANAGED_ATTR_INIT_PARAM = "managedAttr";
     static final String MAX_REQUESTS_PER_S_INIT_PARAM = "maxRequestsPerSec";
@@ -160,6 +172,8 @@ public class DoSFilter implements Filter
     static final String IP_WHITELIST_INIT_PARAM = "ipWhitelist";
     static final String ENABLED_INIT_PARAM = "enabled";
     static final String TOO_MANY_CODE = "tooManyCode";
+    static final String TOKEN_BUCKET_INIT_PARAM = "tokenBucket";
+    static final String MAX_TRACKERS_INIT_PARAM = "maxTrackers";
 
     public enum RateType
     {
@@ -188,6 +202,8 @@ public class DoSFilter implements Filter
     private Semaphore _passes;
     private volatile int _throttledRequests;
     private volatile int _maxRequestsPerSec;
+    private volatile int _maxTrackers = __DEFAULT_MAX_TRACKERS;
+    private volatile TokenBucketRateLimiter _rateLimiter;
     private Map<RateType, Queue<AsyncContext>> _queues = new HashMap<>();
     private Map<RateType, AsyncListener> _listeners = new HashMap<>();
     private Scheduler _scheduler;
@@ -204,8 +220,17 @@ public class DoSFilter implements Filter
 
         _rateTrackers.clear();
 
+        int maxTrackers = __DEFAULT_MAX_TRACKERS;
+        String parameter = filterConfig.getInitParameter(MAX_TRACKERS_INIT_PARAM);
+        if (parameter != null)
+            maxTrackers = Integer.parseInt(parameter);
+        setMaxTrackers(maxTrackers);
+
+        parameter = filterConfig.getInitParameter(TOKEN_BUCKET_INIT_PARAM);
+        setTokenBucket(Boolean.parseBoolean(parameter));
+
         int maxRequests = __DEFAULT_MAX_REQUESTS_PER_SEC;
-        String parameter = filterConfig.getInitParameter(MAX_REQUESTS_PER_S_INIT_PARAM);
+        parameter = filterConfig.getInitParameter(MAX_REQUESTS_PER_S_INIT_PARAM);
         if (parameter != null)
             maxRequests = Integer.parseInt(parameter);
         setMaxRequestsPerSec(maxRequests);
@@ -305,12 +330,12 @@ public class DoSFilter implements Filter
             return;
         }
 
-        // Look for the rate tracker for this request.
-        RateTracker tracker = (RateTracker)request.getAttribute(__TRACKER);
-        if (tracker != null)
+        // Look for the priority of this request.
+        RateType priority = (RateType)request.getAttribute(__PRIORITY);
+        if (priority != null)
         {
-            // Redispatched, RateTracker present in request attributes.
-            throttleRequest(request, response, filterChain, tracker);
+            // Redispatched, priority present in request attributes.
+            throttleRequest(request, response, filterChain, priority);
             return;
         }
 
@@ -318,11 +343,20 @@ public class DoSFilter implements Filter
         if (LOG.isDebugEnabled())
             LOG.debug("Filtering {}", request);
 
-        // Get a rate tracker associated with this request, and record one hit.
-        tracker = getRateTracker(request);
-
         // Calculate the rate and check if it is over the allowed limit
-        final OverLimit overLimit = tracker.isRateExceeded(System.nanoTime());
+        final OverLimit overLimit;
+        TokenBucketRateLimiter rateLimiter = _rateLimiter;
+        if (rateLimiter != null)
+        {
+            // Take a token from the bucket associated with this request.
+            overLimit = acquire(request, rateLimiter);
+        }
+        else
+        {
+            // Get a rate tracker associated with this request, and record one hit.
+            RateTracker tracker = getRateTracker(request);
+            overLimit = tracker.isRateExceeded(System.nanoTime());
+        }
 
         // Pass it through if we are not currently over the rate limit.
         if (overLimit == null)
@@ -363,19 +397,19 @@ public class DoSFilter implements Filter
                 // using the suspend+timeout mechanism of AsyncContext.
                 if (insertHeaders)
                     response.addHeader("DoSFilter", "delayed");
-                request.setAttribute(__TRACKER, tracker);
+                request.setAttribute(__PRIORITY, getPriority(request, overLimit));
                 AsyncContext asyncContext = request.startAsync();
                 if (delayMs > 0)
                     asyncContext.setTimeout(delayMs);
                 asyncContext.addListener(new DoSTimeoutAsyncListener());
                 break;
             case THROTTLE:
-                throttleRequest(request, response, filterChain, tracker);
+                throttleRequest(request, response, filterChain, getPriority(request, overLimit));
                 break;
         }
     }
 
-    private void throttleRequest(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, RateTracker tracker) throws IOException, ServletException
+    private void throttleRequest(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, RateType priority) throws IOException, ServletException
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Throttling {}", request);
@@ -394,7 +428,6 @@ public class DoSFilter implements Filter
                 long throttleMs = getThrottleMs();
                 if (!Boolean.TRUE.equals(throttled) && throttleMs > 0)
                 {
-                    RateType priority = getPriority(request, tracker);
                     request.setAttribute(__THROTTLED, Boolean.TRUE);
                     if (isInsertHeaders())
                         response.addHeader("DoSFilter", "throttled");
@@ -526,15 +559,15 @@ public class DoSFilter implements Filter
      * Get priority for this request, based on user type
      *
      * @param request the current request
-     * @param tracker the rate tracker for this request
+     * @param overLimit the rate over the limit for this request
      * @return the priority for this request
      */
-    private RateType getPriority(HttpServletRequest request, RateTracker tracker)
+    private RateType getPriority(HttpServletRequest request, OverLimit overLimit)
     {
         if (extractUserId(request) != null)
             return RateType.AUTH;
-        if (tracker != null)
-            return tracker.getType();
+        if (overLimit != null && overLimit.getRateType() != null)
+            return overLimit.getRateType();
         return RateType.UNKNOWN;
     }
 
@@ -629,6 +662,45 @@ public class DoSFilter implements Filter
         return tracker;
     }
 
+    /**
+     * Takes a token from the bucket associated with this request, identified
+     * as in {@link #getRateTracker(ServletRequest)}.
+     *
+     * @param request the current request
+     * @param rateLimiter the token buckets
+     * @return the rate over the limit if the bucket is empty, else null.
+     */
+    private OverLimit acquire(HttpServletRequest request, TokenBucketRateLimiter rateLimiter)
+    {
+        String loadId = extractUserId(request);
+        final RateType type;
+        if (loadId != null)
+        {
+            type = RateType.AUTH;
+        }
+        else
+        {
+            HttpSession session = isTrackSessions() ? request.getSession(false) : null;
+            if (session != null && !session.isNew())
+            {
+                loadId = session.getId();
+                type = RateType.SESSION;
+            }
+            else
+            {
+                loadId = isRemotePort() ? createRemotePortId(request) : request.getRemoteAddr();
+                type = RateType.IP;
+            }
+        }
+
+        long wait = rateLimiter.acquire(loadId);
+        // Whitelisted addresses are never over the limit, but are only
+        // checked when over the limit as the check is comparatively slow.
+        if (wait == 0 || checkWhitelist(request.getRemoteAddr()))
+            return null;
+        return new TokenBucketOverLimit(type, loadId, Duration.ofNanos(wait), rateLimiter.getBurst());
+    }
+
     private void addToRateTracker(RateTracker tracker)
     {
         _rateTrackers.put(tracker.getId(), tracker);
@@ -759,6 +831,9 @@ public class DoSFilter implements Filter
         LOG.debug("Destroy {}", this);
         stopScheduler();
         _rateTrackers.clear();
+        TokenBucketRateLimiter rateLimiter = _rateLimiter;
+        if (rateLimiter != null)
+            rateLimiter.clear();
         _whitelist.clear();
     }
 
@@ -809,6 +884,76 @@ public class DoSFilter implements Filter
     public void setMaxRequestsPerSec(int value)
     {
         _maxRequestsPerSec = value;
+        TokenBucketRateLimiter rateLimiter = _rateLimiter;
+        if (rateLimiter != null && value > 0)
+        {
+            rateLimiter.setRate(value);
+            rateLimiter.setBurst(value);
+        }
+    }
+
+    /**
+     * Check flag to have request rates tracked by token buckets,
+     * rather than by rate trackers.
+     *
+     * @return value of the flag
+     */
+    @ManagedAttribute("request rates are tracked by token buckets")
+    public boolean isTokenBucket()
+    {
+        return _rateLimiter != null;
+    }
+
+    /**
+     * Set flag to have request rates tracked by token buckets,
+     * rather than by rate trackers.
+     *
+     * @param value value of the flag
+     */
+    public void setTokenBucket(boolean value)
+    {
+        if (value == isTokenBucket())
+            return;
+        TokenBucketRateLimiter rateLimiter = null;
+        if (value)
+        {
+            rateLimiter = new TokenBucketRateLimiter(getMaxTrackers());
+            int maxRequestsPerSec = getMaxRequestsPerSec();
+            if (maxRequestsPerSec > 0)
+            {
+                rateLimiter.setRate(maxRequestsPerSec);
+                rateLimiter.setBurst(maxRequestsPerSec);
+            }
+        }
+        _rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Get maximum number of connections whose request rates
+     * are tracked at once by token buckets.
+     *
+     * @return maximum number of connections
+     */
+    @ManagedAttribute("maximum number of connections tracked by token buckets")
+    public int getMaxTrackers()
+    {
+        return _maxTrackers;
+    }
+
+    /**
+     * Set maximum number of connections whose request rates
+     * are tracked at once by token buckets.
+     *
+     * @param value maximum number of connections
+     */
+    public void setMaxTrackers(int value)
+    {
+        _maxTrackers = value;
+        if (isTokenBucket())
+        {
+            setTokenBucket(false);
+            setTokenBucket(true);
+        }
     }
 
     /**
@@ -1485,6 +1630,57 @@ public class DoSFilter implements Filter
         long getCount();
     }
 
+    /**
+     * The rate over the limit when tracked by token buckets: the duration is the
+     * time after which a request will be allowed again and the count is the number
+     * of requests that can be allowed at once.
+     */
+    private static class TokenBucketOverLimit implements OverLimit
+    {
+        private final RateType type;
+        private final String id;
+        private final Duration duration;
+        private final long count;
+
+        private TokenBucketOverLimit(RateType type, String id, Duration duration, long count)
+        {
+            this.type = type;
+            this.id = id;
+            this.duration = duration;
+            this.count = count;
+        }
+
+        @Override
+        public RateType getRateType()
+        {
+            return type;
+        }
+
+        @Override
+        public String getRateId()
+        {
+            return id;
+        }
+
+        @Override
+        public Duration getDuration()
+        {
+            return duration;
+        }
+
+        @Override
+        public long getCount()
+        {
+            return count;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[type=%s, id=%s, duration=%s, count=%d]", OverLimit.class.getSimpleName(), hashCode(), type, id, duration, count);
+        }
+    }
+
     /**
      * Listener for actions taken against specific requests.
      */
@@ -0,0 +1,53 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(WorkDirExtension.class)
+public class TokenBucketDoSFilterTest extends AbstractDoSFilterTest
+{
+    public WorkDir workDir;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        startServer(workDir, TokenBucketDoSFilter.class);
+    }
+
+    @Test
+    @Disabled("Token buckets allow bursts refilled at a steady rate, so fewer requests spread over a sliding second are delayed")
+    @Override
+    public void testMultipleSessionTracking()
+    {
+    }
+
+    public static class TokenBucketDoSFilter extends DoSFilter
+    {
+        @Override
+        public void init(FilterConfig filterConfig) throws ServletException
+        {
+            super.init(filterConfig);
+            setTokenBucket(true);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A lock-free, bounded, multi-producer multi-consumer {@link Queue}.</p>
+ * <p>The elements are stored in a {@link ConcurrentLinkedQueue}, while the capacity
+ * is enforced by an atomic counter that is incremented before an element is added,
+ * so that the queue never holds more than {@link #getMaxCapacity() the max capacity}
+ * elements, and that is decremented when an element is removed.</p>
+ * <p>Differently from {@link BlockingArrayQueue}, none of the operations acquire
+ * a lock, so that producers and consumers never block each other, and
+ * {@link #size()} is a constant time operation.</p>
+ * <p>{@link #size()} may transiently account for an element that is being
+ * added, but that is not yet visible to {@link #poll()}.</p>
+ *
+ * @param <E> the element type
+ */
+public class BoundedConcurrentLinkedQueue<E> extends AbstractQueue<E>
+{
+    private final Queue<E> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxCapacity;
+
+    /**
+     * Creates an unbounded {@link BoundedConcurrentLinkedQueue}.
+     */
+    public BoundedConcurrentLinkedQueue()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxCapacity the max number of elements in the queue
+     */
+    public BoundedConcurrentLinkedQueue(int maxCapacity)
+    {
+        if (maxCapacity <= 0)
+            throw new IllegalArgumentException("Invalid max capacity " + maxCapacity);
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * @return the max number of elements in the queue
+     */
+    public int getMaxCapacity()
+    {
+        return maxCapacity;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+        while (true)
+        {
+            int current = size.get();
+            if (current >= maxCapacity)
+                return false;
+            if (size.compareAndSet(current, current + 1))
+                break;
+        }
+        queue.offer(e);
+        return true;
+    }
+
+    @Override
+    public E poll()
+    {
+        E e = queue.poll();
+        if (e != null)
+            size.decrementAndGet();
+        return e;
+    }
+
+    @Override
+    public E peek()
+    {
+        return queue.peek();
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (queue.remove(o))
+        {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return queue.contains(o);
+    }
+
+    @Override
+    public int size()
+    {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size.get() == 0;
+    }
+
+    /**
+     * <p>Returns a weakly consistent iterator over the elements of this queue,
+     * as specified by {@link ConcurrentLinkedQueue#iterator()}.</p>
+     *
+     * @return an iterator over the elements of this queue
+     */
+    @Override
+    public Iterator<E> iterator()
+    {
+        Iterator<E> iterator = queue.iterator();
+        return new Iterator<>()
+        {
+            private E last;
+
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                // Iterator.remove() cannot report whether the element was
+                // removed by this call or concurrently by another thread.
+                E e = last;
+                last = null;
+                if (e == null)
+                    throw new IllegalStateException();
+                BoundedConcurrentLinkedQueue.this.remove(e);
+            }
+        };
+    }
+}
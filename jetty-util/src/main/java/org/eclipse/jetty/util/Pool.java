@@ -24,6 +24,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -406,6 +407,45 @@ public class Pool<T> implements AutoCloseable, Dumpable
         return null;
     }
 
+    /**
+     * <p>Acquires the entry with the lowest cost among the entries that can be acquired.</p>
+     * <p>The cost of each entry is computed from its pooled object by the given function.
+     * If the entry with the lowest cost is concurrently acquired by another thread up to
+     * its max multiplex, the entry with the lowest cost is searched again.</p>
+     * <p>Differently from {@link #acquire()}, all the entries are visited, so this
+     * method is best suited to pools with a small number of entries.</p>
+     *
+     * @param cost the function that computes the cost of a pooled object
+     * @return the entry with the lowest cost or null if none is available.
+     */
+    public Entry acquireLowestCost(ToDoubleFunction<T> cost)
+    {
+        if (closed)
+            return null;
+
+        for (int tries = entries.size(); tries-- > 0;)
+        {
+            Entry lowest = null;
+            double lowestCost = Double.MAX_VALUE;
+            for (Entry entry : entries)
+            {
+                if (!entry.canAcquire())
+                    continue;
+                double entryCost = cost.applyAsDouble(entry.getPooled());
+                if (lowest == null || entryCost < lowestCost)
+                {
+                    lowest = entry;
+                    lowestCost = entryCost;
+                }
+            }
+            if (lowest == null)
+                return null;
+            if (lowest.tryAcquire())
+                return lowest;
+        }
+        return null;
+    }
+
     private int startIndex(int size)
     {
         switch (strategyType)
@@ -657,6 +697,11 @@ public class Pool<T> implements AutoCloseable, Dumpable
          */
         abstract boolean tryAcquire();
 
+        /**
+         * @return whether this Entry may be acquired, without acquiring it
+         */
+        abstract boolean canAcquire();
+
         /**
          * <p>Tries to release this Entry.</p>
          *
@@ -748,6 +793,12 @@ public class Pool<T> implements AutoCloseable, Dumpable
             }
         }
 
+        @Override
+        boolean canAcquire()
+        {
+            return state.get() == 0;
+        }
+
         @Override
         boolean tryRelease()
         {
@@ -883,6 +934,21 @@ public class Pool<T> implements AutoCloseable, Dumpable
             }
         }
 
+        @Override
+        boolean canAcquire()
+        {
+            long encoded = state.get();
+            int usageCount = AtomicBiInteger.getHi(encoded);
+            if (usageCount < 0)
+                return false;
+            T pooled = getPooled();
+            int maxUsageCount = getMaxUsageCount(pooled);
+            if (maxUsageCount > 0 && usageCount >= maxUsageCount)
+                return false;
+            int maxMultiplexed = getMaxMultiplex(pooled);
+            return maxMultiplexed <= 0 || AtomicBiInteger.getLo(encoded) < maxMultiplexed;
+        }
+
         /**
          * <p>Tries to release the entry if possible by decrementing the multiplex
          * count unless the entity is closed.</p>
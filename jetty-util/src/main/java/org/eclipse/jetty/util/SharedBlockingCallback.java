@@ -104,6 +104,17 @@ public class SharedBlockingCallback
             LOG.debug("Blocker not complete stacktrace", new Throwable());
     }
 
+    /**
+     * <p>Invoked when a thread calling {@link Blocker#block()} has to wait
+     * for the callback to be completed.</p>
+     * <p>This method is invoked with an internal lock held, so it must not block.</p>
+     *
+     * @param blocker the blocker that the thread is waiting for
+     */
+    protected void onBlock(Blocker blocker)
+    {
+    }
+
     /**
      * A Closeable Callback.
      * Uses the auto close mechanism to check block has been called OK.
@@ -201,6 +212,8 @@ public class SharedBlockingCallback
             _lock.lock();
             try
             {
+                if (_state == null)
+                    onBlock(this);
                 while (_state == null)
                 {
                     _complete.await();
@@ -17,15 +17,23 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -194,4 +202,285 @@ public interface SocketAddressResolver
             });
         }
     }
+
+    /**
+     * <p>Caches the addresses resolved by another {@link SocketAddressResolver}.</p>
+     * <p>The addresses of a host are cached for {@link #getTimeToLive() a time to live},
+     * so that most resolutions complete immediately in the caller thread, without the
+     * cost of a blocking DNS resolution or of the dispatch to another thread.
+     * Failures to resolve a host because it is unknown are also cached, for a
+     * {@link #getNegativeTimeToLive() negative time to live}.</p>
+     * <p>Concurrent resolutions of the same host that is not cached are coalesced,
+     * so that a single resolution is performed by the wrapped resolver.</p>
+     * <p>The DNS record TTLs are not available to Java applications, so the time to live
+     * defaults to 30 seconds and the negative time to live to 10 seconds, like the
+     * defaults of the {@code networkaddress.cache.ttl} and
+     * {@code networkaddress.cache.negative.ttl} security properties.</p>
+     * <p>Example usage:</p>
+     * <pre>
+     * SocketAddressResolver.Caching resolver = new SocketAddressResolver.Caching(
+     *     new SocketAddressResolver.Async(executor, scheduler, timeout));
+     * resolver.setTimeToLive(Duration.ofSeconds(60));
+     * httpClient.setSocketAddressResolver(resolver);
+     * </pre>
+     */
+    @ManagedObject("The caching address resolver")
+    public static class Caching implements SocketAddressResolver
+    {
+        private static final Logger LOG = LoggerFactory.getLogger(SocketAddressResolver.class);
+
+        private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+        private final SampleStatistic resolveTimeStats = new SampleStatistic();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final SocketAddressResolver resolver;
+        private Duration timeToLive = Duration.ofSeconds(30);
+        private Duration negativeTimeToLive = Duration.ofSeconds(10);
+        private int maxEntries = 1024;
+
+        /**
+         * @param resolver the resolver that performs the resolutions of the hosts that are not cached
+         */
+        public Caching(SocketAddressResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        public SocketAddressResolver getSocketAddressResolver()
+        {
+            return resolver;
+        }
+
+        /**
+         * @return the duration for which the resolved addresses of a host are cached
+         */
+        @ManagedAttribute("The duration for which the resolved addresses of a host are cached")
+        public Duration getTimeToLive()
+        {
+            return timeToLive;
+        }
+
+        /**
+         * @param timeToLive the duration for which the resolved addresses of a host are cached
+         */
+        public void setTimeToLive(Duration timeToLive)
+        {
+            this.timeToLive = timeToLive;
+        }
+
+        /**
+         * @return the duration for which the failure to resolve an unknown host is cached
+         */
+        @ManagedAttribute("The duration for which the failure to resolve an unknown host is cached")
+        public Duration getNegativeTimeToLive()
+        {
+            return negativeTimeToLive;
+        }
+
+        /**
+         * @param negativeTimeToLive the duration for which the failure to resolve an unknown host is cached
+         */
+        public void setNegativeTimeToLive(Duration negativeTimeToLive)
+        {
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+
+        /**
+         * @return the max number of hosts cached
+         */
+        @ManagedAttribute("The max number of hosts cached")
+        public int getMaxEntries()
+        {
+            return maxEntries;
+        }
+
+        /**
+         * @param maxEntries the max number of hosts cached
+         */
+        public void setMaxEntries(int maxEntries)
+        {
+            this.maxEntries = maxEntries;
+        }
+
+        @ManagedAttribute("The number of hosts cached")
+        public int getEntries()
+        {
+            return cache.size();
+        }
+
+        @ManagedAttribute("The number of resolutions completed from the cache")
+        public long getHits()
+        {
+            return hits.sum();
+        }
+
+        @ManagedAttribute("The number of resolutions coalesced with a resolution in progress")
+        public long getCoalesced()
+        {
+            return coalesced.sum();
+        }
+
+        @ManagedAttribute("The number of resolutions performed by the wrapped resolver")
+        public long getMisses()
+        {
+            return resolveTimeStats.getCount();
+        }
+
+        @ManagedAttribute("The number of resolutions performed by the wrapped resolver that failed")
+        public long getFailures()
+        {
+            return failures.sum();
+        }
+
+        @ManagedAttribute("The mean time of the resolutions performed by the wrapped resolver (in ms)")
+        public double getResolveTimeMean()
+        {
+            return resolveTimeStats.getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @ManagedAttribute("The max time of the resolutions performed by the wrapped resolver (in ms)")
+        public long getResolveTimeMax()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(resolveTimeStats.getMax());
+        }
+
+        @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+        public void resetStats()
+        {
+            resolveTimeStats.reset();
+            hits.reset();
+            coalesced.reset();
+            failures.reset();
+        }
+
+        /**
+         * <p>Removes all the cached hosts.</p>
+         */
+        @ManagedOperation(value = "Removes all the cached hosts", impact = "ACTION")
+        public void clear()
+        {
+            cache.clear();
+        }
+
+        @Override
+        public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise)
+        {
+            lookup(host, port).whenComplete((addresses, failure) ->
+            {
+                if (failure != null)
+                {
+                    promise.failed(failure);
+                }
+                else
+                {
+                    List<InetSocketAddress> result = new ArrayList<>(addresses.size());
+                    for (InetAddress address : addresses)
+                    {
+                        result.add(new InetSocketAddress(address, port));
+                    }
+                    promise.succeeded(result);
+                }
+            });
+        }
+
+        private CompletableFuture<List<InetAddress>> lookup(String host, int port)
+        {
+            long now = System.nanoTime();
+            while (true)
+            {
+                Entry entry = cache.get(host);
+                if (entry != null && !entry.isExpired(now))
+                {
+                    if (entry.isDone())
+                        hits.increment();
+                    else
+                        coalesced.increment();
+                    return entry;
+                }
+
+                Entry newEntry = new Entry();
+                boolean added = entry == null ? cache.putIfAbsent(host, newEntry) == null : cache.replace(host, entry, newEntry);
+                if (added)
+                {
+                    if (cache.size() > getMaxEntries())
+                        prune(now);
+                    resolve(host, port, newEntry, now);
+                    return newEntry;
+                }
+            }
+        }
+
+        private void resolve(String host, int port, Entry entry, long begin)
+        {
+            resolver.resolve(host, port, new Promise<>()
+            {
+                @Override
+                public void succeeded(List<InetSocketAddress> result)
+                {
+                    long now = System.nanoTime();
+                    resolveTimeStats.record(now - begin);
+                    List<InetAddress> addresses = new ArrayList<>(result.size());
+                    for (InetSocketAddress address : result)
+                    {
+                        addresses.add(address.getAddress());
+                    }
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Caching {} -> {}", host, addresses);
+                    entry.expires = now + getTimeToLive().toNanos();
+                    entry.complete(addresses);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    long now = System.nanoTime();
+                    resolveTimeStats.record(now - begin);
+                    failures.increment();
+                    // Only cache the failures due to unknown hosts, not
+                    // the transient ones such as resolution timeouts.
+                    if (x instanceof UnknownHostException)
+                        entry.expires = now + getNegativeTimeToLive().toNanos();
+                    else
+                        entry.expires = now;
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Caching {} -> {}", host, x.toString());
+                    entry.completeExceptionally(x);
+                }
+            });
+        }
+
+        private void prune(long now)
+        {
+            // Remove the expired entries first, then any completed
+            // entry, while the resolutions in progress are retained.
+            cache.values().removeIf(entry -> entry.isExpired(now));
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (cache.size() > getMaxEntries() && iterator.hasNext())
+            {
+                if (iterator.next().isDone())
+                    iterator.remove();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[entries=%d,ttl=%s,negativeTtl=%s]", getClass().getSimpleName(), hashCode(), getEntries(), getTimeToLive(), getNegativeTimeToLive());
+        }
+
+        /**
+         * <p>The addresses of a host, or the failure to resolve them,
+         * completed when the resolution by the wrapped resolver completes.</p>
+         */
+        private static class Entry extends CompletableFuture<List<InetAddress>>
+        {
+            private volatile long expires;
+
+            private boolean isExpired(long now)
+            {
+                return isDone() && expires - now <= 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,322 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+
+/**
+ * <p>A rate limiter that keeps a token bucket per key, for a bounded number of keys.</p>
+ * <p>Each bucket holds up to {@link #getBurst() burst} tokens and is refilled at
+ * {@link #getRate() rate} tokens per second; a permit is acquired for a key if a token
+ * can be taken from its bucket.
+ * The state of a bucket is a single {@code long}, the time at which the bucket will be
+ * full again (as in the Generic Cell Rate Algorithm), updated with a compare-and-set,
+ * so that permits are acquired without locks.</p>
+ * <p>The buckets are stored in a table of fixed capacity, split in shards so that no
+ * single large array is allocated, where each key hashes to a small set of slots.
+ * Buckets are not expired by scheduled tasks: a bucket that is full again is equivalent
+ * to a new bucket, so a lookup for a key that is not in the table lazily replaces a full
+ * bucket of its set, or if there is none the bucket closest to being full.
+ * The memory used is therefore bounded by the capacity regardless of the number of
+ * distinct keys, while a bucket evicted before being full resets the rate of its key,
+ * so the capacity should be sized for the number of keys expected to be active at once.</p>
+ */
+@ManagedObject("Token bucket rate limiter")
+public class TokenBucketRateLimiter
+{
+    private static final int WAYS = 8;
+    private static final int MAX_SHARD_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Shard[] _shards;
+    private final int _shardMask;
+    private final int _shardBits;
+    private final int _capacity;
+    private final LongAdder _permitted = new LongAdder();
+    private final LongAdder _rejected = new LongAdder();
+    private final LongAdder _evicted = new LongAdder();
+    private volatile double _rate;
+    private volatile int _burst;
+    private volatile long _intervalNanos;
+    private volatile long _toleranceNanos;
+
+    /**
+     * @param capacity the maximum number of keys tracked
+     */
+    public TokenBucketRateLimiter(@Name("capacity") int capacity)
+    {
+        if (capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        int slots = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        int shardCapacity = Math.min(slots, MAX_SHARD_CAPACITY);
+        _shards = new Shard[slots / shardCapacity];
+        for (int i = 0; i < _shards.length; ++i)
+        {
+            _shards[i] = new Shard(shardCapacity);
+        }
+        _shardMask = _shards.length - 1;
+        _shardBits = Integer.numberOfTrailingZeros(_shards.length);
+        _capacity = slots;
+        setRate(1);
+        setBurst(1);
+    }
+
+    /**
+     * @return the maximum number of keys tracked
+     */
+    @ManagedAttribute("The maximum number of keys tracked")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * @return the number of tokens added to each bucket per second
+     */
+    @ManagedAttribute("The number of permits per second for each key")
+    public double getRate()
+    {
+        return _rate;
+    }
+
+    /**
+     * @param rate the number of tokens added to each bucket per second
+     */
+    public void setRate(double rate)
+    {
+        if (!(rate > 0))
+            throw new IllegalArgumentException("Invalid rate " + rate);
+        _rate = rate;
+        update();
+    }
+
+    /**
+     * @return the number of tokens each bucket can hold, that is the
+     * number of permits that can be acquired at once for a key
+     */
+    @ManagedAttribute("The number of permits that can be acquired at once for each key")
+    public int getBurst()
+    {
+        return _burst;
+    }
+
+    /**
+     * @param burst the number of tokens each bucket can hold
+     */
+    public void setBurst(int burst)
+    {
+        if (burst <= 0)
+            throw new IllegalArgumentException("Invalid burst " + burst);
+        _burst = burst;
+        update();
+    }
+
+    private void update()
+    {
+        long interval = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / _rate));
+        _intervalNanos = interval;
+        _toleranceNanos = interval * _burst;
+    }
+
+    /**
+     * @param key the key to acquire a permit for
+     * @return {@code 0} if a permit was acquired, otherwise the number
+     * of nanoseconds after which a permit may be acquired
+     * @see #acquire(String, long)
+     */
+    public long acquire(String key)
+    {
+        return acquire(key, System.nanoTime());
+    }
+
+    /**
+     * <p>Tries to take a token from the bucket of the given key.</p>
+     *
+     * @param key the key to acquire a permit for
+     * @param now the current time, as returned by {@link System#nanoTime()}
+     * @return {@code 0} if a permit was acquired, otherwise the number
+     * of nanoseconds after which a permit may be acquired
+     */
+    public long acquire(String key, long now)
+    {
+        int hash = hash(key);
+        Bucket bucket = _shards[hash & _shardMask].lookup(key, hash, now);
+        long interval = _intervalNanos;
+        long tolerance = _toleranceNanos;
+        while (true)
+        {
+            long full = bucket.get();
+            long next = (full - now > 0 ? full : now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0)
+            {
+                _rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next))
+            {
+                _permitted.increment();
+                return 0;
+            }
+        }
+    }
+
+    private static int hash(String key)
+    {
+        int hash = key.hashCode();
+        // Spread the bits, as the low bits select the shard
+        // and the bits above them select the set within the shard.
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @ManagedAttribute("The number of permits acquired")
+    public long getPermittedCount()
+    {
+        return _permitted.sum();
+    }
+
+    @ManagedAttribute("The number of permits rejected")
+    public long getRejectedCount()
+    {
+        return _rejected.sum();
+    }
+
+    @ManagedAttribute("The number of buckets evicted before being full")
+    public long getEvictedCount()
+    {
+        return _evicted.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _permitted.reset();
+        _rejected.reset();
+        _evicted.reset();
+    }
+
+    /**
+     * <p>Removes all the buckets.</p>
+     */
+    @ManagedOperation(value = "Removes all the buckets", impact = "ACTION")
+    public void clear()
+    {
+        for (Shard shard : _shards)
+        {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[capacity=%d,rate=%s,burst=%d]", getClass().getSimpleName(), hashCode(), getCapacity(), getRate(), getBurst());
+    }
+
+    private class Shard
+    {
+        private final AtomicReferenceArray<Bucket> _slots;
+        private final int _setMask;
+
+        private Shard(int capacity)
+        {
+            _slots = new AtomicReferenceArray<>(capacity);
+            _setMask = (capacity - 1) & ~(WAYS - 1);
+        }
+
+        private Bucket lookup(String key, int hash, long now)
+        {
+            int set = (hash >>> _shardBits) & _setMask;
+            while (true)
+            {
+                // Look for the key in its set, electing a victim slot to
+                // replace if it is not found: an empty slot if any, otherwise
+                // the slot of the bucket that is, or will be, full the earliest.
+                int victim = -1;
+                Bucket victimBucket = null;
+                long victimFull = 0;
+                for (int i = set; i < set + WAYS; ++i)
+                {
+                    Bucket bucket = _slots.get(i);
+                    if (bucket == null)
+                    {
+                        if (victim < 0 || victimBucket != null)
+                        {
+                            victim = i;
+                            victimBucket = null;
+                        }
+                    }
+                    else if (bucket._hash == hash && bucket._key.equals(key))
+                    {
+                        return bucket;
+                    }
+                    else if (victim < 0 || victimBucket != null)
+                    {
+                        long full = bucket.get();
+                        if (victim < 0 || full - victimFull < 0)
+                        {
+                            victim = i;
+                            victimBucket = bucket;
+                            victimFull = full;
+                        }
+                    }
+                }
+
+                // Concurrent lookups of the same new key may each insert a bucket,
+                // in which case the duplicates are eventually replaced.
+                Bucket bucket = new Bucket(key, hash, now);
+                if (_slots.compareAndSet(victim, victimBucket, bucket))
+                {
+                    if (victimBucket != null && victimFull - now > 0)
+                        _evicted.increment();
+                    return bucket;
+                }
+            }
+        }
+
+        private void clear()
+        {
+            for (int i = 0; i < _slots.length(); ++i)
+            {
+                _slots.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * <p>A token bucket, whose value is the {@link System#nanoTime()}
+     * at which the bucket will be full again.</p>
+     */
+    private static class Bucket extends AtomicLong
+    {
+        private final String _key;
+        private final int _hash;
+
+        private Bucket(String key, int hash, long full)
+        {
+            super(full);
+            _key = key;
+            _hash = hash;
+        }
+    }
+}
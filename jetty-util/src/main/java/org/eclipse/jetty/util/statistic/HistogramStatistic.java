@@ -0,0 +1,332 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>Statistics on the distribution of a sampled value, such as a latency.</p>
+ * <p>Samples are counted in log-linear buckets: each value below {@code 2^precision}
+ * has its own bucket, while larger values share buckets whose width doubles at every
+ * power of 2, so that a value is known with a relative error less than
+ * {@code 2^(1-precision)}, for example less than 1.6% with the default precision of 7 bits.
+ * The buckets are allocated when this histogram is created, so the memory it uses does not
+ * depend on the number of samples; samples larger than the highest trackable value are
+ * counted in the last bucket.</p>
+ * <p>Recording a sample is a lock-free increment of its bucket.
+ * Percentiles of the samples recorded since the last reset are computed in place by
+ * {@link #getValueAtPercentile(double)}, while readers that need several consistent
+ * values take {@link Snapshot}s of the samples recorded either {@link #snapshot() since
+ * the last reset} or {@link #intervalSnapshot() since the previous interval snapshot}.</p>
+ */
+public class HistogramStatistic
+{
+    public static final int DEFAULT_PRECISION = 7;
+    public static final int MAX_PRECISION = 10;
+
+    private final AutoLock _lock = new AutoLock();
+    private final int _precision;
+    private final AtomicLongArray _counts;
+    private long[] _intervalCounts;
+
+    public HistogramStatistic()
+    {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of significant bits of the recorded values
+     */
+    public HistogramStatistic(int precision)
+    {
+        this(precision, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param precision the number of significant bits of the recorded values, between 1 and {@link #MAX_PRECISION}
+     * @param highestTrackableValue the highest value that is tracked with the given precision
+     */
+    public HistogramStatistic(int precision, long highestTrackableValue)
+    {
+        if (precision < 1 || precision > MAX_PRECISION)
+            throw new IllegalArgumentException("Invalid precision " + precision);
+        if (highestTrackableValue < 1)
+            throw new IllegalArgumentException("Invalid highest trackable value " + highestTrackableValue);
+        _precision = precision;
+        _counts = new AtomicLongArray(index(precision, highestTrackableValue) + 1);
+    }
+
+    /**
+     * @return the number of significant bits of the recorded values
+     */
+    public int getPrecision()
+    {
+        return _precision;
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record, negative values are recorded as zero
+     */
+    public void record(long sample)
+    {
+        int index = index(_precision, Math.max(0, sample));
+        _counts.incrementAndGet(Math.min(index, _counts.length() - 1));
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            for (int i = 0; i < _counts.length(); ++i)
+            {
+                _counts.set(i, 0);
+            }
+            _intervalCounts = null;
+        }
+    }
+
+    /**
+     * <p>Returns the value below which the given percentage of the samples recorded
+     * since the last reset fall, without copying the buckets as {@link #snapshot()} does.</p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the given percentile, or zero if there are no samples
+     * @see Snapshot#getValueAtPercentile(double)
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+        long total = 0;
+        int last = -1;
+        for (int i = 0; i < _counts.length(); ++i)
+        {
+            long count = _counts.get(i);
+            if (count > 0)
+            {
+                total += count;
+                last = i;
+            }
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100.0D * total));
+        long count = 0;
+        for (int i = 0; i < last; ++i)
+        {
+            count += _counts.get(i);
+            if (count >= rank)
+                return highestValue(_precision, i);
+        }
+        return highestValue(_precision, last);
+    }
+
+    /**
+     * @return a snapshot of the samples recorded since the last reset
+     */
+    public Snapshot snapshot()
+    {
+        return new Snapshot(_precision, counts());
+    }
+
+    /**
+     * <p>Returns a snapshot of the samples recorded since the previous invocation
+     * of this method, or since the last reset.</p>
+     * <p>Samples recorded concurrently with this method are counted either
+     * in the returned snapshot or in the next one, but never lost.</p>
+     *
+     * @return a snapshot of the samples recorded since the previous interval snapshot
+     */
+    public Snapshot intervalSnapshot()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            long[] counts = counts();
+            long[] previous = _intervalCounts;
+            _intervalCounts = counts;
+            long[] interval = counts.clone();
+            if (previous != null)
+            {
+                for (int i = 0; i < interval.length; ++i)
+                {
+                    interval[i] -= previous[i];
+                }
+            }
+            return new Snapshot(_precision, interval);
+        }
+    }
+
+    private long[] counts()
+    {
+        long[] counts = new long[_counts.length()];
+        for (int i = 0; i < counts.length; ++i)
+        {
+            counts[i] = _counts.get(i);
+        }
+        return counts;
+    }
+
+    private static int index(int precision, long value)
+    {
+        if (value < 1L << precision)
+            return (int)value;
+        // Values between 2^exponent and 2^(exponent+1) are spread over 2^(precision-1) buckets.
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - precision + 1;
+        return (shift << (precision - 1)) + (int)(value >>> shift);
+    }
+
+    private static long lowestValue(int precision, int index)
+    {
+        if (index < 1 << precision)
+            return index;
+        int shift = (index >>> (precision - 1)) - 1;
+        long mantissa = index - ((long)shift << (precision - 1));
+        return mantissa << shift;
+    }
+
+    private static long highestValue(int precision, int index)
+    {
+        if (index < 1 << precision)
+            return index;
+        int shift = (index >>> (precision - 1)) - 1;
+        return lowestValue(precision, index) + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{precision=%d,%s}", getClass().getSimpleName(), hashCode(), getPrecision(), snapshot());
+    }
+
+    /**
+     * <p>An immutable view of the samples recorded by a {@link HistogramStatistic}.</p>
+     * <p>The values it returns are the highest values of the buckets they fall in,
+     * so they are never lower than the recorded values, and greater by less than
+     * the relative error of the histogram.</p>
+     */
+    public static class Snapshot
+    {
+        private final int _precision;
+        private final long[] _counts;
+        private final long _count;
+
+        private Snapshot(int precision, long[] counts)
+        {
+            _precision = precision;
+            _counts = counts;
+            long count = 0;
+            for (long c : counts)
+            {
+                count += c;
+            }
+            _count = count;
+        }
+
+        /**
+         * @return the number of samples
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * @return the minimum value of the samples, or zero if there are no samples
+         */
+        public long getMin()
+        {
+            for (int i = 0; i < _counts.length; ++i)
+            {
+                if (_counts[i] > 0)
+                    return highestValue(_precision, i);
+            }
+            return 0;
+        }
+
+        /**
+         * @return the maximum value of the samples, or zero if there are no samples
+         */
+        public long getMax()
+        {
+            for (int i = _counts.length - 1; i >= 0; --i)
+            {
+                if (_counts[i] > 0)
+                    return highestValue(_precision, i);
+            }
+            return 0;
+        }
+
+        /**
+         * @return the mean value of the samples, or zero if there are no samples
+         */
+        public double getMean()
+        {
+            if (_count == 0)
+                return 0.0D;
+            double total = 0.0D;
+            for (int i = 0; i < _counts.length; ++i)
+            {
+                long count = _counts[i];
+                if (count > 0)
+                {
+                    long lowest = lowestValue(_precision, i);
+                    total += count * (lowest + (highestValue(_precision, i) - lowest) / 2.0D);
+                }
+            }
+            return total / _count;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100
+         * @return the value below which the given percentage of the samples fall,
+         * or zero if there are no samples
+         */
+        public long getValueAtPercentile(double percentile)
+        {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("Invalid percentile " + percentile);
+            if (_count == 0)
+                return 0;
+            long rank = Math.max(1, (long)Math.ceil(percentile / 100.0D * _count));
+            long count = 0;
+            for (int i = 0; i < _counts.length; ++i)
+            {
+                count += _counts[i];
+                if (count >= rank)
+                    return highestValue(_precision, i);
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("count=%d,min=%d,p50=%d,p99=%d,p999=%d,max=%d",
+                getCount(),
+                getMin(),
+                getValueAtPercentile(50),
+                getValueAtPercentile(99),
+                getValueAtPercentile(99.9),
+                getMax());
+        }
+    }
+}
@@ -20,10 +20,13 @@ import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 
 /**
  * <p>A {@link QueuedThreadPool} subclass that monitors its own activity by recording queue and task statistics.</p>
+ * <p>The distributions of the queue and task latencies are recorded in {@link HistogramStatistic}s
+ * whose {@link #setHistogramPrecision(int) precision} is configurable.</p>
  */
 @ManagedObject
 public class MonitoredQueuedThreadPool extends QueuedThreadPool
@@ -32,6 +35,8 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
     private final SampleStatistic queueLatencyStats = new SampleStatistic();
     private final SampleStatistic taskLatencyStats = new SampleStatistic();
     private final CounterStatistic threadStats = new CounterStatistic();
+    private HistogramStatistic queueLatencyHistogram = new HistogramStatistic();
+    private HistogramStatistic taskLatencyHistogram = new HistogramStatistic();
 
     public MonitoredQueuedThreadPool()
     {
@@ -50,6 +55,32 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
         addBean(queueLatencyStats);
         addBean(taskLatencyStats);
         addBean(threadStats);
+        addBean(queueLatencyHistogram);
+        addBean(taskLatencyHistogram);
+    }
+
+    /**
+     * @return the number of significant bits of the latencies recorded in histograms
+     */
+    @ManagedAttribute("the number of significant bits of the latencies recorded in histograms")
+    public int getHistogramPrecision()
+    {
+        return queueLatencyHistogram.getPrecision();
+    }
+
+    /**
+     * @param histogramPrecision the number of significant bits of the latencies recorded in histograms
+     */
+    public void setHistogramPrecision(int histogramPrecision)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        HistogramStatistic queueHistogram = new HistogramStatistic(histogramPrecision);
+        HistogramStatistic taskHistogram = new HistogramStatistic(histogramPrecision);
+        updateBean(queueLatencyHistogram, queueHistogram);
+        updateBean(taskLatencyHistogram, taskHistogram);
+        queueLatencyHistogram = queueHistogram;
+        taskLatencyHistogram = taskHistogram;
     }
 
     @Override
@@ -66,6 +97,7 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
                 queueStats.decrement();
                 threadStats.increment();
                 queueLatencyStats.record(queueLatency);
+                queueLatencyHistogram.record(queueLatency);
                 long start = System.nanoTime();
                 try
                 {
@@ -76,6 +108,7 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
                     long taskLatency = System.nanoTime() - start;
                     threadStats.decrement();
                     taskLatencyStats.record(taskLatency);
+                    taskLatencyHistogram.record(taskLatency);
                 }
             }
 
@@ -96,6 +129,8 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
         queueStats.reset();
         queueLatencyStats.reset();
         taskLatencyStats.reset();
+        queueLatencyHistogram.reset();
+        taskLatencyHistogram.reset();
         threadStats.reset(0);
     }
 
@@ -161,4 +196,74 @@ public class MonitoredQueuedThreadPool extends QueuedThreadPool
     {
         return taskLatencyStats.getMax();
     }
+
+    /**
+     * @return the distribution of the times tasks remain in the queue, in nanoseconds
+     */
+    public HistogramStatistic getQueueLatencyHistogram()
+    {
+        return queueLatencyHistogram;
+    }
+
+    /**
+     * @return the 50th percentile of the time a task remains in the queue, in nanoseconds
+     */
+    @ManagedAttribute("the 50th percentile of the time a task remains in the queue, in nanoseconds")
+    public long getQueueLatencyP50()
+    {
+        return queueLatencyHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the time a task remains in the queue, in nanoseconds
+     */
+    @ManagedAttribute("the 99th percentile of the time a task remains in the queue, in nanoseconds")
+    public long getQueueLatencyP99()
+    {
+        return queueLatencyHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the time a task remains in the queue, in nanoseconds
+     */
+    @ManagedAttribute("the 99.9th percentile of the time a task remains in the queue, in nanoseconds")
+    public long getQueueLatencyP999()
+    {
+        return queueLatencyHistogram.getValueAtPercentile(99.9);
+    }
+
+    /**
+     * @return the distribution of the task execution times, in nanoseconds
+     */
+    public HistogramStatistic getTaskLatencyHistogram()
+    {
+        return taskLatencyHistogram;
+    }
+
+    /**
+     * @return the 50th percentile of the task execution time, in nanoseconds
+     */
+    @ManagedAttribute("the 50th percentile of the task execution time, in nanoseconds")
+    public long getTaskLatencyP50()
+    {
+        return taskLatencyHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the task execution time, in nanoseconds
+     */
+    @ManagedAttribute("the 99th percentile of the task execution time, in nanoseconds")
+    public long getTaskLatencyP99()
+    {
+        return taskLatencyHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the task execution time, in nanoseconds
+     */
+    @ManagedAttribute("the 99.9th percentile of the task execution time, in nanoseconds")
+    public long getTaskLatencyP999()
+    {
+        return taskLatencyHistogram.getValueAtPercentile(99.9);
+    }
 }
@@ -20,13 +20,17 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.AtomicBiInteger;
 import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -73,6 +77,11 @@ import org.slf4j.LoggerFactory;
  *   <li>{@link #getBusyThreads() busyThreads} = utilizedThreads + leasedThreads</li>
  *   <li>{@link #getIdleThreads()} idleThreads} = readyThreads - availableReservedThreads</li>
  * </ul>
+ * <p>By default all jobs are queued in a single job queue, on which all the producers and the idle
+ * threads contend. When {@link #setWorkStealing(boolean) work stealing} is enabled, jobs are instead
+ * queued in per-core local queues, and threads that have no job in their own local queue steal jobs
+ * from the other local queues, so that on many-core machines producers and consumers mostly access
+ * different queues. The job queue is then only used to hand over jobs to threads waiting for a job.</p>
  */
 @ManagedObject("A thread pool")
 public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor, VirtualThreads.Configurable
@@ -93,9 +102,13 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
      */
     private final AtomicBiInteger _counts = new AtomicBiInteger(Integer.MIN_VALUE, 0);
     private final AtomicLong _lastShrink = new AtomicLong();
+    private final AtomicInteger _waiting = new AtomicInteger();
+    private final LongAdder _stolenJobs = new LongAdder();
     private final Set<Thread> _threads = ConcurrentHashMap.newKeySet();
     private final AutoLock.WithCondition _joinLock = new AutoLock.WithCondition();
     private final BlockingQueue<Runnable> _jobs;
+    private final int _queueCapacity;
+    private volatile ConcurrentLinkedDeque<Runnable>[] _localJobs;
     private final ThreadGroup _threadGroup;
     private final ThreadFactory _threadFactory;
     private String _name = "qtp" + hashCode();
@@ -111,6 +124,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     private ThreadPoolBudget _budget;
     private long _stopTimeout;
     private boolean _useVirtualThreads;
+    private boolean _workStealing;
 
     public QueuedThreadPool()
     {
@@ -172,6 +186,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
             queue = new BlockingArrayQueue<>(capacity, capacity);
         }
         _jobs = queue;
+        _queueCapacity = queue.remainingCapacity();
         _threadGroup = threadGroup;
         setThreadPoolBudget(new ThreadPoolBudget(this));
         _threadFactory = threadFactory == null ? this : threadFactory;
@@ -216,6 +231,8 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         }
         addBean(_tryExecutor);
 
+        _localJobs = _workStealing ? newLocalJobs(ProcessorUtils.availableProcessors()) : null;
+
         _lastShrink.set(System.nanoTime());
 
         super.doStart();
@@ -286,9 +303,8 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         }
 
         // Close any un-executed jobs
-        while (!_jobs.isEmpty())
+        for (Runnable job = pollJob(); job != null; job = pollJob())
         {
-            Runnable job = _jobs.poll();
             if (job instanceof Closeable)
             {
                 try
@@ -513,6 +529,40 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         _lowThreadsThreshold = lowThreadsThreshold;
     }
 
+    /**
+     * @return whether jobs are queued in per-core local queues from which idle threads steal jobs
+     */
+    @ManagedAttribute("whether jobs are queued in local queues from which idle threads steal jobs")
+    public boolean isWorkStealing()
+    {
+        return _workStealing;
+    }
+
+    /**
+     * <p>Sets whether jobs are queued in per-core local queues from which idle threads steal jobs,
+     * rather than in the single job queue.</p>
+     * <p>Each thread takes jobs from its own local queue first, then from the job queue, and then
+     * steals from the other local queues. The capacity of the job queue still bounds the number
+     * of queued jobs, but the order in which jobs are executed is no longer strictly FIFO.</p>
+     *
+     * @param workStealing whether to queue jobs in local queues from which idle threads steal jobs
+     */
+    public void setWorkStealing(boolean workStealing)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _workStealing = workStealing;
+    }
+
+    /**
+     * @return the number of jobs that threads took from the local queue of another core
+     */
+    @ManagedAttribute("number of jobs stolen from other local queues")
+    public long getStolenJobs()
+    {
+        return _stolenJobs.sum();
+    }
+
     @Override
     public boolean isUseVirtualThreads()
     {
@@ -724,6 +774,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     {
         // Determine if we need to start a thread, use and idle thread or just queue this job
         int startThread;
+        int netIdle;
         while (true)
         {
             // Get the atomic counts
@@ -744,13 +795,14 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
             startThread = (idle <= 0 && threads < _maxThreads) ? 1 : 0;
 
             // The job will be run by an idle thread when available
-            if (!_counts.compareAndSet(counts, threads + startThread, idle + startThread - 1))
+            netIdle = idle + startThread - 1;
+            if (!_counts.compareAndSet(counts, threads + startThread, netIdle))
                 continue;
 
             break;
         }
 
-        if (!_jobs.offer(job))
+        if (!queue(job, netIdle))
         {
             // reverse our changes to _counts.
             if (addCounts(-startThread, 1 - startThread))
@@ -766,6 +818,72 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
             startThread();
     }
 
+    private boolean queue(Runnable job, int netIdle)
+    {
+        ConcurrentLinkedDeque<Runnable>[] localJobs = _localJobs;
+        if (localJobs == null)
+            return _jobs.offer(job);
+
+        // The local queues are unbounded, so apply the capacity of the job queue to all queued jobs.
+        if (-netIdle > _queueCapacity)
+            return false;
+
+        ConcurrentLinkedDeque<Runnable> local = localJobs[localIndex(localJobs.length)];
+        local.offerLast(job);
+
+        // A waiting thread may have looked at the local queues before the job was
+        // queued, so hand over a job through the job queue to wake the thread up.
+        if (_waiting.get() > 0)
+        {
+            Runnable handover = local.pollLast();
+            if (handover != null && !_jobs.offer(handover))
+                local.offerLast(handover);
+        }
+        return true;
+    }
+
+    private Runnable pollJob()
+    {
+        ConcurrentLinkedDeque<Runnable>[] localJobs = _localJobs;
+        if (localJobs == null)
+            return _jobs.poll();
+
+        // Take jobs from the own local queue, then from the job queue, then steal them.
+        int index = localIndex(localJobs.length);
+        Runnable job = localJobs[index].pollFirst();
+        if (job != null)
+            return job;
+        job = _jobs.poll();
+        if (job != null)
+            return job;
+        for (int i = 1; i < localJobs.length; ++i)
+        {
+            job = localJobs[(index + i) % localJobs.length].pollFirst();
+            if (job != null)
+            {
+                _stolenJobs.increment();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private static int localIndex(int length)
+    {
+        return (int)(Thread.currentThread().getId() % length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentLinkedDeque<Runnable>[] newLocalJobs(int length)
+    {
+        ConcurrentLinkedDeque<Runnable>[] localJobs = (ConcurrentLinkedDeque<Runnable>[])new ConcurrentLinkedDeque<?>[length];
+        for (int i = 0; i < length; ++i)
+        {
+            localJobs[i] = new ConcurrentLinkedDeque<>();
+        }
+        return localJobs;
+    }
+
     @Override
     public boolean tryExecute(Runnable task)
     {
@@ -898,7 +1016,18 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
 
         DumpableCollection threadsDump = new DumpableCollection("threads", threads);
         if (isDetailedDump())
-            dumpObjects(out, indent, threadsDump, new DumpableCollection("jobs", new ArrayList<>(getQueue())));
+        {
+            List<Runnable> jobs = new ArrayList<>(getQueue());
+            ConcurrentLinkedDeque<Runnable>[] localJobs = _localJobs;
+            if (localJobs != null)
+            {
+                for (ConcurrentLinkedDeque<Runnable> local : localJobs)
+                {
+                    jobs.addAll(local);
+                }
+            }
+            dumpObjects(out, indent, threadsDump, new DumpableCollection("jobs", jobs));
+        }
         else
             dumpObjects(out, indent, threadsDump);
     }
@@ -1008,9 +1137,29 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     {
         private Runnable idleJobPoll(long idleTimeout) throws InterruptedException
         {
-            if (idleTimeout <= 0)
-                return _jobs.take();
-            return _jobs.poll(idleTimeout, TimeUnit.MILLISECONDS);
+            if (_localJobs == null)
+            {
+                if (idleTimeout <= 0)
+                    return _jobs.take();
+                return _jobs.poll(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+
+            _waiting.incrementAndGet();
+            try
+            {
+                // Look again after announcing that we are waiting, as a job
+                // may have been queued locally before the announcement.
+                Runnable job = pollJob();
+                if (job != null)
+                    return job;
+                if (idleTimeout <= 0)
+                    return _jobs.take();
+                return _jobs.poll(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+            finally
+            {
+                _waiting.decrementAndGet();
+            }
         }
 
         @Override
@@ -1042,7 +1191,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
                     try
                     {
                         // Look for an immediately available job
-                        job = _jobs.poll();
+                        job = pollJob();
                         if (job == null)
                         {
                             // No job immediately available maybe we should shrink?
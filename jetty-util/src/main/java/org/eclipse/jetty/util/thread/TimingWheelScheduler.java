@@ -0,0 +1,390 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Implementation of {@link Scheduler} based on hashed timing wheels.</p>
+ * <p>Time is divided in ticks of {@link #getTickMillis() configurable duration}, and each
+ * wheel is an array of {@link #getWheelSize() slots}, each slot holding a linked list of the
+ * tasks that expire at the ticks that map to that slot.
+ * Scheduling and cancelling a task are constant time operations, as they only need to link or
+ * unlink the task from its slot, while expiring the tasks only visits the slot of the current tick;
+ * tasks whose delay is longer than a wheel revolution stay in their slot for more revolutions.</p>
+ * <p>The tasks are spread across {@link #getWheels() multiple wheels}, each guarded by its own lock,
+ * so that threads that schedule and cancel tasks concurrently do not contend on a single lock.</p>
+ * <p>Tasks never run before their delay, but may run up to a tick later, so this scheduler
+ * is best suited to timeouts that are usually cancelled before they expire, such as idle timeouts,
+ * rather than to tasks that need to run at a precise time.</p>
+ * <p>All the expired tasks are run by a single scheduler thread, so they must not block.</p>
+ */
+@ManagedObject
+public class TimingWheelScheduler extends AbstractLifeCycle implements Scheduler, Dumpable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    private final String name;
+    private final boolean daemon;
+    private final ClassLoader classloader;
+    private final long tickMillis;
+    private final long tickNanos;
+    private final int wheelSize;
+    private final Wheel[] wheels;
+    private volatile long startNanoTime;
+    private volatile Thread thread;
+
+    public TimingWheelScheduler()
+    {
+        this(null, false);
+    }
+
+    public TimingWheelScheduler(String name, boolean daemon)
+    {
+        this(name, daemon, 100, -1, 512);
+    }
+
+    /**
+     * @param name The name of the scheduler thread or null for automatic name
+     * @param daemon True if the scheduler thread should be daemon
+     * @param tickMillis The duration of a tick in milliseconds, that is the resolution of the scheduler
+     * @param wheels The number of wheels, or -1 for a heuristic determined number of wheels
+     * @param wheelSize The number of slots of each wheel, rounded up to a power of 2
+     */
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon, @Name("tickMillis") long tickMillis, @Name("wheels") int wheels, @Name("wheelSize") int wheelSize)
+    {
+        if (tickMillis <= 0)
+            throw new IllegalArgumentException("Invalid tick " + tickMillis);
+        if (wheelSize <= 0 || wheelSize > 1 << 20)
+            throw new IllegalArgumentException("Invalid wheel size " + wheelSize);
+        this.name = StringUtil.isBlank(name) ? "Scheduler-" + hashCode() : name;
+        this.daemon = daemon;
+        this.classloader = Thread.currentThread().getContextClassLoader();
+        this.tickMillis = tickMillis;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = 1;
+        while (size < wheelSize)
+        {
+            size <<= 1;
+        }
+        this.wheelSize = size;
+        int count = wheels > 0 ? wheels : Math.min(16, ProcessorUtils.availableProcessors());
+        this.wheels = new Wheel[count];
+        for (int i = 0; i < count; ++i)
+        {
+            this.wheels[i] = new Wheel(this.wheelSize);
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        startNanoTime = System.nanoTime();
+        Thread thread = new Thread(this::tick, name);
+        thread.setDaemon(daemon);
+        thread.setContextClassLoader(classloader);
+        this.thread = thread;
+        thread.start();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Thread thread = this.thread;
+        this.thread = null;
+        LockSupport.unpark(thread);
+        for (Wheel wheel : wheels)
+        {
+            wheel.clear();
+        }
+        super.doStop();
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        if (thread == null)
+            return () -> false;
+        // Round up, so that tasks never run before their delay.
+        long elapsed = System.nanoTime() - startNanoTime + Math.min(unit.toNanos(delay), Long.MAX_VALUE / 4);
+        long deadline = Math.floorDiv(elapsed + tickNanos - 1, tickNanos);
+        // Spread the threads across the wheels, keeping the same thread on the same wheel.
+        Wheel wheel = wheels[(int)(Thread.currentThread().getId() % wheels.length)];
+        WheelTask wheelTask = new WheelTask(wheel, task, deadline);
+        wheel.add(wheelTask);
+        return wheelTask;
+    }
+
+    private void tick()
+    {
+        List<WheelTask> expired = new ArrayList<>();
+        long tick = 0;
+        while (thread == Thread.currentThread())
+        {
+            long now = System.nanoTime();
+            long current = (now - startNanoTime) / tickNanos;
+            if (current > tick)
+            {
+                tick = current;
+                for (Wheel wheel : wheels)
+                {
+                    wheel.expire(tick, expired);
+                }
+                for (WheelTask task : expired)
+                {
+                    task.run();
+                }
+                expired.clear();
+            }
+            long delay = startNanoTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (delay > 0)
+                LockSupport.parkNanos(this, delay);
+        }
+    }
+
+    @ManagedAttribute("The name of the scheduler")
+    public String getName()
+    {
+        return name;
+    }
+
+    @ManagedAttribute("Whether the scheduler uses a daemon thread")
+    public boolean isDaemon()
+    {
+        return daemon;
+    }
+
+    @ManagedAttribute("The duration of a tick in milliseconds")
+    public long getTickMillis()
+    {
+        return tickMillis;
+    }
+
+    @ManagedAttribute("The number of wheels")
+    public int getWheels()
+    {
+        return wheels.length;
+    }
+
+    @ManagedAttribute("The number of slots of each wheel")
+    public int getWheelSize()
+    {
+        return wheelSize;
+    }
+
+    @ManagedAttribute("The number of scheduled tasks")
+    public int getScheduledTasks()
+    {
+        int result = 0;
+        for (Wheel wheel : wheels)
+        {
+            result += wheel.getSize();
+        }
+        return result;
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Thread thread = this.thread;
+        if (thread == null)
+            Dumpable.dumpObject(out, this);
+        else
+            Dumpable.dumpObjects(out, indent, this, (Object[])thread.getStackTrace());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,tick=%dms,wheels=%dx%d,tasks=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            getTickMillis(),
+            getWheels(),
+            getWheelSize(),
+            getScheduledTasks());
+    }
+
+    private static class Wheel
+    {
+        private final AutoLock lock = new AutoLock();
+        private final WheelTask[] slots;
+        private final int mask;
+        private long tick;
+        private int size;
+
+        private Wheel(int wheelSize)
+        {
+            this.slots = new WheelTask[wheelSize];
+            this.mask = wheelSize - 1;
+        }
+
+        private void add(WheelTask task)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                // Tasks whose tick has already been expired go to the next tick.
+                int index = (int)(Math.max(task.deadline, tick + 1) & mask);
+                WheelTask head = slots[index];
+                task.next = head;
+                if (head != null)
+                    head.prev = task;
+                slots[index] = task;
+                task.index = index;
+                ++size;
+            }
+        }
+
+        private boolean remove(WheelTask task)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                if (task.index < 0)
+                    return false;
+                unlink(task);
+                return true;
+            }
+        }
+
+        private void expire(long tick, List<WheelTask> expired)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                // After a long pause visit every slot once, otherwise the slots of the elapsed ticks.
+                long from = Math.max(this.tick + 1, tick - mask);
+                for (long t = from; t <= tick; ++t)
+                {
+                    WheelTask task = slots[(int)(t & mask)];
+                    while (task != null)
+                    {
+                        WheelTask next = task.next;
+                        if (task.deadline <= tick)
+                        {
+                            unlink(task);
+                            expired.add(task);
+                        }
+                        task = next;
+                    }
+                }
+                this.tick = tick;
+            }
+        }
+
+        private void unlink(WheelTask task)
+        {
+            WheelTask prev = task.prev;
+            WheelTask next = task.next;
+            if (prev == null)
+                slots[task.index] = next;
+            else
+                prev.next = next;
+            if (next != null)
+                next.prev = prev;
+            task.prev = null;
+            task.next = null;
+            task.index = -1;
+            --size;
+        }
+
+        private int getSize()
+        {
+            try (AutoLock l = lock.lock())
+            {
+                return size;
+            }
+        }
+
+        private void clear()
+        {
+            try (AutoLock l = lock.lock())
+            {
+                for (int i = 0; i < slots.length; ++i)
+                {
+                    WheelTask task = slots[i];
+                    while (task != null)
+                    {
+                        WheelTask next = task.next;
+                        unlink(task);
+                        task = next;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class WheelTask implements Task, Runnable
+    {
+        private final Wheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        // Guarded by the wheel lock.
+        private WheelTask prev;
+        private WheelTask next;
+        private int index = -1;
+
+        private WheelTask(Wheel wheel, Runnable task, long deadline)
+        {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            return wheel.remove(this);
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                task.run();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Exception while executing task {}", task, x);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), task);
+        }
+    }
+}
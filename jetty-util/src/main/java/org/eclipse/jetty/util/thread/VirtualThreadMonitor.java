@@ -0,0 +1,279 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.util.Atomics;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Diagnostics for servers that run blocking request handling in virtual threads.</p>
+ * <p>A virtual thread that blocks while holding a monitor, for example inside a
+ * {@code synchronized} block, pins its carrier thread, so that no other virtual
+ * thread can run on that carrier until it unblocks.
+ * When the runtime supports virtual threads and JFR event streaming, this monitor
+ * subscribes to the {@code jdk.VirtualThreadPinned} events that last longer than
+ * the {@link #getPinnedThreshold() pinned threshold}, and counts them and their
+ * durations; their stack traces are logged, at WARN level when
+ * {@link #setLogPinned(boolean) enabled}, otherwise at DEBUG level.</p>
+ * <p>This monitor also counts the times request threads had to wait for the network
+ * in blocking reads and writes, distinguishing virtual threads from platform threads.</p>
+ * <p>The monitor is typically added as a bean to the {@code Server}.</p>
+ */
+@ManagedObject("Virtual threads diagnostics")
+public class VirtualThreadMonitor extends AbstractLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final LongAdder _pinned = new LongAdder();
+    private final LongAdder _pinnedNanos = new LongAdder();
+    private final AtomicLong _maxPinnedNanos = new AtomicLong();
+    private final LongAdder _blockingReads = new LongAdder();
+    private final LongAdder _virtualBlockingReads = new LongAdder();
+    private final LongAdder _blockingWrites = new LongAdder();
+    private final LongAdder _virtualBlockingWrites = new LongAdder();
+    private long _pinnedThreshold = 20;
+    private boolean _logPinned;
+    private AutoCloseable _recording;
+
+    /**
+     * @return the minimum duration in ms of a pinning for it to be reported
+     */
+    @ManagedAttribute("minimum duration in ms of a pinning for it to be reported")
+    public long getPinnedThreshold()
+    {
+        return _pinnedThreshold;
+    }
+
+    /**
+     * @param pinnedThreshold the minimum duration in ms of a pinning for it to be reported
+     */
+    public void setPinnedThreshold(long pinnedThreshold)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _pinnedThreshold = pinnedThreshold;
+    }
+
+    /**
+     * @return whether the stack traces of pinned virtual threads are logged at WARN level
+     */
+    @ManagedAttribute("whether the stack traces of pinned virtual threads are logged at WARN level")
+    public boolean isLogPinned()
+    {
+        return _logPinned;
+    }
+
+    /**
+     * @param logPinned whether the stack traces of pinned virtual threads are logged at WARN level
+     */
+    public void setLogPinned(boolean logPinned)
+    {
+        _logPinned = logPinned;
+    }
+
+    /**
+     * @return whether pinned virtual threads are detected in this runtime
+     */
+    @ManagedAttribute(value = "whether pinned virtual threads are detected", readonly = true)
+    public boolean isPinnedDetection()
+    {
+        return _recording != null;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _recording = VirtualThreads.areSupported() ? startRecording() : null;
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        AutoCloseable recording = _recording;
+        _recording = null;
+        if (recording != null)
+            recording.close();
+    }
+
+    private AutoCloseable startRecording()
+    {
+        try
+        {
+            // JFR event streaming is accessed reflectively, as it is not available in all runtimes.
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Method getDuration = eventClass.getMethod("getDuration");
+            AutoCloseable stream = (AutoCloseable)streamClass.getConstructor().newInstance();
+            try
+            {
+                Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+                settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ofMillis(getPinnedThreshold()));
+                settingsClass.getMethod("withStackTrace").invoke(settings);
+                Consumer<Object> onEvent = event ->
+                {
+                    try
+                    {
+                        onPinned(((Duration)getDuration.invoke(event)).toNanos(), event);
+                    }
+                    catch (Throwable x)
+                    {
+                        LOG.trace("IGNORED", x);
+                    }
+                };
+                streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, onEvent);
+                streamClass.getMethod("startAsync").invoke(stream);
+                return stream;
+            }
+            catch (Throwable x)
+            {
+                stream.close();
+                throw x;
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.info("Pinned virtual threads detection is not available in the current Java runtime ({})", System.getProperty("java.version"));
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failed to start recording of {} events", PINNED_EVENT, x);
+            return null;
+        }
+    }
+
+    /**
+     * <p>Invoked when a virtual thread has been pinned to its carrier thread.</p>
+     *
+     * @param nanos the duration of the pinning in nanoseconds
+     * @param details the details of the pinning, such as its stack trace
+     */
+    protected void onPinned(long nanos, Object details)
+    {
+        _pinned.increment();
+        _pinnedNanos.add(nanos);
+        Atomics.updateMax(_maxPinnedNanos, nanos);
+        if (isLogPinned())
+            LOG.warn("Virtual thread pinned for {} ms {}", TimeUnit.NANOSECONDS.toMillis(nanos), details);
+        else if (LOG.isDebugEnabled())
+            LOG.debug("Virtual thread pinned for {} ms {}", TimeUnit.NANOSECONDS.toMillis(nanos), details);
+    }
+
+    /**
+     * <p>Invoked when the current thread waits for the network in a blocking read.</p>
+     */
+    public void onBlockingRead()
+    {
+        _blockingReads.increment();
+        if (isVirtualThread())
+            _virtualBlockingReads.increment();
+    }
+
+    /**
+     * <p>Invoked when the current thread waits for the network in a blocking write.</p>
+     */
+    public void onBlockingWrite()
+    {
+        _blockingWrites.increment();
+        if (isVirtualThread())
+            _virtualBlockingWrites.increment();
+    }
+
+    private static boolean isVirtualThread()
+    {
+        return VirtualThreads.areSupported() && VirtualThreads.isVirtualThread();
+    }
+
+    @ManagedAttribute("number of times a virtual thread has been pinned to its carrier thread")
+    public long getPinned()
+    {
+        return _pinned.sum();
+    }
+
+    @ManagedAttribute("total time in ms virtual threads have been pinned to their carrier threads")
+    public long getPinnedTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_pinnedNanos.sum());
+    }
+
+    @ManagedAttribute("maximum time in ms a virtual thread has been pinned to its carrier thread")
+    public long getMaxPinnedTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_maxPinnedNanos.get());
+    }
+
+    @ManagedAttribute("number of times a thread waited in a blocking read")
+    public long getBlockingReads()
+    {
+        return _blockingReads.sum();
+    }
+
+    @ManagedAttribute("number of times a virtual thread waited in a blocking read")
+    public long getVirtualBlockingReads()
+    {
+        return _virtualBlockingReads.sum();
+    }
+
+    @ManagedAttribute("number of times a thread waited in a blocking write")
+    public long getBlockingWrites()
+    {
+        return _blockingWrites.sum();
+    }
+
+    @ManagedAttribute("number of times a virtual thread waited in a blocking write")
+    public long getVirtualBlockingWrites()
+    {
+        return _virtualBlockingWrites.sum();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _pinned.reset();
+        _pinnedNanos.reset();
+        _maxPinnedNanos.set(0);
+        _blockingReads.reset();
+        _virtualBlockingReads.reset();
+        _blockingWrites.reset();
+        _virtualBlockingWrites.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,pinned=%d,blockingReads=%d/%d,blockingWrites=%d/%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            getPinned(),
+            getVirtualBlockingReads(),
+            getBlockingReads(),
+            getVirtualBlockingWrites(),
+            getBlockingWrites());
+    }
+}
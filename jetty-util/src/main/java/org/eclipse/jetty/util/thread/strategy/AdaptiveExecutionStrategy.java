@@ -63,12 +63,16 @@ import org.slf4j.LoggerFactory;
  *     <dt>EPC</dt>
  *     <dd>If the producing thread is not {@link Invocable.InvocationType#NON_BLOCKING}
  *     and a pending producer thread is available, either because there is already a pending producer
- *     or one is successfully started with {@link TryExecutor#tryExecute(Runnable)}.</dd>
+ *     or one is successfully started with {@link TryExecutor#tryExecute(Runnable)}, unless the
+ *     produced task is {@link Invocable.InvocationType#BLOCKING} and virtual threads are used.</dd>
  *     <dt>PIC</dt>
  *     <dd>If the produced task is {@link Invocable.InvocationType#EITHER} and EPC was not selected.</dd>
  *     <dt>PEC</dt>
  *     <dd>Otherwise.</dd>
  * </dl>
+ * <p>When the executor is {@link VirtualThreads#isUseVirtualThreads(Executor) configured to use
+ * virtual threads}, {@link Invocable.InvocationType#BLOCKING} tasks are always consumed with PEC
+ * in a new virtual thread, so that the platform threads only produce and run non blocking tasks.</p>
  *
  * <p>Because of the preference for {@code PC} mode, on a multicore machine with many
  * many {@link Invocable.InvocationType#NON_BLOCKING} tasks, multiple instances of the strategy may be
@@ -330,6 +334,10 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
             case BLOCKING:
                 // The produced task may block.
 
+                // If virtual threads are used, use PEC to consume the task in a virtual thread.
+                if (isUseVirtualThreads())
+                    return SubStrategy.PRODUCE_EXECUTE_CONSUME;
+
                 // If the calling producing thread may also block
                 if (!nonBlocking)
                 {
@@ -0,0 +1,117 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedConcurrentLinkedQueueTest
+{
+    @Test
+    public void testMaxCapacity()
+    {
+        BoundedConcurrentLinkedQueue<String> queue = new BoundedConcurrentLinkedQueue<>(2);
+
+        assertTrue(queue.offer("one"));
+        assertTrue(queue.offer("two"));
+        assertFalse(queue.offer("three"));
+        assertEquals(2, queue.size());
+
+        assertEquals("one", queue.peek());
+        assertEquals("one", queue.poll());
+        assertTrue(queue.offer("three"));
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemove()
+    {
+        BoundedConcurrentLinkedQueue<String> queue = new BoundedConcurrentLinkedQueue<>(3);
+        queue.offer("one");
+        queue.offer("two");
+        queue.offer("three");
+
+        assertTrue(queue.remove("two"));
+        assertFalse(queue.remove("two"));
+        assertEquals(2, queue.size());
+
+        Iterator<String> iterator = queue.iterator();
+        assertEquals("one", iterator.next());
+        iterator.remove();
+        assertEquals(1, queue.size());
+        assertEquals("three", iterator.next());
+        assertFalse(iterator.hasNext());
+
+        assertTrue(queue.offer("four"));
+        assertTrue(queue.offer("five"));
+        assertFalse(queue.offer("six"));
+    }
+
+    @Test
+    public void testConcurrentOfferPoll() throws Exception
+    {
+        int producers = 4;
+        int items = 10_000;
+        int maxCapacity = 64;
+        BoundedConcurrentLinkedQueue<Integer> queue = new BoundedConcurrentLinkedQueue<>(maxCapacity);
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxSize = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; ++p)
+        {
+            int producer = p;
+            new Thread(() ->
+            {
+                for (int i = 0; i < items; ++i)
+                {
+                    Integer item = producer * items + i;
+                    while (!queue.offer(item))
+                    {
+                        Thread.onSpinWait();
+                    }
+                    maxSize.accumulateAndGet(queue.size(), Math::max);
+                }
+                latch.countDown();
+            }).start();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (consumed.size() < producers * items && System.nanoTime() < deadline)
+        {
+            Integer item = queue.poll();
+            if (item != null)
+                assertTrue(consumed.add(item));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(producers * items, consumed.size());
+        assertTrue(maxSize.get() <= maxCapacity);
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -690,4 +690,36 @@ public class PoolTest
         assertThat(e3.getPooled().get(), greaterThan(10));
         assertThat(e4.getPooled().get(), greaterThan(10));
     }
+
+    @Test
+    public void testAcquireLowestCost()
+    {
+        Pool<AtomicInteger> pool = new Pool<>(FIRST, 3);
+        pool.setMaxMultiplex(2);
+
+        Pool<AtomicInteger>.Entry e1 = pool.reserve();
+        e1.enable(new AtomicInteger(30), false);
+        Pool<AtomicInteger>.Entry e2 = pool.reserve();
+        e2.enable(new AtomicInteger(10), false);
+        Pool<AtomicInteger>.Entry e3 = pool.reserve();
+        e3.enable(new AtomicInteger(20), false);
+
+        // The entry with the lowest cost is acquired up to its max multiplex.
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e2));
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e2));
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e3));
+
+        // Costs may change between acquisitions.
+        e1.getPooled().set(0);
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e1));
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e1));
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e3));
+        assertNull(pool.acquireLowestCost(AtomicInteger::get));
+
+        pool.release(e2);
+        assertThat(pool.acquireLowestCost(AtomicInteger::get), sameInstance(e2));
+
+        pool.close();
+        assertNull(pool.acquireLowestCost(AtomicInteger::get));
+    }
 }
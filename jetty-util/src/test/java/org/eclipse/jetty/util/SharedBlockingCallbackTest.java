@@ -37,6 +37,7 @@ public class SharedBlockingCallbackTest
     private static final Logger LOG = LoggerFactory.getLogger(SharedBlockingCallback.class);
 
     final AtomicInteger notComplete = new AtomicInteger();
+    final AtomicInteger blocked = new AtomicInteger();
     final SharedBlockingCallback sbcb = new SharedBlockingCallback()
     {
         @Override
@@ -45,6 +46,12 @@ public class SharedBlockingCallbackTest
             super.notComplete(blocker);
             notComplete.incrementAndGet();
         }
+
+        @Override
+        protected void onBlock(Blocker blocker)
+        {
+            blocked.incrementAndGet();
+        }
     };
 
     @Test
@@ -59,6 +66,7 @@ public class SharedBlockingCallbackTest
         }
         assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) - start, lessThan(500L));
         assertEquals(0, notComplete.get());
+        assertEquals(0, blocked.get());
     }
 
     @Test
@@ -94,6 +102,7 @@ public class SharedBlockingCallbackTest
         assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) - start, greaterThan(10L));
         assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) - start, lessThan(1000L));
         assertEquals(0, notComplete.get());
+        assertEquals(1, blocked.get());
     }
 
     @Test
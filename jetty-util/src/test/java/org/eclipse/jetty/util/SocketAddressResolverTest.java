@@ -0,0 +1,153 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SocketAddressResolverTest
+{
+    @Test
+    public void testCachingResolverCachesAddresses() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        SocketAddressResolver.Caching caching = new SocketAddressResolver.Caching(resolver);
+
+        List<InetSocketAddress> addresses = resolve(caching, "localhost", 8080);
+        assertEquals(1, addresses.size());
+        assertEquals(8080, addresses.get(0).getPort());
+        assertTrue(addresses.get(0).getAddress().isLoopbackAddress());
+
+        // The cached addresses are returned with the requested port.
+        addresses = resolve(caching, "localhost", 8443);
+        assertEquals(8443, addresses.get(0).getPort());
+
+        assertEquals(1, resolver.resolutions.get());
+        assertEquals(1, caching.getMisses());
+        assertEquals(1, caching.getHits());
+        assertEquals(1, caching.getEntries());
+    }
+
+    @Test
+    public void testCachingResolverExpiresAddresses() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        SocketAddressResolver.Caching caching = new SocketAddressResolver.Caching(resolver);
+        caching.setTimeToLive(Duration.ZERO);
+
+        resolve(caching, "localhost", 8080);
+        resolve(caching, "localhost", 8080);
+
+        assertEquals(2, resolver.resolutions.get());
+        assertEquals(0, caching.getHits());
+    }
+
+    @Test
+    public void testCachingResolverCachesUnknownHosts() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        SocketAddressResolver.Caching caching = new SocketAddressResolver.Caching(resolver);
+
+        for (int i = 0; i < 2; ++i)
+        {
+            ExecutionException x = assertThrows(ExecutionException.class, () -> resolve(caching, "unknown", 8080));
+            assertThat(x.getCause(), instanceOf(UnknownHostException.class));
+        }
+        assertEquals(1, resolver.resolutions.get());
+        assertEquals(1, caching.getFailures());
+
+        caching.setNegativeTimeToLive(Duration.ZERO);
+        caching.clear();
+        for (int i = 0; i < 2; ++i)
+        {
+            assertThrows(ExecutionException.class, () -> resolve(caching, "unknown", 8080));
+        }
+        assertEquals(3, resolver.resolutions.get());
+    }
+
+    @Test
+    public void testCachingResolverCoalescesResolutions() throws Exception
+    {
+        List<Promise<List<InetSocketAddress>>> pending = new ArrayList<>();
+        SocketAddressResolver.Caching caching = new SocketAddressResolver.Caching((host, port, promise) -> pending.add(promise));
+
+        FuturePromise<List<InetSocketAddress>> promise1 = new FuturePromise<>();
+        caching.resolve("localhost", 8080, promise1);
+        FuturePromise<List<InetSocketAddress>> promise2 = new FuturePromise<>();
+        caching.resolve("localhost", 8080, promise2);
+
+        assertEquals(1, pending.size());
+        assertEquals(1, caching.getCoalesced());
+        assertFalse(promise1.isDone());
+        assertFalse(promise2.isDone());
+
+        pending.get(0).succeeded(List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080)));
+
+        assertEquals(1, promise1.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, promise2.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void testCachingResolverMaxEntries() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        SocketAddressResolver.Caching caching = new SocketAddressResolver.Caching(resolver);
+        caching.setMaxEntries(2);
+
+        for (int i = 0; i < 4; ++i)
+        {
+            resolve(caching, "localhost" + i, 8080);
+        }
+
+        assertTrue(caching.getEntries() <= 2);
+    }
+
+    private static List<InetSocketAddress> resolve(SocketAddressResolver resolver, String host, int port) throws Exception
+    {
+        FuturePromise<List<InetSocketAddress>> promise = new FuturePromise<>();
+        resolver.resolve(host, port, promise);
+        return promise.get(5, TimeUnit.SECONDS);
+    }
+
+    private static class CountingResolver implements SocketAddressResolver
+    {
+        private final AtomicInteger resolutions = new AtomicInteger();
+
+        @Override
+        public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise)
+        {
+            resolutions.incrementAndGet();
+            if (host.startsWith("localhost"))
+                promise.succeeded(List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), port)));
+            else
+                promise.failed(new UnknownHostException(host));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TokenBucketRateLimiterTest
+{
+    @Test
+    public void testBurstThenRate()
+    {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(16);
+        limiter.setRate(10);
+        limiter.setBurst(5);
+
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; ++i)
+        {
+            assertEquals(0, limiter.acquire("key", now));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.acquire("key", now));
+
+        // One token is added every 100ms.
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), limiter.acquire("key", now));
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertEquals(0, limiter.acquire("key", now));
+        assertThat(limiter.acquire("key", now), greaterThan(0L));
+
+        // The bucket is full again after 500ms, but holds no more than the burst.
+        now += TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 5; ++i)
+        {
+            assertEquals(0, limiter.acquire("key", now));
+        }
+        assertThat(limiter.acquire("key", now), greaterThan(0L));
+
+        assertEquals(11, limiter.getPermittedCount());
+        assertEquals(4, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testKeysAreIndependent()
+    {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(16);
+        limiter.setRate(1);
+        limiter.setBurst(1);
+
+        long now = System.nanoTime();
+        assertEquals(0, limiter.acquire("a", now));
+        assertThat(limiter.acquire("a", now), greaterThan(0L));
+        assertEquals(0, limiter.acquire("b", now));
+        assertThat(limiter.acquire("b", now), greaterThan(0L));
+    }
+
+    @Test
+    public void testFullBucketsAreReplaced()
+    {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1);
+        assertEquals(8, limiter.getCapacity());
+        limiter.setRate(1);
+        limiter.setBurst(1);
+
+        long now = System.nanoTime();
+        for (int i = 0; i < 8; ++i)
+        {
+            assertEquals(0, limiter.acquire("key" + i, now));
+        }
+
+        // The buckets are full again, so replacing them does not evict.
+        now += TimeUnit.SECONDS.toNanos(1);
+        for (int i = 8; i < 16; ++i)
+        {
+            assertEquals(0, limiter.acquire("key" + i, now));
+        }
+        assertEquals(0, limiter.getEvictedCount());
+
+        // The table is full of buckets that are not full,
+        // so a new key evicts the bucket closest to be full.
+        assertEquals(0, limiter.acquire("key16", now + 1));
+        assertEquals(1, limiter.getEvictedCount());
+        assertThat(limiter.acquire("key16", now + 1), greaterThan(0L));
+    }
+
+    @Test
+    public void testCapacityIsBounded()
+    {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000);
+        assertThat(limiter.getCapacity(), is(1024));
+
+        long now = System.nanoTime();
+        for (int i = 0; i < 100_000; ++i)
+        {
+            assertEquals(0, limiter.acquire("key" + i, now));
+        }
+        assertThat(limiter.getEvictedCount(), greaterThan(100_000L - limiter.getCapacity() - 1));
+
+        limiter.clear();
+        limiter.resetStats();
+        assertEquals(0, limiter.getPermittedCount());
+    }
+
+    @Test
+    public void testInvalidSettings()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0));
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(16);
+        assertThrows(IllegalArgumentException.class, () -> limiter.setRate(0));
+        assertThrows(IllegalArgumentException.class, () -> limiter.setBurst(0));
+    }
+}
@@ -0,0 +1,188 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testSmallValuesAreExact()
+    {
+        HistogramStatistic histogram = new HistogramStatistic(7);
+        for (int i = 1; i <= 100; ++i)
+        {
+            histogram.record(i);
+        }
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(100, snapshot.getMax());
+        assertEquals(50, snapshot.getValueAtPercentile(50));
+        assertEquals(99, snapshot.getValueAtPercentile(99));
+        assertEquals(100, snapshot.getValueAtPercentile(100));
+        assertEquals(50.5D, snapshot.getMean(), 0.001D);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 7, 10})
+    public void testPercentilesRelativeError(int precision)
+    {
+        HistogramStatistic histogram = new HistogramStatistic(precision);
+        Random random = new Random(precision);
+        long[] samples = new long[10_000];
+        for (int i = 0; i < samples.length; ++i)
+        {
+            // Spread the samples over many orders of magnitude.
+            samples[i] = (long)Math.pow(10, 1 + 8 * random.nextDouble());
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(samples.length, snapshot.getCount());
+        double maxError = Math.pow(2, 1 - precision);
+        for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9, 100})
+        {
+            long expected = samples[(int)Math.ceil(percentile / 100 * samples.length) - 1];
+            long actual = snapshot.getValueAtPercentile(percentile);
+            assertThat(actual, greaterThanOrEqualTo(expected));
+            assertThat(actual, lessThanOrEqualTo((long)(expected * (1 + maxError))));
+            assertEquals(actual, histogram.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    public void testLargeValues()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    public void testHighestTrackableValue()
+    {
+        HistogramStatistic histogram = new HistogramStatistic(7, 1000);
+        histogram.record(10);
+        histogram.record(1_000_000);
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(10, snapshot.getMin());
+        assertThat(snapshot.getMax(), greaterThanOrEqualTo(1000L));
+        assertThat(snapshot.getMax(), lessThanOrEqualTo(1016L));
+    }
+
+    @Test
+    public void testInvalidArguments()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new HistogramStatistic(0));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramStatistic(HistogramStatistic.MAX_PRECISION + 1));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramStatistic(7, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramStatistic().snapshot().getValueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramStatistic().getValueAtPercentile(-1));
+    }
+
+    @Test
+    public void testIntervalSnapshot()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.record(10);
+        histogram.record(20);
+
+        HistogramStatistic.Snapshot interval = histogram.intervalSnapshot();
+        assertEquals(2, interval.getCount());
+        assertEquals(20, interval.getMax());
+
+        histogram.record(5);
+        interval = histogram.intervalSnapshot();
+        assertEquals(1, interval.getCount());
+        assertEquals(5, interval.getMin());
+        assertEquals(5, interval.getMax());
+        assertEquals(3, histogram.snapshot().getCount());
+
+        interval = histogram.intervalSnapshot();
+        assertEquals(0, interval.getCount());
+        assertEquals(0, interval.getValueAtPercentile(99));
+        assertEquals(0.0D, interval.getMean());
+    }
+
+    @Test
+    public void testReset()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.record(10);
+        histogram.intervalSnapshot();
+        histogram.record(20);
+        histogram.reset();
+
+        assertEquals(0, histogram.snapshot().getCount());
+        histogram.record(30);
+        HistogramStatistic.Snapshot interval = histogram.intervalSnapshot();
+        assertEquals(1, interval.getCount());
+        assertEquals(30, interval.getMax());
+    }
+
+    @Test
+    public void testConcurrentRecord() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        int threads = 4;
+        int iterations = 10_000;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            new Thread(() ->
+            {
+                for (int i = 0; i < iterations; ++i)
+                {
+                    histogram.record(i);
+                }
+                latch.countDown();
+            }).start();
+        }
+
+        long intervals = 0;
+        while (latch.getCount() > 0)
+        {
+            intervals += histogram.intervalSnapshot().getCount();
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        intervals += histogram.intervalSnapshot().getCount();
+
+        assertEquals(threads * iterations, intervals);
+        assertEquals(threads * iterations, histogram.snapshot().getCount());
+    }
+}
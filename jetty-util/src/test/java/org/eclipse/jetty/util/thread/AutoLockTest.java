@@ -19,6 +19,8 @@ import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AutoLockTest
@@ -120,4 +122,39 @@ public class AutoLockTest
 
         assertFalse(lock.isLocked());
     }
+
+    @Test
+    public void testTryLock() throws Exception
+    {
+        AutoLock lock = new AutoLock();
+
+        try (AutoLock l = lock.tryLock())
+        {
+            assertSame(lock, l);
+            assertTrue(lock.isLocked());
+
+            // The lock is reentrant.
+            try (AutoLock l2 = lock.tryLock())
+            {
+                assertSame(lock, l2);
+            }
+            assertTrue(lock.isLocked());
+
+            // The lock is not acquired if it is held by another thread.
+            CountDownLatch tried = new CountDownLatch(1);
+            Thread thread = new Thread(() ->
+            {
+                try (AutoLock l3 = lock.tryLock())
+                {
+                    assertNull(l3);
+                    tried.countDown();
+                }
+            });
+            thread.start();
+            assertTrue(tried.await(5, TimeUnit.SECONDS));
+            thread.join();
+        }
+
+        assertFalse(lock.isLocked());
+    }
 }
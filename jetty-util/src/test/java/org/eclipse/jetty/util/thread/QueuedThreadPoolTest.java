@@ -20,10 +20,13 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.logging.StacklessLogging;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
 import org.hamcrest.Matchers;
@@ -498,6 +501,76 @@ public class QueuedThreadPoolTest extends AbstractThreadPoolTest
         assertTrue(job3._closed.await(200, TimeUnit.MILLISECONDS));
     }
 
+    @Test
+    public void testWorkStealing() throws Exception
+    {
+        ProcessorUtils.setAvailableProcessors(4);
+        QueuedThreadPool tp = new QueuedThreadPool(8, 2);
+        tp.setWorkStealing(true);
+        tp.start();
+        assertThrows(IllegalStateException.class, () -> tp.setWorkStealing(false));
+
+        // Jobs that execute other jobs, as a selector dispatching to connections.
+        int producers = 100;
+        int consumers = 20;
+        CountDownLatch latch = new CountDownLatch(producers * consumers);
+        for (int i = 0; i < producers; i++)
+        {
+            tp.execute(() ->
+            {
+                for (int j = 0; j < consumers; j++)
+                {
+                    tp.execute(latch::countDown);
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        waitForIdle(tp, tp.getThreads());
+        assertThat(tp.getQueueSize(), is(0));
+
+        // A waiting thread is woken up by jobs executed by threads outside the pool.
+        for (int i = 0; i < 10; i++)
+        {
+            CountDownLatch executed = new CountDownLatch(1);
+            tp.execute(executed::countDown);
+            assertTrue(executed.await(5, TimeUnit.SECONDS));
+        }
+
+        tp.stop();
+    }
+
+    @Test
+    public void testWorkStealingStop() throws Exception
+    {
+        ProcessorUtils.setAvailableProcessors(4);
+        QueuedThreadPool tp = new QueuedThreadPool(1, 1, new BlockingArrayQueue<>(2, 0, 2));
+        tp.setReservedThreads(0);
+        tp.setWorkStealing(true);
+        tp.setStopTimeout(500);
+        tp.start();
+        waitForIdle(tp, 1);
+
+        RunningJob job0 = new RunningJob();
+        tp.execute(job0);
+        assertTrue(job0._run.await(5, TimeUnit.SECONDS));
+
+        // The capacity of the job queue bounds the jobs queued in the local queues.
+        RunningJob job1 = new RunningJob();
+        CloseableJob job2 = new CloseableJob();
+        tp.execute(job1);
+        tp.execute(job2);
+        assertThat(tp.getQueueSize(), is(2));
+        assertThrows(RejectedExecutionException.class, () -> tp.execute(new RunningJob()));
+        assertThat(tp.getQueueSize(), is(2));
+
+        tp.stop();
+        assertThat(tp.getQueue().size(), is(0));
+        assertTrue(job0._stopped.await(5, TimeUnit.SECONDS));
+        assertFalse(job1._run.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(job2._run.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(job2._closed.await(200, TimeUnit.MILLISECONDS));
+    }
+
     @Test
     public void testShrink() throws Exception
     {
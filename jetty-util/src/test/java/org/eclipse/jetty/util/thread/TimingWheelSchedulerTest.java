@@ -0,0 +1,131 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelSchedulerTest
+{
+    private TimingWheelScheduler scheduler;
+
+    private void start(long tickMillis, int wheels, int wheelSize) throws Exception
+    {
+        scheduler = new TimingWheelScheduler(null, false, tickMillis, wheels, wheelSize);
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (scheduler != null)
+            scheduler.stop();
+    }
+
+    @Test
+    public void testInvalidConfiguration()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelScheduler(null, false, 0, 1, 8));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelScheduler(null, false, 10, 1, 0));
+        assertThat(new TimingWheelScheduler(null, false, 10, 2, 100).getWheelSize(), is(128));
+    }
+
+    @Test
+    public void testDelayLongerThanRevolution() throws Exception
+    {
+        // A revolution of the wheel takes 40 ms.
+        start(10, 1, 4);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        long begin = System.nanoTime();
+        AtomicInteger elapsed = new AtomicInteger();
+        scheduler.schedule(() ->
+        {
+            elapsed.set((int)TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            latch.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(elapsed.get(), greaterThanOrEqualTo(250));
+    }
+
+    @Test
+    public void testManyTasksScheduledAndCancelledConcurrently() throws Exception
+    {
+        start(5, 4, 16);
+
+        int threads = 8;
+        int tasks = 1000;
+        AtomicInteger executed = new AtomicInteger();
+        AtomicInteger expected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            new Thread(() ->
+            {
+                List<Scheduler.Task> scheduled = new ArrayList<>();
+                for (int i = 0; i < tasks; ++i)
+                {
+                    scheduled.add(scheduler.schedule(executed::incrementAndGet, i % 100, TimeUnit.MILLISECONDS));
+                }
+                // Cancel half of the tasks, some of which may have already run.
+                for (int i = 0; i < tasks; i += 2)
+                {
+                    if (!scheduled.get(i).cancel())
+                        expected.incrementAndGet();
+                }
+                expected.addAndGet(tasks / 2);
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executed.get() < expected.get() && System.nanoTime() < end)
+        {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertThat(executed.get(), is(expected.get()));
+        assertThat(scheduler.getScheduledTasks(), is(0));
+    }
+
+    @Test
+    public void testCancelAfterStop() throws Exception
+    {
+        start(10, 1, 8);
+
+        AtomicInteger executed = new AtomicInteger();
+        Scheduler.Task task = scheduler.schedule(executed::incrementAndGet, 1, TimeUnit.SECONDS);
+        scheduler.stop();
+
+        assertFalse(task.cancel());
+        assertThat(scheduler.getScheduledTasks(), is(0));
+        assertFalse(scheduler.schedule(executed::incrementAndGet, 1, TimeUnit.MILLISECONDS).cancel());
+        assertThat(executed.get(), is(0));
+    }
+}
@@ -0,0 +1,74 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.VirtualThreads;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VirtualThreadMonitorTest
+{
+    @Test
+    public void testBlockingCounts()
+    {
+        VirtualThreadMonitor monitor = new VirtualThreadMonitor();
+        monitor.onBlockingRead();
+        monitor.onBlockingRead();
+        monitor.onBlockingWrite();
+
+        assertThat(monitor.getBlockingReads(), is(2L));
+        assertThat(monitor.getBlockingWrites(), is(1L));
+        // The test thread is a platform thread.
+        assertThat(monitor.getVirtualBlockingReads(), is(0L));
+        assertThat(monitor.getVirtualBlockingWrites(), is(0L));
+
+        monitor.reset();
+        assertThat(monitor.getBlockingReads(), is(0L));
+        assertThat(monitor.getBlockingWrites(), is(0L));
+    }
+
+    @Test
+    public void testPinnedCounts()
+    {
+        VirtualThreadMonitor monitor = new VirtualThreadMonitor();
+        monitor.onPinned(TimeUnit.MILLISECONDS.toNanos(30), "first");
+        monitor.onPinned(TimeUnit.MILLISECONDS.toNanos(50), "second");
+
+        assertThat(monitor.getPinned(), is(2L));
+        assertThat(monitor.getPinnedTime(), is(80L));
+        assertThat(monitor.getMaxPinnedTime(), is(50L));
+
+        monitor.reset();
+        assertThat(monitor.getPinned(), is(0L));
+        assertThat(monitor.getMaxPinnedTime(), is(0L));
+    }
+
+    @Test
+    public void testLifeCycle() throws Exception
+    {
+        VirtualThreadMonitor monitor = new VirtualThreadMonitor();
+        monitor.start();
+        assertThrows(IllegalStateException.class, () -> monitor.setPinnedThreshold(10));
+        if (!VirtualThreads.areSupported())
+            assertFalse(monitor.isPinnedDetection());
+        monitor.stop();
+        assertFalse(monitor.isPinnedDetection());
+    }
+}
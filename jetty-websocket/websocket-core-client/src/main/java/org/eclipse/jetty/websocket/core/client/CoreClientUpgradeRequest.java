@@ -442,6 +442,7 @@ public abstract class CoreClientUpgradeRequest extends HttpRequest implements Re
         ByteBufferPool bufferPool = wsClient.getWebSocketComponents().getBufferPool();
         RetainableByteBufferPool retainableByteBufferPool = bufferPool.asRetainableByteBufferPool();
         WebSocketConnection wsConnection = new WebSocketConnection(endPoint, httpClient.getExecutor(), httpClient.getScheduler(), bufferPool, retainableByteBufferPool, coreSession);
+        wsConnection.setMaskInPlace(wsClient.isMaskInPlace());
         wsClient.getEventListeners().forEach(wsConnection::addEventListener);
         coreSession.setWebSocketConnection(wsConnection);
         Exception listenerError = notifyUpgradeListeners((listener) -> listener.onHandshakeResponse(this, response));
@@ -39,6 +39,7 @@ public class WebSocketCoreClient extends ContainerLifeCycle
     private final HttpClient httpClient;
     private final WebSocketComponents components;
     private ClassLoader classLoader;
+    private boolean maskInPlace;
 
     public WebSocketCoreClient()
     {
@@ -74,6 +75,24 @@ public class WebSocketCoreClient extends ContainerLifeCycle
         this.classLoader = Objects.requireNonNull(classLoader);
     }
 
+    public boolean isMaskInPlace()
+    {
+        return maskInPlace;
+    }
+
+    /**
+     * <p>Sets whether the payload of the frames sent by the client connections is masked in place
+     * and written with a gathering write, rather than copied into a new buffer while masking.</p>
+     * <p>Masking in place overwrites the bytes of the payload buffers passed to the sending methods,
+     * so it must only be enabled when the application does not reuse them after the send completes.</p>
+     *
+     * @param maskInPlace whether to mask the frame payloads in place
+     */
+    public void setMaskInPlace(boolean maskInPlace)
+    {
+        this.maskInPlace = maskInPlace;
+    }
+
     public CompletableFuture<CoreSession> connect(FrameHandler frameHandler, URI wsUri) throws IOException
     {
         CoreClientUpgradeRequest request = CoreClientUpgradeRequest.from(this, wsUri, frameHandler);
@@ -38,6 +38,7 @@ import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.OpCode;
 import org.eclipse.jetty.websocket.core.exception.WebSocketException;
 import org.eclipse.jetty.websocket.core.exception.WebSocketWriteTimeoutException;
+import org.eclipse.jetty.websocket.core.internal.util.FrameMasking;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +70,7 @@ public class FrameFlusher extends IteratingCallback
     private Throwable closedCause;
     private long idleTimeout;
     private boolean useDirectByteBuffers;
+    private boolean maskInPlace;
 
     public FrameFlusher(ByteBufferPool bufferPool, Scheduler scheduler, Generator generator, EndPoint endPoint, int bufferSize, int maxGather)
     {
@@ -94,6 +96,25 @@ public class FrameFlusher extends IteratingCallback
         this.useDirectByteBuffers = useDirectByteBuffers;
     }
 
+    public boolean isMaskInPlace()
+    {
+        return maskInPlace;
+    }
+
+    /**
+     * <p>Sets whether the payload of masked frames that are not batched is masked in place,
+     * and then written with a gathering write, rather than copied into a new buffer while masking.</p>
+     * <p>Masking in place avoids the copy, but overwrites the bytes of the frame payload buffer,
+     * so it must only be enabled when the application does not reuse the payload buffers
+     * after the frames have been sent.</p>
+     *
+     * @param maskInPlace whether to mask the frame payloads in place
+     */
+    public void setMaskInPlace(boolean maskInPlace)
+    {
+        this.maskInPlace = maskInPlace;
+    }
+
     /**
      * Enqueue a Frame to be written to the endpoint.
      *
@@ -262,7 +283,11 @@ public class FrameFlusher extends IteratingCallback
                     ByteBuffer payload = entry.frame.getPayload();
                     if (BufferUtil.hasContent(payload))
                     {
-                        if (entry.frame.isMasked())
+                        if (entry.frame.isMasked() && isMaskInPlace() && !payload.isReadOnly())
+                        {
+                            FrameMasking.mask(entry.frame.getMask(), payload);
+                        }
+                        else if (entry.frame.isMasked())
                         {
                             payload = acquireBuffer(entry.frame.getPayloadLength());
                             releasableBuffers.add(payload);
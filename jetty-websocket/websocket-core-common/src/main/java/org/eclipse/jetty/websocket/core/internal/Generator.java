@@ -17,6 +17,7 @@ import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.internal.util.FrameMasking;
 
 /**
  * Generating a frame in WebSocket land.
@@ -161,43 +162,9 @@ public class Generator
 
         int pos = BufferUtil.flipToFill(buffer);
         if (frame.isMasked())
-            maskPayload(buffer, frame);
+            FrameMasking.mask(frame.getMask(), payload, buffer);
         else
             buffer.put(payload.slice());
         BufferUtil.flipToFlush(buffer, pos);
     }
-
-    private void maskPayload(ByteBuffer buffer, Frame frame)
-    {
-        byte[] mask = frame.getMask();
-        int maskInt = 0;
-        for (byte maskByte : mask)
-        {
-            maskInt = (maskInt << 8) + (maskByte & 0xFF);
-        }
-
-        // perform data masking here
-        ByteBuffer payload = frame.getPayload();
-        if ((payload != null) && (payload.remaining() > 0))
-        {
-            int maskOffset = 0;
-            int start = payload.position();
-            int end = payload.limit();
-            int remaining;
-            while ((remaining = end - start) > 0)
-            {
-                if (remaining >= 4)
-                {
-                    buffer.putInt(payload.getInt(start) ^ maskInt);
-                    start += 4;
-                }
-                else
-                {
-                    buffer.put((byte)(payload.get(start) ^ mask[maskOffset & 3]));
-                    ++start;
-                    ++maskOffset;
-                }
-            }
-        }
-    }
 }
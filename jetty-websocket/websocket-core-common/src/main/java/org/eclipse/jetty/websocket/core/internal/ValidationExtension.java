@@ -22,6 +22,7 @@ import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.WebSocketComponents;
 import org.eclipse.jetty.websocket.core.exception.ProtocolException;
 import org.eclipse.jetty.websocket.core.internal.util.FrameValidation;
+import org.eclipse.jetty.websocket.core.internal.util.Utf8Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -134,7 +135,7 @@ public class ValidationExtension extends AbstractExtension
             if (frame.getOpCode() == TEXT || continuedOpCode == TEXT)
             {
                 if (frame.hasPayload())
-                    appendable.append(frame.getPayload().slice());
+                    Utf8Utils.append(appendable, frame.getPayload().slice());
 
                 if (frame.isFin())
                     appendable.checkState();
@@ -206,6 +206,20 @@ public class WebSocketConnection extends AbstractConnection implements Connectio
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    public boolean isMaskInPlace()
+    {
+        return flusher.isMaskInPlace();
+    }
+
+    /**
+     * @param maskInPlace whether the payload of outgoing masked frames is masked in place, overwriting the application bytes
+     * @see FrameFlusher#setMaskInPlace(boolean)
+     */
+    public void setMaskInPlace(boolean maskInPlace)
+    {
+        flusher.setMaskInPlace(maskInPlace);
+    }
+
     /**
      * Physical connection disconnect.
      * <p>
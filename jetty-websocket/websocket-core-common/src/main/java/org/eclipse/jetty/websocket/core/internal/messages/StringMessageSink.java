@@ -20,6 +20,7 @@ import org.eclipse.jetty.util.Utf8StringBuilder;
 import org.eclipse.jetty.websocket.core.CoreSession;
 import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.exception.MessageTooLargeException;
+import org.eclipse.jetty.websocket.core.internal.util.Utf8Utils;
 
 public class StringMessageSink extends AbstractMessageSink
 {
@@ -48,7 +49,7 @@ public class StringMessageSink extends AbstractMessageSink
             if (out == null)
                 out = new Utf8StringBuilder(session.getInputBufferSize());
 
-            out.append(frame.getPayload());
+            Utf8Utils.append(out, frame.getPayload());
             if (frame.isFin())
                 methodHandle.invoke(out.toString());
 
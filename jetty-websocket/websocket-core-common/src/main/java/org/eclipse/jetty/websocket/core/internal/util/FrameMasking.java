@@ -0,0 +1,114 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.internal.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * <p>Utility methods to mask and unmask the payload of WebSocket frames, as specified by RFC 6455, section 5.3.</p>
+ * <p>The payload is processed a {@code long} at a time through a {@link VarHandle} view of the buffers,
+ * with the 4 bytes masking key repeated twice in the {@code long}; only the last bytes of the payload,
+ * if any, are processed one at a time.</p>
+ * <p>The masking always starts with the first byte of the masking key at the buffer position.</p>
+ */
+public final class FrameMasking
+{
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * <p>Masks, or unmasks, the bytes of the given buffer between its position and its limit.</p>
+     * <p>The position and the limit of the buffer are not changed.</p>
+     *
+     * @param mask the 4 bytes masking key
+     * @param buffer the buffer to mask in place
+     */
+    public static void mask(byte[] mask, ByteBuffer buffer)
+    {
+        if (buffer.isReadOnly())
+            throw new ReadOnlyBufferException();
+
+        long maskLong = toMaskLong(mask);
+        int start = buffer.position();
+        int end = buffer.limit();
+        int longEnd = end - 7;
+        while (start < longEnd)
+        {
+            LONG_VIEW.set(buffer, start, (long)LONG_VIEW.get(buffer, start) ^ maskLong);
+            start += 8;
+        }
+        int offset = 0;
+        while (start < end)
+        {
+            buffer.put(start, (byte)(buffer.get(start) ^ mask[offset & 3]));
+            ++start;
+            ++offset;
+        }
+    }
+
+    /**
+     * <p>Copies and masks, or unmasks, the bytes of the payload between its position and its limit
+     * into the given buffer, starting at the buffer position.</p>
+     * <p>The position of the payload is not changed, while the position of the buffer
+     * is advanced by the number of bytes copied.</p>
+     *
+     * @param mask the 4 bytes masking key
+     * @param payload the bytes to mask
+     * @param buffer the buffer, in fill mode, that receives the masked bytes
+     * @throws BufferOverflowException if the buffer does not have enough space for the payload
+     */
+    public static void mask(byte[] mask, ByteBuffer payload, ByteBuffer buffer)
+    {
+        int length = payload.remaining();
+        if (buffer.remaining() < length)
+            throw new BufferOverflowException();
+        if (buffer.isReadOnly())
+            throw new ReadOnlyBufferException();
+
+        long maskLong = toMaskLong(mask);
+        int start = payload.position();
+        int end = payload.limit();
+        int longEnd = end - 7;
+        int index = buffer.position();
+        while (start < longEnd)
+        {
+            LONG_VIEW.set(buffer, index, (long)LONG_VIEW.get(payload, start) ^ maskLong);
+            start += 8;
+            index += 8;
+        }
+        int offset = 0;
+        while (start < end)
+        {
+            buffer.put(index, (byte)(payload.get(start) ^ mask[offset & 3]));
+            ++start;
+            ++index;
+            ++offset;
+        }
+        buffer.position(index);
+    }
+
+    private static long toMaskLong(byte[] mask)
+    {
+        long maskInt = ((mask[0] & 0xFFL) << 24) | ((mask[1] & 0xFFL) << 16) | ((mask[2] & 0xFFL) << 8) | (mask[3] & 0xFFL);
+        return (maskInt << 32) | maskInt;
+    }
+
+    private FrameMasking()
+    {
+    }
+}
@@ -0,0 +1,124 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.internal.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.util.Utf8Appendable;
+import org.eclipse.jetty.util.Utf8StringBuilder;
+import org.eclipse.jetty.websocket.core.internal.NullAppendable;
+
+/**
+ * <p>Utility methods to validate and decode the UTF-8 payload of TEXT frames.</p>
+ * <p>Runs of ASCII bytes, that are valid UTF-8 on their own, are found a {@code long}
+ * at a time and are skipped, or appended in bulk, without going through the
+ * {@link Utf8Appendable} state machine; the other bytes are still processed by
+ * {@link Utf8Appendable}, one at a time.</p>
+ */
+public final class Utf8Utils
+{
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * <p>Appends the bytes of the given buffer to the given {@link Utf8Appendable},
+     * with the same semantic of {@link Utf8Appendable#append(ByteBuffer)}:
+     * the buffer is consumed and invalid UTF-8 sequences throw
+     * {@link Utf8Appendable.NotUtf8Exception}.</p>
+     *
+     * @param utf8 the UTF-8 validator or decoder
+     * @param buffer the UTF-8 bytes
+     */
+    public static void append(Utf8Appendable utf8, ByteBuffer buffer)
+    {
+        // Only the known classes can take ASCII bytes in bulk.
+        Class<?> type = utf8.getClass();
+        boolean builder = type == Utf8StringBuilder.class;
+        if (!builder && type != NullAppendable.class)
+        {
+            utf8.append(buffer);
+            return;
+        }
+
+        int start = buffer.position();
+        int end = buffer.limit();
+        while (start < end)
+        {
+            if (utf8.isUtf8SequenceComplete())
+            {
+                int ascii = asciiLength(buffer, start, end);
+                if (ascii > 0)
+                {
+                    if (builder)
+                        appendASCII(((Utf8StringBuilder)utf8).getStringBuilder(), buffer, start, ascii);
+                    start += ascii;
+                    continue;
+                }
+            }
+            // Process one byte at a time until the multi-byte sequence is complete.
+            utf8.append(buffer.get(start++));
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * @param buffer the bytes to scan
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @return the number of consecutive ASCII bytes starting at {@code from}
+     */
+    public static int asciiLength(ByteBuffer buffer, int from, int to)
+    {
+        int index = from;
+        int longEnd = to - 7;
+        while (index < longEnd)
+        {
+            long word = (long)LONG_VIEW.get(buffer, index);
+            long high = word & HIGH_BITS;
+            if (high != 0)
+                return index - from + (Long.numberOfLeadingZeros(high) >>> 3);
+            index += 8;
+        }
+        while (index < to && buffer.get(index) >= 0)
+        {
+            ++index;
+        }
+        return index - from;
+    }
+
+    private static void appendASCII(StringBuilder builder, ByteBuffer buffer, int from, int length)
+    {
+        if (buffer.hasArray())
+        {
+            builder.append(new String(buffer.array(), buffer.arrayOffset() + from, length, StandardCharsets.ISO_8859_1));
+        }
+        else
+        {
+            builder.ensureCapacity(builder.length() + length);
+            int end = from + length;
+            for (int i = from; i < end; ++i)
+            {
+                builder.append((char)buffer.get(i));
+            }
+        }
+    }
+
+    private Utf8Utils()
+    {
+    }
+}
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class GeneratorTest
@@ -523,6 +524,44 @@ public class GeneratorTest
         assertGeneratedBytes(expected, frames);
     }
 
+    @Test
+    public void testGenerateMaskedPayloadLengths()
+    {
+        byte[] maskingKey = Hex.asByteArray("A1B2C3D4");
+        for (boolean direct : new boolean[]{false, true})
+        {
+            for (int length = 1; length <= 33; length++)
+            {
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++)
+                {
+                    bytes[i] = (byte)(i * 7 + 1);
+                }
+                // The payload does not start at index 0 of the buffer.
+                ByteBuffer payload = direct ? BufferUtil.allocateDirect(length + 3) : BufferUtil.allocate(length + 3);
+                BufferUtil.append(payload, new byte[3], 0, 3);
+                BufferUtil.append(payload, bytes, 0, length);
+                payload.position(3);
+
+                Frame frame = new Frame(OpCode.BINARY).setPayload(payload);
+                frame.setMask(Arrays.copyOf(maskingKey, 4));
+                ByteBuffer buffer = direct ? BufferUtil.allocateDirect(length) : BufferUtil.allocate(length);
+                generator.generatePayload(frame, buffer);
+
+                byte[] expected = Arrays.copyOf(bytes, length);
+                mask(expected, maskingKey);
+                assertArrayEquals(expected, BufferUtil.toArray(buffer), "length=" + length);
+                assertThat("length=" + length, payload.remaining(), is(length));
+
+                // Unmasking the masked bytes in place gives back the original bytes.
+                frame = new Frame(OpCode.BINARY).setPayload(buffer);
+                frame.setMask(Arrays.copyOf(maskingKey, 4));
+                frame.demask();
+                assertArrayEquals(bytes, BufferUtil.toArray(frame.getPayload()), "length=" + length);
+            }
+        }
+    }
+
     /**
      * From Autobahn WebSocket Client Testcase 2.4
      */
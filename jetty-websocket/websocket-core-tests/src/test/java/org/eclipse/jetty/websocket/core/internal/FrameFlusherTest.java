@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.FutureCallback;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
@@ -46,7 +47,9 @@ import org.slf4j.LoggerFactory;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -153,6 +156,55 @@ public class FrameFlusherTest
         serverTask.get();
     }
 
+    @Test
+    public void testMaskInPlace() throws Exception
+    {
+        byte[] bytes = new byte[1021];
+        Arrays.fill(bytes, (byte)'x');
+        ByteBuffer payload = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length));
+
+        Generator generator = new Generator();
+        AtomicReference<byte[]> written = new AtomicReference<>();
+        CapturingEndPoint endPoint = new CapturingEndPoint(bufferPool)
+        {
+            @Override
+            public void write(Callback callback, ByteBuffer... buffers) throws WritePendingException
+            {
+                // The masked payload must be written directly from the frame payload.
+                for (ByteBuffer buffer : buffers)
+                {
+                    if (buffer.hasArray() && buffer.array() == payload.array())
+                        written.set(BufferUtil.toArray(buffer));
+                }
+                super.write(callback, buffers);
+            }
+        };
+        int bufferSize = WebSocketConstants.DEFAULT_MAX_TEXT_MESSAGE_SIZE;
+        int maxGather = 8;
+        FrameFlusher frameFlusher = new FrameFlusher(bufferPool, scheduler, generator, endPoint, bufferSize, maxGather);
+        frameFlusher.setMaskInPlace(true);
+
+        byte[] mask = new byte[]{1, 2, 3, 4};
+        Frame frame = new Frame(OpCode.BINARY).setPayload(payload).setFin(true);
+        frame.setMask(Arrays.copyOf(mask, 4));
+
+        FutureCallback callback = new FutureCallback();
+        frameFlusher.enqueue(frame, callback, false);
+        frameFlusher.iterate();
+        callback.get(5, TimeUnit.SECONDS);
+
+        byte[] expected = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            expected[i] = (byte)(bytes[i] ^ mask[i & 3]);
+        }
+        assertArrayEquals(expected, written.get());
+
+        Frame received = endPoint.incomingFrames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(received);
+        assertArrayEquals(bytes, BufferUtil.toArray(received.getPayload()));
+    }
+
     @Test
     public void testWriteTimeout() throws Exception
     {
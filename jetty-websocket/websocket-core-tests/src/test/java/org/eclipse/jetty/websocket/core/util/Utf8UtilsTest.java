@@ -0,0 +1,98 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Utf8Appendable;
+import org.eclipse.jetty.util.Utf8StringBuilder;
+import org.eclipse.jetty.websocket.core.internal.NullAppendable;
+import org.eclipse.jetty.websocket.core.internal.util.Utf8Utils;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Utf8UtilsTest
+{
+    @Test
+    public void testAsciiLength()
+    {
+        byte[] bytes = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++)
+        {
+            byte[] copy = bytes.clone();
+            copy[i] = (byte)0xC3;
+            ByteBuffer buffer = ByteBuffer.wrap(copy);
+            assertThat(Utf8Utils.asciiLength(buffer, 0, copy.length), is(i));
+            assertThat(Utf8Utils.asciiLength(buffer, i, copy.length), is(0));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        assertThat(Utf8Utils.asciiLength(buffer, 3, bytes.length), is(bytes.length - 3));
+    }
+
+    @Test
+    public void testAppendSplitMultiByteSequences()
+    {
+        String text = "Hello, World! été € 100 𐍈 and some more ASCII text after it";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (boolean direct : new boolean[]{false, true})
+        {
+            for (int split = 0; split <= bytes.length; split++)
+            {
+                Utf8StringBuilder utf8 = new Utf8StringBuilder();
+                ByteBuffer first = toBuffer(bytes, 0, split, direct);
+                ByteBuffer second = toBuffer(bytes, split, bytes.length - split, direct);
+                Utf8Utils.append(utf8, first);
+                Utf8Utils.append(utf8, second);
+                assertFalse(first.hasRemaining());
+                assertFalse(second.hasRemaining());
+                assertThat("split=" + split, utf8.toString(), is(text));
+            }
+        }
+    }
+
+    @Test
+    public void testValidate()
+    {
+        NullAppendable utf8 = new NullAppendable();
+        Utf8Utils.append(utf8, BufferUtil.toBuffer("only ASCII text, longer than a word"));
+        assertTrue(utf8.isUtf8SequenceComplete());
+        Utf8Utils.append(utf8, BufferUtil.toBuffer(new byte[]{'a', 'b', (byte)0xE2, (byte)0x82}));
+        assertFalse(utf8.isUtf8SequenceComplete());
+        Utf8Utils.append(utf8, BufferUtil.toBuffer(new byte[]{(byte)0xAC, 'c'}));
+        assertTrue(utf8.isUtf8SequenceComplete());
+    }
+
+    @Test
+    public void testInvalidAfterAscii()
+    {
+        byte[] bytes = "0123456789abcdef?".getBytes(StandardCharsets.US_ASCII);
+        bytes[bytes.length - 1] = (byte)0xFF;
+        assertThrows(Utf8Appendable.NotUtf8Exception.class, () -> Utf8Utils.append(new Utf8StringBuilder(), BufferUtil.toBuffer(bytes)));
+        assertThrows(Utf8Appendable.NotUtf8Exception.class, () -> Utf8Utils.append(new NullAppendable(), BufferUtil.toBuffer(bytes)));
+    }
+
+    private static ByteBuffer toBuffer(byte[] bytes, int offset, int length, boolean direct)
+    {
+        ByteBuffer buffer = direct ? BufferUtil.allocateDirect(length) : BufferUtil.allocate(length);
+        BufferUtil.append(buffer, bytes, offset, length);
+        return buffer;
+    }
+}
@@ -0,0 +1,97 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client.jmh;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpConversation;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.HttpExchange;
+import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.Origin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+public class ExchangeQueueBenchmark
+{
+    private Queue<HttpExchange> queue;
+    private HttpExchange exchange;
+
+    @Param({"blocking-array", "lock-free"})
+    public static String QUEUE_TYPE;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        HttpClient httpClient = new HttpClient();
+        switch (QUEUE_TYPE)
+        {
+            case "blocking-array":
+                httpClient.setLockFreeExchangeQueue(false);
+                break;
+            case "lock-free":
+                httpClient.setLockFreeExchangeQueue(true);
+                break;
+            default:
+                throw new AssertionError("Unknown queue type: " + QUEUE_TYPE);
+        }
+        HttpDestination httpDestination = new HttpDestination(httpClient, new Origin("http", "localhost", 8080), false)
+        {
+        };
+        queue = httpDestination.getHttpExchanges();
+
+        HttpConversation httpConversation = new HttpConversation();
+        HttpRequest httpRequest = new HttpRequest(httpClient, httpConversation, new URI("http://localhost:8080")) {};
+        exchange = new HttpExchange(httpDestination, httpRequest, new ArrayList<>());
+    }
+
+    @Benchmark
+    public void testOfferPoll(Blackhole blackhole)
+    {
+        // Mimics HttpDestination: request threads queue the exchange,
+        // and the thread that acquires a connection dequeues it.
+        if (!queue.offer(exchange))
+            throw new AssertionError("queue full from thread " + Thread.currentThread().getName());
+        blackhole.consume(queue.size());
+        Blackhole.consumeCPU(ThreadLocalRandom.current().nextInt(10, 20));
+        blackhole.consume(queue.poll());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ExchangeQueueBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(3)
+            .forks(1)
+            .threads(12)
+            //.addProfiler(LinuxPerfProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
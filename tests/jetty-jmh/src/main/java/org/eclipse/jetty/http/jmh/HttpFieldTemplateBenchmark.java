@@ -0,0 +1,121 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFieldTemplate;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpFieldTemplateBenchmark
+{
+    private static final List<HttpField> FIELDS = List.of(
+        new HttpField(HttpHeader.SERVER, "Jetty"),
+        new HttpField(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate"),
+        new HttpField(HttpHeader.PRAGMA, "no-cache"),
+        new HttpField(HttpHeader.STRICT_TRANSPORT_SECURITY, "max-age=31536000; includeSubDomains"),
+        new HttpField("X-Content-Type-Options", "nosniff"),
+        new HttpField("X-Frame-Options", "DENY"),
+        new HttpField("Referrer-Policy", "strict-origin-when-cross-origin"),
+        new HttpField("Content-Security-Policy", "default-src 'self'"));
+
+    @Param({"fields", "pre-encoded", "template"})
+    public static String FIELDS_TYPE;
+
+    private static final HttpFieldTemplate TEMPLATE = new HttpFieldTemplate(FIELDS);
+    private static final List<HttpField> PRE_ENCODED = FIELDS.stream()
+        .map(field -> new PreEncodedHttpField(field.getHeader(), field.getName(), field.getValue()))
+        .collect(Collectors.toList());
+    private static final HttpField DATE = new PreEncodedHttpField(HttpHeader.DATE, DateGenerator.formatDate(System.currentTimeMillis()));
+
+    private final ByteBuffer _header = BufferUtil.allocateDirect(8192);
+    private final HttpGenerator _generator = new HttpGenerator(false, false);
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public int testGenerateResponse() throws Exception
+    {
+        // Build the fields of each response, as HttpChannel does.
+        HttpFields.Mutable fields = HttpFields.build();
+        switch (FIELDS_TYPE)
+        {
+            case "fields":
+            {
+                FIELDS.forEach(fields::add);
+                break;
+            }
+            case "pre-encoded":
+            {
+                PRE_ENCODED.forEach(fields::add);
+                break;
+            }
+            case "template":
+            {
+                fields.add(TEMPLATE.getFields());
+                break;
+            }
+            default:
+                throw new IllegalStateException();
+        }
+        fields.put(DATE);
+        fields.add(HttpHeader.CONTENT_TYPE, "text/plain");
+
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 0);
+        BufferUtil.clear(_header);
+        _generator.reset();
+        _generator.generateResponse(info, false, _header, null, null, true);
+        return _header.remaining();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpFieldTemplateBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
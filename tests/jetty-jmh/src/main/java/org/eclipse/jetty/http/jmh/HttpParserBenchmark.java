@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpParserBenchmark
+{
+    private static final String SMALL = "GET /index.html HTTP/1.1\r\n" +
+        "Host: localhost:8080\r\n" +
+        "Accept: */*\r\n" +
+        "\r\n";
+    private static final String BROWSER = "GET /static/js/application.min.js?v=1a2b3c4d HTTP/1.1\r\n" +
+        "Host: www.example.com\r\n" +
+        "Connection: keep-alive\r\n" +
+        "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/106.0.0.0 Safari/537.36\r\n" +
+        "Accept: */*\r\n" +
+        "Referer: https://www.example.com/products/list?page=2\r\n" +
+        "Accept-Encoding: gzip, deflate, br\r\n" +
+        "Accept-Language: en-GB,en-US;q=0.9,en;q=0.8\r\n" +
+        "Cookie: JSESSIONID=node01abcdefghijklmnopqrstuvwx0.node0; theme=dark\r\n" +
+        "X-Request-Id: 4f9c2d1e-8b7a-4c3d-9e2f-1a0b9c8d7e6f\r\n" +
+        "\r\n";
+
+    @Param({"SMALL", "BROWSER"})
+    public static String REQUEST;
+
+    @Param({"heap", "direct"})
+    public static String BUFFER_TYPE;
+
+    private ByteBuffer _buffer;
+    private HttpParser _parser;
+    private Blackhole _blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole)
+    {
+        _blackhole = blackhole;
+        ByteBuffer request = BufferUtil.toBuffer("SMALL".equals(REQUEST) ? SMALL : BROWSER);
+        _buffer = "direct".equals(BUFFER_TYPE) ? ByteBuffer.allocateDirect(request.remaining()) : ByteBuffer.allocate(request.remaining());
+        _buffer.put(request).flip();
+        _parser = new HttpParser(new HttpParser.RequestHandler()
+        {
+            @Override
+            public void startRequest(String method, String uri, HttpVersion version)
+            {
+                _blackhole.consume(uri);
+            }
+
+            @Override
+            public void parsedHeader(HttpField field)
+            {
+                _blackhole.consume(field);
+            }
+
+            @Override
+            public boolean headerComplete()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean content(ByteBuffer item)
+            {
+                return false;
+            }
+
+            @Override
+            public boolean contentComplete()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean messageComplete()
+            {
+                return true;
+            }
+
+            @Override
+            public void earlyEOF()
+            {
+            }
+        });
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public boolean testParse()
+    {
+        _parser.reset();
+        _buffer.position(0);
+        return _parser.parseNext(_buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpParserBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
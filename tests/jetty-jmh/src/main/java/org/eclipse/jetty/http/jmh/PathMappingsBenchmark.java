@@ -0,0 +1,178 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.MatchedPath;
+import org.eclipse.jetty.http.pathmap.MatchedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.http.pathmap.UriTemplatePathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class PathMappingsBenchmark
+{
+    @Param({"10", "100", "1000", "5000"})
+    int mappings;
+
+    @Param({"SERVLET", "URI_TEMPLATE", "URI_TEMPLATE_VARIABLES"})
+    String mappingType;
+
+    private PathMappings<String> pathMappings;
+    private String[] paths;
+
+    @Setup
+    public void setUp()
+    {
+        pathMappings = new PathMappings<>();
+        if ("URI_TEMPLATE_VARIABLES".equals(mappingType))
+            setUpUriTemplates();
+        else
+            setUpServlets();
+    }
+
+    private void setUpServlets()
+    {
+        for (int i = 0; i < mappings; i++)
+        {
+            String tenant = "/tenant" + i;
+            PathSpec exact = "SERVLET".equals(mappingType)
+                ? new ServletPathSpec(tenant + "/status")
+                : new UriTemplatePathSpec(tenant + "/status");
+            pathMappings.put(exact, "exact" + i);
+            pathMappings.put(new ServletPathSpec(tenant + "/api/*"), "api" + i);
+            pathMappings.put(new ServletPathSpec(tenant + "/api/v1/*"), "apiV1" + i);
+            pathMappings.put(new ServletPathSpec("*.ext" + i), "suffix" + i);
+        }
+        pathMappings.put(new ServletPathSpec("/"), "default");
+
+        paths = new String[1024];
+        for (int i = 0; i < paths.length; i++)
+        {
+            int tenant = ThreadLocalRandom.current().nextInt(mappings);
+            switch (i % 4)
+            {
+                case 0:
+                    paths[i] = "/tenant" + tenant + "/status";
+                    break;
+                case 1:
+                    paths[i] = "/tenant" + tenant + "/api/v1/users/12345/orders";
+                    break;
+                case 2:
+                    paths[i] = "/tenant" + tenant + "/api/v10/users";
+                    break;
+                default:
+                    paths[i] = "/static/resource.ext" + tenant;
+                    break;
+            }
+        }
+    }
+
+    private void setUpUriTemplates()
+    {
+        for (int i = 0; i < mappings; i++)
+        {
+            String tenant = "/tenant" + i;
+            pathMappings.put(new UriTemplatePathSpec(tenant + "/status"), "exact" + i);
+            pathMappings.put(new UriTemplatePathSpec(tenant + "/users/{user}"), "user" + i);
+            pathMappings.put(new UriTemplatePathSpec(tenant + "/users/{user}/orders/{order}"), "order" + i);
+            pathMappings.put(new UriTemplatePathSpec(tenant + "/{resource}/{id}"), "resource" + i);
+        }
+        pathMappings.put(new UriTemplatePathSpec("/{tenant}/static/{dir}/{file}"), "static");
+
+        paths = new String[1024];
+        for (int i = 0; i < paths.length; i++)
+        {
+            int tenant = ThreadLocalRandom.current().nextInt(mappings);
+            switch (i % 4)
+            {
+                case 0:
+                    paths[i] = "/tenant" + tenant + "/users/12345";
+                    break;
+                case 1:
+                    paths[i] = "/tenant" + tenant + "/users/12345/orders/67890";
+                    break;
+                case 2:
+                    paths[i] = "/tenant" + tenant + "/items/12345";
+                    break;
+                default:
+                    paths[i] = "/tenant" + tenant + "/static/css/site.css";
+                    break;
+            }
+        }
+    }
+
+    private String nextPath()
+    {
+        return paths[ThreadLocalRandom.current().nextInt(paths.length)];
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MatchedResource<String> testGetMatched()
+    {
+        return pathMappings.getMatched(nextPath());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MatchedResource<String> testLinearScan()
+    {
+        String path = nextPath();
+        for (MappedResource<String> mappedResource : pathMappings)
+        {
+            MatchedPath matchedPath = mappedResource.getPathSpec().matched(path);
+            if (matchedPath != null)
+                return new MatchedResource<>(mappedResource.getResource(), mappedResource.getPathSpec(), matchedPath);
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(PathMappingsBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
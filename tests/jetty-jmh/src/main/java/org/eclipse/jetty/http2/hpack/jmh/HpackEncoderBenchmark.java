@@ -0,0 +1,127 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HpackEncoderBenchmark
+{
+    private static final String[] CONTENT_TYPES = {"text/html;charset=utf-8", "application/json", "image/png", "text/css"};
+    private static final String[] CACHE_CONTROLS = {"no-cache", "max-age=3600", "public, max-age=86400"};
+
+    @Param({"default", "frequency", "cached"})
+    public static String ENCODER_TYPE;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+    private final MetaData.Response[] responses = new MetaData.Response[1024];
+    private HpackEncoder encoder;
+    private int index;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        // A new encoder per iteration, like a new connection.
+        encoder = new HpackEncoder();
+        switch (ENCODER_TYPE)
+        {
+            case "default":
+                break;
+            case "frequency":
+                encoder.setIndexingPolicy(new HpackIndexingPolicy.Frequency(2));
+                break;
+            case "cached":
+                encoder.setIndexingPolicy(new HpackIndexingPolicy.Frequency(2));
+                encoder.setMaxEncodedValueCacheSize(256);
+                break;
+            default:
+                throw new AssertionError("Unknown encoder type: " + ENCODER_TYPE);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < responses.length; ++i)
+        {
+            HttpFields fields = HttpFields.build()
+                .put(HttpHeader.SERVER, "Jetty")
+                .put(HttpHeader.DATE, "Mon, 17 Oct 2022 10:00:0" + (i / 128) + " GMT")
+                .put(HttpHeader.CONTENT_TYPE, CONTENT_TYPES[random.nextInt(CONTENT_TYPES.length)])
+                .put(HttpHeader.CONTENT_LENGTH, String.valueOf(random.nextInt(16) * 1024))
+                .put(HttpHeader.CACHE_CONTROL, CACHE_CONTROLS[random.nextInt(CACHE_CONTROLS.length)])
+                .put(HttpHeader.SET_COOKIE, "JSESSIONID=node0" + random.nextInt(64) + ";Path=/")
+                .put("x-request-id", UUID.randomUUID().toString())
+                .put("x-frame-options", "SAMEORIGIN");
+            responses[i] = new MetaData.Response(HttpVersion.HTTP_2, 200, fields);
+        }
+        index = 0;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Bytes
+    {
+        public long bytesOut;
+        public long headers;
+    }
+
+    @Benchmark
+    public ByteBuffer testEncode(Bytes bytes) throws Exception
+    {
+        MetaData.Response response = responses[index++ % responses.length];
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, response);
+        bytes.bytesOut += buffer.position();
+        bytes.headers += response.getFields().size();
+        return buffer;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HpackEncoderBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(3)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
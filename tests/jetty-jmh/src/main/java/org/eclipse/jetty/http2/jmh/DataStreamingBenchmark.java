@@ -0,0 +1,172 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.server.RawHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Streams 1 GiB of DATA frames from server to client over a loopback HTTP/2 connection.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataStreamingBenchmark
+{
+    private static final long TOTAL_LENGTH = 1024L * 1024 * 1024;
+
+    @Param({"16384", "65536"})
+    public static int MAX_FRAME_SIZE;
+
+    @Param({"16384", "1048576"})
+    public static int WRITE_SIZE;
+
+    private Server server;
+    private ServerConnector connector;
+    private HTTP2Client client;
+    private Session session;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        ByteBuffer content = ByteBuffer.allocateDirect(WRITE_SIZE);
+        server = new Server();
+        RawHTTP2ServerConnectionFactory connectionFactory = new RawHTTP2ServerConnectionFactory(new HttpConfiguration(), new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), new Callback()
+                {
+                    private long written;
+
+                    @Override
+                    public void succeeded()
+                    {
+                        if (written == TOTAL_LENGTH)
+                            return;
+                        written += WRITE_SIZE;
+                        stream.data(new DataFrame(stream.getId(), content.slice(), written == TOTAL_LENGTH), this);
+                    }
+                });
+                return null;
+            }
+        });
+        connectionFactory.setInitialSessionRecvWindow(16 * 1024 * 1024);
+        connectionFactory.setInitialStreamRecvWindow(8 * 1024 * 1024);
+        connector = new ServerConnector(server, 1, 1, connectionFactory);
+        server.addConnector(connector);
+        server.start();
+
+        client = new HTTP2Client();
+        client.setInitialSessionRecvWindow(16 * 1024 * 1024);
+        client.setInitialStreamRecvWindow(8 * 1024 * 1024);
+        client.start();
+        FuturePromise<Session> promise = new FuturePromise<>();
+        client.connect(new InetSocketAddress("localhost", connector.getLocalPort()), new Session.Listener.Adapter()
+        {
+            @Override
+            public Map<Integer, Integer> onPreface(Session session)
+            {
+                Map<Integer, Integer> settings = new HashMap<>();
+                settings.put(SettingsFrame.MAX_FRAME_SIZE, MAX_FRAME_SIZE);
+                return settings;
+            }
+        }, promise);
+        session = promise.get(5, TimeUnit.SECONDS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    @Benchmark
+    public long testDownload() throws Exception
+    {
+        AtomicLong received = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        String authority = "localhost:" + connector.getLocalPort();
+        MetaData.Request request = new MetaData.Request("GET", HttpScheme.HTTP.asString(), new HostPortHttpField(authority), "/", HttpVersion.HTTP_2, HttpFields.EMPTY, -1);
+        session.newStream(new HeadersFrame(request, null, true), new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                received.addAndGet(frame.remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+        if (!latch.await(60, TimeUnit.SECONDS))
+            throw new IllegalStateException("Download not complete: " + received);
+        return received.get();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(DataStreamingBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,207 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the select loop of a single {@link ManagedSelector} with and without
+ * {@link SelectorManager#setOptimizeSelectedKeys(boolean) optimized selected keys}.</p>
+ * <p>Each benchmark invocation writes one byte on every loopback connection, so that
+ * many keys are selected at once, and waits until all the bytes have been read.</p>
+ * <p>Run with {@code -prof gc} to compare the allocation rate of the two modes.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class ManagedSelectorBenchmark
+{
+    @Param({"false", "true"})
+    public boolean optimizeSelectedKeys;
+
+    @Param({"16", "256"})
+    public int connections;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1);
+    private QueuedThreadPool threadPool;
+    private Scheduler scheduler;
+    private SelectorManager selectorManager;
+    private ServerSocketChannel acceptor;
+    private SocketChannel[] clients;
+    private long bytesWritten;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        threadPool = new QueuedThreadPool();
+        threadPool.start();
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+
+        selectorManager = new SelectorManager(threadPool, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey selectionKey)
+            {
+                SocketChannelEndPoint endPoint = new SocketChannelEndPoint((SocketChannel)channel, selector, selectionKey, getScheduler());
+                endPoint.setIdleTimeout(-1);
+                return endPoint;
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endPoint, Object attachment)
+            {
+                return new ReadConnection(endPoint);
+            }
+        };
+        selectorManager.setOptimizeSelectedKeys(optimizeSelectedKeys);
+        selectorManager.start();
+
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        clients = new SocketChannel[connections];
+        for (int i = 0; i < connections; ++i)
+        {
+            clients[i] = SocketChannel.open(acceptor.getLocalAddress());
+            clients[i].socket().setTcpNoDelay(true);
+            SocketChannel channel = acceptor.accept();
+            channel.configureBlocking(false);
+            selectorManager.accept(channel);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        for (SocketChannel client : clients)
+        {
+            IO.close(client);
+        }
+        acceptor.close();
+        selectorManager.stop();
+        scheduler.stop();
+        threadPool.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public long testSelect() throws IOException
+    {
+        for (SocketChannel client : clients)
+        {
+            writeBuffer.clear();
+            client.write(writeBuffer);
+        }
+        bytesWritten += clients.length;
+        while (bytesRead.get() < bytesWritten)
+        {
+            Thread.onSpinWait();
+        }
+        return bytesWritten;
+    }
+
+    private class ReadConnection extends AbstractConnection
+    {
+        private final ByteBuffer buffer = BufferUtil.allocateDirect(1024);
+
+        private ReadConnection(EndPoint endPoint)
+        {
+            super(endPoint, threadPool);
+        }
+
+        @Override
+        public void onOpen()
+        {
+            super.onOpen();
+            fillInterested();
+        }
+
+        @Override
+        public void onFillable()
+        {
+            try
+            {
+                while (true)
+                {
+                    BufferUtil.clear(buffer);
+                    int filled = getEndPoint().fill(buffer);
+                    if (filled > 0)
+                    {
+                        bytesRead.addAndGet(filled);
+                    }
+                    else
+                    {
+                        if (filled == 0)
+                            fillInterested();
+                        else
+                            getEndPoint().close();
+                        return;
+                    }
+                }
+            }
+            catch (IOException x)
+            {
+                getEndPoint().close(x);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ManagedSelectorBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,270 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures concurrent {@code fill()} and {@code flush()} calls on the
+ * {@link SslConnection.DecryptedEndPoint} of a loopback TLS connection,
+ * as performed by a reader thread and a writer thread of a multiplexed
+ * protocol such as HTTP/2.</p>
+ * <p>The peer of the connection is a blocking {@link SSLSocket} that
+ * continuously writes data and discards the data it reads.</p>
+ */
+@State(Scope.Group)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class SslConnectionBenchmark
+{
+    private final ByteBuffer fillBuffer = BufferUtil.allocateDirect(32 * 1024);
+    private final ByteBuffer flushBuffer = BufferUtil.toBuffer(new byte[4 * 1024]);
+    private QueuedThreadPool threadPool;
+    private Scheduler scheduler;
+    private SelectorManager selectorManager;
+    private SslContextFactory.Server serverTLS;
+    private SslContextFactory.Client clientTLS;
+    private ServerSocketChannel acceptor;
+    private SSLSocket peer;
+    private EndPoint endPoint;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        threadPool = new QueuedThreadPool();
+        threadPool.start();
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+
+        serverTLS = new SslContextFactory.Server();
+        Path keyStore = MavenTestingUtils.getProjectDirPath("../../jetty-io/src/test/resources/keystore.p12");
+        serverTLS.setKeyStorePath(keyStore.toString());
+        serverTLS.setKeyStorePassword("storepwd");
+        serverTLS.start();
+        clientTLS = new SslContextFactory.Client(true);
+        clientTLS.start();
+
+        ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+        CountDownLatch handshakeLatch = new CountDownLatch(1);
+        CompletableFuture<EndPoint> endPointFuture = new CompletableFuture<>();
+        selectorManager = new SelectorManager(threadPool, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey selectionKey)
+            {
+                return new SocketChannelEndPoint((SocketChannel)channel, selector, selectionKey, getScheduler());
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endPoint, Object attachment)
+            {
+                SSLEngine sslEngine = serverTLS.newSSLEngine();
+                sslEngine.setUseClientMode(false);
+                SslConnection sslConnection = new SslConnection(byteBufferPool, getExecutor(), endPoint, sslEngine);
+                sslConnection.addHandshakeListener(new SslHandshakeListener()
+                {
+                    @Override
+                    public void handshakeSucceeded(Event event)
+                    {
+                        handshakeLatch.countDown();
+                    }
+                });
+                EndPoint decryptedEndPoint = sslConnection.getDecryptedEndPoint();
+                decryptedEndPoint.setConnection(new AbstractConnection(decryptedEndPoint, getExecutor())
+                {
+                    @Override
+                    public void onFillable()
+                    {
+                        // The benchmark threads drive fill() and flush() directly.
+                    }
+                });
+                endPointFuture.complete(decryptedEndPoint);
+                return sslConnection;
+            }
+        };
+        selectorManager.start();
+
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        peer = (SSLSocket)clientTLS.getSslContext().getSocketFactory().createSocket(InetAddress.getLoopbackAddress(), acceptor.socket().getLocalPort());
+        SocketChannel channel = acceptor.accept();
+        channel.configureBlocking(false);
+        selectorManager.accept(channel);
+        endPoint = endPointFuture.get(5, TimeUnit.SECONDS);
+
+        // Start the peer: it handshakes, then writes and reads continuously.
+        threadPool.execute(() ->
+        {
+            try
+            {
+                peer.startHandshake();
+                threadPool.execute(this::peerRead);
+                OutputStream output = peer.getOutputStream();
+                byte[] bytes = new byte[16 * 1024];
+                while (true)
+                {
+                    output.write(bytes);
+                }
+            }
+            catch (IOException ignored)
+            {
+                // The connection has been closed.
+            }
+        });
+
+        // Drive the handshake from this side.
+        while (!handshakeLatch.await(1, TimeUnit.MILLISECONDS))
+        {
+            BufferUtil.clear(fillBuffer);
+            endPoint.fill(fillBuffer);
+        }
+    }
+
+    private void peerRead()
+    {
+        try
+        {
+            InputStream input = peer.getInputStream();
+            byte[] bytes = new byte[16 * 1024];
+            while (input.read(bytes) >= 0)
+            {
+                // Discard the bytes.
+            }
+        }
+        catch (IOException ignored)
+        {
+            // The connection has been closed.
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        // Close this side first, so that the peer blocked writing fails.
+        endPoint.close();
+        IO.close(peer);
+        acceptor.close();
+        selectorManager.stop();
+        clientTLS.stop();
+        serverTLS.stop();
+        scheduler.stop();
+        threadPool.stop();
+    }
+
+    @Benchmark
+    @Group("fill")
+    @BenchmarkMode({Mode.Throughput})
+    public int testFill() throws IOException
+    {
+        return fill();
+    }
+
+    @Benchmark
+    @Group("flush")
+    @BenchmarkMode({Mode.Throughput})
+    public boolean testFlush() throws IOException
+    {
+        return flush();
+    }
+
+    @Benchmark
+    @Group("fillAndFlush")
+    @GroupThreads(1)
+    @BenchmarkMode({Mode.Throughput})
+    public int testConcurrentFill() throws IOException
+    {
+        return fill();
+    }
+
+    @Benchmark
+    @Group("fillAndFlush")
+    @GroupThreads(1)
+    @BenchmarkMode({Mode.Throughput})
+    public boolean testConcurrentFlush() throws IOException
+    {
+        return flush();
+    }
+
+    private int fill() throws IOException
+    {
+        BufferUtil.clear(fillBuffer);
+        return endPoint.fill(fillBuffer);
+    }
+
+    private boolean flush() throws IOException
+    {
+        flushBuffer.position(0);
+        return endPoint.flush(flushBuffer);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(SslConnectionBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -16,16 +16,27 @@ package org.eclipse.jetty.requestlog.jmh;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jetty.server.AsyncRequestLogWriter;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.server.RequestLogWriter;
+import org.eclipse.jetty.server.RingBufferRequestLogWriter;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.TypeUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.profile.GCProfiler;
@@ -191,6 +202,79 @@ public class RequestLogBenchmark
         return logMethodHandle(Long.toString(ThreadLocalRandom.current().nextLong()));
     }
 
+    @State(Scope.Benchmark)
+    public static class WriterState
+    {
+        @Param({"ASYNC", "RING_DROP", "RING_BLOCK"})
+        public String writerType;
+
+        Path logDir;
+        RequestLogWriter writer;
+
+        @Setup(Level.Trial)
+        public void setupTrial() throws Exception
+        {
+            logDir = Files.createTempDirectory("requestlog");
+            String logFile = logDir.resolve("request.log").toString();
+            switch (writerType)
+            {
+                case "ASYNC":
+                    writer = new AsyncRequestLogWriter(logFile);
+                    break;
+
+                case "RING_DROP":
+                    writer = new RingBufferRequestLogWriter(logFile);
+                    break;
+
+                case "RING_BLOCK":
+                    RingBufferRequestLogWriter ringWriter = new RingBufferRequestLogWriter(logFile);
+                    ringWriter.setBlockWhenFull(true);
+                    writer = ringWriter;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown writerType Parameter");
+            }
+            writer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stopTrial() throws Exception
+        {
+            writer.stop();
+            if (writer instanceof RingBufferRequestLogWriter)
+            {
+                RingBufferRequestLogWriter ringWriter = (RingBufferRequestLogWriter)writer;
+                System.err.printf("written=%d dropped=%d blocked=%d%n", ringWriter.getWrittenEntries(), ringWriter.getDroppedEntries(), ringWriter.getBlockedEntries());
+            }
+            IO.delete(logDir.toFile());
+        }
+    }
+
+    public void logWriter(RequestLog.Writer writer, String request)
+    {
+        try
+        {
+            StringBuilder b = buffers.get();
+            b.setLength(0);
+            logHandle.invoke(b, request);
+            // Strip the trailing newline, as the writers append the line separator.
+            b.setLength(b.length() - 1);
+            writer.writeEntry(b);
+        }
+        catch (Throwable th)
+        {
+            throw new RuntimeException(th);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testWriter(WriterState state)
+    {
+        logWriter(state.writer, Long.toString(ThreadLocalRandom.current().nextLong()));
+    }
+
     public static void main(String[] args) throws RunnerException
     {
         Options opt = new OptionsBuilder()
@@ -0,0 +1,157 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets.jmh;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.servlets.DoSFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the per-request overhead of {@link DoSFilter} when requests
+ * come from large numbers of distinct clients, tracking the request rates
+ * either with rate trackers or with token buckets.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class DoSFilterBenchmark
+{
+    private static final FilterChain NOOP_CHAIN = (request, response) ->
+    {
+    };
+
+    @Param({"false", "true"})
+    public boolean tokenBucket;
+
+    @Param({"1000", "1000000"})
+    public int clients;
+
+    private DoSFilter filter;
+    private InetSocketAddress[] addresses;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        addresses = new InetSocketAddress[clients];
+        for (int i = 0; i < clients; ++i)
+        {
+            byte[] address = {10, (byte)(i >>> 16), (byte)(i >>> 8), (byte)i};
+            addresses[i] = new InetSocketAddress(InetAddress.getByAddress(address), 1024);
+        }
+
+        filter = new DoSFilter();
+        filter.init(new FilterConfig()
+        {
+            @Override
+            public String getFilterName()
+            {
+                return "dos";
+            }
+
+            @Override
+            public ServletContext getServletContext()
+            {
+                return null;
+            }
+
+            @Override
+            public String getInitParameter(String name)
+            {
+                if ("tokenBucket".equals(name))
+                    return String.valueOf(tokenBucket);
+                if ("maxTrackers".equals(name))
+                    return String.valueOf(clients);
+                return null;
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames()
+            {
+                return Collections.emptyEnumeration();
+            }
+        });
+        // Measure the tracking of the rates, not the actions taken when over the limit.
+        filter.setListener(new DoSFilter.Listener()
+        {
+            @Override
+            public DoSFilter.Action onRequestOverLimit(HttpServletRequest request, DoSFilter.OverLimit overlimit, DoSFilter dosFilter)
+            {
+                return DoSFilter.Action.NO_ACTION;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        filter.destroy();
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState
+    {
+        private final Request request = new Request(null, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Request testDoFilter(RequestState state) throws Exception
+    {
+        Request request = state.request;
+        request.setRemoteAddr(addresses[ThreadLocalRandom.current().nextInt(clients)]);
+        filter.doFilter(request, null, NOOP_CHAIN);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(DoSFilterBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .jvmArgs("-Xmx4g")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
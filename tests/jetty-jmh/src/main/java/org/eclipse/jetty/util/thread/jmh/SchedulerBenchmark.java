@@ -0,0 +1,130 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.TimingWheelScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Simulates the idle timeouts of many connections: each operation cancels
+ * the timeout of a random connection and schedules a new one, while the
+ * scheduler holds {@link #CONNECTIONS} pending timeouts.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class SchedulerBenchmark
+{
+    private static final Runnable NOOP = () -> {};
+
+    @Param({"SES", "WHEEL"})
+    public static String SCHEDULER;
+
+    @Param({"1000", "100000"})
+    public static int CONNECTIONS;
+
+    private Scheduler scheduler;
+    private Scheduler.Task[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        switch (SCHEDULER)
+        {
+            case "SES":
+            {
+                scheduler = new ScheduledExecutorScheduler();
+                break;
+            }
+            case "WHEEL":
+            {
+                scheduler = new TimingWheelScheduler();
+                break;
+            }
+            default:
+            {
+                throw new IllegalStateException();
+            }
+        }
+        LifeCycle.start(scheduler);
+        tasks = new Scheduler.Task[CONNECTIONS];
+        for (int i = 0; i < tasks.length; ++i)
+        {
+            tasks[i] = scheduler.schedule(NOOP, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        LifeCycle.stop(scheduler);
+        scheduler = null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(1)
+    public boolean testRescheduleFew()
+    {
+        return reschedule();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(8)
+    public boolean testRescheduleMany()
+    {
+        return reschedule();
+    }
+
+    private boolean reschedule()
+    {
+        // Races between threads on the same index only make some cancels fail.
+        int index = ThreadLocalRandom.current().nextInt(tasks.length);
+        boolean cancelled = tasks[index].cancel();
+        tasks[index] = scheduler.schedule(NOOP, 30, TimeUnit.SECONDS);
+        return cancelled;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(SchedulerBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
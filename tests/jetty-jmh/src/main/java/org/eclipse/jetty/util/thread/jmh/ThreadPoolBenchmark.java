@@ -46,10 +46,10 @@ public class ThreadPoolBenchmark
 {
     public enum Type
     {
-        QTP, ETP, LQTP, LETP, AQTP, AETP;
+        QTP, ETP, LQTP, LETP, AQTP, AETP, WSQTP;
     }
 
-    @Param({"QTP", "ETP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
+    @Param({"QTP", "ETP", "WSQTP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
     Type type;
 
     @Param({"200"})
@@ -57,6 +57,8 @@ public class ThreadPoolBenchmark
 
     ThreadPool pool;
 
+    private static final int JOBS = 16;
+
     @Setup // (Level.Iteration)
     public void buildPool()
     {
@@ -98,6 +100,15 @@ public class ThreadPoolBenchmark
                 pool = new ExecutorThreadPool(size, size, new ArrayBlockingQueue<>(32768));
                 break;
 
+            case WSQTP:
+            {
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, new BlockingArrayQueue<>(32768, 32768));
+                qtp.setReservedThreads(0);
+                qtp.setWorkStealing(true);
+                pool = qtp;
+                break;
+            }
+
             default:
                 throw new IllegalStateException();
         }
@@ -128,6 +139,21 @@ public class ThreadPoolBenchmark
         doJob();
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(Threads.MAX)
+    public void testProducerConsumer() throws Exception
+    {
+        // One producer per core, each executing jobs that in turn execute
+        // jobs from within the pool, as selectors dispatching to connections.
+        CountDownLatch latch = new CountDownLatch(JOBS);
+        for (int i = 0; i < JOBS; i++)
+        {
+            pool.execute(() -> pool.execute(latch::countDown));
+        }
+        latch.await();
+    }
+
     @TearDown // (Level.Iteration)
     public void shutdownPool()
     {
@@ -0,0 +1,149 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Utf8StringBuilder;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.internal.Generator;
+import org.eclipse.jetty.websocket.core.internal.NullAppendable;
+import org.eclipse.jetty.websocket.core.internal.util.FrameMasking;
+import org.eclipse.jetty.websocket.core.internal.util.Utf8Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class WebSocketFrameBenchmark
+{
+    @Param({"64", "4096", "1048576"})
+    public static int FRAME_SIZE;
+
+    @Param({"heap", "direct"})
+    public static String BUFFER_TYPE;
+
+    private final Generator generator = new Generator();
+    private final byte[] mask = new byte[4];
+    private ByteBuffer payload;
+    private ByteBuffer output;
+    private Frame frame;
+
+    @Setup
+    public void setUp()
+    {
+        ThreadLocalRandom.current().nextBytes(mask);
+        boolean direct = "direct".equals(BUFFER_TYPE);
+        // Mostly ASCII text, with a 2 bytes UTF-8 sequence every 64 bytes.
+        byte[] bytes = new byte[FRAME_SIZE];
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            bytes[i] = (byte)('a' + i % 26);
+        }
+        for (int i = 62; i < bytes.length; i += 64)
+        {
+            bytes[i] = (byte)0xC3;
+            bytes[i + 1] = (byte)0xA9;
+        }
+        payload = direct ? BufferUtil.allocateDirect(FRAME_SIZE) : BufferUtil.allocate(FRAME_SIZE);
+        BufferUtil.append(payload, bytes, 0, bytes.length);
+        output = direct ? BufferUtil.allocateDirect(FRAME_SIZE) : BufferUtil.allocate(FRAME_SIZE);
+        frame = new Frame(OpCode.TEXT).setPayload(payload);
+        frame.setMask(mask);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ByteBuffer testMaskCopy()
+    {
+        BufferUtil.clear(output);
+        generator.generatePayload(frame, output);
+        return output;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ByteBuffer testMaskInPlace()
+    {
+        FrameMasking.mask(mask, payload);
+        return payload;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public boolean testValidateUtf8()
+    {
+        NullAppendable utf8 = new NullAppendable();
+        utf8.append(payload.slice());
+        return utf8.isUtf8SequenceComplete();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public boolean testValidateUtf8FastPath()
+    {
+        NullAppendable utf8 = new NullAppendable();
+        Utf8Utils.append(utf8, payload.slice());
+        return utf8.isUtf8SequenceComplete();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public String testDecodeUtf8()
+    {
+        Utf8StringBuilder utf8 = new Utf8StringBuilder(FRAME_SIZE);
+        utf8.append(payload.slice());
+        return utf8.toString();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public String testDecodeUtf8FastPath()
+    {
+        Utf8StringBuilder utf8 = new Utf8StringBuilder(FRAME_SIZE);
+        Utf8Utils.append(utf8, payload.slice());
+        return utf8.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(WebSocketFrameBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
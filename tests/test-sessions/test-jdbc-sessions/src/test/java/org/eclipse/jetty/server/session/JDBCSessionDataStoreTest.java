@@ -13,11 +13,23 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * JDBCSessionDataStoreTest
  */
@@ -89,4 +101,143 @@ public class JDBCSessionDataStoreTest extends AbstractSessionDataStoreTest
             Thread.currentThread().setContextClassLoader(old);
         }
     }
+
+    private JDBCSessionDataStore newSessionDataStore(String workerName, int pageSize, int leaseSec) throws Exception
+    {
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/test");
+        context.setClassLoader(_contextClassLoader);
+        JDBCSessionDataStoreFactory factory = (JDBCSessionDataStoreFactory)createSessionDataStoreFactory();
+        factory.setGracePeriodSec(GRACE_PERIOD_SEC);
+        factory.setScavengePageSize(pageSize);
+        factory.setScavengeLeaseSec(leaseSec);
+        JDBCSessionDataStore store = (JDBCSessionDataStore)factory.getSessionDataStore(context.getSessionHandler());
+        store.initialize(new SessionContext(workerName, context.getServletContext()));
+        store.start();
+        return store;
+    }
+
+    @Test
+    public void testStoreAll() throws Exception
+    {
+        JDBCSessionDataStore store = newSessionDataStore("foo", 1000, 0);
+        long now = System.currentTimeMillis();
+        Map<String, SessionData> sessions = new LinkedHashMap<>();
+        for (int i = 0; i < 3; ++i)
+        {
+            SessionData data = store.newSessionData("batch" + i, now, now, now - 1, TimeUnit.MINUTES.toMillis(60));
+            data.setLastNode("foo");
+            data.setExpiry(now + TimeUnit.MINUTES.toMillis(60));
+            data.setAttribute("a", "value" + i);
+            sessions.put(data.getId(), data);
+        }
+
+        //all sessions are new, so they are inserted
+        store.storeAll(sessions);
+        for (SessionData data : sessions.values())
+        {
+            assertTrue(data.getLastSaved() > 0);
+            assertFalse(data.isDirty());
+            assertTrue(checkSessionPersisted(data));
+        }
+
+        //modify one session, all are updated
+        sessions.get("batch1").setAttribute("a", "changed");
+        sessions.values().forEach(data -> data.setDirty(true));
+        store.storeAll(sessions);
+        for (SessionData data : sessions.values())
+        {
+            assertTrue(checkSessionPersisted(data));
+        }
+        store.stop();
+    }
+
+    @Test
+    public void testGetExpiredInPages() throws Exception
+    {
+        JDBCSessionDataStore store = newSessionDataStore("foo", 2, 0);
+
+        //persist sessions expired long ago, managed by another node, some with the same expiry
+        for (int i = 0; i < 5; ++i)
+        {
+            SessionData data = store.newSessionData("page" + i, 100, 101, 100, TimeUnit.MINUTES.toMillis(60));
+            data.setExpiry(i < 3 ? 200 : 200 + i);
+            data.setLastNode("other");
+            persistSession(data);
+        }
+
+        //persist a session that has not expired
+        long now = System.currentTimeMillis();
+        SessionData unexpired = store.newSessionData("page5", 100, now, now, TimeUnit.MINUTES.toMillis(60));
+        unexpired.setExpiry(now + TimeUnit.MINUTES.toMillis(10));
+        unexpired.setLastNode("other");
+        persistSession(unexpired);
+
+        Set<String> expired = store.doGetExpired(now);
+        assertThat(expired, containsInAnyOrder("page0", "page1", "page2", "page3", "page4"));
+        assertEquals(5, store.getScavengeRowsFound());
+        store.stop();
+    }
+
+    @Test
+    public void testCleanOrphansInBatches() throws Exception
+    {
+        JDBCSessionDataStore store = newSessionDataStore("foo", 2, 0);
+
+        SessionData[] orphans = new SessionData[5];
+        for (int i = 0; i < orphans.length; ++i)
+        {
+            orphans[i] = store.newSessionData("orphan" + i, 100, 101, 100, TimeUnit.MINUTES.toMillis(60));
+            orphans[i].setContextPath("_other");
+            orphans[i].setExpiry(200);
+            orphans[i].setLastNode("other");
+            persistSession(orphans[i]);
+        }
+
+        long now = System.currentTimeMillis();
+        SessionData unexpired = store.newSessionData("orphan5", 100, now, now, TimeUnit.MINUTES.toMillis(60));
+        unexpired.setContextPath("_other");
+        unexpired.setExpiry(now + TimeUnit.MINUTES.toMillis(10));
+        unexpired.setLastNode("other");
+        persistSession(unexpired);
+
+        store.doCleanOrphans(now);
+        for (SessionData orphan : orphans)
+        {
+            assertFalse(checkSessionExists(orphan));
+        }
+        assertTrue(checkSessionExists(unexpired));
+        assertEquals(5, store.getScavengeRowsDeleted());
+        store.stop();
+    }
+
+    @Test
+    public void testScavengeLease() throws Exception
+    {
+        JDBCSessionDataStore store1 = newSessionDataStore("node1", 1000, 60);
+        JDBCSessionDataStore store2 = newSessionDataStore("node2", 1000, 60);
+
+        //the first node to try acquires the lease, and keeps it
+        store1.getExpired(Set.of());
+        store2.getExpired(Set.of());
+        assertTrue(store1.isScavengeLeader());
+        assertFalse(store2.isScavengeLeader());
+        store1.getExpired(Set.of());
+        assertTrue(store1.isScavengeLeader());
+        assertEquals(2, store1.getScavengeCount());
+
+        //the non leader does not look for sessions expired long ago
+        SessionData data = store2.newSessionData("lease0", 100, 101, 100, TimeUnit.MINUTES.toMillis(60));
+        data.setExpiry(200);
+        data.setLastNode("other");
+        persistSession(data);
+        assertTrue(store2.doGetExpired(System.currentTimeMillis()).isEmpty());
+        assertThat(store1.doGetExpired(System.currentTimeMillis()), containsInAnyOrder("lease0"));
+
+        //the lease is released on stop, and taken over
+        store1.stop();
+        store2.getExpired(Set.of());
+        assertTrue(store2.isScavengeLeader());
+        store2.stop();
+    }
 }
@@ -55,6 +55,7 @@ public class JdbcTestHelper
     public static final String MAP_COL = "mo";
     public static final String MAX_IDLE_COL = "mi";
     public static final String TABLE = "mysessions";
+    public static final String LEASE_TABLE = "mysessionleases";
     public static final String ID_COL = "mysessionid";
     public static final String ACCESS_COL = "atime";
     public static final String CONTEXT_COL = "cpath";
@@ -100,6 +101,7 @@ public class JdbcTestHelper
         try (Connection connection = getConnection())
         {
             connection.prepareStatement("truncate table " + TABLE).executeUpdate();
+            connection.prepareStatement("drop table if exists " + LEASE_TABLE).executeUpdate();
         }
     }
 
@@ -138,6 +140,7 @@ public class JdbcTestHelper
     {
         JDBCSessionDataStore.SessionTableSchema sessionTableSchema = new JDBCSessionDataStore.SessionTableSchema();
         sessionTableSchema.setTableName(TABLE);
+        sessionTableSchema.setLeaseTableName(LEASE_TABLE);
         sessionTableSchema.setIdColumn(ID_COL);
         sessionTableSchema.setAccessTimeColumn(ACCESS_COL);
         sessionTableSchema.setContextPathColumn(CONTEXT_COL);
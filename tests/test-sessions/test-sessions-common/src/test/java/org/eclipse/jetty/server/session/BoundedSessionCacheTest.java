@@ -0,0 +1,337 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BoundedSessionCacheTest
+ */
+public class BoundedSessionCacheTest extends AbstractSessionCacheTest
+{
+    @Override
+    public AbstractSessionCacheFactory newSessionCacheFactory(int evictionPolicy, boolean saveOnCreate,
+                                                              boolean saveOnInactiveEvict, boolean removeUnloadableSessions,
+                                                              boolean flushOnResponseCommit)
+    {
+        BoundedSessionCacheFactory factory = new BoundedSessionCacheFactory();
+        factory.setEvictionPolicy(evictionPolicy);
+        factory.setSaveOnCreate(saveOnCreate);
+        factory.setSaveOnInactiveEvict(saveOnInactiveEvict);
+        factory.setRemoveUnloadableSessions(removeUnloadableSessions);
+        factory.setFlushOnResponseCommit(flushOnResponseCommit);
+        return factory;
+    }
+
+    @Override
+    public void checkSessionBeforeShutdown(String id,
+                                           SessionDataStore store,
+                                           SessionCache cache,
+                                           TestSessionActivationListener activationListener,
+                                           TestHttpSessionListener sessionListener) throws Exception
+    {
+        assertTrue(store.exists(id));
+        assertTrue(cache.contains(id));
+        assertFalse(sessionListener.destroyedSessions.contains(id));
+        assertEquals(1, activationListener.passivateCalls);
+        assertEquals(1, activationListener.activateCalls);
+    }
+
+    @Override
+    public void checkSessionAfterShutdown(String id,
+                                          SessionDataStore store,
+                                          SessionCache cache,
+                                          TestSessionActivationListener activationListener,
+                                          TestHttpSessionListener sessionListener) throws Exception
+    {
+        if (cache.isInvalidateOnShutdown())
+        {
+            assertFalse(store.exists(id));
+            assertFalse(cache.contains(id));
+            assertTrue(sessionListener.destroyedSessions.contains(id));
+        }
+        else
+        {
+            assertTrue(store.exists(id));
+            assertFalse(cache.contains(id));
+            assertEquals(2, activationListener.passivateCalls);
+            assertEquals(1, activationListener.activateCalls); //no re-activate on shutdown
+        }
+    }
+
+    private BoundedSessionCache newBoundedSessionCache(ServletContextHandler context, SessionDataStore store, BoundedSessionCacheFactory cacheFactory) throws Exception
+    {
+        BoundedSessionCache cache = (BoundedSessionCache)cacheFactory.getSessionCache(context.getSessionHandler());
+        cache.setSessionDataStore(store);
+        context.getSessionHandler().setSessionCache(cache);
+        context.start();
+        return cache;
+    }
+
+    private ServletContextHandler newContext()
+    {
+        Server server = new Server();
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/test");
+        context.setServer(server);
+        return context;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() - deadline < 0, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private Session addAndRelease(SessionCache cache, SessionDataStore store, String id) throws Exception
+    {
+        long now = System.currentTimeMillis();
+        SessionData data = store.newSessionData(id, now - 20, now - 10, now - 20, TimeUnit.MINUTES.toMillis(10));
+        data.setExpiry(now + TimeUnit.DAYS.toMillis(1));
+        Session session = cache.newSession(data);
+        cache.add(id, session);
+        cache.release(id, session);
+        return session;
+    }
+
+    @Test
+    public void testPassivateLeastRecentlyUsed() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(2);
+        cacheFactory.setShards(1);
+        TestSessionDataStore store = new TestSessionDataStore(true);
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        Session session1 = addAndRelease(cache, store, "1");
+        Session session2 = addAndRelease(cache, store, "2");
+
+        //use session 1, so that session 2 is the least recently used
+        Session session = cache.get("1");
+        cache.release("1", session);
+        assertEquals(1, cache.getHits());
+
+        addAndRelease(cache, store, "3");
+        await(() -> cache.getPassivations() == 1);
+        assertEquals(2, cache.getSessionsCurrent());
+        assertTrue(cache.contains("1"));
+        assertFalse(cache.contains("2"));
+        assertTrue(cache.contains("3"));
+        assertFalse(session2.isResident());
+        assertTrue(session1.isResident());
+        assertTrue(store.exists("2"));
+
+        //the passivated session is reloaded from the store, passivating session 1
+        session = cache.get("2");
+        assertNotNull(session);
+        assertNotSame(session2, session);
+        assertEquals(1, cache.getMisses());
+        cache.release("2", session);
+        await(() -> cache.getPassivations() == 2);
+        assertFalse(cache.contains("1"));
+        assertTrue(cache.contains("2"));
+        assertTrue(cache.contains("3"));
+    }
+
+    @Test
+    public void testPassivateLeastFrequentlyUsed() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(2);
+        cacheFactory.setShards(1);
+        cacheFactory.setPassivationPolicy(BoundedSessionCache.PassivationPolicy.LFU);
+        TestSessionDataStore store = new TestSessionDataStore();
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        addAndRelease(cache, store, "1");
+        for (int i = 0; i < 3; ++i)
+        {
+            Session session = cache.get("1");
+            cache.release("1", session);
+        }
+
+        //session 1 is the least recently used, but the most frequently used
+        addAndRelease(cache, store, "2");
+        addAndRelease(cache, store, "3");
+        await(() -> cache.getPassivations() == 1);
+        assertTrue(cache.contains("1"));
+        assertFalse(cache.contains("2"));
+        assertTrue(cache.contains("3"));
+    }
+
+    @Test
+    public void testSessionInUseNotPassivated() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(1);
+        TestSessionDataStore store = new TestSessionDataStore();
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        long now = System.currentTimeMillis();
+        SessionData data1 = store.newSessionData("1", now - 20, now - 10, now - 20, TimeUnit.MINUTES.toMillis(10));
+        Session session1 = cache.newSession(data1);
+        cache.add("1", session1);
+        SessionData data2 = store.newSessionData("2", now - 20, now - 10, now - 20, TimeUnit.MINUTES.toMillis(10));
+        Session session2 = cache.newSession(data2);
+        cache.add("2", session2);
+
+        //both sessions are in use by requests
+        assertEquals(2, cache.getSessionsCurrent());
+        assertEquals(0, cache.getPassivations());
+
+        //the first request to exit passivates its session
+        cache.release("1", session1);
+        await(() -> cache.getPassivations() == 1);
+        assertEquals(1, cache.getSessionsCurrent());
+        assertFalse(cache.contains("1"));
+        assertTrue(cache.contains("2"));
+        assertTrue(store.exists("1"));
+    }
+
+    @Test
+    public void testMaxSessionBytes() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessionBytes(2500);
+        TestSessionDataStore store = new TestSessionDataStore();
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        addAndRelease(cache, store, "1");
+        addAndRelease(cache, store, "2");
+        assertEquals(0, cache.getPassivations());
+        long sessionBytes = cache.getSessionBytes();
+        assertTrue(sessionBytes > 0);
+
+        //grow session 2 during a request, exceeding the bound
+        Session session = cache.get("2");
+        session.setAttribute("big", new byte[2048]);
+        cache.release("2", session);
+        await(() -> cache.getPassivations() == 1);
+        assertTrue(cache.getSessionBytes() <= 2500);
+        assertFalse(cache.contains("1"));
+        assertTrue(cache.contains("2"));
+    }
+
+    @Test
+    public void testLockedSessionNotPassivated() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(1);
+        cacheFactory.setShards(1);
+        TestSessionDataStore store = new TestSessionDataStore();
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        Session session1 = addAndRelease(cache, store, "1");
+
+        //another thread holds the lock of the least recently used session
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch unlock = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try (AutoLock l = session1.lock())
+            {
+                locked.countDown();
+                unlock.await();
+            }
+            catch (InterruptedException x)
+            {
+                throw new RuntimeException(x);
+            }
+        });
+        thread.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        //the locked session is skipped, rather than waited for
+        addAndRelease(cache, store, "2");
+        await(() -> cache.getPassivations() == 1);
+        assertTrue(cache.contains("1"));
+        assertFalse(cache.contains("2"));
+
+        unlock.countDown();
+        thread.join();
+    }
+
+    @Test
+    public void testPassivateExcessSessions() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(10);
+        TestSessionDataStore store = new TestSessionDataStore(true);
+        BoundedSessionCache cache = newBoundedSessionCache(context, store, cacheFactory);
+
+        //add many more sessions than the bound, spread over all the shards
+        for (int i = 0; i < 100; ++i)
+        {
+            addAndRelease(cache, store, String.valueOf(i));
+        }
+        await(() -> cache.getSessionsCurrent() == 10);
+        assertEquals(90, cache.getPassivations());
+        for (int i = 0; i < 100; ++i)
+        {
+            //every session is either resident or has been passivated to the store
+            String id = String.valueOf(i);
+            assertTrue(cache.contains(id) || store.exists(id));
+        }
+    }
+
+    @Test
+    public void testNoSchedulerFailsStart() throws Exception
+    {
+        ServletContextHandler context = newContext();
+        context.setSessionHandler(new SessionHandler()
+        {
+            @Override
+            public Scheduler getScheduler()
+            {
+                return null;
+            }
+        });
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setMaxSessions(10);
+
+        //without a scheduler the bound could not be enforced
+        assertThrows(IllegalStateException.class, () -> newBoundedSessionCache(context, new TestSessionDataStore(), cacheFactory));
+    }
+}
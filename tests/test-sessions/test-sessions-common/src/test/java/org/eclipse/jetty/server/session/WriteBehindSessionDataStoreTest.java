@@ -0,0 +1,341 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * WriteBehindSessionDataStoreTest
+ */
+public class WriteBehindSessionDataStoreTest
+{
+    private ServletContextHandler context;
+    private TestSessionDataStore delegate;
+    private WriteBehindSessionDataStore store;
+
+    @BeforeEach
+    public void before()
+    {
+        Server server = new Server();
+        context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/test");
+        context.setServer(server);
+        delegate = new TestSessionDataStore();
+        store = new WriteBehindSessionDataStore(delegate);
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        context.stop();
+    }
+
+    private void start() throws Exception
+    {
+        DefaultSessionCache cache = new DefaultSessionCache(context.getSessionHandler());
+        cache.setSessionDataStore(store);
+        context.getSessionHandler().setSessionCache(cache);
+        context.start();
+    }
+
+    private SessionData newSessionData(String id)
+    {
+        long now = System.currentTimeMillis();
+        SessionData data = store.newSessionData(id, now - 20, now - 10, now - 20, TimeUnit.MINUTES.toMillis(10));
+        data.setExpiry(now + TimeUnit.DAYS.toMillis(1));
+        data.setAttribute("name", id);
+        return data;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() - deadline < 0, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testUpdatesAreCoalesced() throws Exception
+    {
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        SessionData data = newSessionData("1");
+        store.store("1", data);
+        data.setAttribute("count", 1);
+        store.store("1", data);
+        data.setAttribute("count", 2);
+        store.store("1", data);
+
+        //nothing written yet, but a copy of the queued data is visible
+        assertEquals(0, delegate._numSaves.get());
+        SessionData loaded = store.load("1");
+        assertNotSame(data, loaded);
+        assertEquals(2, loaded.getAttribute("count"));
+        assertTrue(store.exists("1"));
+        assertEquals(1, store.getPendingCount());
+        assertEquals(2, store.getCoalescedCount());
+
+        store.flush();
+        assertEquals(1, delegate._numSaves.get());
+        assertEquals(0, store.getPendingCount());
+        assertEquals(1, store.getFlushedCount());
+        assertEquals(2, delegate._map.get("1").getAttribute("count"));
+        assertFalse(data.isDirty());
+        assertTrue(data.getLastSaved() > 0);
+    }
+
+    @Test
+    public void testWrittenAfterWindow() throws Exception
+    {
+        store.setWindowMs(100);
+        start();
+
+        store.store("1", newSessionData("1"));
+        await(() -> delegate._map.containsKey("1"));
+        assertEquals(1, store.getBatchCount());
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    public void testWrittenAfterMaxDelay() throws Exception
+    {
+        store.setWindowMs(500);
+        store.setMaxDelayMs(1000);
+        start();
+
+        //keep updating the session, so that the window never elapses
+        SessionData data = newSessionData("1");
+        long start = System.nanoTime();
+        while (!delegate._map.containsKey("1"))
+        {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000, "Timed out");
+            data.setAttribute("time", System.nanoTime());
+            store.store("1", data);
+            Thread.sleep(50);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 900);
+    }
+
+    @Test
+    public void testFullBatchWrittenWithoutWaiting() throws Exception
+    {
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxBatchSize(3);
+        start();
+
+        store.store("1", newSessionData("1"));
+        store.store("2", newSessionData("2"));
+        assertEquals(0, delegate._numSaves.get());
+        store.store("3", newSessionData("3"));
+        await(() -> delegate._numSaves.get() == 3);
+        assertEquals(1, store.getBatchCount());
+    }
+
+    @Test
+    public void testDeleteRemovesQueuedData() throws Exception
+    {
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        store.store("1", newSessionData("1"));
+        assertTrue(store.delete("1"));
+        assertNull(store.load("1"));
+        assertFalse(store.exists("1"));
+        store.flush();
+        assertEquals(0, delegate._numSaves.get());
+    }
+
+    @Test
+    public void testQueuedDataNotExpired() throws Exception
+    {
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        //the delegate holds expired data for the session
+        SessionData data = newSessionData("1");
+        data.setExpiry(System.currentTimeMillis() - 1000);
+        store.store("1", data);
+        store.flush();
+
+        //the session is used again, but its new expiry is only queued
+        data.setExpiry(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        data.setMetaDataDirty(true);
+        store.store("1", data);
+
+        Set<String> expired = store.getExpired(new HashSet<>(Collections.singleton("1")));
+        assertFalse(expired.contains("1"));
+    }
+
+    @Test
+    public void testFailedBatchIsRetried() throws Exception
+    {
+        delegate = new TestSessionDataStore()
+        {
+            boolean fail = true;
+
+            @Override
+            public void doStoreAll(Map<String, SessionData> sessions, Map<String, Long> lastSaveTimes) throws Exception
+            {
+                if (fail)
+                {
+                    fail = false;
+                    throw new Exception("test");
+                }
+                super.doStoreAll(sessions, lastSaveTimes);
+            }
+        };
+        store = new WriteBehindSessionDataStore(delegate);
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        SessionData data = newSessionData("1");
+        store.store("1", data);
+        assertThrows(Exception.class, store::flush);
+        assertEquals(1, store.getFailureCount());
+        assertEquals(1, store.getPendingCount());
+
+        //the session is used again, the failed update must not be lost
+        data.setAttribute("count", 1);
+        store.store("1", data);
+
+        store.flush();
+        assertEquals(1, delegate._numSaves.get());
+        assertEquals(0, store.getPendingCount());
+        assertEquals("1", delegate._map.get("1").getAttribute("name"));
+        assertEquals(1, delegate._map.get("1").getAttribute("count"));
+    }
+
+    @Test
+    public void testModifiedWhileWritten() throws Exception
+    {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch modified = new CountDownLatch(1);
+        delegate = new TestSessionDataStore()
+        {
+            @Override
+            public void doStoreAll(Map<String, SessionData> sessions, Map<String, Long> lastSaveTimes) throws Exception
+            {
+                writing.countDown();
+                assertTrue(modified.await(5, TimeUnit.SECONDS));
+                for (SessionData data : sessions.values())
+                {
+                    //serialize the attributes like a real store would
+                    try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream()))
+                    {
+                        SessionData.serializeAttributes(data, out);
+                    }
+                }
+                super.doStoreAll(sessions, lastSaveTimes);
+            }
+        };
+        store = new WriteBehindSessionDataStore(delegate);
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        SessionHandler handler = context.getSessionHandler();
+        Session session = handler.getSessionCache().newSession(null, "1234", System.currentTimeMillis(), TimeUnit.MINUTES.toMillis(10));
+        handler.getSessionCache().add("1234", session);
+        session.setAttribute("count", 1);
+        handler.getSessionCache().release("1234", session);
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(() ->
+        {
+            try
+            {
+                store.flush();
+            }
+            catch (IOException x)
+            {
+                throw new CompletionException(x);
+            }
+        });
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        //a request modifies the session while it is being written
+        handler.getSessionCache().get("1234");
+        for (int i = 0; i < 100; ++i)
+        {
+            session.setAttribute("attribute" + i, i);
+        }
+        session.setAttribute("count", 2);
+        modified.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+
+        //the write did not see the modifications, nor cleaned them
+        SessionData written = delegate._map.get("1234");
+        assertEquals(1, written.getAttribute("count"));
+        assertNull(written.getAttribute("attribute0"));
+        assertTrue(session.getSessionData().isDirty());
+
+        handler.getSessionCache().release("1234", session);
+        store.flush();
+        written = delegate._map.get("1234");
+        assertEquals(2, written.getAttribute("count"));
+        assertEquals(99, written.getAttribute("attribute99"));
+        assertEquals(2, delegate._numSaves.get());
+    }
+
+    @Test
+    public void testFlushedOnShutdown() throws Exception
+    {
+        store.setWindowMs(TimeUnit.HOURS.toMillis(1));
+        store.setMaxDelayMs(TimeUnit.HOURS.toMillis(1));
+        start();
+
+        SessionHandler handler = context.getSessionHandler();
+        Session session = handler.getSessionCache().newSession(null, "1234", System.currentTimeMillis(), TimeUnit.MINUTES.toMillis(10));
+        handler.getSessionCache().add("1234", session);
+        session.setAttribute("name", "value");
+        handler.getSessionCache().release("1234", session);
+        assertEquals(0, delegate._numSaves.get());
+
+        context.stop();
+        assertTrue(delegate._map.containsKey("1234"));
+        assertEquals("value", delegate._map.get("1234").getAttribute("name"));
+    }
+}